@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.tfcode.comparetout.model.importers.IntervalRow;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRollup;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+import com.tfcode.comparetout.model.importers.alphaess.KPIRow;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The period aggregates read the hourly and daily rollups; they must give what the same
+ * queries gave over the 5-minute rows. Each rollup query is checked against the original
+ * raw-table query, both after the incremental refresh on write and after a full
+ * {@link AlphaESSRollup#REBUILD_SQL} rebuild. The rollups store TOTAL() (never NULL) and the
+ * readers sum() them, so a range without data reads NULL, exactly as sum() over no raw rows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AlphaESSRollupTest {
+
+    private static final String SN = "AL1";
+    private static final String OTHER_SN = "AL2";
+    private static final String FROM = "2023-12-30";
+    private static final String TO = "2024-01-02";
+    private static final double DELTA = 1e-9;
+
+    // The aggregate columns of the raw-table queries the rollups replaced
+    private static final String RAW_TOTALS = "SELECT sum(pv) as PV, sum(load) AS LOAD, sum(feed) AS FEED, sum(buy) AS BUY, " +
+            "sum(pv2bat) AS PV2BAT, sum(pv2load) AS PV2LOAD, sum(bat2load) AS BAT2LOAD, sum(grid2bat) AS GRID2BAT, " +
+            "sum(pv2grid) AS PV2GRID, sum(grid2load) AS GRID2LOAD, sum(evActual) AS EV_ACTUAL, " +
+            "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
+            "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
+            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, " +
+            "ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, ";
+    private static final String RAW_WHERE = " AS INTERVAL FROM alphaESSTransformedData " +
+            "WHERE date >= ? AND date <= ? AND sysSn = ? GROUP BY INTERVAL ORDER BY INTERVAL";
+    private static final String[] COLUMNS = {"PV", "LOAD", "FEED", "BUY", "PV2BAT", "PV2LOAD", "BAT2LOAD",
+            "GRID2BAT", "PV2GRID", "GRID2LOAD", "EV_ACTUAL", "HW_ACTUAL", "HP_ACTUAL", "BAT_CHARGE_IN",
+            "BAT_DISCHARGE_OUT", "BAT2GRID", "BAT_CHARGE", "BAT_DISCHARGE"};
+
+    private ToutcDB toutcDB;
+    private AlphaEssDAO alphaEssDAO;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        toutcDB = Room.inMemoryDatabaseBuilder(context, ToutcDB.class)
+                .allowMainThreadQueries()
+                .build();
+        alphaEssDAO = toutcDB.alphaEssDAO();
+        // Across a year end, with charging and discharging, plus a second source that must not leak in
+        alphaEssDAO.addTransformedData(rows(SN, LocalDate.of(2023, 12, 30), 4, 7L));
+        alphaEssDAO.addTransformedData(rows(OTHER_SN, LocalDate.of(2023, 12, 31), 2, 11L));
+    }
+
+    @After
+    public void tearDown() {
+        toutcDB.close();
+    }
+
+    private static List<AlphaESSTransformedData> rows(String sysSn, LocalDate start, int days, long seed) {
+        Random random = new Random(seed);
+        List<AlphaESSTransformedData> rows = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            String date = start.plusDays(d).toString();
+            for (int mod = 0; mod < 1440; mod += 5) {
+                AlphaESSTransformedData row = new AlphaESSTransformedData();
+                row.setSysSn(sysSn);
+                row.setDate(date);
+                row.setMinute(String.format("%02d:%02d", mod / 60, mod % 60));
+                row.setMillisSinceEpoch(0L);
+                row.setPv(random.nextDouble());
+                row.setLoad(random.nextDouble());
+                row.setFeed(random.nextDouble() / 4);
+                row.setBuy(random.nextDouble() / 2);
+                row.setPv2bat(random.nextDouble() / 8);
+                row.setPv2load(random.nextDouble() / 3);
+                row.setBat2load(random.nextDouble() / 5);
+                row.setGrid2bat(random.nextDouble() / 9);
+                row.setPv2grid(random.nextDouble() / 6);
+                row.setGrid2load(random.nextDouble() / 2);
+                row.setEvActual(random.nextDouble() / 7);
+                row.setHwActual(random.nextDouble() / 10);
+                row.setHpActual(random.nextDouble() / 11);
+                row.setBatChargeIn(random.nextDouble() / 12);
+                row.setBatDischargeOut(random.nextDouble() / 13);
+                row.setBat2grid(random.nextDouble() / 14);
+                // Some slots idle, the rest charging or discharging
+                row.setCharge((mod % 15 == 0) ? 0D : random.nextDouble() - 0.5);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<IntervalRow> raw(String interval, String from, String to) {
+        List<IntervalRow> out = new ArrayList<>();
+        try (Cursor cursor = toutcDB.query(new SimpleSQLiteQuery(RAW_TOTALS + interval + RAW_WHERE,
+                new Object[]{from, to, SN}))) {
+            while (cursor.moveToNext()) {
+                IntervalRow row = new IntervalRow();
+                row.pv = cursor.getDouble(cursor.getColumnIndexOrThrow("PV"));
+                row.load = cursor.getDouble(cursor.getColumnIndexOrThrow("LOAD"));
+                row.feed = cursor.getDouble(cursor.getColumnIndexOrThrow("FEED"));
+                row.buy = cursor.getDouble(cursor.getColumnIndexOrThrow("BUY"));
+                row.pv2bat = cursor.getDouble(cursor.getColumnIndexOrThrow("PV2BAT"));
+                row.pv2load = cursor.getDouble(cursor.getColumnIndexOrThrow("PV2LOAD"));
+                row.bat2load = cursor.getDouble(cursor.getColumnIndexOrThrow("BAT2LOAD"));
+                row.grid2bat = cursor.getDouble(cursor.getColumnIndexOrThrow("GRID2BAT"));
+                row.pv2grid = cursor.getDouble(cursor.getColumnIndexOrThrow("PV2GRID"));
+                row.grid2load = cursor.getDouble(cursor.getColumnIndexOrThrow("GRID2LOAD"));
+                row.evActual = cursor.getDouble(cursor.getColumnIndexOrThrow("EV_ACTUAL"));
+                row.hwActual = cursor.getDouble(cursor.getColumnIndexOrThrow("HW_ACTUAL"));
+                row.hpActual = cursor.getDouble(cursor.getColumnIndexOrThrow("HP_ACTUAL"));
+                row.batChargeIn = cursor.getDouble(cursor.getColumnIndexOrThrow("BAT_CHARGE_IN"));
+                row.batDischargeOut = cursor.getDouble(cursor.getColumnIndexOrThrow("BAT_DISCHARGE_OUT"));
+                row.bat2grid = cursor.getDouble(cursor.getColumnIndexOrThrow("BAT2GRID"));
+                row.batCharge = cursor.getDouble(cursor.getColumnIndexOrThrow("BAT_CHARGE"));
+                row.batDischarge = cursor.getDouble(cursor.getColumnIndexOrThrow("BAT_DISCHARGE"));
+                row.interval = cursor.getString(cursor.getColumnIndexOrThrow("INTERVAL"));
+                out.add(row);
+            }
+        }
+        return out;
+    }
+
+    private static double[] values(IntervalRow row) {
+        return new double[]{row.pv, row.load, row.feed, row.buy, row.pv2bat, row.pv2load, row.bat2load,
+                row.grid2bat, row.pv2grid, row.grid2load, row.evActual, row.hwActual, row.hpActual,
+                row.batChargeIn, row.batDischargeOut, row.bat2grid, row.batCharge, row.batDischarge};
+    }
+
+    private static void assertSameRows(String what, List<IntervalRow> expected, List<IntervalRow> actual) {
+        assertEquals(what + " rows", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(what + " interval", expected.get(i).interval, actual.get(i).interval);
+            double[] e = values(expected.get(i));
+            double[] a = values(actual.get(i));
+            for (int c = 0; c < COLUMNS.length; c++)
+                assertEquals(what + " " + expected.get(i).interval + " " + COLUMNS[c], e[c], a[c], DELTA);
+        }
+    }
+
+    private void assertRollupsMatchRawRows(String from, String to) {
+        assertSameRows("hour", raw("cast (strftime('%H', minute) as INTEGER)", from, to),
+                alphaEssDAO.sumHour(SN, from, to));
+        assertSameRows("doy", raw("cast (strftime('%j', date) as INTEGER)", from, to),
+                alphaEssDAO.sumDOY(SN, from, to));
+        assertSameRows("date", raw("date", from, to), alphaEssDAO.sumByDate(SN, from, to));
+        assertSameRows("dow", raw("cast (strftime('%w', date) as INTEGER)", from, to),
+                alphaEssDAO.sumDOW(SN, from, to));
+        assertSameRows("month", raw("strftime('%Y', date) || strftime('%m', date)", from, to),
+                alphaEssDAO.sumMonth(SN, from, to));
+        assertSameRows("year", raw("cast (strftime('%Y', date) as INTEGER)", from, to),
+                alphaEssDAO.sumYear(SN, from, to));
+    }
+
+    private KPIRow rawKPIs(String from, String to) {
+        KPIRow row = new KPIRow();
+        try (Cursor cursor = toutcDB.query(new SimpleSQLiteQuery(
+                "SELECT ((sum(pv) - sum(feed)) / sum(pv)) * 100 AS SC, " +
+                "((sum(pv) - sum(feed)) / sum(load)) * 100 AS SS, " +
+                "((sum(pv) / sum(load)) * 100) AS MSS, " +
+                "(ROUND(sum(pv) * 100) / 100) AS PV, " +
+                "(ROUND(sum(feed) * 100) / 100) FEED " +
+                "FROM alphaESSTransformedData WHERE date >= ? AND date <= ? AND sysSn = ?",
+                new Object[]{from, to, SN}))) {
+            assertTrue(cursor.moveToFirst());
+            row.selfConsumption = cursor.isNull(0) ? null : cursor.getDouble(0);
+            row.selfSufficiency = cursor.isNull(1) ? null : cursor.getDouble(1);
+            row.maxSelfSufficiency = cursor.isNull(2) ? null : cursor.getDouble(2);
+            row.pv = cursor.isNull(3) ? null : cursor.getDouble(3);
+            row.feed = cursor.isNull(4) ? null : cursor.getDouble(4);
+        }
+        return row;
+    }
+
+    @Test
+    public void refreshedRollupsMatchTheRawRowQueries() {
+        assertRollupsMatchRawRows(FROM, TO);
+        // A sub-range that starts and ends mid-data
+        assertRollupsMatchRawRows("2023-12-31", "2024-01-01");
+    }
+
+    @Test
+    public void rebuiltRollupsMatchTheRawRowQueries() {
+        SupportSQLiteDatabase db = toutcDB.getOpenHelper().getWritableDatabase();
+        db.execSQL("DELETE FROM alphaESSHourly");
+        db.execSQL("DELETE FROM alphaESSDaily");
+        assertTrue(alphaEssDAO.sumHour(SN, FROM, TO).isEmpty());
+
+        for (String sql : AlphaESSRollup.REBUILD_SQL) db.execSQL(sql);
+        assertRollupsMatchRawRows(FROM, TO);
+    }
+
+    @Test
+    public void kpisMatchTheRawRowsIncludingAnEmptyRange() {
+        KPIRow expected = rawKPIs(FROM, TO);
+        KPIRow actual = alphaEssDAO.getKPIs(FROM, TO, SN);
+        assertEquals(expected.selfConsumption, actual.selfConsumption, DELTA);
+        assertEquals(expected.selfSufficiency, actual.selfSufficiency, DELTA);
+        assertEquals(expected.maxSelfSufficiency, actual.maxSelfSufficiency, DELTA);
+        assertEquals(expected.pv, actual.pv, DELTA);
+        assertEquals(expected.feed, actual.feed, DELTA);
+
+        // No rows: sum() is NULL over the raw rows and over the rollups alike, never TOTAL()'s 0.0
+        KPIRow rawEmpty = rawKPIs("2020-01-01", "2020-12-31");
+        KPIRow empty = alphaEssDAO.getKPIs("2020-01-01", "2020-12-31", SN);
+        assertNull(rawEmpty.pv);
+        assertNull(empty.pv);
+        assertNull(empty.feed);
+        assertNull(empty.selfConsumption);
+        assertTrue(alphaEssDAO.sumHour(SN, "2020-01-01", "2020-12-31").isEmpty());
+        assertTrue(alphaEssDAO.sumYear(SN, "2020-01-01", "2020-12-31").isEmpty());
+    }
+}
@@ -16,7 +16,9 @@
 
 package com.tfcode.comparetout.model;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import android.content.Context;
@@ -237,6 +239,20 @@ public class ScenarioReadinessDAOTest {
         assertFalse(needsSim(id));
     }
 
+    @Test
+    public void liveSimStatusReportsTheBlockUntilUnblocked() throws InterruptedException {
+        long id = scenarioWithLoadDataAndPanel("Watched");
+        assertNull("no readiness row yet", LiveDataTestUtil.getValue(scenarioDAO.loadSimStatus(id)));
+
+        scenarioDAO.markSimBlocked(id, ScenarioReadiness.SIM_BLOCKED_PANEL_DATA);
+        assertEquals(Integer.valueOf(ScenarioReadiness.SIM_BLOCKED_PANEL_DATA),
+                LiveDataTestUtil.getValue(scenarioDAO.loadSimStatus(id)));
+
+        scenarioDAO.unblockPanelScenarios(panelIdOf(id), now());
+        assertEquals(Integer.valueOf(ScenarioReadiness.SIM_NEEDS),
+                LiveDataTestUtil.getValue(scenarioDAO.loadSimStatus(id)));
+    }
+
     // ── bulk reset ───────────────────────────────────────────────────────────
 
     @Test
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A full backup followed by a delta restores what the exporting device holds: days added
+ * since the backup, a recent and an old day whose values changed, a day and part of a day
+ * deleted, and a source removed altogether. A delta that was built but never shared does
+ * not become the base of the next one. Runs against the app database, since the exporter and
+ * importer both work on it; only the two test sources are touched.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnapshotDeltaTest {
+
+    private static final String KEPT = "DELTA-KEPT";
+    private static final String GONE = "DELTA-GONE";
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    // Millis are left out: the importer re-anchors them to the device zone
+    private static final String ROWS = "SELECT sysSn, date, minute, pv, load, feed, buy FROM alphaESSTransformedData " +
+            "WHERE sysSn IN ('" + KEPT + "', '" + GONE + "') ORDER BY sysSn, date, minute";
+    private static final String DAILY = "SELECT sysSn, date, intervals, pv, load FROM alphaESSDaily " +
+            "WHERE sysSn IN ('" + KEPT + "', '" + GONE + "') ORDER BY sysSn, date";
+    private static final String DAILY_FROM_ROWS = "SELECT sysSn, date, COUNT(*), TOTAL(pv), TOTAL(load) " +
+            "FROM alphaESSTransformedData WHERE sysSn IN ('" + KEPT + "', '" + GONE + "') " +
+            "GROUP BY sysSn, date ORDER BY sysSn, date";
+
+    private Application application;
+    private ToutcDB toutcDB;
+    private AlphaEssDAO alphaEssDAO;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        toutcDB = ToutcDB.getDatabase(application);
+        alphaEssDAO = toutcDB.alphaEssDAO();
+        clearTestSources();
+    }
+
+    @After
+    public void tearDown() {
+        clearTestSources();
+    }
+
+    private void clearTestSources() {
+        alphaEssDAO.clearAlphaESSDataForSN(KEPT);
+        alphaEssDAO.clearAlphaESSDataForSN(GONE);
+    }
+
+    private static List<AlphaESSTransformedData> rows(String sysSn, LocalDate start, int days, long seed) {
+        Random random = new Random(seed);
+        List<AlphaESSTransformedData> rows = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            String date = start.plusDays(d).toString();
+            for (int mod = 0; mod < 1440; mod += 5) {
+                AlphaESSTransformedData row = new AlphaESSTransformedData();
+                row.setSysSn(sysSn);
+                row.setDate(date);
+                row.setMinute(String.format("%02d:%02d", mod / 60, mod % 60));
+                row.setMillisSinceEpoch(0L);
+                row.setPv(random.nextDouble());
+                row.setLoad(random.nextDouble());
+                row.setFeed(random.nextDouble() / 4);
+                row.setBuy(random.nextDouble() / 2);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private List<String> read(String sql) {
+        List<String> out = new ArrayList<>();
+        try (Cursor cursor = toutcDB.query(new SimpleSQLiteQuery(sql))) {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    if (cursor.getType(i) == Cursor.FIELD_TYPE_FLOAT)
+                        row.append(String.format("%.6f", cursor.getDouble(i)));
+                    else row.append(cursor.getString(i));
+                    row.append('|');
+                }
+                out.add(row.toString());
+            }
+        }
+        return out;
+    }
+
+    private File snapshotFile(String name) {
+        File file = new File(new File(application.getCacheDir(), "exports"), name);
+        if (file.exists()) assertTrue(file.delete());
+        return file;
+    }
+
+    @Test
+    public void deltaOverAFullBackupRestoresTheExportingDevice() {
+        SnapshotExporter exporter = new SnapshotExporter(application);
+        SnapshotImporter importer = new SnapshotImporter(application);
+
+        // The exporting device, backed up in full
+        alphaEssDAO.addTransformedData(rows(KEPT, START, 10, 1L));
+        alphaEssDAO.addTransformedData(rows(GONE, START, 3, 2L));
+        File full = snapshotFile("delta-test-full.db");
+        exporter.buildSnapshot(SnapshotExporter.Scope.Everything.INSTANCE, false, full);
+        exporter.keepPendingBase();
+
+        // Then it changes: two new days, a recent and an old day re-read, an old day and half a recent
+        // day deleted, and one source removed
+        alphaEssDAO.addTransformedData(rows(KEPT, START.plusDays(10), 2, 3L));
+        alphaEssDAO.addTransformedData(rows(KEPT, START.plusDays(9), 1, 4L));
+        alphaEssDAO.addTransformedData(rows(KEPT, START.plusDays(1), 1, 5L));
+        alphaEssDAO.deleteSomeAlphaESSTransformedForSN(KEPT, "2024-03-03", "2024-03-03");
+        alphaEssDAO.refreshRollups(KEPT, "2024-03-03", "2024-03-03");
+        toutcDB.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM alphaESSTransformedData " +
+                "WHERE sysSn = '" + KEPT + "' AND date = '2024-03-09' AND minute >= '12:00'");
+        alphaEssDAO.refreshRollups(KEPT, "2024-03-09", "2024-03-09");
+        alphaEssDAO.clearAlphaESSDataForSN(GONE);
+        List<String> expected = read(ROWS);
+        // A delta whose share was cancelled leaves the base at the full backup
+        exporter.buildDelta(snapshotFile("delta-test-unshared.db"));
+        File delta = snapshotFile("delta-test-changes.db");
+        exporter.buildDelta(delta);
+        exporter.keepPendingBase();
+        assertTrue("the delta leaves the old days behind", delta.length() < full.length());
+
+        // A device restored from the full backup, then given the delta
+        clearTestSources();
+        SnapshotImporter.CommitResult restored = importer.commit(new SnapshotImporter.Staged(full), true);
+        assertTrue(restored.getWarnings().toString(), restored.getWarnings().stream()
+                .noneMatch(w -> w.contains("failed")));
+        assertEquals(13 * 288, read(ROWS).size());
+        SnapshotImporter.CommitResult applied = importer.commit(new SnapshotImporter.Staged(delta), true);
+        assertTrue(applied.getWarnings().toString(), applied.getWarnings().stream()
+                .noneMatch(w -> w.contains("failed")));
+
+        assertEquals(expected, read(ROWS));
+        // The rollups were rebuilt over the changed days, and dropped with the removed source
+        assertEquals(read(DAILY_FROM_ROWS), read(DAILY));
+    }
+}
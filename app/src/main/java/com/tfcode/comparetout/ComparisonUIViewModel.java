@@ -350,6 +350,18 @@ public class ComparisonUIViewModel extends AndroidViewModel {
         toutcRepository.deleteCostingDataForPanelID(panelIndex);
     }
 
+    public void deleteLoadProfileData(long loadProfileID) {
+        toutcRepository.deleteLoadProfileData(loadProfileID);
+    }
+
+    public void deleteSimulationDataForProfileID(long loadProfileID) {
+        toutcRepository.deleteSimulationDataForProfileID(loadProfileID);
+    }
+
+    public void deleteCostingDataForProfileID(long loadProfileID) {
+        toutcRepository.deleteCostingDataForProfileID(loadProfileID);
+    }
+
     public List<String> getLinkedLoadProfiles(Long scenarioID) {
         return toutcRepository.getLinkedLoadProfiles(scenarioID);
     }
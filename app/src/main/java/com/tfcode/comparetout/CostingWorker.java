@@ -31,15 +31,28 @@ import androidx.work.WorkerParameters;
 
 import com.tfcode.comparetout.model.ToutcRepository;
 import com.tfcode.comparetout.model.costings.Costings;
-import com.tfcode.comparetout.model.costings.SubTotals;
+import com.tfcode.comparetout.model.costings.ScenarioDayBand;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
 import com.tfcode.comparetout.model.scenario.Scenario;
 import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
 import com.tfcode.comparetout.util.RateLookup;
+import com.tfcode.comparetout.util.ScenarioCosting;
+import com.tfcode.comparetout.util.UsageIndex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Background worker for calculating energy costs across scenarios and price plans.
@@ -54,7 +67,10 @@ import java.util.Map;
  * - Apply time-of-use rates, standing charges, and export tariffs
  * - Handle special pricing rules like deemed export calculations
  * - Provide progress notifications during long-running calculations
- * - Manage efficient rate lookup caching to optimize performance
+ * - Manage efficient rate lookup caching to optimize performance (one set per pool thread)
+ * - Cost plans in parallel on a work-stealing pool and save each batch in one transaction
+ * - Price each plan per rate segment over a cumulative usage index ({@link UsageIndex})
+ * - Price the likely-best plans first, pruning on a cost lower bound, then complete the rest
  * <p></p>
  * The worker uses a sophisticated rate lookup system that accounts for:
  * - Day of year (seasonal variations)
@@ -66,8 +82,15 @@ import java.util.Map;
  */
 public class CostingWorker extends Worker {
 
+    // Plans priced before the rest of a scenario's plans may be pruned on their lower bound
+    private static final int TOP_K = 3;
+
     private final ToutcRepository mToutcRepository;
-    private final Map<Long, RateLookup> mLookups;
+    private final ForkJoinPool mPool;
+    // Each plan's rates compiled before costing starts; tasks price with copies, never these
+    private final Map<Long, RateLookup> mTemplates;
+    // Dynamic plans' unit rates folded onto the simulation year; null for plans with only day rates
+    private final Map<Long, PriceSeries> mSeries;
     private final Context mContext;
 
     /**
@@ -79,7 +102,9 @@ public class CostingWorker extends Worker {
     public CostingWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
         mToutcRepository = new ToutcRepository((Application) context);
-        mLookups = new HashMap<>();
+        mPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        mTemplates = new HashMap<>();
+        mSeries = new HashMap<>();
         mContext = context;
     }
 
@@ -152,106 +177,32 @@ public class CostingWorker extends Worker {
                     sendNotification(notificationManager, notificationId, builder);
                 }
 
+                // Day rates and dynamic series are read once here, so costing tasks never touch the DB
+                for (PricePlan pp : plans) {
+                    mTemplates.put(pp.getPricePlanIndex(), new RateLookup(pp,
+                            mToutcRepository.getAllDayRatesForPricePlanID(pp.getPricePlanIndex())));
+                    PriceSeries series = mToutcRepository.getPriceSeries(pp.getPricePlanIndex());
+                    mSeries.put(pp.getPricePlanIndex(), (null == series) ? null : series.projectTo2001());
+                }
+
                 /*
-                 * For each scenario, and for each price plan, calculate costs if not already present.
-                 * This ensures all combinations are costed and up-to-date.
+                 * PASS 1: for each scenario, price the uncosted plans cheapest lower bound first and stop
+                 * once no remaining plan can beat the TOP_K-th best net. The best plans (what the UI ranks
+                 * and highlights) are then saved early; the pruned plans are completed in PASS 2.
+                 * Plans are costed a pool's width at a time, so pruning is checked between waves.
                  */
+                int wave = mPool.getParallelism();
+                List<Long> deferredScenarios = new ArrayList<>();
+                Map<Long, List<PricePlan>> deferredPlans = new HashMap<>();
                 for (long scenarioID : scenarioIDs) {
                     Scenario scenario = mToutcRepository.getScenarioForID(scenarioID);
-                    // Get the simulation output. Loaded ONCE here (outside the plan loop), then reused for
-                    // every plan below — the per-plan notifications make that visible (no per-plan reload).
+                    // Get the simulation output. Loaded ONCE here (outside the plan loop), then shared
+                    // read-only by every costing task below.
                     builder.setContentText("Loading data: " + scenario.getScenarioName());
                     builder.setSubText(scenario.getScenarioName());
                     sendNotification(notificationManager, notificationId, builder);
-                    List<ScenarioSimulationData> scenarioData = mToutcRepository.getSimulationDataForScenario(scenarioID);
-                    double gridExportMax = mToutcRepository.getGridExportMaxForScenario(scenarioID);
-                    if (!scenarioData.isEmpty()) {
-                        long notifyTime = System.nanoTime();
-                        for (PricePlan pp : plans) {
-                            // Skip if costing already exists to avoid duplicate work
-                            if (mToutcRepository.costingExists(scenarioID, pp.getPricePlanIndex()))
-                                continue;
-                            String planLabel = pp.getSupplier() + ": " + pp.getPlanName();
-                            builder.setContentText("Costing " + planLabel);
-                            // Periodically update notification to avoid UI lag
-                            if (System.nanoTime() - notifyTime > 1e+9) {
-                                notifyTime = System.nanoTime();
-                                sendNotification(notificationManager, notificationId, builder);
-                            }
-                            /*
-                             * Retrieve or create a RateLookup for the price plan.
-                             * This object provides efficient rate lookups for each simulation row.
-                             */
-                            RateLookup lookup = mLookups.get(pp.getPricePlanIndex());
-                            if (null == lookup) {
-                                lookup = new RateLookup(pp,
-                                        mToutcRepository.getAllDayRatesForPricePlanID(pp.getPricePlanIndex()));
-                                mLookups.put(pp.getPricePlanIndex(), lookup);
-                            }
-                            /*
-                             * COST CALCULATION LOOP
-                             * For each simulation row, apply the price plan's rates to calculate buy and sell totals.
-                             * Subtotals are accumulated for detailed reporting.
-                             */
-                            Costings costing = new Costings();
-                            costing.setScenarioID(scenarioID);
-                            costing.setScenarioName(scenario.getScenarioName());
-                            costing.setPricePlanID(pp.getPricePlanIndex());
-                            costing.setFullPlanName(pp.getSupplier() + ":" + pp.getPlanName());
-                            double buy = 0D;
-                            double sell = 0D;
-                            double net;
-                            SubTotals subTotals = new SubTotals();
-
-                            // Calculate costs for each simulation data point
-                            for (ScenarioSimulationData row : scenarioData) {
-                                double price = lookup.getRate(row.getDayOf2001(), row.getMinuteOfDay(),
-                                        (row.getDayOfWeek() == 7) ? 0 : row.getDayOfWeek(), row.getBuy());
-                                double rowBuy = price * row.getBuy();
-                                buy += rowBuy;
-                                sell += pp.getFeed() * row.getFeed();
-                                subTotals.addToPrice(price, row.getBuy()); // This is the number of units
-                            }
-                            costing.setBuy(buy);
-                            costing.setSell(sell);
-                            costing.setSubTotals(subTotals);
-                            double days = 365; // TODO look at the biggest & smallest dates in the sim data
-                            /*
-                             * Handle deemed export plans by calculating export income based on max export and plan rules.
-                             * This is used for certain regulatory or supplier-specific plans.
-                             */
-                            if (pp.isDeemedExport() && scenario.isHasInverters()) {
-                                sell = gridExportMax * 0.8148 * days * pp.getFeed();
-                                costing.setSell(sell);
-                            }
-                            /*
-                             * NET COST CALCULATION
-                             * Combine buy, sell, standing charges, and sign-up bonuses to get the net cost.
-                             */
-                            net = ((buy - sell) + (pp.getStandingCharges() * 100 * (days / 365))) - (pp.getSignUpBonus() * 100);
-                            costing.setNet(net);
-                            // store in comparison table
-                            builder.setContentText("Saving " + planLabel);
-                            // Periodically update notification to avoid UI lag
-                            if (System.nanoTime() - notifyTime > 1e+9) {
-                                notifyTime = System.nanoTime();
-                                sendNotification(notificationManager, notificationId, builder);
-                            }
-                            mToutcRepository.saveCosting(costing);
-                            // NOTIFICATION PROGRESS
-                            PROGRESS_CURRENT += PROGRESS_CHUNK;
-                            builder.setProgress(PROGRESS_MAX, PROGRESS_CURRENT, false);
-                            builder.setContentText("Saved " + planLabel);
-                            if (System.nanoTime() - notifyTime > 1e+9) {
-                                notifyTime = System.nanoTime();
-                                sendNotification(notificationManager, notificationId, builder);
-                            }
-                        }
-                        // Every (this scenario × plan) costing is now present → costing is up to date.
-                        // (Runs even when nothing was computed — e.g. all pairs already existed, or no plans
-                        // exist — so the scenario leaves the readiness gate instead of being reloaded forever.)
-                        mToutcRepository.markCosted(scenarioID);
-                    } else {
+                    UsageIndex usage = loadUsage(scenarioID);
+                    if (null == usage) {
                         /*
                          * If simulation data is missing, notify the user and skip costing for this scenario.
                          */
@@ -260,7 +211,80 @@ public class CostingWorker extends Worker {
                         PROGRESS_CURRENT += PROGRESS_CHUNK;
                         builder.setProgress(PROGRESS_MAX, PROGRESS_CURRENT, false);
                         sendNotification(notificationManager, notificationId, builder);
+                        continue;
+                    }
+                    double gridExportMax = mToutcRepository.getGridExportMaxForScenario(scenarioID);
+
+                    // Skip plans already costed to avoid duplicate work; order the rest by lower bound
+                    Set<Long> costed = new HashSet<>(mToutcRepository.getCostedPlanIDs(scenarioID));
+                    List<PricePlan> uncosted = new ArrayList<>();
+                    Map<Long, Double> bounds = new HashMap<>();
+                    for (PricePlan pp : plans) {
+                        if (costed.contains(pp.getPricePlanIndex())) continue;
+                        uncosted.add(pp);
+                        bounds.put(pp.getPricePlanIndex(), lowerBound(scenario, usage, pp, gridExportMax));
+                    }
+                    uncosted.sort(Comparator.comparingDouble(pp -> bounds.get(pp.getPricePlanIndex())));
+
+                    // Costings kept from before per-day rows were: write their days, leave the costings be
+                    Set<Long> withoutDays = new HashSet<>(mToutcRepository.getPlanIDsWithoutDays(scenarioID));
+                    List<PricePlan> backfill = new ArrayList<>();
+                    for (PricePlan pp : plans) if (withoutDays.contains(pp.getPricePlanIndex())) backfill.add(pp);
+                    if (!backfill.isEmpty()) {
+                        builder.setContentText("Costing days of " + backfill.size() + " plans: " + scenario.getScenarioName());
+                        sendNotification(notificationManager, notificationId, builder);
+                        saveDays(costPlans(scenario, usage, backfill, gridExportMax));
+                    }
+
+                    // The TOP_K lowest nets so far, largest on top
+                    PriorityQueue<Double> best = new PriorityQueue<>(TOP_K + 1, Collections.reverseOrder());
+                    int next = 0;
+                    while (next < uncosted.size()) {
+                        if (best.size() == TOP_K && bounds.get(uncosted.get(next).getPricePlanIndex()) > best.peek()) break;
+                        List<PricePlan> batch = uncosted.subList(next, Math.min(next + wave, uncosted.size()));
+                        builder.setContentText("Costing " + batch.size() + " plans: " + scenario.getScenarioName());
+                        sendNotification(notificationManager, notificationId, builder);
+                        List<Costings> costings = saveCostings(costPlans(scenario, usage, batch, gridExportMax));
+                        for (Costings costing : costings) {
+                            best.add(costing.getNet());
+                            if (best.size() > TOP_K) best.poll();
+                        }
+                        next += batch.size();
+                        // NOTIFICATION PROGRESS
+                        PROGRESS_CURRENT += PROGRESS_CHUNK * batch.size();
+                        builder.setProgress(PROGRESS_MAX, PROGRESS_CURRENT, false);
                     }
+                    if (next < uncosted.size()) {
+                        deferredScenarios.add(scenarioID);
+                        deferredPlans.put(scenarioID, new ArrayList<>(uncosted.subList(next, uncosted.size())));
+                    }
+                    // Every (this scenario × plan) costing is now present → costing is up to date.
+                    // (Runs even when nothing was computed — e.g. all pairs already existed, or no plans
+                    // exist — so the scenario leaves the readiness gate instead of being reloaded forever.)
+                    else mToutcRepository.markCosted(scenarioID);
+                }
+
+                /*
+                 * PASS 2: complete the plans pruned above, all of a scenario's at once across the pool and
+                 * saved in one transaction, so every scenario still ends with a costing for every plan
+                 * before it is marked costed. The simulation output is reloaded rather than held for every
+                 * scenario at once.
+                 */
+                for (long scenarioID : deferredScenarios) {
+                    Scenario scenario = mToutcRepository.getScenarioForID(scenarioID);
+                    List<PricePlan> remaining = deferredPlans.get(scenarioID);
+                    builder.setContentText("Costing " + remaining.size() + " plans: " + scenario.getScenarioName());
+                    builder.setSubText(scenario.getScenarioName());
+                    sendNotification(notificationManager, notificationId, builder);
+                    UsageIndex usage = loadUsage(scenarioID);
+                    if (null != usage) {
+                        double gridExportMax = mToutcRepository.getGridExportMaxForScenario(scenarioID);
+                        // Duplicates of pairs costed meanwhile (e.g. by a concurrent pass) are ignored on save
+                        saveCostings(costPlans(scenario, usage, remaining, gridExportMax));
+                        mToutcRepository.markCosted(scenarioID);
+                    }
+                    PROGRESS_CURRENT += PROGRESS_CHUNK * remaining.size();
+                    builder.setProgress(PROGRESS_MAX, PROGRESS_CURRENT, false);
                 }
 
                 /*
@@ -283,6 +307,8 @@ public class CostingWorker extends Worker {
                     .setProgress(0, 0, false);
             sendNotification(notificationManager, notificationId, builder);
             return Result.success();
+        } finally {
+            mPool.shutdown();
         }
         // Storm-safe completeness: external triggers coalesce via KEEP while this chain runs, so readiness
         // flagged mid-pass (a concurrent edit, or a scenario just unblocked) could be missed by it. If the
@@ -295,6 +321,117 @@ public class CostingWorker extends Worker {
         return Result.success();
     }
 
+    /**
+     * Index a scenario's simulation output for costing, or null when it has none.
+     */
+    private UsageIndex loadUsage(long scenarioID) {
+        List<ScenarioSimulationData> scenarioData = mToutcRepository.getSimulationDataForScenario(scenarioID);
+        if (scenarioData.isEmpty()) return null;
+        // Indexed once per scenario; every plan is then priced per rate segment.
+        return ScenarioCosting.index(scenarioData);
+    }
+
+    /**
+     * A fresh RateLookup over the plan's compiled rates, for one (scenario, plan) pass. Lookups
+     * carry tier usage and a segment cache, so a lookup is never reused: work stealing can run
+     * several scenarios' tasks on one thread, and tiers must start from zero for each.
+     */
+    private RateLookup newLookup(PricePlan pp) {
+        return mTemplates.get(pp.getPricePlanIndex()).copy();
+    }
+
+    /**
+     * Cost the plans against one scenario across the pool, one task per plan split by work
+     * stealing. Results come back in the order of {@code plans}.
+     */
+    private List<ScenarioCosting> costPlans(Scenario scenario, UsageIndex usage, List<PricePlan> plans, double gridExportMax) {
+        ScenarioCosting[] costings = new ScenarioCosting[plans.size()];
+        if (costings.length > 0)
+            mPool.invoke(new CostingTask(scenario, usage, plans, gridExportMax, costings, 0, plans.size()));
+        return Arrays.asList(costings);
+    }
+
+    /** Save the costings and their days in one transaction; returns the costings. */
+    private List<Costings> saveCostings(List<ScenarioCosting> planCostings) {
+        List<Costings> costings = new ArrayList<>();
+        List<ScenarioDayCost> days = new ArrayList<>();
+        List<ScenarioDayBand> bands = new ArrayList<>();
+        for (ScenarioCosting planCosting : planCostings) {
+            costings.add(planCosting.costing);
+            days.addAll(planCosting.days);
+            bands.addAll(planCosting.bands);
+        }
+        mToutcRepository.saveCostings(costings, days, bands);
+        return costings;
+    }
+
+    /** Save the days of costings already kept; the costings themselves are left as they are. */
+    private void saveDays(List<ScenarioCosting> planCostings) {
+        List<ScenarioDayCost> days = new ArrayList<>();
+        List<ScenarioDayBand> bands = new ArrayList<>();
+        for (ScenarioCosting planCosting : planCostings) {
+            days.addAll(planCosting.days);
+            bands.addAll(planCosting.bands);
+        }
+        mToutcRepository.saveScenarioDays(days, bands);
+    }
+
+        /** Costs plans [from, to), halving the range until one plan is left. */
+    private class CostingTask extends RecursiveAction {
+        private final Scenario mScenario;
+        private final UsageIndex mUsage;
+        private final List<PricePlan> mPlans;
+        private final double mGridExportMax;
+        private final ScenarioCosting[] mCostings;
+        private final int mFrom;
+        private final int mTo;
+
+        CostingTask(Scenario scenario, UsageIndex usage, List<PricePlan> plans, double gridExportMax,
+                    ScenarioCosting[] costings, int from, int to) {
+            mScenario = scenario;
+            mUsage = usage;
+            mPlans = plans;
+            mGridExportMax = gridExportMax;
+            mCostings = costings;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom == 1) {
+                mCostings[mFrom] = costPlan(mScenario, mUsage, mPlans.get(mFrom), mGridExportMax);
+                return;
+            }
+            int mid = (mFrom + mTo) >>> 1;
+            invokeAll(new CostingTask(mScenario, mUsage, mPlans, mGridExportMax, mCostings, mFrom, mid),
+                    new CostingTask(mScenario, mUsage, mPlans, mGridExportMax, mCostings, mid, mTo));
+        }
+    }
+
+    /**
+     * The lowest net the plan could cost the scenario: every kWh bought at the lowest unit rate
+     * the plan can apply, with the sell, standing charge and bonus exactly as
+     * {@link ScenarioCosting#cost} computes them. Never above the real net, so a plan whose bound
+     * exceeds the K-th best net cannot make the top K.
+     */
+    private double lowerBound(Scenario scenario, UsageIndex usage, PricePlan pp, double gridExportMax) {
+        RateLookup lookup = newLookup(pp);
+        PriceSeries series = mSeries.get(pp.getPricePlanIndex());
+        double lowest = Math.min(usage.lowestRate(lookup), lookup.getLowestTierRate());
+        if (null != series) lowest = Math.min(lowest, series.lowestPrice());
+        double buy = lowest * usage.getTotalBuy();
+        double sell = ScenarioCosting.isDeemed(scenario, pp)
+                ? ScenarioCosting.deemedDaySell(pp, gridExportMax) * ScenarioCosting.DAYS
+                : pp.getFeed() * usage.getTotalFeed();
+        return ScenarioCosting.net(pp, buy, sell);
+    }
+
+    /** Price one plan against the scenario with a lookup of its own (see {@link #newLookup}). */
+    private ScenarioCosting costPlan(Scenario scenario, UsageIndex usage, PricePlan pp, double gridExportMax) {
+        return ScenarioCosting.cost(scenario, usage, pp, newLookup(pp), mSeries.get(pp.getPricePlanIndex()), gridExportMax);
+    }
+
     /**
      * Sends a notification using the provided NotificationManager and builder.
      * Used to update the user on costing progress.
@@ -838,8 +838,7 @@ public class MainActivity extends InsetRespectingActivity {
                             mSimulationInProgress = false;
                         }
                         if ( (workInfo.getState() == WorkInfo.State.ENQUEUED || workInfo.getState() == WorkInfo.State.RUNNING)
-                                && ( workInfo.getTags().contains("com.tfcode.comparetout.scenario.loadprofile.GenerateMissingLoadDataWorker")
-                                || workInfo.getTags().contains("com.tfcode.comparetout.scenario.SimulationWorker")
+                                && ( workInfo.getTags().contains("com.tfcode.comparetout.scenario.SimulationWorker")
                                 || workInfo.getTags().contains("com.tfcode.comparetout.CostingWorker" ))) {
                             System.out.println(workInfo.getTags().iterator().next());
                             mSimulationInProgressBar.setVisibility(View.VISIBLE);
@@ -28,7 +28,6 @@ import androidx.work.WorkManager;
 import java.util.concurrent.TimeUnit;
 
 import com.tfcode.comparetout.scenario.SimulationWorker;
-import com.tfcode.comparetout.scenario.loadprofile.GenerateMissingLoadDataWorker;
 import com.tfcode.comparetout.scenario.panel.PVGISLoader;
 import com.tfcode.comparetout.ui2.HeatPumpWeatherFetchWorker;
 
@@ -36,9 +35,6 @@ public class SimulatorLauncher {
 
 
     public static void simulateIfNeeded(Context context) {
-        OneTimeWorkRequest generateLoadData =
-                new OneTimeWorkRequest.Builder(GenerateMissingLoadDataWorker.class)
-                        .build();
         OneTimeWorkRequest simulate =
                 new OneTimeWorkRequest.Builder(SimulationWorker.class)
                         .build();
@@ -51,24 +47,22 @@ public class SimulatorLauncher {
         // scenario_readiness gate, so concurrent triggers don't each need their own chain — KEEP coalesces
         // them into the one queued/running chain instead of stacking duplicates (the bulk-import storm).
         // CostingWorker's tail (enqueueFollowupPass) backstops any work flagged after the chain started.
+        // No load-generation step: a distribution-only profile is computed on read by the simulation.
         WorkManager
                 .getInstance(context)
-                .beginUniqueWork("Simulation", ExistingWorkPolicy.KEEP,  generateLoadData)
-                .then(simulate)
+                .beginUniqueWork("Simulation", ExistingWorkPolicy.KEEP, simulate)
                 .then(cost)
                 .enqueue();
     }
 
     /**
-     * Append one more Generate→Simulate→Cost pass, used by {@code CostingWorker}'s tail when the readiness
+     * Append one more Simulate→Cost pass, used by {@code CostingWorker}'s tail when the readiness
      * gates still show work the just-finished chain couldn't see (flagged mid-run, or a scenario unblocked
      * by a self-heal fetch). Uses {@link ExistingWorkPolicy#APPEND} (not KEEP) so it is <b>not</b> dropped
      * while the current chain is still completing; it is bounded because every pass clears the flags it
      * completes, and blocked scenarios never appear in the gates.
      */
     public static void enqueueFollowupPass(Context context) {
-        OneTimeWorkRequest generateLoadData =
-                new OneTimeWorkRequest.Builder(GenerateMissingLoadDataWorker.class).build();
         OneTimeWorkRequest simulate =
                 new OneTimeWorkRequest.Builder(SimulationWorker.class).build();
         OneTimeWorkRequest cost =
@@ -77,23 +71,19 @@ public class SimulatorLauncher {
         WorkManager.getInstance(context).pruneWork();
         WorkManager
                 .getInstance(context)
-                .beginUniqueWork("Simulation", ExistingWorkPolicy.APPEND, generateLoadData)
-                .then(simulate)
+                .beginUniqueWork("Simulation", ExistingWorkPolicy.APPEND, simulate)
                 .then(cost)
                 .enqueue();
     }
 
     /**
-     * Like {@link #simulateIfNeeded(Context)} but inserts a CDS weather fetch <b>between</b> load generation
-     * and the simulation, so a heat-pump-on-CDS scenario simulates on freshly-downloaded weather instead of
+     * Like {@link #simulateIfNeeded(Context)} but runs a CDS weather fetch <b>before</b> the simulation, so a heat-pump-on-CDS scenario simulates on freshly-downloaded weather instead of
      * racing it (Phase 6 of {@code plans/hp/plan.md}):
-     * <pre>GenerateLoad → HeatPumpWeatherFetch → Simulate → Cost</pre>
-     * The fetch must follow load generation because it derives the fetch period from the load grid; it never
+     * <pre>HeatPumpWeatherFetch → Simulate → Cost</pre>
+     * The fetch derives its period from the load grid (read or computed on read); it never
      * returns {@code failure()} (it falls back to the sample asset on give-up), so the chained sim always runs.
      */
     public static void simulateWithWeatherFetch(Context context, long scenarioId) {
-        OneTimeWorkRequest generateLoadData =
-                new OneTimeWorkRequest.Builder(GenerateMissingLoadDataWorker.class).build();
         OneTimeWorkRequest weather =
                 new OneTimeWorkRequest.Builder(HeatPumpWeatherFetchWorker.class)
                         .setInputData(new Data.Builder().putLong("scenarioID", scenarioId).build())
@@ -111,8 +101,7 @@ public class SimulatorLauncher {
         // KEEP (was APPEND) — see simulateIfNeeded; the readiness gate makes one chain cover all flagged work.
         WorkManager
                 .getInstance(context)
-                .beginUniqueWork("Simulation", ExistingWorkPolicy.KEEP, generateLoadData)
-                .then(weather)
+                .beginUniqueWork("Simulation", ExistingWorkPolicy.KEEP, weather)
                 .then(simulate)
                 .then(cost)
                 .enqueue();
@@ -35,7 +35,6 @@ import androidx.work.WorkerParameters;
 import com.tfcode.comparetout.R;
 import com.tfcode.comparetout.SimulatorLauncher;
 import com.tfcode.comparetout.model.ToutcRepository;
-import com.tfcode.comparetout.model.importers.IntervalRow;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.model.scenario.DOWDist;
 import com.tfcode.comparetout.model.scenario.HourlyDist;
@@ -49,16 +48,12 @@ import com.tfcode.comparetout.model.scenario.Scenario;
 import com.tfcode.comparetout.model.scenario.ScenarioComponents;
 import com.tfcode.comparetout.scenario.sim.SimTime;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -200,19 +195,20 @@ public abstract class AbstractGenerationWorker extends Worker {
         report(getString(R.string.creating_usage));
         ScenarionKeys scenarioKeys = generateScenario(mSystemSN, mScenarioNames);
 
-        Map<Integer, Map<String, AlphaESSTransformedData>> dbLookup = null;
+        GenerationStatistics stats = null;
 
         // Generate load profile if requested - forms the basis of consumption patterns.
-        // Rows are loaded once and shared by profile aggregation, data generation and
-        // component inference (see loadForProfile / generateInferredComponents hooks).
+        // Rows are loaded once and reduced in a single pass (GenerationStatistics) to the
+        // distributions, base load and per-slot load/PV used by profile and panel generation;
+        // the rows themselves are only kept for component inference (generateInferredComponents).
         if (mLP) {
             report(getString(R.string.adding_data));
             List<AlphaESSTransformedData> dbRows =
                     mToutcRepository.getAlphaESSTransformedData(mSystemSN, mFrom, mTo);
             dbRows = expandHoursIfNeeded(dbRows);
-            createdLoadProfileID = generateLoadProfile(
-                    mSystemSN, mFrom, mTo, scenarioKeys.assignedScenarioID, dbRows);
-            dbLookup = generateLoadProfileData(createdLoadProfileID, dbRows);
+            stats = GenerationStatistics.collect(dbRows, this::loadForProfile);
+            createdLoadProfileID = generateLoadProfile(mSystemSN, scenarioKeys.assignedScenarioID, stats);
+            generateLoadProfileData(createdLoadProfileID, stats);
             generateInferredComponents(mSystemSN, dbRows, scenarioKeys.assignedScenarioID);
         }
 
@@ -233,7 +229,7 @@ public abstract class AbstractGenerationWorker extends Worker {
 
                 // Generate detailed panel generation data if requested
                 if (mPNLD)
-                    generatePanelData((double) panelSet.stringSize, totalPanelCount, panelSet.panelID, dbLookup);
+                    generatePanelData((double) panelSet.stringSize, totalPanelCount, panelSet.panelID, stats);
             }
         }
 
@@ -303,57 +299,24 @@ public abstract class AbstractGenerationWorker extends Worker {
      * - Monthly distribution: Shows seasonal consumption variations
      * - Base load: Minimum continuous consumption level
      * 
-     * @param mSystemSN The system serial number for data retrieval
-     * @param mFrom Start date for historical data analysis
-     * @param mTo End date for historical data analysis
+     * @param mSystemSN The system serial number, recorded as the distribution source
      * @param assignedScenarioID The scenario ID to associate with the load profile
+     * @param stats Single-pass statistics over the (possibly expanded) transformed rows
      * @return The database ID of the created load profile
      */
-    private long generateLoadProfile(String mSystemSN, String mFrom, String mTo, long assignedScenarioID,
-                                     List<AlphaESSTransformedData> dbRows) {
+    private long generateLoadProfile(String mSystemSN, long assignedScenarioID, GenerationStatistics stats) {
         long createdLoadProfileID;
         report(getString(R.string.gen_load_profile));
 
-        double[] hourlySums = new double[24];
-        double[] dowSums = new double[7];
-        double[] monthlySums = new double[12];
-        Double baseLoad;
-        if (usesNetLoadAggregates()) {
-            // Aggregate in Java from the (possibly expanded) rows so the distributions see the
-            // same net-of-device load that generateLoadProfileData stores; the SQL aggregates
-            // below only know the raw load column.
-            List<Double> positiveLoads = new ArrayList<>();
-            for (AlphaESSTransformedData row : dbRows) {
-                double load = loadForProfile(row);
-                LocalDate rowDate = LocalDate.parse(row.getDate(), DATE_FORMAT);
-                int hour = Integer.parseInt(row.getMinute().substring(0, 2));
-                hourlySums[hour] += load;
-                // strftime('%w') convention: Sunday = 0
-                dowSums[rowDate.getDayOfWeek().getValue() % 7] += load;
-                monthlySums[rowDate.getMonthValue() - 1] += load;
-                if (load > 0) positiveLoads.add(load);
-            }
-            // Base load mirrors AlphaEssDAO.getBaseLoad: mean of the lowest 30% of positive
-            // 5-minute loads, scaled to an hourly rate.
-            Collections.sort(positiveLoads);
-            int baseCount = (int) (positiveLoads.size() * 0.3);
-            double baseSum = 0D;
-            for (int i = 0; i < baseCount; i++) baseSum += positiveLoads.get(i);
-            baseLoad = (baseCount > 0) ? (baseSum / baseCount) * 12D : 0D;
-        } else {
-            // Retrieve historical consumption data aggregated by different time periods
-            List<IntervalRow> hourly = mToutcRepository.getSumHour(mSystemSN, mFrom, mTo);
-            List<IntervalRow> weekly = mToutcRepository.getSumDOW(mSystemSN, mFrom, mTo);
-            List<IntervalRow> monthly = mToutcRepository.getAvgMonth(mSystemSN, mFrom, mTo);
-            baseLoad = mToutcRepository.getBaseLoad(mSystemSN, mFrom, mTo);
-            for (int i = 0; i < 24; i++) hourlySums[i] = hourly.get(i).load;
-            for (int i = 0; i < 7; i++) dowSums[i] = weekly.get(i).load;
-            for (int i = 0; i < 12; i++) monthlySums[i] = monthly.get(i).load;
-        }
+        // The distributions see the same (possibly net-of-device) load that generateLoadProfileData
+        // stores, whichever importer produced the rows.
+        double[] hourlySums = stats.hourlySums;
+        double[] dowSums = stats.dowSums;
+        double[] monthlySums = stats.monthlySums;
+        Double baseLoad = stats.baseLoad;
 
         // Calculate total load for percentage distribution calculations
-        Double totalLoad = 0D;
-        for (double dv : dowSums) totalLoad += dv;
+        Double totalLoad = stats.totalLoad();
 
         // Build the load profile with consumption characteristics
         LoadProfile loadProfile = new LoadProfile();
@@ -396,14 +359,6 @@ public abstract class AbstractGenerationWorker extends Worker {
         return row.getLoad();
     }
 
-    /**
-     * True when {@link #loadForProfile} differs from the raw load column; the profile
-     * distributions are then computed from the rows instead of the SQL aggregates.
-     */
-    protected boolean usesNetLoadAggregates() {
-        return false;
-    }
-
     /**
      * Hook for importers that can infer explicit scenario components (EV charge schedule,
      * hot water schedule) from attributed device data. Default: none.
@@ -412,23 +367,7 @@ public abstract class AbstractGenerationWorker extends Worker {
             List<AlphaESSTransformedData> dbRows, long assignedScenarioID) {
     }
 
-    @NonNull
-    private Map<Integer, Map<String, AlphaESSTransformedData>> generateLoadProfileData(
-            long createdLoadProfileID, List<AlphaESSTransformedData> dbRows) {
-        Map<Integer, Map<String, AlphaESSTransformedData>> dbLookup;
-        dbLookup = new HashMap<>();
-        for (AlphaESSTransformedData dbRow : dbRows) {
-            LocalDate dbDate = LocalDate.parse(dbRow.getDate(), DATE_FORMAT);
-            String dbTime = dbRow.getMinute();
-            Map<String, AlphaESSTransformedData> entry = dbLookup.get(dbDate.getDayOfYear());
-            if (null == entry) {
-                entry = new HashMap<>();
-                entry.put(dbTime, dbRow);//(dbTimeLT.format(MIN_FORMAT), dbRow);
-                dbLookup.put(dbDate.getDayOfYear(), entry);
-            } else entry.put(dbTime, dbRow);
-        }
-        report("Loaded load data");
-
+    private void generateLoadProfileData(long createdLoadProfileID, GenerationStatistics stats) {
         ArrayList<LoadProfileData> rows = new ArrayList<>();
         LocalDateTime active = LocalDateTime.of(2001, 1, 1, 0, 0);
         LocalDateTime end = LocalDateTime.of(2002, 1, 1, 0, 0);
@@ -442,18 +381,8 @@ public abstract class AbstractGenerationWorker extends Worker {
             row.setMod(active.getHour() * 60 + active.getMinute());
             // Store the canonical UTC instant on the 2001 grid so load and PV share one UTC axis.
             row.setMillisSinceEpoch(SimTime.toEpochMillis(active, ZoneOffset.UTC));
-            // Not every 5 minute interval has data uploaded to AlphaESS
-            Integer doy = active.getDayOfYear();
-            String hhmm = row.getMinute();
-            double loadToSet = 0D;
-            Map<String, AlphaESSTransformedData> aDay = dbLookup.get(doy);
-            if (!(null == aDay)) {
-                AlphaESSTransformedData a5MinutePeriod = aDay.get(hhmm);
-                if (!(null == a5MinutePeriod)) {
-                    loadToSet = loadForProfile(a5MinutePeriod);
-                }
-            }
-            row.setLoad(loadToSet);
+            // Not every 5 minute interval has data uploaded to AlphaESS; missing slots read as 0
+            row.setLoad(stats.loadAt(active.getDayOfYear(), row.getMod() / 5));
 
             rows.add(row);
             active = active.plusMinutes(5);
@@ -462,7 +391,6 @@ public abstract class AbstractGenerationWorker extends Worker {
 
         mToutcRepository.createLoadProfileDataEntries(rows);
         report("Stored data");
-        return dbLookup;
     }
 
     protected List<AlphaESSTransformedData> expandHoursIfNeeded(List<AlphaESSTransformedData> dbRows) {
@@ -520,9 +448,9 @@ public abstract class AbstractGenerationWorker extends Worker {
      * @param stringSize Number of panels in this specific string
      * @param totalPanelCount Total number of panels across all strings
      * @param panelID Database ID of the panel configuration
-     * @param dbLookup Historical generation data lookup table indexed by day and time
+     * @param stats Historical generation per day-of-year and 5-minute slot
      */
-    private void generatePanelData(double stringSize, double totalPanelCount, long panelID, Map<Integer, Map<String, AlphaESSTransformedData>> dbLookup) {
+    private void generatePanelData(double stringSize, double totalPanelCount, long panelID, GenerationStatistics stats) {
         report("Loaded raw data");
 
         // Calculate this string's proportion of total system generation
@@ -551,17 +479,7 @@ public abstract class AbstractGenerationWorker extends Worker {
             row.setMillisSinceEpoch(SimTime.toEpochMillis(active, ZoneOffset.UTC));
 
             // Look up historical generation data (same grid keys as the load path) and scale by string share.
-            Integer doy = active.getDayOfYear();
-            String hhmm = row.getMinute();
-            double pvToSet = 0D;
-            Map<String, AlphaESSTransformedData> aDay = dbLookup.get(doy);
-            if (!(null == aDay)) {
-                AlphaESSTransformedData a5MinutePeriod = aDay.get(hhmm);
-                if (!(null == a5MinutePeriod)) {
-                    pvToSet = a5MinutePeriod.getPv() * proportionOfPV;
-                }
-            }
-            row.setPv(pvToSet);
+            row.setPv(stats.pvAt(active.getDayOfYear(), row.getMod() / 5) * proportionOfPV);
 
             rows.add(row);
             active = active.plusMinutes(5);
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers;
+
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Everything scenario generation needs from the transformed rows, gathered in one pass.
+ * <p>
+ * Replaces the separate sumHour / sumDOW / avgMonth / getBaseLoad scans plus the
+ * day-of-year &rarr; "HH:mm" &rarr; row HashMap that generateLoadProfileData and
+ * generatePanelData used to look up the 2001 grid. The per-slot load/PV live in two dense
+ * arrays indexed by (day-of-year, 5-minute slot); a slot without a row reads as zero,
+ * and when several years share a day-of-year the last row in query order wins, as the
+ * map did.
+ */
+public final class GenerationStatistics {
+
+    public static final int SLOTS_PER_DAY = 288;
+    private static final int DAYS = 366;
+
+    /** Sum of profile load per hour of day (0-23). */
+    public final double[] hourlySums = new double[24];
+    /** Sum of profile load per day of week, strftime('%w') convention (Sunday = 0). */
+    public final double[] dowSums = new double[7];
+    /** Sum of profile load per month (0 = January). */
+    public final double[] monthlySums = new double[12];
+    /** Mean of the lowest 30% of positive 5-minute loads, as an hourly rate (AlphaEssDAO.getBaseLoad). */
+    public double baseLoad;
+    public int rowCount;
+
+    private final double[] mSlotLoad = new double[DAYS * SLOTS_PER_DAY];
+    private final double[] mSlotPv = new double[DAYS * SLOTS_PER_DAY];
+
+    private GenerationStatistics() {}
+
+    /**
+     * @param rows   transformed rows in query order (possibly expanded to 5 minutes)
+     * @param loadFn the per-row load used for the profile, e.g. net of modelled devices
+     */
+    public static GenerationStatistics collect(List<AlphaESSTransformedData> rows,
+                                               ToDoubleFunction<AlphaESSTransformedData> loadFn) {
+        GenerationStatistics stats = new GenerationStatistics();
+        double[] positive = new double[Math.max(16, rows.size())];
+        int positiveCount = 0;
+
+        // Rows arrive grouped by date; only re-derive the calendar fields when it changes.
+        String lastDate = null;
+        int doy = 0, dow = 0, month = 0;
+        for (AlphaESSTransformedData row : rows) {
+            String date = row.getDate();
+            String minute = row.getMinute();
+            if (date == null || date.length() < 10 || minute == null || minute.length() < 5) continue;
+            if (!date.equals(lastDate)) {
+                int y = digits(date, 0, 4);
+                int m = digits(date, 5, 2);
+                int d = digits(date, 8, 2);
+                long epochDay = GridIntervalIngest.epochDay(y, m, d);
+                doy = (int) (epochDay - GridIntervalIngest.epochDay(y, 1, 1)) + 1;
+                // 1970-01-01 was a Thursday (4)
+                dow = (int) Math.floorMod(epochDay + 4, 7L);
+                month = m - 1;
+                lastDate = date;
+            }
+            int hour = digits(minute, 0, 2);
+            int minuteOfDay = hour * 60 + digits(minute, 3, 2);
+
+            double load = loadFn.applyAsDouble(row);
+            stats.hourlySums[hour] += load;
+            stats.dowSums[dow] += load;
+            stats.monthlySums[month] += load;
+            if (load > 0) positive[positiveCount++] = load;
+            stats.rowCount++;
+
+            // Only rows on the 5-minute grid were ever matched by the "HH:mm" lookup.
+            if (minuteOfDay % 5 == 0) {
+                int slot = (doy - 1) * SLOTS_PER_DAY + minuteOfDay / 5;
+                stats.mSlotLoad[slot] = load;
+                stats.mSlotPv[slot] = row.getPv();
+            }
+        }
+
+        Arrays.sort(positive, 0, positiveCount);
+        int baseCount = (int) (positiveCount * 0.3);
+        double baseSum = 0D;
+        for (int i = 0; i < baseCount; i++) baseSum += positive[i];
+        stats.baseLoad = (baseCount > 0) ? (baseSum / baseCount) * 12D : 0D;
+        return stats;
+    }
+
+    /** Profile load for a 2001 grid slot; {@code dayOfYear} is 1-based, {@code slot} is minute-of-day / 5. */
+    public double loadAt(int dayOfYear, int slot) {
+        return mSlotLoad[(dayOfYear - 1) * SLOTS_PER_DAY + slot];
+    }
+
+    public double pvAt(int dayOfYear, int slot) {
+        return mSlotPv[(dayOfYear - 1) * SLOTS_PER_DAY + slot];
+    }
+
+    public double totalLoad() {
+        double total = 0D;
+        for (double dv : dowSums) total += dv;
+        return total;
+    }
+
+    private static int digits(String s, int from, int count) {
+        int v = 0;
+        for (int i = from; i < from + count; i++) v = v * 10 + (s.charAt(i) - '0');
+        return v;
+    }
+}
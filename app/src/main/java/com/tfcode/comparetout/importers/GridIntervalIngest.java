@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers;
+
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming ingest stage for grid-meter files (ESBN HDF, Octopus consumption CSV).
+ * <p>
+ * The file importers used to materialise every reading into a map keyed by
+ * {@link LocalDateTime} / millis and then convert the whole file to a list of
+ * {@link AlphaESSTransformedData} before a single insert. For multi-year smart
+ * meter files that is hundreds of thousands of boxed keys and entities held at once.
+ * <p>
+ * This stage instead accepts one reading at a time as primitives, aligns it to the
+ * grid (5 or 30 minutes), merges it into a bounded slot buffer and hands full batches
+ * to a {@link BatchWriter} (a Room transaction). Memory is bounded by the batch size
+ * regardless of file length. When summing duplicates the totals of written slots are
+ * also kept (two doubles a slot), so a repeat reading that arrives after its slot was
+ * written is added to what was written rather than replacing it. Those totals are only
+ * kept for slots within {@link #OUT_OF_ORDER_WINDOW_MINUTES} of the latest reading, so
+ * they stay bounded too; a repeat further out of order than that replaces the written value.
+ * <p>
+ * Times are handled as "wall-clock minutes": minutes since 1970-01-01T00:00 in the
+ * source's local time, which is exactly what the {@code date} / {@code minute} key
+ * columns hold. Zone offsets are resolved once per wall-clock (or UTC) hour and cached,
+ * so there is no per-row {@code LocalDateTime} / {@code OffsetDateTime} on the hot path.
+ * DST transitions fall on hour boundaries in the supported regions, so the hourly cache
+ * resolves gaps and overlaps exactly as {@code LocalDateTime.atZone} does.
+ * <p>
+ * Buy and feed readings are tracked per channel: the writer only overwrites the
+ * channel(s) a slot actually received, so import and export rows for the same
+ * half-hour may arrive in different batches (HDF files list them separately).
+ * <p>
+ * Not thread-safe; one instance per import.
+ */
+public class GridIntervalIngest {
+
+    /** Which transformed column a reading populates. */
+    public enum Channel { BUY, FEED }
+
+    /** Receives bounded batches of aligned rows; expected to write them in one transaction. */
+    public interface BatchWriter {
+        /**
+         * @param buyRows  rows whose {@code buy} value should be written
+         * @param feedRows rows whose {@code feed} value should be written (a row may be in both)
+         */
+        void write(List<AlphaESSTransformedData> buyRows, List<AlphaESSTransformedData> feedRows);
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 2048;
+    /** Sum mode: how far from the latest reading a repeat may arrive and still be added. */
+    public static final long OUT_OF_ORDER_WINDOW_MINUTES = 7 * 24 * 60;
+
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final byte HAS_BUY = 1;
+    private static final byte HAS_FEED = 2;
+
+    // "HH:mm" for every minute of the day, shared by all rows.
+    private static final String[] MINUTE_STRINGS = new String[MINUTES_PER_DAY];
+    static {
+        char[] hhmm = new char[5];
+        hhmm[2] = ':';
+        for (int m = 0; m < MINUTES_PER_DAY; m++) {
+            int h = m / 60;
+            int mm = m % 60;
+            hhmm[0] = (char) ('0' + h / 10);
+            hhmm[1] = (char) ('0' + h % 10);
+            hhmm[3] = (char) ('0' + mm / 10);
+            hhmm[4] = (char) ('0' + mm % 10);
+            MINUTE_STRINGS[m] = new String(hhmm);
+        }
+    }
+
+    private final String mSysSn;
+    private final ZoneId mZone;
+    private final ZoneRules mRules;
+    private final int mGridMinutes;
+    private final boolean mSumDuplicates;
+    private final BatchWriter mWriter;
+
+    private final SlotBuffer mMain;
+    // The newest day seen so far is held back so finish() can drop it when incomplete.
+    private final SlotBuffer mLatestDay;
+    // Sum mode only: the totals already handed to the writer for slots near mLastSlot
+    private SlotBuffer mWrittenTotals;
+    private long mLastSlot;
+    private long mLatestDayNumber = Long.MIN_VALUE;
+
+    private long mWallHourCached = Long.MIN_VALUE;
+    private long mWallHourOffsetMillis;
+    private long mUtcHourCached = Long.MIN_VALUE;
+    private long mUtcHourOffsetMillis;
+
+    private long mDateStringDay = Long.MIN_VALUE;
+    private String mDateString;
+
+    private long mAccepted = 0;
+    private long mWritten = 0;
+
+    /**
+     * @param sysSn         system serial / MPRN stored on every row
+     * @param zone          the source's local zone (saved user zone)
+     * @param gridMinutes   alignment grid, e.g. 30 for half-hourly meters, 5 for the sim cadence
+     * @param batchSize     maximum distinct slots buffered before a write
+     * @param sumDuplicates true to add repeated readings for a slot (Octopus), false for last-wins (ESBN)
+     * @param writer        batch sink
+     */
+    public GridIntervalIngest(String sysSn, ZoneId zone, int gridMinutes, int batchSize,
+                              boolean sumDuplicates, BatchWriter writer) {
+        if (gridMinutes <= 0 || MINUTES_PER_DAY % gridMinutes != 0) {
+            throw new IllegalArgumentException("gridMinutes must divide a day: " + gridMinutes);
+        }
+        mSysSn = sysSn;
+        mZone = zone;
+        mRules = zone.getRules();
+        mGridMinutes = gridMinutes;
+        mSumDuplicates = sumDuplicates;
+        mWriter = writer;
+        mMain = new SlotBuffer(Math.max(16, batchSize));
+        mLatestDay = new SlotBuffer(MINUTES_PER_DAY / gridMinutes);
+        if (sumDuplicates) mWrittenTotals = new SlotBuffer(Math.max(16, batchSize));
+    }
+
+    /** Accept a reading stamped in the source's local wall-clock (ESBN HDF). */
+    public void acceptWallClock(long wallClockMinute, Channel channel, double kwh) {
+        long slot = align(wallClockMinute);
+        long wallMillis = slot * MILLIS_PER_MINUTE;
+        long hour = Math.floorDiv(wallMillis, MILLIS_PER_HOUR);
+        if (hour != mWallHourCached) {
+            LocalDateTime hourStart = LocalDateTime.ofEpochSecond(hour * 3600L, 0, ZoneOffset.UTC);
+            long utc = hourStart.atZone(mZone).toInstant().toEpochMilli();
+            mWallHourOffsetMillis = hour * MILLIS_PER_HOUR - utc;
+            mWallHourCached = hour;
+        }
+        accept(slot, wallMillis - mWallHourOffsetMillis, channel, kwh);
+    }
+
+    /** Accept a reading stamped with an absolute instant (Octopus CSV carries its own offset). */
+    public void acceptUtc(long utcMillis, Channel channel, double kwh) {
+        long hour = Math.floorDiv(utcMillis, MILLIS_PER_HOUR);
+        if (hour != mUtcHourCached) {
+            mUtcHourOffsetMillis = mRules.getOffset(Instant.ofEpochMilli(hour * MILLIS_PER_HOUR))
+                    .getTotalSeconds() * 1000L;
+            mUtcHourCached = hour;
+        }
+        long wallMinute = Math.floorDiv(utcMillis + mUtcHourOffsetMillis, MILLIS_PER_MINUTE);
+        long slot = align(wallMinute);
+        // Keep the instant aligned with the slot (drop any sub-grid remainder).
+        long utcSlot = utcMillis - (wallMinute - slot) * MILLIS_PER_MINUTE
+                - Math.floorMod(utcMillis, MILLIS_PER_MINUTE);
+        accept(slot, utcSlot, channel, kwh);
+    }
+
+    /**
+     * Write everything still buffered. The newest day is only written when it has at
+     * least {@code minSlotsForLatestDay} distinct slots (ESBN files end mid-day); pass 0
+     * to always keep it.
+     */
+    public void finish(int minSlotsForLatestDay) {
+        if (mLatestDay.size >= minSlotsForLatestDay) {
+            drainInto(mLatestDay, mMain);
+        }
+        mLatestDay.clear();
+        flush(mMain);
+    }
+
+    /** Readings accepted so far (for progress reporting). */
+    public long getAcceptedCount() {
+        return mAccepted;
+    }
+
+    /** Distinct slots handed to the writer so far. */
+    public long getWrittenCount() {
+        return mWritten;
+    }
+
+    private long align(long wallClockMinute) {
+        return wallClockMinute - Math.floorMod(wallClockMinute, mGridMinutes);
+    }
+
+    private void accept(long slot, long utcMillis, Channel channel, double kwh) {
+        mAccepted++;
+        mLastSlot = slot;
+        long day = Math.floorDiv(slot, MINUTES_PER_DAY);
+        if (day > mLatestDayNumber) {
+            if (mLatestDayNumber != Long.MIN_VALUE) drainInto(mLatestDay, mMain);
+            mLatestDay.clear();
+            mLatestDayNumber = day;
+        }
+        SlotBuffer target = (day == mLatestDayNumber) ? mLatestDay : mMain;
+        if (target == mMain && mMain.isFull() && mMain.indexOf(slot) < 0) flush(mMain);
+        target.put(slot, utcMillis, channel == Channel.BUY ? HAS_BUY : HAS_FEED, kwh, mSumDuplicates);
+    }
+
+    private void drainInto(SlotBuffer from, SlotBuffer to) {
+        for (int i = 0; i < from.size; i++) {
+            if (to.isFull() && to.indexOf(from.keys[i]) < 0) flush(to);
+            if ((from.flags[i] & HAS_BUY) != 0)
+                to.put(from.keys[i], from.millis[i], HAS_BUY, from.buy[i], mSumDuplicates);
+            if ((from.flags[i] & HAS_FEED) != 0)
+                to.put(from.keys[i], from.millis[i], HAS_FEED, from.feed[i], mSumDuplicates);
+        }
+    }
+
+    private void flush(SlotBuffer buffer) {
+        if (buffer.size == 0) return;
+        if (mSumDuplicates) addWrittenTotals(buffer);
+        List<AlphaESSTransformedData> buyRows = new ArrayList<>(buffer.size);
+        List<AlphaESSTransformedData> feedRows = new ArrayList<>(buffer.size);
+        for (int i = 0; i < buffer.size; i++) {
+            long slot = buffer.keys[i];
+            long day = Math.floorDiv(slot, MINUTES_PER_DAY);
+            AlphaESSTransformedData row = new AlphaESSTransformedData();
+            row.setSysSn(mSysSn);
+            row.setDate(dateString(day));
+            row.setMinute(MINUTE_STRINGS[(int) (slot - day * MINUTES_PER_DAY)]);
+            row.setMillisSinceEpoch(buffer.millis[i]);
+            row.setBuy(buffer.buy[i]);
+            row.setFeed(buffer.feed[i]);
+            if ((buffer.flags[i] & HAS_BUY) != 0) buyRows.add(row);
+            if ((buffer.flags[i] & HAS_FEED) != 0) feedRows.add(row);
+        }
+        mWriter.write(buyRows, feedRows);
+        mWritten += buffer.size;
+        buffer.clear();
+    }
+
+    /**
+     * Add what was already written for the buffer's slots into the buffer, and record the new
+     * totals, so the writer's overwrite stores the running sum of every reading for a slot.
+     */
+    private void addWrittenTotals(SlotBuffer buffer) {
+        for (int i = 0; i < buffer.size; i++) {
+            long slot = buffer.keys[i];
+            int written = mWrittenTotals.indexOf(slot);
+            if (written >= 0) {
+                byte seen = mWrittenTotals.flags[written];
+                if ((buffer.flags[i] & HAS_BUY) != 0 && (seen & HAS_BUY) != 0)
+                    buffer.buy[i] += mWrittenTotals.buy[written];
+                if ((buffer.flags[i] & HAS_FEED) != 0 && (seen & HAS_FEED) != 0)
+                    buffer.feed[i] += mWrittenTotals.feed[written];
+            } else if (mWrittenTotals.isFull()) {
+                mWrittenTotals.retainWithin(mLastSlot - OUT_OF_ORDER_WINDOW_MINUTES,
+                        mLastSlot + OUT_OF_ORDER_WINDOW_MINUTES);
+                if (mWrittenTotals.isFull()) mWrittenTotals = mWrittenTotals.grown();
+            }
+            if ((buffer.flags[i] & HAS_BUY) != 0)
+                mWrittenTotals.put(slot, buffer.millis[i], HAS_BUY, buffer.buy[i], false);
+            if ((buffer.flags[i] & HAS_FEED) != 0)
+                mWrittenTotals.put(slot, buffer.millis[i], HAS_FEED, buffer.feed[i], false);
+        }
+    }
+
+    private String dateString(long epochDay) {
+        if (epochDay != mDateStringDay) {
+            mDateString = formatEpochDay(epochDay);
+            mDateStringDay = epochDay;
+        }
+        return mDateString;
+    }
+
+    // ---- allocation-free time arithmetic -------------------------------------------------
+
+    /** Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's days_from_civil). */
+    public static long epochDay(int year, int month, int day) {
+        long y = (month <= 2) ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /** Wall-clock minutes since 1970-01-01T00:00 for the given local fields. */
+    public static long wallClockMinute(int year, int month, int day, int hour, int minute) {
+        return epochDay(year, month, day) * MINUTES_PER_DAY + hour * 60L + minute;
+    }
+
+    /** Shared {@code HH:mm} string for a minute of the day (0&ndash;1439). */
+    public static String formatMinuteOfDay(int minuteOfDay) {
+        return MINUTE_STRINGS[minuteOfDay];
+    }
+
+    /** {@code yyyy-MM-dd} for an epoch day (H. Hinnant's civil_from_days). */
+    public static String formatEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int y = (int) (yoe + era * 400 + (m <= 2 ? 1 : 0));
+        char[] c = new char[10];
+        c[0] = (char) ('0' + (y / 1000) % 10);
+        c[1] = (char) ('0' + (y / 100) % 10);
+        c[2] = (char) ('0' + (y / 10) % 10);
+        c[3] = (char) ('0' + y % 10);
+        c[4] = '-';
+        c[5] = (char) ('0' + m / 10);
+        c[6] = (char) ('0' + m % 10);
+        c[7] = '-';
+        c[8] = (char) ('0' + d / 10);
+        c[9] = (char) ('0' + d % 10);
+        return new String(c);
+    }
+
+    /**
+     * Parse {@code dd-MM-yyyy HH:mm} (the ESBN HDF read time, optionally followed by
+     * seconds or an offset, which are ignored) into wall-clock minutes.
+     *
+     * @throws NumberFormatException when the text does not have that shape
+     */
+    public static long parseDayFirstWallClock(CharSequence s) {
+        if (s.length() < 16 || s.charAt(2) != '-' || s.charAt(5) != '-' || s.charAt(13) != ':')
+            throw new NumberFormatException("Unexpected read time: " + s);
+        int day = digits(s, 0, 2);
+        int month = digits(s, 3, 2);
+        int year = digits(s, 6, 4);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        return wallClockMinute(year, month, day, hour, minute);
+    }
+
+    /**
+     * Parse an ISO-8601 date-time with offset ({@code yyyy-MM-ddTHH:mm[:ss[.fff]](Z|±HH:mm)})
+     * to epoch millis. A missing offset is treated as UTC.
+     *
+     * @throws NumberFormatException when the text does not have that shape
+     */
+    public static long parseIsoOffsetMillis(CharSequence s) {
+        int len = s.length();
+        if (len < 16 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(13) != ':')
+            throw new NumberFormatException("Unexpected timestamp: " + s);
+        char sep = s.charAt(10);
+        if (sep != 'T' && sep != ' ') throw new NumberFormatException("Unexpected timestamp: " + s);
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = 0;
+        int i = 16;
+        if (i < len && s.charAt(i) == ':') {
+            second = digits(s, i + 1, 2);
+            i += 3;
+            if (i < len && s.charAt(i) == '.') {
+                i++;
+                while (i < len && Character.isDigit(s.charAt(i))) i++;
+            }
+        }
+        int offsetSeconds = 0;
+        if (i < len) {
+            char c = s.charAt(i);
+            if (c == 'Z' || c == 'z') {
+                offsetSeconds = 0;
+            } else if (c == '+' || c == '-') {
+                int oh = digits(s, i + 1, 2);
+                int om = 0;
+                if (i + 3 < len) om = digits(s, s.charAt(i + 3) == ':' ? i + 4 : i + 3, 2);
+                offsetSeconds = (oh * 3600 + om * 60) * (c == '-' ? -1 : 1);
+            } else {
+                throw new NumberFormatException("Unexpected timestamp: " + s);
+            }
+        }
+        long wallSeconds = wallClockMinute(year, month, day, hour, minute) * 60L + second;
+        return (wallSeconds - offsetSeconds) * 1000L;
+    }
+
+    private static int digits(CharSequence s, int start, int count) {
+        if (start + count > s.length()) throw new NumberFormatException("Truncated: " + s);
+        int v = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') throw new NumberFormatException("Not a digit in: " + s);
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    // ---- bounded slot buffer ---------------------------------------------------------------
+
+    /** Parallel primitive arrays plus an open-addressing index from slot to position. */
+    private static final class SlotBuffer {
+        final int capacity;
+        final long[] keys;
+        final long[] millis;
+        final double[] buy;
+        final double[] feed;
+        final byte[] flags;
+        final int[] index; // open addressing, stores position + 1 (0 = empty)
+        final int mask;
+        int size = 0;
+
+        SlotBuffer(int capacity) {
+            this.capacity = capacity;
+            keys = new long[capacity];
+            millis = new long[capacity];
+            buy = new double[capacity];
+            feed = new double[capacity];
+            flags = new byte[capacity];
+            int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            index = new int[tableSize];
+            mask = tableSize - 1;
+        }
+
+        boolean isFull() {
+            return size >= capacity;
+        }
+
+        int indexOf(long key) {
+            int h = hash(key);
+            while (index[h] != 0) {
+                int pos = index[h] - 1;
+                if (keys[pos] == key) return pos;
+                h = (h + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, long utcMillis, byte channel, double value, boolean sum) {
+            int h = hash(key);
+            int pos = -1;
+            while (index[h] != 0) {
+                int p = index[h] - 1;
+                if (keys[p] == key) {
+                    pos = p;
+                    break;
+                }
+                h = (h + 1) & mask;
+            }
+            if (pos < 0) {
+                pos = size++;
+                index[h] = pos + 1;
+                keys[pos] = key;
+                millis[pos] = utcMillis;
+                buy[pos] = 0D;
+                feed[pos] = 0D;
+                flags[pos] = 0;
+            }
+            boolean seen = (flags[pos] & channel) != 0;
+            if (channel == HAS_BUY) buy[pos] = (sum && seen) ? buy[pos] + value : value;
+            else feed[pos] = (sum && seen) ? feed[pos] + value : value;
+            flags[pos] |= channel;
+        }
+
+        /** A copy with twice the capacity. */
+        SlotBuffer grown() {
+            SlotBuffer to = new SlotBuffer(capacity * 2);
+            for (int i = 0; i < size; i++) {
+                if ((flags[i] & HAS_BUY) != 0) to.put(keys[i], millis[i], HAS_BUY, buy[i], false);
+                if ((flags[i] & HAS_FEED) != 0) to.put(keys[i], millis[i], HAS_FEED, feed[i], false);
+            }
+            return to;
+        }
+
+        /** Drop the slots outside [from, to], keeping the rest in order. */
+        void retainWithin(long from, long to) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (keys[i] < from || keys[i] > to) continue;
+                keys[kept] = keys[i];
+                millis[kept] = millis[i];
+                buy[kept] = buy[i];
+                feed[kept] = feed[i];
+                flags[kept] = flags[i];
+                kept++;
+            }
+            if (kept == size) return;
+            size = kept;
+            Arrays.fill(index, 0);
+            for (int i = 0; i < size; i++) {
+                int h = hash(keys[i]);
+                while (index[h] != 0) h = (h + 1) & mask;
+                index[h] = i + 1;
+            }
+        }
+
+        void clear() {
+            if (size == 0) return;
+            Arrays.fill(index, 0);
+            size = 0;
+        }
+
+        private int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -79,9 +79,12 @@ import com.tfcode.comparetout.region.RegionProfiles;
 import com.tfcode.comparetout.model.importers.CostInputRow;
 import com.tfcode.comparetout.model.importers.InverterDateRange;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
 import com.tfcode.comparetout.util.GraphableActivity;
 import com.tfcode.comparetout.util.LocalContentWebViewClient;
 import com.tfcode.comparetout.util.RateLookup;
+import com.tfcode.comparetout.util.SourceCostCache;
+import com.tfcode.comparetout.util.UsageIndex;
 
 import java.text.DecimalFormat;
 import java.time.Instant;
@@ -89,6 +92,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -558,45 +562,54 @@ public abstract class ImportOverviewFragment extends Fragment {
         // Load PricePlans
         List<PricePlan> plans = mToutcRepository.getAllPricePlansNow();
         mCostViewModel.setPlans(plans);
+        // The selected usage is indexed once and each plan priced per rate segment (UsageIndex).
+        UsageIndex.Builder indexBuilder = new UsageIndex.Builder(mCostViewModel.getImports().size());
+        for (Map.Entry<LocalDateTime, Double> usage : mCostViewModel.getImports().entrySet()) {
+            if (usage.getKey().isAfter(mCostViewModel.getSelectedStart()) && usage.getKey().isBefore(mCostViewModel.getSelectedEnd())) {
+                LocalDateTime ldt = usage.getKey();
+                indexBuilder.add(ldt.getDayOfYear(), ldt.getDayOfWeek().getValue(),
+                        ldt.getHour() * 60 + ldt.getMinute(), usage.getValue(), 0D,
+                        PriceSeries.wallMillis(ldt.truncatedTo(ChronoUnit.HOURS)));
+            }
+        }
+        UsageIndex importIndex = indexBuilder.build();
+        double exported = 0D;
+        for (Map.Entry<LocalDateTime, Double> usage : mCostViewModel.getExports().entrySet()) {
+            if (usage.getKey().isAfter(mCostViewModel.getSelectedStart()) && usage.getKey().isBefore(mCostViewModel.getSelectedEnd())) {
+                exported += usage.getValue();
+            }
+        }
+        final double exportedKWh = exported;
+        int startDOY = mCostViewModel.getSelectedStart().getDayOfYear();
+        Map<Long, SourceCostCache.CompiledPlan> compiled = new HashMap<>();
+        Map<Long, PriceSeries> dynamic = new HashMap<>();
         for (PricePlan pp : plans) {
-            RateLookup lookup = new RateLookup(pp,
-                    mToutcRepository.getAllDayRatesForPricePlanID(pp.getPricePlanIndex()));
-            lookup.setStartDOY(mCostViewModel.getSelectedStart().getDayOfYear());
+            compiled.put(pp.getPricePlanIndex(), SourceCostCache.compile(mToutcRepository, pp));
+            dynamic.put(pp.getPricePlanIndex(), mToutcRepository.getPriceSeries(pp.getPricePlanIndex()));
+        }
+        // Each plan is priced on its own compiled lookup, all plans in parallel
+        List<Costings> costings = SourceCostCache.priceAll(plans, pp -> {
+            RateLookup lookup = compiled.get(pp.getPricePlanIndex()).newLookup();
+            lookup.setStartDOY(startDOY);
             Costings costing = new Costings();
             costing.setScenarioID(0L);
             costing.setPricePlanID(pp.getPricePlanIndex());
             costing.setFullPlanName(pp.getSupplier() + ":" + pp.getPlanName());
-            double buy = 0D;
-            double sell = 0D;
-            double net;
             SubTotals subTotals = new SubTotals();
-            for (Map.Entry<LocalDateTime, Double> usage : mCostViewModel.getImports().entrySet()) {
-                if (usage.getKey().isAfter(mCostViewModel.getSelectedStart()) && usage.getKey().isBefore(mCostViewModel.getSelectedEnd())) {
-                    LocalDateTime ldt = usage.getKey();
-                    int doy = ldt.getDayOfYear();
-                    int mod = ldt.getHour() * 60 + ldt.getMinute();
-                    int dow = ldt.getDayOfWeek().getValue();
-                    double price = lookup.getRate(doy, mod, dow, usage.getValue());
-                    double rowBuy = price * usage.getValue();
-                    buy += rowBuy;
-                    subTotals.addToPrice(price, usage.getValue());
-                }
-            }
+            // Dynamic plans are merge-joined against their unit rates (rows are hourly sums)
+            PriceSeries series = dynamic.get(pp.getPricePlanIndex());
+            double buy = (null == series)
+                    ? importIndex.cost(lookup, 0D, subTotals, null).buy
+                    : importIndex.cost(series, 3_600_000L, lookup, 0D, subTotals, null).buy;
             costing.setBuy(buy);
-            for (Map.Entry<LocalDateTime, Double> usage : mCostViewModel.getExports().entrySet()) {
-                if (usage.getKey().isAfter(mCostViewModel.getSelectedStart()) && usage.getKey().isBefore(mCostViewModel.getSelectedEnd())) {
-                    double price = pp.getFeed();
-                    double rowSell = price * usage.getValue();
-                    sell += rowSell;
-                }
-            }
+            double sell = pp.getFeed() * exportedKWh;
             costing.setSell(sell);
             costing.setSubTotals(subTotals);
-            net = ((buy - sell) + (pp.getStandingCharges() * 100 * (mCostViewModel.getTotalDaysSelected() / 365d)));
-            costing.setNet(net);
-            mCostViewModel.getCostings().add(costing);
-            mMainHandler.post(this::updateCostView);
-        }
+            costing.setNet((buy - sell) + (pp.getStandingCharges() * 100 * (mCostViewModel.getTotalDaysSelected() / 365d)));
+            return costing;
+        });
+        mCostViewModel.getCostings().addAll(costings);
+        mMainHandler.post(this::updateCostView);
     }
 
     protected abstract void startWorkers(String serialNumber, Object startDate);
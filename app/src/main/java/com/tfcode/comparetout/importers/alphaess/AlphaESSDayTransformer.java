@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers.alphaess;
+
+import android.annotation.SuppressLint;
+
+import com.tfcode.comparetout.importers.GridIntervalIngest;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * One day of the AlphaESS raw&rarr;transformed pipeline computed over reusable primitive
+ * scratch arrays.
+ * <p>
+ * Produces exactly the rows of the map-based chain used by the importers
+ * ({@link DataMassager#getDataPointsForPowerResponse(List, ZoneId)} &rarr;
+ * {@link DataMassager#oneDayDataInFiveMinuteIntervals(List, ZoneId)} &rarr;
+ * {@link DataMassager#massage(Map, double, double, double, double, ZoneId)} &rarr;
+ * {@link DataMassager#evIn5MinIntervals(List, double, ZoneId)} &rarr;
+ * {@link AlphaESSEntityUtil#getTransformedDataRows(Map, Map, String, ZoneId)}), including
+ * its boundary rows, single-slot gap fill and DST fall-back fold, but without the per-day
+ * TreeMaps, boxed doubles and per-row SimpleDateFormat parses. Slots are indexed from the
+ * day's local midnight, so a day is a handful of array passes.
+ * <p>
+ * Days the arrays cannot represent (unparseable upload times, samples far outside the
+ * day, zones with non-5-minute offsets) fall back to the map chain, so output never
+ * differs. An instance is single-threaded; {@link AlphaESSParallelTransform} keeps one
+ * per worker thread.
+ */
+public final class AlphaESSDayTransformer {
+
+    private static final long FIVE_MINUTES = 5 * 60 * 1000L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final int MINUTES_PER_DAY = 1440;
+    // Slots kept before local midnight / after a 25-hour day, for samples that straddle the day.
+    private static final int LEAD_SLOTS = 24;
+    private static final int CAPACITY = LEAD_SLOTS + 25 * 12 + 24;
+    private static final int DST_FOLD_SIZE = 289;
+
+    private final ZoneId mZone;
+    private final ZoneRules mRules;
+    @SuppressLint("SimpleDateFormat")
+    private final SimpleDateFormat mUploadFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    // Raw bucket sums (W) and sample counts.
+    private final double[] mSumPv = new double[CAPACITY];
+    private final double[] mSumLoad = new double[CAPACITY];
+    private final double[] mSumFeed = new double[CAPACITY];
+    private final double[] mSumBuy = new double[CAPACITY];
+    private final double[] mSumEv = new double[CAPACITY];
+    private final int[] mCount = new int[CAPACITY];
+    private final int[] mEvCount = new int[CAPACITY];
+    // Per-slot values after averaging / gap fill, then after scaling.
+    private final boolean[] mPresent = new boolean[CAPACITY];
+    private final double[] mPv = new double[CAPACITY];
+    private final double[] mLoad = new double[CAPACITY];
+    private final double[] mFeed = new double[CAPACITY];
+    private final double[] mBuy = new double[CAPACITY];
+    private final double[] mCharge = new double[CAPACITY];
+    private final double[] mEv = new double[CAPACITY];
+    private final boolean[] mHasEv = new boolean[CAPACITY];
+    private final int[] mOriginal = new int[CAPACITY];
+    private final int[] mMinuteSeenAt = new int[MINUTES_PER_DAY];
+    private long[] mUploadMillis = new long[320];
+
+    private long mWallHourCached = Long.MIN_VALUE;
+    private long mWallHourOffsetMillis;
+    private long mUtcHourCached = Long.MIN_VALUE;
+    private long mUtcHourOffsetMillis;
+
+    public AlphaESSDayTransformer(ZoneId zone) {
+        mZone = zone;
+        mRules = zone.getRules();
+        mUploadFormat.setTimeZone(TimeZone.getTimeZone(zone));
+    }
+
+    /**
+     * Transform one day's raw rows. Returns an empty list when the day has no energy
+     * summary or no power samples (there is nothing to scale against).
+     */
+    public List<AlphaESSTransformedData> transform(String sysSn, AlphaESSRawEnergy energy,
+                                                   List<AlphaESSRawPower> powerList) {
+        if (energy == null || powerList == null || powerList.isEmpty()) return Collections.emptyList();
+        List<AlphaESSTransformedData> rows = transformWithScratch(sysSn, energy, powerList);
+        return (rows != null) ? rows : transformWithMaps(sysSn, energy, powerList, mZone);
+    }
+
+    /** The original map-based chain, as run by ImportWorker / CatchUpWorker / DailyWorker. */
+    public static List<AlphaESSTransformedData> transformWithMaps(String sysSn, AlphaESSRawEnergy energy,
+                                                                  List<AlphaESSRawPower> powerList, ZoneId zone) {
+        List<DataMassager.DataPoint> points = DataMassager.getDataPointsForPowerResponse(powerList, zone);
+        Map<Long, FiveMinuteEnergies> fixed = DataMassager.oneDayDataInFiveMinuteIntervals(points, zone);
+        double ePV = energy.getEnergypv();
+        double eLoad = (ePV - energy.getEnergyOutput()) + energy.getEnergyInput();
+        double eFeed = energy.getEnergyOutput();
+        double eBuy = energy.getEnergyInput();
+        if (eBuy < 0D) eBuy = 0D;
+        Map<Long, FiveMinuteEnergies> massaged = DataMassager.massage(fixed, ePV, eLoad, eFeed, eBuy, zone);
+        Map<Long, Double> evByInterval = DataMassager.evIn5MinIntervals(powerList, energy.getEnergyChargingPile(), zone);
+        return AlphaESSEntityUtil.getTransformedDataRows(massaged, evByInterval, sysSn, zone);
+    }
+
+    /** @return the rows, or null when this day needs the map-based fallback */
+    private List<AlphaESSTransformedData> transformWithScratch(String sysSn, AlphaESSRawEnergy energy,
+                                                               List<AlphaESSRawPower> powerList) {
+        int n = powerList.size();
+        if (mUploadMillis.length < n) mUploadMillis = new long[n + n / 2];
+        for (int i = 0; i < n; i++) {
+            long millis = parseUploadTime(powerList.get(i).getUploadTime());
+            if (millis == Long.MIN_VALUE) return null;
+            mUploadMillis[i] = millis;
+        }
+
+        // The synthetic boundary rows are pinned to the first sample's local day.
+        LocalDateTime first = LocalDateTime.ofInstant(Instant.ofEpochMilli(mUploadMillis[0]), mZone);
+        long midnight = first.toLocalDate().atStartOfDay().atZone(mZone).toInstant().toEpochMilli();
+        long fiveBefore = first.toLocalDate().atTime(23, 55).atZone(mZone).toInstant().toEpochMilli();
+        if (midnight % FIVE_MINUTES != 0) return null;
+
+        clear();
+        boolean withEv = energy.getEnergyChargingPile() > 0;
+        for (int i = 0; i < n; i++) {
+            int slot = slotOf(mUploadMillis[i] / FIVE_MINUTES * FIVE_MINUTES, midnight);
+            if (slot < 0) return null;
+            AlphaESSRawPower row = powerList.get(i);
+            mSumPv[slot] += row.getPpv();
+            mSumLoad[slot] += row.getLoad();
+            mSumFeed[slot] += row.getFeedIn();
+            mSumBuy[slot] += row.getGridCharge();
+            mCount[slot]++;
+            if (withEv) {
+                mSumEv[slot] += row.getPchargingPile();
+                mEvCount[slot]++;
+            }
+        }
+        int midnightSlot = slotOf(midnight, midnight);
+        int fiveBeforeSlot = slotOf(fiveBefore, midnight);
+        if (fiveBeforeSlot < 0) return null;
+
+        // Bucket averages (FiveMinuteEnergies 4-arg semantics), plus zero boundary rows.
+        int originals = 0;
+        for (int s = 0; s < CAPACITY; s++) {
+            if (mCount[s] > 0) {
+                setAveraged(s, mSumPv[s] / mCount[s], mSumLoad[s] / mCount[s],
+                        mSumFeed[s] / mCount[s], mSumBuy[s] / mCount[s]);
+            } else if (s == midnightSlot || s == fiveBeforeSlot) {
+                setAveraged(s, 0D, 0D, 0D, 0D);
+            } else continue;
+            mOriginal[originals++] = s;
+        }
+        // A gap between two samples gets one slot: the midpoint of its neighbours.
+        for (int k = 1; k < originals; k++) {
+            int p = mOriginal[k - 1];
+            int c = mOriginal[k];
+            if (c - p > 1) {
+                setAveraged(p + 1, (mPv[p] + mPv[c]) / 2, (mLoad[p] + mLoad[c]) / 2,
+                        (mFeed[p] + mFeed[c]) / 2, (mBuy[p] + mBuy[c]) / 2);
+            }
+        }
+
+        // Unitize and scale to the daily totals (DataMassager.massage).
+        double ePV = energy.getEnergypv();
+        double eLoad = (ePV - energy.getEnergyOutput()) + energy.getEnergyInput();
+        double eFeed = energy.getEnergyOutput();
+        double eBuy = energy.getEnergyInput();
+        if (eBuy < 0D) eBuy = 0D;
+        double pPVTotal = 0D;
+        double pLoadTotal = 0D;
+        double pFeedTotal = 0D;
+        double pBuyTotal = 0D;
+        int size = 0;
+        for (int s = 0; s < CAPACITY; s++) {
+            if (!mPresent[s]) continue;
+            pPVTotal += mPv[s];
+            pLoadTotal += mLoad[s];
+            pFeedTotal += mFeed[s];
+            pBuyTotal += mBuy[s];
+            size++;
+        }
+        pPVTotal = (pPVTotal / 1000d) / 12d;
+        pLoadTotal = (pLoadTotal / 1000d) / 12d;
+        pFeedTotal = (pFeedTotal / 1000d) / 12d;
+        pBuyTotal = (pBuyTotal / 1000d) / 12d;
+        for (int s = 0; s < CAPACITY; s++) {
+            if (!mPresent[s]) continue;
+            double mPV = ((mPv[s] / 1000d) / 12d) / pPVTotal * ePV;
+            double mLoadV = ((mLoad[s] / 1000d) / 12d) / pLoadTotal * eLoad;
+            double mFeedV = ((mFeed[s] / 1000d) / 12d) / pFeedTotal * eFeed;
+            double mBuyV = ((mBuy[s] / 1000d) / 12d) / pBuyTotal * eBuy;
+            mPv[s] = mPV;
+            mLoad[s] = mLoadV;
+            mFeed[s] = mFeedV;
+            mBuy[s] = mBuyV;
+            mCharge[s] = (mPV + mBuyV) - (mLoadV + mFeedV);
+        }
+        if (size == DST_FOLD_SIZE) foldRepeatedHour(midnight);
+
+        if (withEv) scaleEv(energy.getEnergyChargingPile());
+
+        List<AlphaESSTransformedData> entities = new ArrayList<>(size);
+        for (int s = 0; s < CAPACITY; s++) {
+            if (!mPresent[s]) continue;
+            entities.add(toEntity(sysSn, midnight + (long) (s - LEAD_SLOTS) * FIVE_MINUTES, s));
+        }
+        return entities;
+    }
+
+    private void setAveraged(int s, double pv, double load, double feed, double buy) {
+        mPresent[s] = true;
+        mPv[s] = Double.isNaN(pv) ? 0D : pv;
+        mLoad[s] = Double.isNaN(load) ? 0D : load;
+        mFeed[s] = Double.isNaN(feed) ? 0D : feed;
+        mBuy[s] = Double.isNaN(buy) ? 0D : buy;
+        mCharge[s] = (pv + buy) - (load + feed);
+    }
+
+    /** Merge the first repeated wall-clock HH:mm of a fall-back day into its earlier twin. */
+    private void foldRepeatedHour(long midnight) {
+        Arrays.fill(mMinuteSeenAt, -1);
+        for (int s = 0; s < CAPACITY; s++) {
+            if (!mPresent[s]) continue;
+            int minute = localMinuteOfDay(midnight + (long) (s - LEAD_SLOTS) * FIVE_MINUTES);
+            int twin = mMinuteSeenAt[minute];
+            if (twin < 0) {
+                mMinuteSeenAt[minute] = s;
+                continue;
+            }
+            double pv = mPv[twin] + mPv[s];
+            double load = mLoad[twin] + mLoad[s];
+            double feed = mFeed[twin] + mFeed[s];
+            double buy = mBuy[twin] + mBuy[s];
+            mPv[twin] = pv;
+            mLoad[twin] = load;
+            mFeed[twin] = feed;
+            mBuy[twin] = buy;
+            mCharge[twin] = (pv + buy) - (load + feed);
+            mPresent[s] = false;
+            return;
+        }
+    }
+
+    /** DataMassager.evIn5MinIntervals over the EV bucket arrays. */
+    private void scaleEv(double eChargingPile) {
+        double rawTotalKwh = 0;
+        for (int s = 0; s < CAPACITY; s++) {
+            if (mEvCount[s] == 0) continue;
+            double avgW = mSumEv[s] / mEvCount[s];
+            mEv[s] = avgW;
+            rawTotalKwh += (avgW / 1000d) / 12d;
+        }
+        if (rawTotalKwh <= 0) return;
+        for (int s = 0; s < CAPACITY; s++) {
+            if (mEvCount[s] == 0) continue;
+            double intervalKwh = (mEv[s] / 1000d) / 12d;
+            mEv[s] = (intervalKwh / rawTotalKwh) * eChargingPile;
+            mHasEv[s] = !Double.isNaN(mEv[s]);
+        }
+    }
+
+    private AlphaESSTransformedData toEntity(String sysSn, long key, int s) {
+        AlphaESSTransformedData entity = new AlphaESSTransformedData();
+        entity.setSysSn(sysSn);
+        long local = key + utcOffsetMillis(key);
+        long epochDay = Math.floorDiv(local, 86_400_000L);
+        entity.setDate(GridIntervalIngest.formatEpochDay(epochDay));
+        entity.setMinute(GridIntervalIngest.formatMinuteOfDay(
+                (int) ((local - epochDay * 86_400_000L) / 60_000L)));
+        double pv = Double.isNaN(mPv[s]) ? 0D : mPv[s];
+        double load = Double.isNaN(mLoad[s]) ? 0D : mLoad[s];
+        double feed = Double.isNaN(mFeed[s]) ? 0D : mFeed[s];
+        double buy = Double.isNaN(mBuy[s]) ? 0D : mBuy[s];
+        entity.setPv(pv);
+        entity.setLoad(load);
+        entity.setFeed(feed);
+        entity.setBuy(buy);
+        double charge = Double.isNaN(mCharge[s]) ? 0D : mCharge[s];
+        // Assume losses of 10% when discharging (as AlphaESSEntityUtil)
+        entity.setCharge(charge > 0D ? charge : charge * 0.9);
+        entity.setMillisSinceEpoch(key);
+
+        AlphaESSFlowDecomposer.FlowDecomposition flows =
+                AlphaESSFlowDecomposer.decompose(pv, load, feed, buy);
+        entity.setPv2load(flows.pv2load);
+        entity.setPv2bat(flows.pv2bat);
+        entity.setPv2grid(flows.pv2grid);
+        entity.setBat2load(flows.bat2load);
+        entity.setBat2grid(flows.bat2grid);
+        entity.setGrid2load(flows.grid2load);
+        entity.setGrid2bat(flows.grid2bat);
+        entity.setBatChargeIn(flows.batChargeIn);
+        entity.setBatDischargeOut(flows.batDischargeOut);
+        if (mHasEv[s]) entity.setEvActual(mEv[s]);
+        return entity;
+    }
+
+    private int slotOf(long key, long midnight) {
+        long slot = (key - midnight) / FIVE_MINUTES + LEAD_SLOTS;
+        return (slot < 0 || slot >= CAPACITY) ? -1 : (int) slot;
+    }
+
+    private int localMinuteOfDay(long utcMillis) {
+        long local = utcMillis + utcOffsetMillis(utcMillis);
+        return (int) (Math.floorMod(local, 86_400_000L) / 60_000L);
+    }
+
+    private long utcOffsetMillis(long utcMillis) {
+        long hour = Math.floorDiv(utcMillis, MILLIS_PER_HOUR);
+        if (hour != mUtcHourCached) {
+            mUtcHourOffsetMillis = mRules.getOffset(Instant.ofEpochMilli(hour * MILLIS_PER_HOUR))
+                    .getTotalSeconds() * 1000L;
+            mUtcHourCached = hour;
+        }
+        return mUtcHourOffsetMillis;
+    }
+
+    /**
+     * {@code yyyy-MM-dd HH:mm:ss} in the saved zone to epoch millis. The zone is resolved
+     * by the platform parser once per wall-clock hour (so gaps and overlaps resolve exactly
+     * as DataMassager's per-row parse does); the rest is arithmetic.
+     *
+     * @return the instant, or Long.MIN_VALUE when the text is not in the strict format
+     */
+    private long parseUploadTime(String text) {
+        if (text == null || text.length() < 19 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return Long.MIN_VALUE;
+        }
+        long wallMillis;
+        try {
+            long wallMinute = GridIntervalIngest.wallClockMinute(digits(text, 0, 4), digits(text, 5, 2),
+                    digits(text, 8, 2), digits(text, 11, 2), digits(text, 14, 2));
+            wallMillis = wallMinute * 60_000L + digits(text, 17, 2) * 1000L;
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+        long hour = Math.floorDiv(wallMillis, MILLIS_PER_HOUR);
+        if (hour != mWallHourCached) {
+            try {
+                Date parsed = mUploadFormat.parse(text);
+                if (parsed == null) return Long.MIN_VALUE;
+                mWallHourOffsetMillis = wallMillis - parsed.getTime();
+                mWallHourCached = hour;
+            } catch (ParseException e) {
+                return Long.MIN_VALUE;
+            }
+        }
+        return wallMillis - mWallHourOffsetMillis;
+    }
+
+    private static int digits(String s, int start, int count) {
+        int v = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') throw new NumberFormatException(s);
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private void clear() {
+        Arrays.fill(mSumPv, 0D);
+        Arrays.fill(mSumLoad, 0D);
+        Arrays.fill(mSumFeed, 0D);
+        Arrays.fill(mSumBuy, 0D);
+        Arrays.fill(mSumEv, 0D);
+        Arrays.fill(mCount, 0);
+        Arrays.fill(mEvCount, 0);
+        Arrays.fill(mPresent, false);
+        Arrays.fill(mHasEv, false);
+    }
+}
@@ -38,13 +38,9 @@ import com.tfcode.comparetout.model.ToutcRepository;
 import com.tfcode.comparetout.ui2.UserTimezoneStore;
 
 import java.time.ZoneId;
-import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
-import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
-import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.ui2.UI2NotificationLaunch;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Re-runs the v2 AlphaESS transform across every (sysSn, date) that already has
@@ -114,37 +110,15 @@ public class AlphaESSMigrationWorker extends Worker {
             return Result.success();
         }
 
+        // Interpret/stamp source timestamps in the saved zone (Phase 1, timezone-and-rollout.md).
+        ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
         String lastDate = dates.get(dates.size() - 1);
-        for (String date : dates) {
-            if (mStopped) break;
-            publishProgress("Re-processing " + date + " of " + lastDate, false);
-
-            AlphaESSRawEnergy energy = mToutcRepository.getAlphaESSEnergyForDate(systemSN, date);
-            if (energy == null) continue;
-            List<AlphaESSRawPower> powerList = mToutcRepository.getAlphaESSPowerForSharing(systemSN, date);
-            if (powerList == null || powerList.isEmpty()) continue;
-
-            // Interpret/stamp source timestamps in the saved zone (Phase 1, timezone-and-rollout.md).
-            ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
-            // Fix the power-data (5 minute alignment and missing entries).
-            List<DataMassager.DataPoint> points = DataMassager.getDataPointsForPowerResponse(powerList, zone);
-            Map<Long, FiveMinuteEnergies> fixed = DataMassager.oneDayDataInFiveMinuteIntervals(points, zone);
-            // Daily totals — same formulae as ImportWorker/CatchUpWorker.
-            double ePV = energy.getEnergypv();
-            double eLoad = (ePV - energy.getEnergyOutput()) + energy.getEnergyInput();
-            double eFeed = energy.getEnergyOutput();
-            double eBuy = energy.getEnergyInput();
-            if (eBuy < 0D) eBuy = 0D;
-            // Unitize and scale.
-            Map<Long, FiveMinuteEnergies> massaged = DataMassager.massage(fixed, ePV, eLoad, eFeed, eBuy, zone);
-            // v2: per-interval EV charger kWh, scaled to daily total.
-            Map<Long, Double> evByInterval = DataMassager.evIn5MinIntervals(powerList, energy.getEnergyChargingPile(), zone);
-
-            // Re-write transformed data (REPLACE on conflict — fully idempotent).
-            List<AlphaESSTransformedData> normalized =
-                    AlphaESSEntityUtil.getTransformedDataRows(massaged, evByInterval, systemSN, zone);
-            mToutcRepository.addTransformedData(normalized);
-        }
+        // Days are independent: transform them in parallel, re-writing transformed data through
+        // one batched writer (REPLACE on conflict — fully idempotent).
+        boolean complete = AlphaESSParallelTransform.run(mToutcRepository, systemSN, dates, zone,
+                () -> mStopped,
+                (date, done, total) -> publishProgress("Re-processed " + done + "/" + total
+                        + " days (to " + lastDate + ")", false));
 
         if (mStopped) {
             // Cancellation: leave the meta untouched so the Migrate button stays visible.
@@ -153,6 +127,12 @@ public class AlphaESSMigrationWorker extends Worker {
             return Result.success();
         }
 
+        if (!complete) {
+            // Some days failed; leave the meta alone so the Migrate button offers a retry.
+            publishProgress("Re-processing incomplete, please retry", true);
+            return Result.success();
+        }
+
         // Full completion: stamp v2 so the Migrate button hides.
         mToutcRepository.stampAlphaESSTransformCurrent(systemSN);
         publishProgress("AlphaESS data re-processed", true);
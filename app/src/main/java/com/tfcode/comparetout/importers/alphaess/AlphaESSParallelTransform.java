@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers.alphaess;
+
+import com.tfcode.comparetout.model.ToutcRepository;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Day-partitioned re-transform of a system's raw AlphaESS data.
+ * <p>
+ * Each day's transform is a pure function of that day's raw energy + power rows, so days
+ * are fanned out over a bounded pool (one {@link AlphaESSDayTransformer} of scratch arrays
+ * per thread). Only a small window of days is in flight at once, so memory stays flat for
+ * multi-year systems. The calling thread is the single writer: finished days are gathered
+ * into month-sized REPLACE batches, which keeps Room's write lock uncontended.
+ * <p>
+ * Used by AlphaESSMigrationWorker and ImportWorker; CatchUpWorker / DailyWorker only
+ * transform a handful of days and keep the sequential chain.
+ */
+public final class AlphaESSParallelTransform {
+
+    /** Called on the calling thread after each day is transformed. */
+    public interface Progress {
+        void onDay(String date, int done, int total);
+    }
+
+    private static final int MAX_THREADS = 8;
+    private static final int IN_FLIGHT_PER_THREAD = 2;
+    // ~ a month of 5-minute rows per Room transaction.
+    private static final int WRITE_BATCH_ROWS = 288 * 31;
+
+    private AlphaESSParallelTransform() {}
+
+    private static final class DayResult {
+        final String date;
+        final List<AlphaESSTransformedData> rows;
+
+        DayResult(String date, List<AlphaESSTransformedData> rows) {
+            this.date = date;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Re-transform every date in {@code dates} for {@code sysSn}, replacing the stored
+     * transformed rows. Days without raw energy or power are skipped.
+     *
+     * @return true when every day was processed without error and the run was not stopped,
+     * i.e. when it is safe to stamp the transform version.
+     */
+    public static boolean run(ToutcRepository repository, String sysSn, List<String> dates, ZoneId zone,
+                              BooleanSupplier stopped, Progress progress) {
+        if (dates == null || dates.isEmpty()) return true;
+        int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        ThreadLocal<AlphaESSDayTransformer> transformers =
+                ThreadLocal.withInitial(() -> new AlphaESSDayTransformer(zone));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<DayResult> completion = new ExecutorCompletionService<>(pool);
+
+        int window = threads * IN_FLIGHT_PER_THREAD;
+        int submitted = 0;
+        int done = 0;
+        int failures = 0;
+        List<AlphaESSTransformedData> batch = new ArrayList<>(WRITE_BATCH_ROWS + 300);
+        try {
+            while (done < submitted || submitted < dates.size()) {
+                while (submitted < dates.size() && submitted - done < window && !stopped.getAsBoolean()) {
+                    final String date = dates.get(submitted++);
+                    completion.submit(() -> {
+                        AlphaESSRawEnergy energy = repository.getAlphaESSEnergyForDate(sysSn, date);
+                        if (energy == null) return new DayResult(date, null);
+                        List<AlphaESSRawPower> powerList = repository.getAlphaESSPowerForSharing(sysSn, date);
+                        return new DayResult(date, transformers.get().transform(sysSn, energy, powerList));
+                    });
+                }
+                if (done == submitted) break;
+
+                DayResult result;
+                try {
+                    result = completion.take().get();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    failures++;
+                    done++;
+                    continue;
+                }
+                done++;
+                if (result.rows != null && !result.rows.isEmpty()) {
+                    batch.addAll(result.rows);
+                    if (batch.size() >= WRITE_BATCH_ROWS) {
+                        repository.addTransformedData(batch);
+                        batch = new ArrayList<>(WRITE_BATCH_ROWS + 300);
+                    }
+                }
+                if (progress != null) progress.onDay(result.date, done, dates.size());
+            }
+            if (!batch.isEmpty()) repository.addTransformedData(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failures > 0)
+            System.out.println("AlphaESSParallelTransform: " + failures + " day(s) failed for " + sysSn);
+        return failures == 0 && done == dates.size() && !stopped.getAsBoolean();
+    }
+}
@@ -45,7 +45,6 @@ import com.tfcode.comparetout.ui2.UserTimezoneStore;
 import java.time.ZoneId;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
-import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.ui2.UI2NotificationLaunch;
 
 import java.io.IOException;
@@ -54,7 +53,6 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class ImportWorker extends Worker {
 
@@ -172,43 +170,23 @@ public class ImportWorker extends Worker {
             }
         }
 
-        long notifyTime = System.nanoTime();
         List<String> dates = mToutcRepository.getExportDatesForSN(systemSN);
-        for (String date : dates) {
-            AlphaESSRawEnergy energy = mToutcRepository.getAlphaESSEnergyForDate(systemSN, date);
-            List<AlphaESSRawPower> powerList = mToutcRepository.getAlphaESSPowerForSharing(systemSN, date);
-            if (System.nanoTime() - notifyTime > 1e+9) {
-                notifyTime = System.nanoTime();
-                publishProgress("Unitizing and scaling: " + date + " of " + dates.get(dates.size() - 1),
-                        false);
-            }
-
-            // Interpret/stamp source timestamps in the saved zone (Phase 1, timezone-and-rollout.md).
-            ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
-            // Fix the power-data (5 minute alignment and missing entries)
-            List<DataMassager.DataPoint> points = DataMassager.getDataPointsForPowerResponse(powerList, zone);
-            Map<Long, FiveMinuteEnergies> fixed = DataMassager.oneDayDataInFiveMinuteIntervals(points, zone);
-            // Get the total load (ePV - eOutput) + eInput
-            double ePV = energy.getEnergypv();
-            double eLoad = (ePV - energy.getEnergyOutput()) + energy.getEnergyInput();
-            double eFeed = energy.getEnergyOutput();
-            double eBuy = energy.getEnergyInput();
-            if (eBuy < 0D) eBuy = 0D;
-            // Unitize and scale power (in kWh 5 minute intervals)
-            Map<Long, FiveMinuteEnergies> massaged = DataMassager.massage(fixed, ePV, eLoad, eFeed, eBuy, zone);
-            // v2: per-interval EV charger kWh (scaled to daily total), used by the new transform.
-            Map<Long, Double> evByInterval = DataMassager.evIn5MinIntervals(powerList, energy.getEnergyChargingPile(), zone);
+        // Interpret/stamp source timestamps in the saved zone (Phase 1, timezone-and-rollout.md).
+        ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
+        // Unitize and scale each day (5 minute kWh intervals) in parallel; one batched writer stores the rows.
+        boolean complete = AlphaESSParallelTransform.run(mToutcRepository, systemSN, dates, zone, () -> mStopped,
+                (date, done, total) -> publishProgress("Unitizing and scaling: " + done + " of " + total + " days",
+                        false));
 
-            // Store transformed data
-            List<AlphaESSTransformedData> normalizedEntityList = AlphaESSEntityUtil.getTransformedDataRows(massaged, evByInterval, systemSN, zone);
-            mToutcRepository.addTransformedData(normalizedEntityList);
+        if (complete) {
+            // Every transformed row for this SN was rewritten, so it is current (v2).
+            mToutcRepository.stampAlphaESSTransformCurrent(systemSN);
+            publishProgress("All done importing " + systemSN, true);
+        } else {
+            // Stopped or some days failed; leave the meta alone so the Migrate button offers a retry.
+            publishProgress("Import incomplete for " + systemSN + ", please retry", true);
         }
 
-        // ImportWorker rewrites every transformed row for this SN, so we can stamp v2 unconditionally.
-        mToutcRepository.stampAlphaESSTransformCurrent(systemSN);
-
-        publishProgress("All done importing " + systemSN, true);
-
         if (mStopped) mNotificationManager.cancel(mNotificationId);
 
         return Result.success();
@@ -19,6 +19,7 @@ package com.tfcode.comparetout.importers.esbn;
 import com.google.gson.Gson;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
+import com.tfcode.comparetout.importers.GridIntervalIngest;
 import com.tfcode.comparetout.importers.esbn.responses.ESBNException;
 import com.tfcode.comparetout.importers.esbn.responses.FetchRangeResponse;
 import com.tfcode.comparetout.importers.esbn.responses.LoginResponse;
@@ -45,7 +46,6 @@ import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 
 import okhttp3.FormBody;
 import okhttp3.JavaNetCookieJar;
@@ -71,9 +71,7 @@ public class ESBNHDFClient {
     private static final int READ_TYPE = 3;
     private static final int READ_DATETIME = 4;
     private static final String EXPORT_READ_TYPE = "Export";
-    private static final String EXPORT_READ_PATTERN = ".*Export.*";
-    private static final String READ_KWH_PATTERN = ".*\\(kWh\\)";
-    private static final DateTimeFormatter HDF_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final String READ_KWH_SUFFIX = "(kWh)";
     private static final DateTimeFormatter RANGE_FORMAT_X = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
     private String mprn;
@@ -279,19 +277,20 @@ public class ESBNHDFClient {
             String[] nextLine;
             while ((nextLine = csvReader.readNext()) != null) {
                 // nextLine[] is an array of values from the line
-                mprnFromFile = nextLine[MPRN_COL];
-                String dt = nextLine[READ_DATETIME].split("\\+")[0];
-                LocalDateTime readTime = LocalDateTime.parse(dt, HDF_FORMAT);
-                Double reading = Double.parseDouble(nextLine[READ_VALUE]);
-                boolean export;
-                boolean calculated;
+                if (!mprnFromFile.equals(nextLine[MPRN_COL])) {
+                    mprnFromFile = nextLine[MPRN_COL];
+                    processor.processMprn(mprnFromFile);
+                }
+                // dd-MM-yyyy HH:mm, any trailing offset ignored; parsed without a LocalDateTime per row
+                long readTime = GridIntervalIngest.parseDayFirstWallClock(nextLine[READ_DATETIME]);
+                double reading = Double.parseDouble(nextLine[READ_VALUE]);
                 String text = nextLine[READ_TYPE];
-                calculated = Pattern.matches(READ_KWH_PATTERN, text);
-                export = Pattern.matches(EXPORT_READ_PATTERN, text);
+                boolean calculated = text.endsWith(READ_KWH_SUFFIX);
+                boolean export = text.contains(EXPORT_READ_TYPE);
                 if (export)
-                    processor.processLine(calculated, ESBNImportExportEntry.HDFLineType.EXPORT, readTime, reading);
+                    processor.processWallClock(calculated, ESBNImportExportEntry.HDFLineType.EXPORT, readTime, reading);
                 else
-                    processor.processLine(calculated, ESBNImportExportEntry.HDFLineType.IMPORT, readTime, reading);
+                    processor.processWallClock(calculated, ESBNImportExportEntry.HDFLineType.IMPORT, readTime, reading);
             }
         }
         catch (CsvValidationException ve) {
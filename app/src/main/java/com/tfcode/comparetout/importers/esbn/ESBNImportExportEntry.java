@@ -17,10 +17,25 @@
 package com.tfcode.comparetout.importers.esbn;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public interface ESBNImportExportEntry {
     void processLine(boolean calculated, HDFLineType type, LocalDateTime ldt, Double value);
 
+    /** Called by the HDF file parser before the first reading, and again whenever the MPRN column changes. */
+    default void processMprn(String mprn) {
+    }
+
+    /**
+     * Primitive variant used by the HDF file parser. {@code wallClockMinute} is minutes since
+     * 1970-01-01T00:00 in the meter's local time (see GridIntervalIngest). Streaming consumers
+     * override this to avoid a LocalDateTime per row; the default adapts to processLine.
+     */
+    default void processWallClock(boolean calculated, HDFLineType type, long wallClockMinute, double value) {
+        processLine(calculated, type,
+                LocalDateTime.ofEpochSecond(wallClockMinute * 60L, 0, ZoneOffset.UTC), value);
+    }
+
     enum HDFLineType {
         IMPORT,
         EXPORT
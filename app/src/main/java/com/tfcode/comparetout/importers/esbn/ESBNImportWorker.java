@@ -27,7 +27,6 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.net.Uri;
-import android.util.Pair;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
@@ -43,24 +42,20 @@ import com.google.gson.reflect.TypeToken;
 import com.tfcode.comparetout.ComparisonUIViewModel;
 import com.tfcode.comparetout.R;
 import com.tfcode.comparetout.TOUTCApplication;
+import com.tfcode.comparetout.importers.GridIntervalIngest;
 import com.tfcode.comparetout.importers.esbn.responses.ESBNException;
 import com.tfcode.comparetout.model.ToutcRepository;
 import com.tfcode.comparetout.ui2.UserTimezoneStore;
 
 import java.time.ZoneId;
-import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.ui2.UI2NotificationLaunch;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
 
 import io.reactivex.rxjava3.core.Single;
 
@@ -78,8 +73,9 @@ public class ESBNImportWorker extends Worker {
     private static final long MIN_NOTIFY_INTERVAL_MS = 250L;
 
 
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter MIN_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int HDF_GRID_MINUTES = 30;
+    private static final int MIN_SLOTS_FOR_LAST_DAY = 31;
+    private static final int PROGRESS_EVERY_N_READINGS = 5000;
 
 
     public static final String KEY_SYSTEM_SN = "KEY_SYSTEM_SN";
@@ -116,28 +112,39 @@ public class ESBNImportWorker extends Worker {
 
         publishProgress("Importing energy", true);
         
-        // Do some work
-        Map<LocalDateTime, Pair<Double, Double>> timeAlignedEntries = new HashMap<>();
-        AtomicReference<LocalDateTime> last = new AtomicReference<>(LocalDateTime.of(1970,1, 1, 0, 0));
+        // Readings are streamed straight into bounded Room batches (GridIntervalIngest) rather than
+        // materialised per file. ESBN HDF read-times are local wall-clock; interpret them in the saved zone
+        // to stamp the canonical UTC millis (Phase 1, timezone-and-rollout.md). The date/minute strings stay
+        // the wall-clock the file provided (already the source's local time), which is what Compare renders.
+        ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
+        final String fallbackSN = systemSN != null ? systemSN : "Not set";
+        final GridIntervalIngest[] ingest = new GridIntervalIngest[1];
+        ESBNImportExportEntry processor = new ESBNImportExportEntry() {
+            @Override
+            public void processMprn(String mprn) {
+                if (null == ingest[0]) ingest[0] = newIngest(mprn.isEmpty() ? fallbackSN : mprn, zone);
+            }
+
+            @Override
+            public void processWallClock(boolean calculated, HDFLineType type, long wallClockMinute, double value) {
+                if (mStopped) return;
+                if (null == ingest[0]) ingest[0] = newIngest(fallbackSN, zone);
+                ingest[0].acceptWallClock(wallClockMinute,
+                        type == HDFLineType.EXPORT ? GridIntervalIngest.Channel.FEED : GridIntervalIngest.Channel.BUY,
+                        value / (calculated ? 1D : 2D));
+                long accepted = ingest[0].getAcceptedCount();
+                if (accepted % PROGRESS_EVERY_N_READINGS == 0)
+                    publishProgress("Imported " + accepted + " readings", false);
+            }
+
+            @Override
+            public void processLine(boolean calculated, HDFLineType type, LocalDateTime ldt, Double value) {
+                processWallClock(calculated, type,
+                        ldt.toEpochSecond(ZoneOffset.UTC) / 60L, value);
+            }
+        };
         try (InputStream is = getApplicationContext().getContentResolver().openInputStream(fileUri)){
-            String mprnFromFile = ESBNHDFClient.readEntriesFromFile(is, (calc, type, ldt, value) -> {
-                Pair<Double, Double> importExport = timeAlignedEntries.get(ldt);
-                if (ldt.isAfter(last.get())) last.set(ldt);
-                switch (type) {
-                    case IMPORT:
-                        if ((null == importExport))
-                            timeAlignedEntries.put(ldt, new Pair<>(value/(calc ? 1D : 2D), 0D));
-                        else
-                            timeAlignedEntries.put(ldt, new Pair<>(value/(calc ? 1D : 2D), importExport.second));
-                        break;
-                    case EXPORT:
-                        if ((null == importExport))
-                            timeAlignedEntries.put(ldt, new Pair<>(0D, value/(calc ? 1D : 2D)));
-                        else
-                            timeAlignedEntries.put(ldt, new Pair<>(importExport.first, value/(calc ? 1D : 2D)));
-                        break;
-                }
-            });
+            String mprnFromFile = ESBNHDFClient.readEntriesFromFile(is, processor);
             if (!(mprnFromFile.isEmpty())) {
                 // Update the stored list of mprns
                 List<String> mSerialNumbers = new ArrayList<>();
@@ -166,35 +173,8 @@ public class ESBNImportWorker extends Worker {
         } catch (IOException | ESBNException e) {
             e.printStackTrace();
         }
-        // Check and Remove the last day if missing more than 18 entries
-        LocalDate lastDay = last.get().toLocalDate();
-        int count = 0;
-        for (LocalDateTime key : timeAlignedEntries.keySet()) {
-            if (key.toLocalDate().equals(lastDay)) {
-                count++;
-            }
-        }
-        if (count < 31) {
-            timeAlignedEntries.entrySet().removeIf(entry -> entry.getKey().toLocalDate().equals(lastDay));
-        }
-        // Store transformed data. ESBN HDF read-times are local wall-clock; interpret them in the saved zone
-        // to stamp the canonical UTC millis (Phase 1, timezone-and-rollout.md). The date/minute strings stay
-        // the wall-clock the file provided (already the source's local time), which is what Compare renders.
-        ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
-        List<AlphaESSTransformedData> normalizedEntityList = new ArrayList<>();
-        for (Map.Entry<LocalDateTime, Pair<Double, Double>> entry: timeAlignedEntries.entrySet()) {
-            AlphaESSTransformedData dbEntry = new AlphaESSTransformedData();
-            dbEntry.setBuy(entry.getValue().first);
-            dbEntry.setFeed(entry.getValue().second);
-            dbEntry.setPv(0D);
-            dbEntry.setLoad(0D);
-            dbEntry.setSysSn(systemSN != null ? systemSN : "Not set");
-            dbEntry.setDate(entry.getKey().format(DATE_FORMAT));
-            dbEntry.setMinute(entry.getKey().format(MIN_FORMAT));
-            dbEntry.setMillisSinceEpoch(entry.getKey().atZone(zone).toInstant().toEpochMilli());
-            normalizedEntityList.add(dbEntry);
-        }
-        mToutcRepository.addTransformedData(normalizedEntityList);
+        // Flush what is left; the last day is dropped if it is missing more than 18 half-hours
+        if (null != ingest[0] && !mStopped) ingest[0].finish(MIN_SLOTS_FOR_LAST_DAY);
 
         // The MPRN may only be known after parsing the file — refresh the
         // cached SN so the completion notification deep-links to the right
@@ -223,6 +203,11 @@ public class ESBNImportWorker extends Worker {
         }
     }
 
+    private GridIntervalIngest newIngest(String sysSn, ZoneId zone) {
+        return new GridIntervalIngest(sysSn, zone, HDF_GRID_MINUTES,
+                GridIntervalIngest.DEFAULT_BATCH_SIZE, false, mToutcRepository::mergeGridReadings);
+    }
+
     @NonNull
     private Notification getNotification(@NonNull String progress) {
         // Build a notification using bytesRead and contentLength
@@ -198,12 +198,6 @@ public class GenerationWorker extends AbstractGenerationWorker {
         mSubtractHw = mHwClassified && !hwAdjusted;
     }
 
-    @Override
-    protected boolean usesNetLoadAggregates() {
-        ensureDeviceRoles();
-        return mSubtractEv || mSubtractHw;
-    }
-
     @Override
     protected double loadForProfile(AlphaESSTransformedData row) {
         ensureDeviceRoles();
@@ -39,21 +39,16 @@ import com.opencsv.CSVReader;
 import com.tfcode.comparetout.ComparisonUIViewModel;
 import com.tfcode.comparetout.R;
 import com.tfcode.comparetout.TOUTCApplication;
+import com.tfcode.comparetout.importers.GridIntervalIngest;
 import com.tfcode.comparetout.model.ToutcRepository;
-import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.ui2.UI2NotificationLaunch;
 import com.tfcode.comparetout.ui2.UserTimezoneStore;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.time.OffsetDateTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Offline fallback (OQ-6): imports the consumption CSV a user can download
@@ -80,8 +75,7 @@ public class OctopusCsvImportWorker extends Worker {
     private long mLastNotifyAt = 0L;
     private static final long MIN_NOTIFY_INTERVAL_MS = 250L;
 
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter MIN_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int CSV_GRID_MINUTES = 30;
 
     public static final String KEY_SYSTEM_SN = "KEY_SYSTEM_SN";
     public static final String KEY_URI = "KEY_URI";
@@ -116,7 +110,11 @@ public class OctopusCsvImportWorker extends Worker {
 
         publishProgress("Importing energy", true);
 
-        Map<Long, Double> importByMillis = new TreeMap<>();
+        // Rows stream through GridIntervalIngest into bounded Room batches: canonical UTC millis
+        // from the CSV's own offsets; date/minute display strings rendered in the saved zone.
+        ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
+        GridIntervalIngest ingest = new GridIntervalIngest(systemSN, zone, CSV_GRID_MINUTES,
+                GridIntervalIngest.DEFAULT_BATCH_SIZE, true, mToutcRepository::mergeGridReadings);
         try (InputStream is = getApplicationContext().getContentResolver().openInputStream(fileUri);
              CSVReader reader = new CSVReader(new InputStreamReader(is))) {
             String[] header = reader.readNext();
@@ -140,45 +138,29 @@ public class OctopusCsvImportWorker extends Worker {
             while ((line = reader.readNext()) != null) {
                 if (mStopped) break;
                 if (line.length <= Math.max(consumptionCol, startCol)) continue;
+                double kwh;
+                long millis;
                 try {
-                    double kwh = Double.parseDouble(line[consumptionCol].trim());
-                    long millis = OffsetDateTime.parse(line[startCol].trim()).toInstant().toEpochMilli();
-                    importByMillis.merge(millis, kwh, Double::sum);
+                    kwh = Double.parseDouble(line[consumptionCol].trim());
+                    millis = GridIntervalIngest.parseIsoOffsetMillis(line[startCol].trim());
                 } catch (Exception badRow) {
                     continue;
                 }
+                ingest.acceptUtc(millis, GridIntervalIngest.Channel.BUY, kwh);
                 count++;
                 if (count % 500 == 0) publishProgress("Read " + count + " rows", false);
             }
+            if (!mStopped) ingest.finish(0);
         } catch (Exception e) {
             publishProgress("Import failed: " + e.getMessage(), true);
             return Result.success();
         }
 
-        if (importByMillis.isEmpty()) {
+        if (ingest.getAcceptedCount() == 0) {
             publishProgress("No readings found in file", true);
             return Result.success();
         }
 
-        // Store transformed data: canonical UTC millis from the CSV's own
-        // offsets; date/minute display strings rendered in the saved zone.
-        ZoneId zone = UserTimezoneStore.resolvedZone(getApplicationContext());
-        List<AlphaESSTransformedData> normalizedEntityList = new ArrayList<>();
-        for (Map.Entry<Long, Double> entry : importByMillis.entrySet()) {
-            ZonedDateTime local = java.time.Instant.ofEpochMilli(entry.getKey()).atZone(zone);
-            AlphaESSTransformedData dbEntry = new AlphaESSTransformedData();
-            dbEntry.setBuy(entry.getValue());
-            dbEntry.setFeed(0D);
-            dbEntry.setPv(0D);
-            dbEntry.setLoad(0D);
-            dbEntry.setSysSn(systemSN);
-            dbEntry.setDate(local.format(DATE_FORMAT));
-            dbEntry.setMinute(local.format(MIN_FORMAT));
-            dbEntry.setMillisSinceEpoch(entry.getKey());
-            normalizedEntityList.add(dbEntry);
-        }
-        mToutcRepository.addTransformedData(normalizedEntityList);
-
         // Register the fallback namespace so overview/graphs can select it.
         if (CSV_FALLBACK_SYS_SN.equals(systemSN)) registerFallbackSystem();
 
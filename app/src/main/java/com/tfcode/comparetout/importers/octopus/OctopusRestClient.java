@@ -54,6 +54,8 @@ public class OctopusRestClient {
     /** Consumption pages: a year of half-hours is ~17.5k rows; 5000/page keeps
      *  the request count low without oversized payloads. */
     private static final int CONSUMPTION_PAGE_SIZE = 5000;
+    /** Rate pages: the largest the API serves, so a year of Agile prices is a dozen requests. */
+    private static final int RATES_PAGE_SIZE = 1500;
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_BACKOFF_MS = 5000;
 
@@ -166,6 +168,7 @@ public class OctopusRestClient {
                         + "/electricity-tariffs/" + tariffCode + "/" + series + "/").newBuilder();
         if (null != periodFrom) b.addQueryParameter("period_from", periodFrom);
         if (null != periodTo) b.addQueryParameter("period_to", periodTo);
+        b.addQueryParameter("page_size", String.valueOf(RATES_PAGE_SIZE));
         String url = b.build().toString();
         while (null != url) {
             RatesResponse page = fetch(url, RatesResponse.class, false);
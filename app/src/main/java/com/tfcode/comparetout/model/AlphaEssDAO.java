@@ -29,6 +29,7 @@ import com.tfcode.comparetout.model.importers.IntervalRow;
 import com.tfcode.comparetout.model.importers.InverterDateRange;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRollup;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformMeta;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.model.importers.alphaess.KPIRow;
@@ -38,7 +39,10 @@ import com.tfcode.comparetout.model.importers.alphaess.ScheduleRIInput;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for managing AlphaESS solar inverter system data.
@@ -61,7 +65,12 @@ import java.util.List;
  * - Time-based grouping: hour, day-of-year, day-of-week, month, year
  * - SUM aggregations for energy totals (kWh calculations)  
  * - AVG aggregations for typical usage patterns
- * - Complex date/time manipulation using SQLite strftime functions
+ * - Transformed data is grouped on integer bucket columns (hour, dayKey, doy, dow,
+ *   monthKey, year) written with each row, not on strftime() evaluated per row; the
+ *   date-range filters are a range scan on the (sysSn, date, minute) primary key
+ * - Period aggregates read the coarsest rollup that serves them: alphaESSHourly for
+ *   hour-of-day views, alphaESSDaily for day, week, month and year views and the key
+ *   stats. Both are refreshed for the days each write touches, in its transaction
  * <p>
  * The DAO supports:
  * - Data import and synchronization with AlphaESS cloud
@@ -89,11 +98,97 @@ public abstract class AlphaEssDAO {
     public abstract void addRawPower(List<AlphaESSRawPower> power);
 
     /**
-     * Insert or replace transformed data for analysis.
+     * Insert or replace transformed data for analysis, refreshing the rollups of the days
+     * it covers in the same transaction.
      * @param data List of processed 5-minute interval records
      */
+    @Transaction
+    public void addTransformedData(List<AlphaESSTransformedData> data) {
+        insertTransformedData(data);
+        refreshRollups(data);
+    }
+
     @Insert (onConflict = OnConflictStrategy.REPLACE)
-    public abstract void addTransformedData(List<AlphaESSTransformedData> data);
+    abstract void insertTransformedData(List<AlphaESSTransformedData> data);
+
+    @Insert (onConflict = OnConflictStrategy.IGNORE)
+    abstract void addTransformedDataIfAbsent(List<AlphaESSTransformedData> data);
+
+    @Query("UPDATE alphaESSTransformedData SET buy = :buy, millisSinceEpoch = :millis " +
+            "WHERE sysSn = :sysSn AND date = :date AND minute = :minute")
+    public abstract void setTransformedBuy(String sysSn, String date, String minute, double buy, Long millis);
+
+    @Query("UPDATE alphaESSTransformedData SET feed = :feed, millisSinceEpoch = :millis " +
+            "WHERE sysSn = :sysSn AND date = :date AND minute = :minute")
+    public abstract void setTransformedFeed(String sysSn, String date, String minute, double feed, Long millis);
+
+    /**
+     * Merge one batch of grid-meter readings (GridIntervalIngest) in a single transaction.
+     * Missing rows are created; existing rows only have the channel that was read
+     * overwritten, so import and export for the same slot can arrive in separate batches.
+     * @param buyRows rows carrying a buy (import) reading
+     * @param feedRows rows carrying a feed (export) reading
+     */
+    @Transaction
+    public void mergeGridReadings(List<AlphaESSTransformedData> buyRows, List<AlphaESSTransformedData> feedRows) {
+        addTransformedDataIfAbsent(buyRows);
+        addTransformedDataIfAbsent(feedRows);
+        for (AlphaESSTransformedData row : buyRows)
+            setTransformedBuy(row.getSysSn(), row.getDate(), row.getMinute(), row.getBuy(), row.getMillisSinceEpoch());
+        for (AlphaESSTransformedData row : feedRows)
+            setTransformedFeed(row.getSysSn(), row.getDate(), row.getMinute(), row.getFeed(), row.getMillisSinceEpoch());
+        List<AlphaESSTransformedData> touched = new ArrayList<>(buyRows.size() + feedRows.size());
+        touched.addAll(buyRows);
+        touched.addAll(feedRows);
+        refreshRollups(touched);
+    }
+
+    // ---- Hourly / daily rollups (see AlphaESSRollup) ----
+
+    /** Re-aggregate, per source, the span of days the rows fall in. */
+    private void refreshRollups(List<AlphaESSTransformedData> rows) {
+        Map<String, String[]> spans = new HashMap<>();
+        for (AlphaESSTransformedData row : rows) {
+            String[] span = spans.get(row.getSysSn());
+            if (span == null) spans.put(row.getSysSn(), new String[]{row.getDate(), row.getDate()});
+            else {
+                if (row.getDate().compareTo(span[0]) < 0) span[0] = row.getDate();
+                if (row.getDate().compareTo(span[1]) > 0) span[1] = row.getDate();
+            }
+        }
+        for (Map.Entry<String, String[]> span : spans.entrySet())
+            refreshRollups(span.getKey(), span.getValue()[0], span.getValue()[1]);
+    }
+
+    /**
+     * Rebuild the hourly and daily rollups of one source's days in [from, to] from the
+     * 5-minute rows, dropping periods that no longer have any.
+     */
+    @Transaction
+    public void refreshRollups(String sysSn, String from, String to) {
+        deleteHourlyRollups(sysSn, from, to);
+        rollupHourly(sysSn, from, to);
+        deleteDailyRollups(sysSn, from, to);
+        rollupDaily(sysSn, from, to);
+    }
+
+    @Query("DELETE FROM alphaESSHourly WHERE sysSn = :sysSn AND date >= :from AND date <= :to")
+    abstract void deleteHourlyRollups(String sysSn, String from, String to);
+
+    @Query(AlphaESSRollup.HOURLY_INSERT + "WHERE sysSn = :sysSn AND date >= :from AND date <= :to" + AlphaESSRollup.HOURLY_GROUP)
+    abstract void rollupHourly(String sysSn, String from, String to);
+
+    @Query("DELETE FROM alphaESSDaily WHERE sysSn = :sysSn AND date >= :from AND date <= :to")
+    abstract void deleteDailyRollups(String sysSn, String from, String to);
+
+    @Query(AlphaESSRollup.DAILY_INSERT + "WHERE sysSn = :sysSn AND date >= :from AND date <= :to" + AlphaESSRollup.DAILY_GROUP)
+    abstract void rollupDaily(String sysSn, String from, String to);
+
+    @Query("DELETE FROM alphaESSHourly WHERE sysSn = :sysSn")
+    abstract void deleteAllHourlyRollups(String sysSn);
+
+    @Query("DELETE FROM alphaESSDaily WHERE sysSn = :sysSn")
+    abstract void deleteAllDailyRollups(String sysSn);
 
     /** Distinct source serials present in the transformed table (used by the one-time timezone re-stamp). */
     @Query("SELECT DISTINCT sysSn FROM alphaESSTransformedData")
@@ -117,6 +212,8 @@ public abstract class AlphaEssDAO {
         deleteAlphaESSPowerForSN(systemSN);      // 5-minute power data
         deleteAlphaESSEnergyForSN(systemSN);     // Daily energy data  
         deleteAlphaESSTransformedForSN(systemSN); // Processed data
+        deleteAllHourlyRollups(systemSN);
+        deleteAllDailyRollups(systemSN);
     }
 
     @Query("DELETE FROM alphaESSTransformedData WHERE sysSn = :systemSN")
@@ -136,6 +233,7 @@ public abstract class AlphaEssDAO {
         deleteSomeAlphaESSTransformedForSN(sysSN,
                 selectedStart.format(DISPLAY_FORMAT) + " 00:00:00",
                 selectedEnd.format(DISPLAY_FORMAT) + " 23:59:59");
+        refreshRollups(sysSN, selectedStart.format(DISPLAY_FORMAT), selectedEnd.format(DISPLAY_FORMAT));
     }
 
     @Query("DELETE FROM alphaESSTransformedData WHERE sysSn = :systemSN AND date BETWEEN :selectedStart AND :selectedEnd")
@@ -166,7 +264,7 @@ public abstract class AlphaEssDAO {
      * - SUM(pv/load/feed/buy) AS PV/LOAD/FEED/BUY: Total energy by category
      * - TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END): Sum positive battery charging
      * - ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)): Sum absolute discharge values
-     * - cast(strftime('%H', minute) as INTEGER): Extract hour (0-23) from time string
+     * - hour: the row's precomputed hour of day (0-23)
      * - GROUP BY INTERVAL: Aggregate all data points for each hour
      * <p>
      * This creates 24 rows (one per hour) showing typical energy flows throughout the day.
@@ -183,15 +281,15 @@ public abstract class AlphaEssDAO {
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
             "0 AS EVSCHEDULE, 0 AS EVDIVERT, 0 AS HWSCHEDULE, 0 AS HWDIVERT, 0 AS HEATPUMP, 0 AS HEATPUMPBACKUP, 0 AS HEATPUMPHEAT, 0 AS HEATPUMPCOP, 0 AS HEATPUMPTEMP, 0 AS HEATPUMPWIND, " +
-            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%H', minute) as INTEGER) AS INTERVAL " +
-            "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY  INTERVAL ORDER BY INTERVAL")
+            "sum(bat2grid) AS BAT2GRID, TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "hour AS INTERVAL " +
+            "FROM alphaESSHourly WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY hour ORDER BY hour")
     public abstract List<IntervalRow> sumHour(String sysSN, String from, String to);
 
     /**
      * Aggregate energy data by day of year (1-365/366).
      * <p>
-     * Query uses strftime('%j', date) to extract the day of year number.
+     * Query groups on the precomputed doy column (day of year number).
      * This creates daily totals across the specified date range, useful for:
      * - Identifying seasonal patterns
      * - Finding best/worst performing days
@@ -208,15 +306,15 @@ public abstract class AlphaEssDAO {
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
             "0 AS EVSCHEDULE, 0 AS EVDIVERT, 0 AS HWSCHEDULE, 0 AS HWDIVERT, 0 AS HEATPUMP, 0 AS HEATPUMPBACKUP, 0 AS HEATPUMPHEAT, 0 AS HEATPUMPCOP, 0 AS HEATPUMPTEMP, 0 AS HEATPUMPWIND, " +
-            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%j', date) as INTEGER) AS INTERVAL " +
-    "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY INTERVAL ORDER BY INTERVAL")
+            "sum(bat2grid) AS BAT2GRID, TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "doy AS INTERVAL " +
+    "FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY doy ORDER BY doy")
     public abstract List<IntervalRow> sumDOY(String sysSN, String from, String to);
 
     /**
      * Aggregate energy data by calendar date (yyyy-MM-dd).
      * <p>
-     * Unlike {@link #sumDOY}, which groups by day-of-year (strftime '%j') and therefore
+     * Unlike {@link #sumDOY}, which groups by day-of-year and therefore
      * folds the same calendar day of *different years* into one bucket, this keeps every
      * date distinct — required for the Compare timeline's Day axis over multi-year ranges.
      */
@@ -226,9 +324,9 @@ public abstract class AlphaEssDAO {
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
             "0 AS EVSCHEDULE, 0 AS EVDIVERT, 0 AS HWSCHEDULE, 0 AS HWDIVERT, 0 AS HEATPUMP, 0 AS HEATPUMPBACKUP, 0 AS HEATPUMPHEAT, 0 AS HEATPUMPCOP, 0 AS HEATPUMPTEMP, 0 AS HEATPUMPWIND, " +
-            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
+            "sum(bat2grid) AS BAT2GRID, TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
             "date AS INTERVAL " +
-    "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY INTERVAL ORDER BY INTERVAL")
+    "FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY dayKey ORDER BY dayKey")
     public abstract List<IntervalRow> sumByDate(String sysSN, String from, String to);
 
     @Query("SELECT sum(pv) as PV, sum(load) AS LOAD, sum(feed) AS FEED, sum(buy) AS BUY, " +
@@ -237,9 +335,9 @@ public abstract class AlphaEssDAO {
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
             "0 AS EVSCHEDULE, 0 AS EVDIVERT, 0 AS HWSCHEDULE, 0 AS HWDIVERT, 0 AS HEATPUMP, 0 AS HEATPUMPBACKUP, 0 AS HEATPUMPHEAT, 0 AS HEATPUMPCOP, 0 AS HEATPUMPTEMP, 0 AS HEATPUMPWIND, " +
-            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%w', date) as INTEGER) AS INTERVAL " +
-            "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY INTERVAL ORDER BY INTERVAL")
+            "sum(bat2grid) AS BAT2GRID, TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "dow AS INTERVAL " +
+            "FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY dow ORDER BY dow")
     public abstract List<IntervalRow> sumDOW(String sysSN, String from, String to);
 
     @Query("SELECT sum(pv) as PV, sum(load) AS LOAD, sum(feed) AS FEED, sum(buy) AS BUY, " +
@@ -248,9 +346,9 @@ public abstract class AlphaEssDAO {
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
             "0 AS EVSCHEDULE, 0 AS EVDIVERT, 0 AS HWSCHEDULE, 0 AS HWDIVERT, 0 AS HEATPUMP, 0 AS HEATPUMPBACKUP, 0 AS HEATPUMPHEAT, 0 AS HEATPUMPCOP, 0 AS HEATPUMPTEMP, 0 AS HEATPUMPWIND, " +
-            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "strftime('%Y', date) || strftime('%m', date) AS INTERVAL " +
-            "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY INTERVAL ORDER BY INTERVAL")
+            "sum(bat2grid) AS BAT2GRID, TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "CAST(monthKey AS TEXT) AS INTERVAL " +
+            "FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY monthKey ORDER BY monthKey")
     public abstract List<IntervalRow> sumMonth(String sysSN, String from, String to);
 
     @Query("SELECT sum(pv) as PV, sum(load) AS LOAD, sum(feed) AS FEED, sum(buy) AS BUY, " +
@@ -259,9 +357,9 @@ public abstract class AlphaEssDAO {
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, " +
             "0 AS EVSCHEDULE, 0 AS EVDIVERT, 0 AS HWSCHEDULE, 0 AS HWDIVERT, 0 AS HEATPUMP, 0 AS HEATPUMPBACKUP, 0 AS HEATPUMPHEAT, 0 AS HEATPUMPCOP, 0 AS HEATPUMPTEMP, 0 AS HEATPUMPWIND, " +
-            "sum(bat2grid) AS BAT2GRID, TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%Y', date) as INTEGER) AS INTERVAL " +
-            "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY INTERVAL ORDER BY INTERVAL")
+            "sum(bat2grid) AS BAT2GRID, TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "year AS INTERVAL " +
+            "FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY year ORDER BY year")
     public abstract List<IntervalRow> sumYear(String sysSN, String from, String to);
 
     /**
@@ -296,10 +394,10 @@ public abstract class AlphaEssDAO {
             "sum(pv2grid) AS PV2GRID, sum(grid2load) AS GRID2LOAD, sum(evActual) AS EV_ACTUAL, " +
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, sum(bat2grid) AS BAT2GRID, " +
-            "TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%H', minute) as INTEGER) AS INTERVAL " +
-            " FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
-            " GROUP BY cast (strftime('%Y', date) as integer), cast (strftime('%j', date) as integer), INTERVAL ORDER BY INTERVAL " +
+            "TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "hour AS INTERVAL " +
+            " FROM alphaESSHourly WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
+            " GROUP BY dayKey, hour ORDER BY hour " +
             " ) GROUP BY INTERVAL")
     public abstract List<IntervalRow> avgHour(String sysSN, String from, String to);
 
@@ -315,9 +413,9 @@ public abstract class AlphaEssDAO {
             "sum(pv2grid) AS PV2GRID, sum(grid2load) AS GRID2LOAD, sum(evActual) AS EV_ACTUAL, " +
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, sum(bat2grid) AS BAT2GRID, " +
-            "TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%j', date) as INTEGER) AS INTERVAL " +
-            " FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY cast (strftime('%Y', date) as integer), INTERVAL ORDER BY INTERVAL " +
+            "TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "doy AS INTERVAL " +
+            " FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY year, doy ORDER BY doy " +
             " ) GROUP BY INTERVAL")
     public abstract List<IntervalRow> avgDOY(String sysSN, String from, String to);
 
@@ -333,10 +431,10 @@ public abstract class AlphaEssDAO {
             "sum(pv2grid) AS PV2GRID, sum(grid2load) AS GRID2LOAD, sum(evActual) AS EV_ACTUAL, " +
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, sum(bat2grid) AS BAT2GRID, " +
-            "TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%w', date) as INTEGER) AS INTERVAL " +
-            " FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
-            " GROUP BY cast (strftime('%Y', date) as integer), cast (strftime('%W', date) as integer), INTERVAL ORDER BY INTERVAL" +
+            "TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "dow AS INTERVAL " +
+            " FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
+            " GROUP BY dayKey ORDER BY dow" +
             " ) GROUP BY INTERVAL")
     public abstract List<IntervalRow> avgDOW(String sysSN, String from, String to);
 
@@ -352,10 +450,10 @@ public abstract class AlphaEssDAO {
             "sum(pv2grid) AS PV2GRID, sum(grid2load) AS GRID2LOAD, sum(evActual) AS EV_ACTUAL, " +
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, sum(bat2grid) AS BAT2GRID, " +
-            "TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "strftime('%m', date) as INTERVAL" +
-            " FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
-            " GROUP BY INTERVAL ORDER BY INTERVAL, date) GROUP BY INTERVAL")
+            "TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "printf('%02d', monthKey % 100) as INTERVAL" +
+            " FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
+            " GROUP BY monthKey % 100 ORDER BY monthKey % 100) GROUP BY INTERVAL")
     public abstract List<IntervalRow> avgMonth(String sysSN, String from, String to);
 
     @Query("SELECT avg(PV) AS PV, AVG(LOAD) AS LOAD, AVG(FEED) AS FEED, AVG(BUY) AS BUY, " +
@@ -370,14 +468,14 @@ public abstract class AlphaEssDAO {
             "sum(pv2grid) AS PV2GRID, sum(grid2load) AS GRID2LOAD, sum(evActual) AS EV_ACTUAL, " +
             "sum(hwActual) AS HW_ACTUAL, sum(hpActual) AS HP_ACTUAL, " +
             "sum(batChargeIn) AS BAT_CHARGE_IN, sum(batDischargeOut) AS BAT_DISCHARGE_OUT, sum(bat2grid) AS BAT2GRID, " +
-            "TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END) AS BAT_CHARGE, ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) AS BAT_DISCHARGE, " +
-            "cast (strftime('%Y', date) as INTEGER) AS INTERVAL" +
-            " FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY INTERVAL ORDER BY INTERVAL )")
+            "TOTAL(batCharge) AS BAT_CHARGE, TOTAL(batDischarge) AS BAT_DISCHARGE, " +
+            "year AS INTERVAL" +
+            " FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :sysSN GROUP BY year ORDER BY year )")
     public abstract List<IntervalRow> avgYear(String sysSN, String from, String to);
 
     @Query("SELECT date || ' ' || minute || ':00' AS DATE_TIME, SUM(buy) AS BUY, SUM(feed) as FEED " +
             "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :sysSN " +
-            "GROUP BY date, substr(minute, 0, instr(minute,':')) ORDER BY DATE_TIME")
+            "GROUP BY dayKey, hour ORDER BY DATE_TIME")
     public abstract List<CostInputRow> getSelectedAlphaESSData(String sysSN, String from, String to);
 
     @Query("SELECT * FROM alphaESSRawPower WHERE sysSn = :serialNumber AND uploadTime LIKE :from || '%'")
@@ -458,21 +556,21 @@ public abstract class AlphaEssDAO {
             "(" +
             "SELECT substr(cMonth, 1,5) AS Month, SUM(bad) AS tot, MAX(bad) AS best, badday AS bestday, ROUND(AVG(bad) * 100) / 100 AS Average  FROM ( " +
             "SELECT substr(date, 3) AS cMonth, " +
-            "SUM(pv) AS bad, " +
+            "pv AS bad, " +
             "substr(date,9,2) AS badday " +
-            "FROM alphaESSTransformedData " +
+            "FROM alphaESSDaily " +
             "WHERE sysSn = :systemSN AND date >= :from AND date <= :to " +
-            "GROUP BY cMonth ORDER BY cMonth ) " +
+            "ORDER BY date ) " +
             "GROUP BY Month" +
             ") AS main, " +
             "( " +
             "SELECT substr(cMonth, 1,5) AS bMonth, MIN(bad) AS bad, badday FROM ( " +
             "SELECT substr(date, 3) AS cMonth, " +
-            "SUM(pv) AS bad, " +
+            "pv AS bad, " +
             "substr(date,9,2) AS badday " +
-            "FROM alphaESSTransformedData " +
+            "FROM alphaESSDaily " +
             "WHERE sysSn = :systemSN AND date >= :from AND date <= :to " +
-            "GROUP BY cMonth ORDER BY cMonth ) " +
+            "ORDER BY date ) " +
             "GROUP BY bMonth " +
             ") AS worst " +
             "WHERE worst.bMonth = main.Month " +
@@ -513,13 +611,18 @@ public abstract class AlphaEssDAO {
             "((sum(pv) / sum(load)) * 100) AS MSS, " +
             "(ROUND(sum(pv) * 100) / 100) AS PV, " +
             "(ROUND(sum(feed) * 100) / 100) FEED " +
-            "FROM alphaESSTransformedData WHERE date >= :from AND date <= :to AND sysSn = :systemSN")
+            "FROM alphaESSDaily WHERE date >= :from AND date <= :to AND sysSn = :systemSN")
     public abstract KPIRow getKPIs(String from, String to, String systemSN);
 
     @Query("SELECT * FROM alphaESSTransformedData WHERE sysSn = :systemSN AND date >= :from AND date <= :to " +
             "ORDER BY substr(date, 5, length(date)), minute")
     public abstract List<AlphaESSTransformedData> getAlphaESSTransformedData(String systemSN, String from, String to);
 
+    /** Rows by instant, off the (sysSn, millisSinceEpoch) index; rows not yet stamped are not returned. */
+    @Query("SELECT * FROM alphaESSTransformedData WHERE sysSn = :systemSN " +
+            "AND millisSinceEpoch >= :fromMillis AND millisSinceEpoch < :toMillis ORDER BY millisSinceEpoch")
+    public abstract List<AlphaESSTransformedData> getAlphaESSTransformedDataBetween(String systemSN, long fromMillis, long toMillis);
+
     @Query("SELECT AVG(sub.load) * 12 AS BaseLoad FROM (SELECT load FROM alphaESSTransformedData WHERE load > 0.0 " +
             "AND sysSn = :systemSN AND date >= :from AND date <= :to ORDER BY load " +
             "LIMIT CAST((SELECT COUNT(load) * 0.3 FROM alphaESSTransformedData WHERE load > 0 " +
@@ -562,13 +665,12 @@ public abstract class AlphaEssDAO {
     @Query("SELECT MAX(date) as latest FROM alphaESSTransformedData WHERE sysSn = :systemSN")
     public abstract String getLatestDateForSn(String systemSN);
 
-    @Query("SELECT MAX(PV) AS kWp FROM (SELECT date, substr(minute,1,2) AS hr, SUM(pv) AS PV " +
-            "FROM alphaESSTransformedData WHERE sysSn = :systemSN GROUP BY date, hr)")
+    @Query("SELECT MAX(pv) AS kWp FROM alphaESSHourly WHERE sysSn = :systemSN")
     abstract public double getHAPopv(String systemSN);
 
     @Query("SELECT  MAX(MAX(PV, OUTPUT)) AS inverterMaxPower FROM  ( " +
-            "SELECT date, substr(minute,1,2) AS hr, SUM(pv) AS PV, SUM(load + feed) AS OUTPUT, SUM(buy) AS BUY " +
-            "FROM alphaESSTransformedData WHERE sysSn = :systemSN AND BUY <= 0 GROUP BY date, hr ORDER BY PV DESC )")
+            "SELECT SUM(pv) AS PV, SUM(load + feed) AS OUTPUT " +
+            "FROM alphaESSTransformedData WHERE sysSn = :systemSN AND buy <= 0 GROUP BY dayKey, hour )")
     abstract public double getHAPoinv(String systemSN);
 
     @Query("SELECT sysSn, MIN(date) AS start, MAX(date) AS finish FROM alphaESSTransformedData WHERE sysSn = :sysSN")
@@ -19,9 +19,21 @@ package com.tfcode.comparetout.model;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.tfcode.comparetout.model.costings.Costings;
+import com.tfcode.comparetout.model.costings.ScenarioDayBand;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
+import com.tfcode.comparetout.model.costings.ScenarioPlanBand;
+import com.tfcode.comparetout.model.costings.ScenarioPlanTotal;
+import com.tfcode.comparetout.model.costings.SourceCostBucket;
+import com.tfcode.comparetout.model.costings.SourceDayBand;
+import com.tfcode.comparetout.model.costings.SourceDayCost;
+import com.tfcode.comparetout.model.costings.SourceDaySignature;
+import com.tfcode.comparetout.model.costings.SourcePlanBand;
+import com.tfcode.comparetout.model.costings.SourcePlanTotal;
 
 import java.util.List;
 
@@ -63,6 +75,14 @@ public abstract class CostingDAO {
     @Insert
     public abstract void saveCosting(Costings costing);
 
+    /**
+     * Save a batch of cost calculation results in one transaction.
+     * A pair already costed (e.g. by a concurrent pass) keeps its existing record.
+     * @param costings The Costings records to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public abstract void saveCostings(List<Costings> costings);
+
     /**
      * Delete all cost calculations associated with a specific price plan.
      * Called when a price plan is deleted to maintain referential integrity.
@@ -95,6 +115,15 @@ public abstract class CostingDAO {
             "AND scenarioID = :scenarioID")
     public abstract Costings getBestCostingForScenario(Long scenarioID);
 
+    /**
+     * The best costing so far for a scenario, re-emitted as the costing worker saves each wave
+     * of plans; null until the first wave lands.
+     */
+    @Query("SELECT * FROM costings " +
+            "WHERE (net = (SELECT MIN(net) AS bignet FROM costings AS costings_1 WHERE scenarioID = :scenarioID))" +
+            "AND scenarioID = :scenarioID LIMIT 1")
+    public abstract LiveData<Costings> loadBestCostingForScenario(long scenarioID);
+
     @Query("SELECT * FROM costings WHERE scenarioID = :scenarioID ORDER BY net ASC")
     public abstract List<Costings> getAllCostingsForScenario(Long scenarioID);
 
@@ -111,6 +140,15 @@ public abstract class CostingDAO {
     @Query("SELECT EXISTS (SELECT * FROM costings WHERE scenarioID = :scenarioID AND pricePlanId = :pricePlanIndex) AS OK")
     public abstract boolean costingExists(long scenarioID, long pricePlanIndex);
 
+    /** Price plans already costed for a scenario; one query instead of a costingExists per plan. */
+    @Query("SELECT pricePlanID FROM costings WHERE scenarioID = :scenarioID")
+    public abstract List<Long> getCostedPlanIDs(long scenarioID);
+
+    /** Price plans costed for a scenario before per-day rows were kept, so without any. */
+    @Query("SELECT pricePlanID FROM costings AS c WHERE scenarioID = :scenarioID " +
+            "AND NOT EXISTS (SELECT 1 FROM scenariodaycost AS d WHERE d.scenarioID = c.scenarioID AND d.pricePlanID = c.pricePlanID)")
+    public abstract List<Long> getPlanIDsWithoutDays(long scenarioID);
+
     /**
      * Export all cost comparison data in CSV-ready format.
      * <p>
@@ -144,4 +182,142 @@ public abstract class CostingDAO {
      */
     @Query("DELETE FROM costings WHERE pricePlanId NOT IN (SELECT pricePlanIndex FROM PricePlans)")
     public abstract void pruneCostings();
+
+    // ── Imported-source cost cache (sourcedaycost / sourcedayband) ─────────────────────────────────────
+    //
+    // Every read joins the cache to the source's current per-day signature, so rows for a day that has
+    // since been re-imported or deleted simply drop out; SourceCostCache re-prices what is missing.
+
+    private static final String SOURCE_DAY_SIGNATURE = "SELECT date, COUNT(*) AS intervals, TOTAL(buy) AS buyKWh, TOTAL(feed) AS feedKWh, " +
+            "TOTAL(buy * (hour + 1)) AS buyByHour " +
+            "FROM alphaESSTransformedData WHERE sysSn = :sysSn AND date >= :from AND date <= :to GROUP BY date";
+
+    private static final String CURRENT_SOURCE_DAYS = "sourcedaycost AS c JOIN (" + SOURCE_DAY_SIGNATURE + ") AS s " +
+            "ON c.date = s.date AND c.intervals = s.intervals AND c.buyKWh = s.buyKWh AND c.feedKWh = s.feedKWh " +
+            "AND c.buyByHour = s.buyByHour";
+
+    @Query(SOURCE_DAY_SIGNATURE + " ORDER BY date")
+    public abstract List<SourceDaySignature> getSourceDaySignatures(String sysSn, String from, String to);
+
+    @Query("SELECT c.pricePlanID, c.planHash, COUNT(*) AS days, TOTAL(c.buy) AS buy, TOTAL(c.sell) AS sell " +
+            "FROM " + CURRENT_SOURCE_DAYS + " WHERE c.sysSn = :sysSn GROUP BY c.pricePlanID, c.planHash")
+    public abstract List<SourcePlanTotal> getSourcePlanTotals(String sysSn, String from, String to);
+
+    /** Cost per plan and date prefix: keyLength 10 = day, 7 = month, 4 = year. */
+    @Query("SELECT c.pricePlanID, substr(c.date, 1, :keyLength) AS bucket, TOTAL(c.buy) AS buy, TOTAL(c.sell) AS sell " +
+            "FROM " + CURRENT_SOURCE_DAYS + " WHERE c.sysSn = :sysSn GROUP BY c.pricePlanID, bucket")
+    public abstract List<SourceCostBucket> getSourceCostBuckets(String sysSn, String from, String to, int keyLength);
+
+    @Query("SELECT b.pricePlanID, b.price, TOTAL(b.units) AS units FROM sourcedayband AS b JOIN " + CURRENT_SOURCE_DAYS +
+            " AND c.sysSn = b.sysSn AND c.pricePlanID = b.pricePlanID AND c.date = b.date " +
+            "WHERE b.sysSn = :sysSn GROUP BY b.pricePlanID, b.price")
+    public abstract List<SourcePlanBand> getSourcePlanBands(String sysSn, String from, String to);
+
+    /** Dates in range that already have a current-signature row for this version of the plan. */
+    @Query("SELECT c.date FROM " + CURRENT_SOURCE_DAYS + " WHERE c.sysSn = :sysSn AND c.pricePlanID = :pricePlanID " +
+            "AND c.planHash = :planHash")
+    public abstract List<String> getCurrentSourceDates(String sysSn, String from, String to, long pricePlanID, long planHash);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void addSourceDayCosts(List<SourceDayCost> costs);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void addSourceDayBands(List<SourceDayBand> bands);
+
+    @Query("DELETE FROM sourcedaycost WHERE sysSn = :sysSn AND pricePlanID = :pricePlanID AND date >= :from AND date <= :to")
+    public abstract void deleteSourceDayCosts(String sysSn, long pricePlanID, String from, String to);
+
+    @Query("DELETE FROM sourcedayband WHERE sysSn = :sysSn AND pricePlanID = :pricePlanID AND date >= :from AND date <= :to")
+    public abstract void deleteSourceDayBands(String sysSn, long pricePlanID, String from, String to);
+
+    @Query("DELETE FROM sourcedayband WHERE sysSn = :sysSn AND pricePlanID = :pricePlanID AND date IN (:dates)")
+    public abstract void deleteSourceDayBandsOn(String sysSn, long pricePlanID, List<String> dates);
+
+    /** Re-price one plan over a range: its old rows (any plan version) go, the fresh days go in. */
+    @Transaction
+    public void replaceSourceDayCosts(String sysSn, long pricePlanID, String from, String to,
+                                      List<SourceDayCost> costs, List<SourceDayBand> bands) {
+        deleteSourceDayCosts(sysSn, pricePlanID, from, to);
+        deleteSourceDayBands(sysSn, pricePlanID, from, to);
+        addSourceDayCosts(costs);
+        addSourceDayBands(bands);
+    }
+
+    /** Add re-priced days to a plan that is otherwise current; the days' old band rows go first. */
+    @Transaction
+    public void patchSourceDayCosts(String sysSn, long pricePlanID, List<String> dates,
+                                    List<SourceDayCost> costs, List<SourceDayBand> bands) {
+        deleteSourceDayBandsOn(sysSn, pricePlanID, dates);
+        addSourceDayCosts(costs);
+        addSourceDayBands(bands);
+    }
+
+    @Query("DELETE FROM sourcedaycost WHERE sysSn = :sysSn")
+    public abstract void deleteSourceDayCostsForSysSn(String sysSn);
+
+    @Query("DELETE FROM sourcedayband WHERE sysSn = :sysSn")
+    public abstract void deleteSourceDayBandsForSysSn(String sysSn);
+
+    @Query("DELETE FROM sourcedaycost WHERE pricePlanID NOT IN (SELECT pricePlanIndex FROM PricePlans)")
+    public abstract void pruneSourceDayCosts();
+
+    @Query("DELETE FROM sourcedayband WHERE pricePlanID NOT IN (SELECT pricePlanIndex FROM PricePlans)")
+    public abstract void pruneSourceDayBands();
+
+    // ── Scenario per-day costs (scenariodaycost / scenariodayband) ─────────────────────────────────────
+    //
+    // Every read joins to costings, so the days of a scenario × plan whose costing has been dropped (a
+    // re-simulation, an edited or deleted plan) drop out with it until the CostingWorker rewrites them.
+
+    private static final String CURRENT_SCENARIO_DAYS = "scenariodaycost AS d JOIN costings AS c " +
+            "ON c.scenarioID = d.scenarioID AND c.pricePlanID = d.pricePlanID " +
+            "WHERE d.scenarioID = :scenarioID AND d.dayOf2001 >= :fromDay AND d.dayOf2001 <= :toDay";
+
+    @Query("SELECT d.pricePlanID, COUNT(*) AS days, TOTAL(d.buy) AS buy, TOTAL(d.sell) AS sell " +
+            "FROM " + CURRENT_SCENARIO_DAYS + " GROUP BY d.pricePlanID")
+    public abstract List<ScenarioPlanTotal> getScenarioPlanTotals(long scenarioID, int fromDay, int toDay);
+
+    @Query("SELECT b.pricePlanID, b.price, TOTAL(b.units) AS units FROM scenariodayband AS b JOIN " +
+            CURRENT_SCENARIO_DAYS + " AND b.scenarioID = d.scenarioID AND b.pricePlanID = d.pricePlanID " +
+            "AND b.dayOf2001 = d.dayOf2001 GROUP BY b.pricePlanID, b.price")
+    public abstract List<ScenarioPlanBand> getScenarioPlanBands(long scenarioID, int fromDay, int toDay);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void addScenarioDayCosts(List<ScenarioDayCost> costs);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void addScenarioDayBands(List<ScenarioDayBand> bands);
+
+    @Query("DELETE FROM scenariodaycost WHERE scenarioID = :scenarioID AND pricePlanID = :pricePlanID")
+    public abstract void deleteScenarioDayCosts(long scenarioID, long pricePlanID);
+
+    @Query("DELETE FROM scenariodayband WHERE scenarioID = :scenarioID AND pricePlanID = :pricePlanID")
+    public abstract void deleteScenarioDayBands(long scenarioID, long pricePlanID);
+
+    /** Save a batch of costings with their days; each costed pair's previous days are replaced. */
+    @Transaction
+    public void saveCostings(List<Costings> costings, List<ScenarioDayCost> days, List<ScenarioDayBand> bands) {
+        saveCostings(costings);
+        for (Costings costing : costings) {
+            deleteScenarioDayCosts(costing.getScenarioID(), costing.getPricePlanID());
+            deleteScenarioDayBands(costing.getScenarioID(), costing.getPricePlanID());
+        }
+        addScenarioDayCosts(days);
+        addScenarioDayBands(bands);
+    }
+
+    /** Save the days of costings already kept, leaving the costings as they are. */
+    @Transaction
+    public void saveScenarioDays(List<ScenarioDayCost> days, List<ScenarioDayBand> bands) {
+        addScenarioDayCosts(days);
+        addScenarioDayBands(bands);
+    }
+
+    @Query("DELETE FROM scenariodaycost WHERE NOT EXISTS (SELECT 1 FROM costings AS c " +
+            "WHERE c.scenarioID = scenariodaycost.scenarioID AND c.pricePlanID = scenariodaycost.pricePlanID)")
+    public abstract void pruneScenarioDayCosts();
+
+    @Query("DELETE FROM scenariodayband WHERE NOT EXISTS (SELECT 1 FROM costings AS c " +
+            "WHERE c.scenarioID = scenariodayband.scenarioID AND c.pricePlanID = scenariodayband.pricePlanID)")
+    public abstract void pruneScenarioDayBands();
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The single writer for ToutcDB. Every write (UI edits through the repository, the simulation,
+ * costing and import workers) is queued here and run on one thread, so writers never contend
+ * for SQLite's write lock and commits are coalesced.
+ * <p>
+ * Jobs run in priority order (FOREGROUND before BACKGROUND, FIFO within a priority). The
+ * writer takes the next job and keeps pulling queued jobs of the same priority into the
+ * same transaction, up to {@link #MAX_BATCH_JOBS} or {@link #MAX_BATCH_NANOS}. So a burst
+ * of worker batches costs one commit (and one round of Room invalidation) rather than one each.
+ * A background transaction also ends early as soon as a foreground job is queued. Background
+ * batches run at background thread priority. With WAL, readers on Room's query executor
+ * never wait for the writer; they only compete with it for CPU.
+ * <p>
+ * If any job in a coalesced transaction throws, the transaction rolls back and each job is
+ * re-run in a transaction of its own, so one failure only fails its own caller.
+ * <p>
+ * Exclusive jobs (the timezone re-stamp, which writes on its own connection) run alone,
+ * outside any Room transaction, so they take the write lock without waiting on this writer.
+ * <p>
+ * Every job that runs bumps {@link #getDataVersion}, before its caller is released, so a
+ * result cached under an older version is known to be stale. Writers that go round the
+ * coordinator (a snapshot import on its own connection) call {@link #markChanged} instead;
+ * the few DAO writes made directly on Room's connection are caught by its invalidation tracker.
+ */
+public final class DBWriteCoordinator {
+
+    public enum Priority { FOREGROUND, BACKGROUND }
+
+    private static final int MAX_BATCH_JOBS = 64;
+    private static final long MAX_BATCH_NANOS = 250_000_000L;
+    // The tables behind cached chart and KPI results
+    private static final String[] WATCHED_TABLES = {
+            "alphaESSTransformedData", "alphaESSHourly", "alphaESSDaily", "alphaESSRawEnergy",
+            "alphaESSRawPower", "scenariosimulationdata", "costings", "PricePlans", "DayRates",
+            "dynamicrates", "scenarios", "paneldata", "loadprofiledata", "scenariodaycost"};
+
+    private final Consumer<Runnable> mTransactor;
+    private final Consumer<Priority> mThreadPriority;
+    private final PriorityBlockingQueue<Job> mQueue = new PriorityBlockingQueue<>();
+    private final AtomicLong mSequence = new AtomicLong();
+    private final AtomicLong mDataVersion = new AtomicLong();
+    private final Thread mThread;
+
+    private static final class Job implements Comparable<Job> {
+        final Priority priority;
+        final long sequence;
+        final Runnable work;
+        final boolean exclusive;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Job(Priority priority, long sequence, Runnable work, boolean exclusive) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.work = work;
+            this.exclusive = exclusive;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = priority.compareTo(other.priority);
+            return (byPriority != 0) ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    DBWriteCoordinator(RoomDatabase db) {
+        this(db::runInTransaction, priority -> Process.setThreadPriority(priority == Priority.BACKGROUND
+                ? Process.THREAD_PRIORITY_BACKGROUND : Process.THREAD_PRIORITY_DEFAULT));
+        // Writes made on Room's connection without the coordinator (a few direct DAO calls)
+        db.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(WATCHED_TABLES) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                mDataVersion.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @param transactor Runs a job (or a coalesced batch of jobs) in one transaction.
+     * @param threadPriority Sets the writer thread's priority for the batch about to run.
+     */
+    DBWriteCoordinator(Consumer<Runnable> transactor, Consumer<Priority> threadPriority) {
+        mTransactor = transactor;
+        mThreadPriority = threadPriority;
+        mThread = new Thread(this::loop, "ToutcDB-writer");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /** Queue a write; the future completes once it has committed. */
+    public CompletableFuture<Void> submit(Priority priority, Runnable work) {
+        return enqueue(priority, work, false);
+    }
+
+    /** Queue a write and wait until it has committed, rethrowing its failure. */
+    public void run(Priority priority, Runnable work) {
+        if (Thread.currentThread() == mThread) {
+            work.run(); // already inside a job, e.g. a repository call made from a job
+            return;
+        }
+        await(enqueue(priority, work, false));
+    }
+
+    /**
+     * Queue a write that produces a value (e.g. the ID of an inserted row), wait until it has
+     * committed and return the value.
+     */
+    public <T> T call(Priority priority, Supplier<T> work) {
+        AtomicReference<T> result = new AtomicReference<>();
+        run(priority, () -> result.set(work.get()));
+        return result.get();
+    }
+
+    /**
+     * Run {@code work} alone on the writer thread, outside any Room transaction, and wait for
+     * it. For writes made on another connection.
+     */
+    public void runExclusive(Priority priority, Runnable work) {
+        if (Thread.currentThread() == mThread) {
+            work.run();
+            return;
+        }
+        await(enqueue(priority, work, true));
+    }
+
+    /** Advances on every write; equal versions mean nothing was written in between. */
+    public long getDataVersion() {
+        return mDataVersion.get();
+    }
+
+    /** Record a write made outside the coordinator. */
+    public void markChanged() {
+        mDataVersion.incrementAndGet();
+    }
+
+    private CompletableFuture<Void> enqueue(Priority priority, Runnable work, boolean exclusive) {
+        Job job = new Job(priority, mSequence.getAndIncrement(), work, exclusive);
+        mQueue.add(job);
+        return job.done;
+    }
+
+    private static void await(Future<Void> done) {
+        try {
+            done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void loop() {
+        while (true) {
+            Job first;
+            try {
+                first = mQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            mThreadPriority.accept(first.priority);
+            if (first.exclusive) {
+                runAlone(first, false);
+                continue;
+            }
+            List<Job> batch = new ArrayList<>();
+            batch.add(first);
+            try {
+                mTransactor.accept(() -> {
+                    long deadline = System.nanoTime() + MAX_BATCH_NANOS;
+                    first.work.run();
+                    while (batch.size() < MAX_BATCH_JOBS && System.nanoTime() < deadline) {
+                        Job next = mQueue.peek();
+                        if (next == null || next.exclusive || next.priority != first.priority) break;
+                        next = mQueue.poll();
+                        if (next == null) break;
+                        batch.add(next);
+                        next.work.run();
+                    }
+                });
+                mDataVersion.incrementAndGet();
+                for (Job job : batch) job.done.complete(null);
+            } catch (Throwable batchFailure) {
+                if (batch.size() == 1) first.done.completeExceptionally(batchFailure);
+                else for (Job job : batch) runAlone(job, true);
+            }
+        }
+    }
+
+    private void runAlone(Job job, boolean inTransaction) {
+        try {
+            if (inTransaction) mTransactor.accept(job.work);
+            else job.work.run();
+            mDataVersion.incrementAndGet();
+            job.done.complete(null);
+        } catch (Throwable failure) {
+            mDataVersion.incrementAndGet(); // an exclusive job may have committed part of its work
+            job.done.completeExceptionally(failure);
+        }
+    }
+}
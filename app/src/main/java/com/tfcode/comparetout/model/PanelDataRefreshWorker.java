@@ -41,7 +41,6 @@ import com.tfcode.comparetout.SimulatorLauncher;
 import com.tfcode.comparetout.TOUTCApplication;
 import com.tfcode.comparetout.model.scenario.Panel;
 import com.tfcode.comparetout.scenario.SimulationWorker;
-import com.tfcode.comparetout.scenario.loadprofile.GenerateMissingLoadDataWorker;
 import com.tfcode.comparetout.ui2.PVGISDirectFetchWorker;
 
 import java.util.ArrayList;
@@ -66,7 +65,7 @@ import java.util.Set;
  *   <li><b>Source-derived</b> panels cannot be auto-regenerated (the original import window isn't recorded), so
  *       their source serials are recorded in DataStore + surfaced in a notification for the user to re-run
  *       import&rarr;generate.</li>
- *   <li>Re-simulate: the PVGIS refetches are chained <i>before</i> generate-load &rarr; simulate &rarr; cost so
+ *   <li>Re-simulate: the PVGIS refetches are chained <i>before</i> simulate &rarr; cost so
  *       scenarios aren't skipped for missing panel data; scenarios whose only PV is source-derived stay
  *       unsimulated until the user regenerates.</li>
  * </ol>
@@ -162,14 +161,13 @@ public class PanelDataRefreshWorker extends Worker {
                 notify(notificationManager, builder);
             }
 
-            // 4. Re-simulate. Chain the PVGIS refetches BEFORE load-gen -> simulate -> cost so refreshed panels
+            // 4. Re-simulate. Chain the PVGIS refetches BEFORE simulate -> cost so refreshed panels
             //    are present when the simulation runs.
             if (refetch.isEmpty()) {
                 SimulatorLauncher.simulateIfNeeded(context);
             } else {
                 WorkManager.getInstance(context)
                         .beginUniqueWork(REFRESH_CHAIN, ExistingWorkPolicy.REPLACE, refetch)
-                        .then(new OneTimeWorkRequest.Builder(GenerateMissingLoadDataWorker.class).build())
                         .then(new OneTimeWorkRequest.Builder(SimulationWorker.class).build())
                         .then(new OneTimeWorkRequest.Builder(CostingWorker.class).build())
                         .enqueue();
@@ -28,6 +28,7 @@ import androidx.room.Transaction;
 import androidx.room.Upsert;
 
 import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.DynamicRateChunk;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
 
 import java.util.ArrayList;
@@ -98,6 +99,7 @@ public abstract class PricePlanDAO {
             deletePricePlan(oldPricePlanID);
         }
         try {
+            pp.setContentHash(pp.computeContentHash(drs));
             pricePlanID = addNewPricePlan(pp);
             // Associate each day rate with the newly created plan
             for (DayRate dr : drs) {
@@ -178,9 +180,48 @@ public abstract class PricePlanDAO {
     @Transaction
     public void deletePricePlan(long id) {
         deleteDayRatesInPlan(id);  // Remove child records first
+        deleteDynamicRates(id);
         deletePricePlanRow(id);    // Then remove parent record
     }
 
+    /**
+     * Load the monthly unit-rate chunks of a dynamic plan; none for a repeating plan.
+     * @param id The pricePlanIndex of the plan
+     */
+    @Query("SELECT * FROM dynamicrates WHERE pricePlanID = :id")
+    public abstract List<DynamicRateChunk> getDynamicRates(long id);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract void addDynamicRates(List<DynamicRateChunk> chunks);
+
+    @Query("DELETE FROM dynamicrates WHERE pricePlanID = :id")
+    abstract void deleteDynamicRates(long id);
+
+    /**
+     * Atomically create a dynamic plan: the plan, its fallback day rates and its unit-rate chunks.
+     * @return The ID of the created price plan, or 0 if creation failed
+     */
+    @Transaction
+    public long addNewDynamicPricePlan(PricePlan pp, List<DayRate> drs, List<DynamicRateChunk> chunks) {
+        long pricePlanID = addNewPricePlanWithDayRates(pp, drs, false);
+        if (pricePlanID == 0) return 0;
+        for (DynamicRateChunk chunk : chunks) chunk.setPricePlanID(pricePlanID);
+        addDynamicRates(chunks);
+        return pricePlanID;
+    }
+
+    /**
+     * Replace a dynamic plan's unit rates with a refreshed series.
+     * @param id The pricePlanIndex of the plan
+     * @param chunks Every month of the refreshed series
+     */
+    @Transaction
+    public void replaceDynamicRates(long id, List<DynamicRateChunk> chunks) {
+        deleteDynamicRates(id);
+        for (DynamicRateChunk chunk : chunks) chunk.setPricePlanID(id);
+        addDynamicRates(chunks);
+    }
+
     /**
      * Delete all day rates associated with a specific price plan.
      * @param id The pricePlanId foreign key to match
@@ -263,11 +304,51 @@ public abstract class PricePlanDAO {
             for (Long toRemove: oldIDs) deleteDayRate(toRemove);
             
             // Update the plan and its day rates
+            pp.setContentHash(pp.computeContentHash(drs));
             updatePricePlan(pp);
             updateDayRate(drs);
         }
     }
 
+    /**
+     * Record a plan's content hash, e.g. backfilling one stored before hashes were kept.
+     * @param id The pricePlanIndex to update
+     * @param hash The plan's {@link PricePlan#computeContentHash}
+     */
+    @Query("UPDATE PricePlans SET contentHash = :hash WHERE pricePlanIndex = :id")
+    public abstract void setContentHash(long id, long hash);
+
+    /**
+     * Apply a catalogue sync: plans with index 0 are added, the rest replace the stored plan
+     * of that index in place (same ID, so nothing else that references it is orphaned) with
+     * their day rates swapped wholesale. Plans the sync found unchanged are never passed in.
+     *
+     * @param plans The new or changed plans
+     * @param drs The day rates of each plan, in the same order
+     * @return The IDs written, in the same order (0 where a new plan was a duplicate)
+     */
+    @Transaction
+    public List<Long> syncPricePlans(List<PricePlan> plans, List<List<DayRate>> drs) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < plans.size(); i++) {
+            PricePlan pp = plans.get(i);
+            if (pp.getPricePlanIndex() == 0) {
+                ids.add(addNewPricePlanWithDayRates(pp, drs.get(i), false));
+                continue;
+            }
+            pp.setContentHash(pp.computeContentHash(drs.get(i)));
+            updatePricePlan(pp);
+            deleteDayRatesInPlan(pp.getPricePlanIndex());
+            for (DayRate dr : drs.get(i)) {
+                dr.setDayRateIndex(0);
+                dr.setPricePlanId(pp.getPricePlanIndex());
+                addNewDayRate(dr);
+            }
+            ids.add(pp.getPricePlanIndex());
+        }
+        return ids;
+    }
+
     /**
      * Delete a specific day rate by its primary key.
      * @param toRemove The dayRateIndex to delete
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide memo of chart and KPI query results, shared by the UI2 view models so
+ * stepping back to a period, flipping a scale back, or returning to a screen is answered
+ * from memory rather than SQLite. One instance is provided by AppModule.
+ * <p>
+ * Results are keyed by the query's parameters and stamped with the database's data version
+ * ({@link DBWriteCoordinator#getDataVersion}). Any write (a simulation, costing or import
+ * run, a UI edit) advances the version, and the first lookup after it drops the whole cache:
+ * entries from an older version can never be served. A result loaded while a write lands
+ * is not kept.
+ * <p>
+ * The cache is bounded by weight, least recently used first; a list weighs its size (one
+ * per row) and anything else weighs one. Cached results are shared between callers, so
+ * they must not be modified.
+ */
+public final class QueryResultCache {
+
+    public static final int DEFAULT_MAX_WEIGHT = 50_000;
+
+    private final LongSupplier mDataVersion;
+    private final int mMaxWeight;
+    private final LinkedHashMap<List<Object>, Slot> mSlots = new LinkedHashMap<>(64, 0.75f, true);
+    private long mVersion = Long.MIN_VALUE;
+    private int mWeight;
+
+    private static final class Slot {
+        final Object value;
+        final int weight;
+
+        Slot(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    public QueryResultCache(LongSupplier dataVersion, int maxWeight) {
+        mDataVersion = dataVersion;
+        mMaxWeight = maxWeight;
+    }
+
+    /**
+     * The cached result for {@code key}, or {@code load}'s result, which is then cached.
+     * Call off the main thread; {@code load} runs on the calling thread, outside any lock,
+     * so concurrent misses on one key may both load.
+     *
+     * @param key the query name followed by every parameter that shapes the result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(List<Object> key, Supplier<T> load) {
+        long version = mDataVersion.getAsLong();
+        synchronized (this) {
+            if (version != mVersion) clear(version);
+            Slot slot = mSlots.get(key);
+            if (slot != null) return (T) slot.value;
+        }
+        T value = load.get();
+        put(key, version, value);
+        return value;
+    }
+
+    /**
+     * The cached results for {@code keys}, in order. The keys that miss are loaded by one call
+     * to {@code load}, given their indexes into {@code keys} and returning one result per index
+     * in the same order; each result is then cached under its own key. Same threading as
+     * {@link #get}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getAll(List<List<Object>> keys, Function<List<Integer>, List<T>> load) {
+        long version = mDataVersion.getAsLong();
+        List<T> values = new ArrayList<>(keys.size());
+        List<Integer> missing = new ArrayList<>();
+        synchronized (this) {
+            if (version != mVersion) clear(version);
+            for (int i = 0; i < keys.size(); i++) {
+                Slot slot = mSlots.get(keys.get(i));
+                values.add(slot == null ? null : (T) slot.value);
+                if (slot == null) missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) return values;
+        List<T> loaded = load.apply(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            int index = missing.get(i);
+            values.set(index, loaded.get(i));
+            put(keys.get(index), version, loaded.get(i));
+        }
+        return values;
+    }
+
+    public synchronized int size() {
+        return mSlots.size();
+    }
+
+    private synchronized void put(List<Object> key, long version, Object value) {
+        if (version != mVersion || mDataVersion.getAsLong() != version) return; // written meanwhile
+        int weight = (value instanceof Collection) ? Math.max(1, ((Collection<?>) value).size()) : 1;
+        if (weight > mMaxWeight) return;
+        Slot previous = mSlots.put(key, new Slot(value, weight));
+        if (previous != null) mWeight -= previous.weight;
+        mWeight += weight;
+        Iterator<Map.Entry<List<Object>, Slot>> eldest = mSlots.entrySet().iterator();
+        while (mWeight > mMaxWeight && eldest.hasNext()) {
+            mWeight -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+    }
+
+    private void clear(long version) {
+        mSlots.clear();
+        mWeight = 0;
+        mVersion = version;
+    }
+}
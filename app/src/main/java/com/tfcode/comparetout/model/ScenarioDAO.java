@@ -455,6 +455,45 @@ public abstract class ScenarioDAO {
     @RewriteQueriesToDropUnusedColumns
     public abstract List<EVDivert> getEVDivertForScenarioID(long id);
 
+    /*
+     * Every component linked to at least one scenario, one query per component table. The
+     * Directors tab pairs these with the relation tables in memory instead of querying each
+     * scenario's components in turn.
+     */
+
+    @Query("SELECT * FROM panels WHERE panelIndex IN (SELECT panelID FROM scenario2panel)")
+    public abstract List<Panel> getAllLinkedPanels();
+
+    @Query("SELECT * FROM batteries WHERE batteryIndex IN (SELECT batteryID FROM scenario2battery)")
+    public abstract List<Battery> getAllLinkedBatteries();
+
+    @Query("SELECT * FROM loadshift WHERE loadShiftIndex IN (SELECT loadShiftID FROM scenario2loadshift)")
+    public abstract List<LoadShift> getAllLinkedLoadShifts();
+
+    @Query("SELECT * FROM discharge2grid WHERE d2gIndex IN (SELECT dischargeID FROM scenario2discharge)")
+    public abstract List<DischargeToGrid> getAllLinkedDischarges();
+
+    @Query("SELECT * FROM inverters WHERE inverterIndex IN (SELECT inverterID FROM scenario2inverter)")
+    public abstract List<Inverter> getAllLinkedInverters();
+
+    @Query("SELECT * FROM evcharge WHERE evChargeIndex IN (SELECT evChargeID FROM scenario2evcharge)")
+    public abstract List<EVCharge> getAllLinkedEVCharges();
+
+    @Query("SELECT * FROM evdivert WHERE evDivertIndex IN (SELECT evDivertID FROM scenario2evdivert)")
+    public abstract List<EVDivert> getAllLinkedEVDiverts();
+
+    @Query("SELECT * FROM hwsystem WHERE hwSystemIndex IN (SELECT hwSystemID FROM scenario2hwsystem)")
+    public abstract List<HWSystem> getAllLinkedHWSystems();
+
+    @Query("SELECT * FROM hwschedule WHERE hwScheduleIndex IN (SELECT hwScheduleID FROM scenario2hwschedule)")
+    public abstract List<HWSchedule> getAllLinkedHWSchedules();
+
+    @Query("SELECT * FROM loadprofile WHERE loadProfileIndex IN (SELECT loadProfileID FROM scenario2loadprofile)")
+    public abstract List<LoadProfile> getAllLinkedLoadProfiles();
+
+    @Query("SELECT * FROM heatpumps WHERE heatPumpIndex IN (SELECT heatPumpID FROM scenario2heatpump)")
+    public abstract List<HeatPump> getAllLinkedHeatPumps();
+
     @Update (entity = Scenario.class)
     public abstract void updateScenario(Scenario scenario);
 
@@ -548,7 +587,7 @@ public abstract class ScenarioDAO {
     @Query("SELECT scenarioIndex FROM scenarios " +
             "WHERE scenarioIndex NOT IN (SELECT DISTINCT scenarioID FROM scenariosimulationdata) " +
             "AND scenarioIndex IN (SELECT DISTINCT scenarioID FROM scenario2loadprofile) " +
-            "AND (SELECT DISTINCT loadProfileID FROM scenario2loadprofile WHERE scenarioID = scenarioIndex ) IN (SELECT DISTINCT loadProfileID FROM loadprofiledata)")
+            "AND (SELECT DISTINCT loadProfileID FROM scenario2loadprofile WHERE scenarioID = scenarioIndex ) IN (SELECT loadProfileIndex FROM loadprofile)")
     public abstract List<Long> getAllScenariosThatNeedSimulation();
 
     @Query("SELECT * FROM scenarios WHERE scenarioIndex = :scenarioID")
@@ -602,11 +641,11 @@ public abstract class ScenarioDAO {
     // Worker terminal-state setters upsert a row so the scenario then leaves the defensive no-row clause.
     // ──────────────────────────────────────────────────────────────────────────────────────────────
 
-    /** Scenarios ready to simulate: flagged SIM_NEEDS, or no row yet AND not already simulated. Keeps the
-     *  old load-profile-data precondition so we never attempt a scenario with no load data. */
+    /** Scenarios ready to simulate: flagged SIM_NEEDS, or no row yet AND not already simulated. Requires a
+     *  load profile, not stored rows: a distribution-only profile is virtual and computed on read. */
     @Query("SELECT scenarioIndex FROM scenarios " +
             "WHERE scenarioIndex IN (SELECT DISTINCT scenarioID FROM scenario2loadprofile) " +
-            "AND (SELECT DISTINCT loadProfileID FROM scenario2loadprofile WHERE scenarioID = scenarioIndex) IN (SELECT DISTINCT loadProfileID FROM loadprofiledata) " +
+            "AND (SELECT DISTINCT loadProfileID FROM scenario2loadprofile WHERE scenarioID = scenarioIndex) IN (SELECT loadProfileIndex FROM loadprofile) " +
             "AND (scenarioIndex IN (SELECT scenarioID FROM scenario_readiness WHERE simStatus = 1) " +
             "  OR (scenarioIndex NOT IN (SELECT scenarioID FROM scenario_readiness) " +
             "      AND scenarioIndex NOT IN (SELECT DISTINCT scenarioID FROM scenariosimulationdata)))")
@@ -687,6 +726,14 @@ public abstract class ScenarioDAO {
     @Query("DELETE FROM scenario_readiness WHERE scenarioID = :scenarioID")
     public abstract void deleteReadinessForScenario(long scenarioID);
 
+    /** Whether the scenario is simulated and every plan is costed; null (not yet) while it has no row. */
+    @Query("SELECT simStatus = 0 AND costingNeeded = 0 FROM scenario_readiness WHERE scenarioID = :scenarioID")
+    public abstract LiveData<Boolean> loadCostingComplete(long scenarioID);
+
+    /** The scenario's readiness {@code simStatus} (see ScenarioReadiness); null while it has no row. */
+    @Query("SELECT simStatus FROM scenario_readiness WHERE scenarioID = :scenarioID")
+    public abstract LiveData<Integer> loadSimStatus(long scenarioID);
+
     /** Bulk reset (e.g. the one-time panel-data rollout, which wipes all sim/costing output) — clearing
      *  every row lets the defensive gate re-derive readiness from the (now empty) output tables. */
     @Query("DELETE FROM scenario_readiness")
@@ -1845,6 +1892,12 @@ public abstract class ScenarioDAO {
     @Query("SELECT * FROM scenario2evdivert")
     public abstract LiveData<List<Scenario2EVDivert>> loadEVDivertRelations();
 
+    @Query("SELECT * FROM scenario2loadprofile")
+    public abstract LiveData<List<Scenario2LoadProfile>> loadLoadProfileRelations();
+
+    @Query("SELECT * FROM scenario2heatpump")
+    public abstract LiveData<List<Scenario2HeatPump>> loadHeatPumpRelations();
+
     @Query("DELETE FROM scenario2evdivert WHERE scenarioID = :scenarioID AND evDivertID = :evDivertID")
     public abstract void deleteEVDivertFromScenario(Long evDivertID, Long scenarioID);
 
@@ -8,6 +8,8 @@ package com.tfcode.comparetout.model
 import android.app.Application
 import androidx.room.Room
 import androidx.sqlite.db.SupportSQLiteDatabase
+import com.google.gson.Gson
+import com.google.gson.reflect.TypeToken
 import java.io.File
 
 /**
@@ -23,6 +25,19 @@ import java.io.File
  * copies rows in dependency order via `INSERT … SELECT … WHERE`. The
  * resulting file is a complete, schema-versioned `ToutcDB` snapshot that
  * Room can open directly on the import side.
+ *
+ * **Deltas.** Every full export of everything records [Marks] on this
+ * device once it has been shared ([keepPendingBase]): for each source table
+ * and sysSn, the days it holds and a content stamp per day. [buildDelta]
+ * exports plans plus only the source rows on days that are new since those
+ * marks or whose stamp changed (late grid merges, re-fetched days), and
+ * lists what the importer must clear first: the days it re-sends, the days
+ * deleted since the marks, and whole sources that are new or gone. A nightly
+ * backup then moves a day's rows instead of years of them. The list lives in extra tables
+ * ([SNAPSHOT_META_TABLE], [SNAPSHOT_CLEAR_TABLE]) that Room ignores, so a
+ * delta is still a schema-identical `ToutcDB` file. Each delta becomes the
+ * base of the next, so deltas must be imported in the order they were built.
+ * Scenarios and outputs only ride in full snapshots.
  */
 class SnapshotExporter(private val application: Application) {
 
@@ -40,6 +55,18 @@ class SnapshotExporter(private val application: Application) {
         }
     }
 
+    /**
+     * What a delta's receiver holds: table -> sysSn -> day (yyyy-MM-dd) -> the
+     * content stamp of that source's rows on the day (row count and a
+     * position-weighted sum of their values, see [DAY_STAMPS]).
+     */
+    data class Marks(val days: Map<String, Map<String, Map<String, String>>>) {
+        companion object {
+            /** No base: a delta against it carries every source row. */
+            val NONE = Marks(emptyMap())
+        }
+    }
+
     /**
      * Build [target] as a scoped snapshot of the live database. Deletes the
      * file first if it exists. Caller is responsible for choosing the path
@@ -54,25 +81,130 @@ class SnapshotExporter(private val application: Application) {
             throw IllegalArgumentException("Selection export requires at least one scenario or source")
         }
 
-        // Prepare a clean destination file.
+        createEmptySnapshot(target)
+        val marks = withAttached(target) { sql ->
+            copyAll(sql, scope, includeOutputs)
+            writeKind(sql, KIND_FULL)
+            // A full export of everything is what a receiver holds from here on
+            if (scope is Scope.Everything) liveMarks(sql) else null
+        }
+        // A selection is no base for a delta; don't let sharing it keep an older export's marks
+        if (marks != null) stageBase(marks) else pendingBaseFile().delete()
+    }
+
+    /**
+     * Build [target] as a delta against the marks of the last export of
+     * everything or delta shared from this device ([Marks.NONE] when there
+     * was none): every plan, every alphaESSTransformMeta row, and the source
+     * rows of each day that is new since the marks or whose content stamp
+     * differs. Sources the marks have never seen ship whole. Once shared
+     * ([keepPendingBase]) the delta's marks become the base for the next one.
+     */
+    fun buildDelta(target: File) {
+        val base = lastBase()
+        createEmptySnapshot(target)
+        val marks = withAttached(target) { sql ->
+            sql.execSQL("INSERT INTO export.PricePlans SELECT * FROM PricePlans")
+            sql.execSQL("INSERT INTO export.DayRates  SELECT * FROM DayRates")
+            sql.execSQL("INSERT INTO export.alphaESSTransformMeta SELECT * FROM alphaESSTransformMeta")
+            writeKind(sql, KIND_DELTA)
+            sql.execSQL(
+                "CREATE TABLE export.$SNAPSHOT_CLEAR_TABLE (tableName TEXT NOT NULL, sysSn TEXT NOT NULL, day TEXT)"
+            )
+            val live = liveMarks(sql)
+            SNAPSHOT_DAY_COLUMNS.forEach { (t, dayCol) ->
+                val liveBySn = live.days[t].orEmpty()
+                val baseBySn = base.days[t].orEmpty()
+                liveBySn.forEach { (sn, liveDays) ->
+                    val baseDays = baseBySn[sn]
+                    if (baseDays == null) {
+                        clear(sql, t, sn, null)
+                        sql.execSQL("INSERT INTO export.$t SELECT * FROM $t WHERE sysSn = ?", arrayOf<Any?>(sn))
+                        return@forEach
+                    }
+                    liveDays.filter { (day, stamp) -> baseDays[day] != stamp }.keys.forEach { day ->
+                        clear(sql, t, sn, day)
+                        sql.execSQL(
+                            "INSERT INTO export.$t SELECT * FROM $t " +
+                                "WHERE sysSn = ? AND $dayCol >= ? AND $dayCol < date(?, '+1 day')",
+                            arrayOf<Any?>(sn, day, day)
+                        )
+                    }
+                    (baseDays.keys - liveDays.keys).forEach { day -> clear(sql, t, sn, day) }
+                }
+                (baseBySn.keys - liveBySn.keys).forEach { sn -> clear(sql, t, sn, null) }
+            }
+            // A source gone from every table takes its transform meta with it
+            val liveSns = live.days.values.flatMap { it.keys }.toSet()
+            (base.days.values.flatMap { it.keys }.toSet() - liveSns).forEach { sn ->
+                clear(sql, "alphaESSTransformMeta", sn, null)
+            }
+            live
+        }
+        stageBase(marks)
+    }
+
+    /**
+     * The marks of the last export of everything or delta that was shared, or
+     * [Marks.NONE]. A base in an older format also reads as [Marks.NONE], so
+     * the next delta ships every source whole.
+     */
+    fun lastBase(): Marks {
+        val file = baseFile()
+        if (!file.exists()) return Marks.NONE
+        return runCatching {
+            val type = object : TypeToken<Map<String, Map<String, Map<String, String>>>>() {}.type
+            Marks(Gson().fromJson<Map<String, Map<String, Map<String, String>>>>(file.readText(), type))
+        }.getOrDefault(Marks.NONE)
+    }
+
+    /**
+     * Make the marks of the last export built the base for the next delta.
+     * Called once that export has been handed to a share target; an export
+     * that was never shared leaves the base as it was.
+     */
+    fun keepPendingBase() {
+        val pending = pendingBaseFile()
+        if (pending.exists() && !pending.renameTo(baseFile())) {
+            throw IllegalStateException("Could not keep the delta base at ${baseFile().absolutePath}")
+        }
+    }
+
+    /** Hold an export's marks until [keepPendingBase]; a later export replaces them. */
+    private fun stageBase(marks: Marks) {
+        val file = pendingBaseFile()
+        file.parentFile?.mkdirs()
+        file.writeText(Gson().toJson(marks.days))
+    }
+
+    private fun baseFile() = File(application.filesDir, "snapshots/delta-base.json")
+
+    private fun pendingBaseFile() = File(application.filesDir, "snapshots/delta-base.pending.json")
+
+    /**
+     * Create [target] afresh with the current ToutcDB schema by briefly
+     * opening it as a Room database. The .build() + first DB access
+     * triggers CREATE TABLE for every entity. We close immediately so the
+     * file's handles are released before we ATTACH it.
+     */
+    private fun createEmptySnapshot(target: File) {
         target.parentFile?.mkdirs()
         if (target.exists() && !target.delete()) {
             throw IllegalStateException("Could not overwrite existing snapshot at ${target.absolutePath}")
         }
-
-        // Step 1 — bring the empty target up to the current ToutcDB schema by
-        // briefly opening it as a Room database. The .build() + first DB
-        // access triggers CREATE TABLE for every entity. We close immediately
-        // so the file's handles are released before we ATTACH it.
         val builder = Room.databaseBuilder(application, ToutcDB::class.java, target.absolutePath)
         val temp = builder.build()
         temp.openHelper.writableDatabase.version    // force open
         temp.close()
+    }
 
-        // Step 2 — copy rows from the live database into the temp file via
-        // ATTACH. Use the live DB's existing connection so we see all WAL
-        // writes; ATTACH cannot run inside a transaction so we bracket the
-        // copy phase with a transaction *between* ATTACH and DETACH.
+    /**
+     * Run [copy] with [target] attached to the live database as `export`.
+     * Uses the live DB's existing connection so we see all WAL writes;
+     * ATTACH cannot run inside a transaction so we bracket the copy phase
+     * with a transaction *between* ATTACH and DETACH.
+     */
+    private fun <T> withAttached(target: File, copy: (SupportSQLiteDatabase) -> T): T {
         val live = ToutcDB.getDatabase(application)
         val sql = live.openHelper.writableDatabase
         val attachPath = target.absolutePath.replace("'", "''")
@@ -81,8 +213,9 @@ class SnapshotExporter(private val application: Application) {
         try {
             sql.beginTransaction()
             try {
-                copyAll(sql, scope, includeOutputs)
+                val result = copy(sql)
                 sql.setTransactionSuccessful()
+                return result
             } finally {
                 sql.endTransaction()
             }
@@ -91,6 +224,41 @@ class SnapshotExporter(private val application: Application) {
         }
     }
 
+    /** The days each source holds per table in the live database, with their content stamps. */
+    private fun liveMarks(sql: SupportSQLiteDatabase): Marks {
+        val days = mutableMapOf<String, Map<String, Map<String, String>>>()
+        SNAPSHOT_DAY_COLUMNS.forEach { (t, dayCol) ->
+            val bySn = mutableMapOf<String, MutableMap<String, String>>()
+            sql.query(
+                "SELECT sysSn, substr($dayCol, 1, 10) AS day, " +
+                    "COUNT(*) || ':' || printf('%!.17g', total(${DAY_STAMPS.getValue(t)})) " +
+                    "FROM $t GROUP BY sysSn, day"
+            ).use { c ->
+                while (c.moveToNext()) {
+                    if (!c.isNull(1)) bySn.getOrPut(c.getString(0)) { mutableMapOf() }[c.getString(1)] = c.getString(2)
+                }
+            }
+            if (bySn.isNotEmpty()) days[t] = bySn
+        }
+        return Marks(days)
+    }
+
+    private fun writeKind(sql: SupportSQLiteDatabase, kind: String) {
+        sql.execSQL("CREATE TABLE export.$SNAPSHOT_META_TABLE (key TEXT PRIMARY KEY NOT NULL, value TEXT)")
+        sql.execSQL(
+            "INSERT INTO export.$SNAPSHOT_META_TABLE (key, value) VALUES ('$META_KIND', ?)",
+            arrayOf<Any?>(kind)
+        )
+    }
+
+    /** Tell the importer to clear a source's rows on [day] of [table], or all of them when null. */
+    private fun clear(sql: SupportSQLiteDatabase, table: String, sysSn: String, day: String?) {
+        sql.execSQL(
+            "INSERT INTO export.$SNAPSHOT_CLEAR_TABLE (tableName, sysSn, day) VALUES (?, ?, ?)",
+            arrayOf<Any?>(table, sysSn, day)
+        )
+    }
+
     // ────────────────────────────────────────────────────────────────────
     // Row-copy SQL — written against the attached `export` alias. Every
     // table is `SELECT *`; the WHERE clauses scope by scenario or sysSn.
@@ -258,5 +426,37 @@ class SnapshotExporter(private val application: Application) {
             "alphaESSTransformedData",
             "alphaESSTransformMeta"
         )
+
+        /**
+         * Per day-keyed source table, the per-row term summed into a day's content stamp:
+         * the row's values under distinct weights, scaled by its position in the day, so an
+         * edited, added, removed or moved reading changes the day's stamp.
+         */
+        val DAY_STAMPS = mapOf(
+            "alphaESSRawEnergy" to "energyCharge + 2 * energypv + 3 * energyOutput + 5 * energyInput + " +
+                "7 * energyGridCharge + 11 * energyDischarge + 13 * energyChargingPile",
+            "alphaESSRawPower" to "(CAST(substr(uploadTime, 12, 2) AS INTEGER) * 3600 + " +
+                "CAST(substr(uploadTime, 15, 2) AS INTEGER) * 60 + CAST(substr(uploadTime, 18, 2) AS INTEGER) + 1) * " +
+                "(ppv + 2 * load + 3 * cbat + 5 * feedIn + 7 * gridCharge + 11 * pchargingPile)",
+            "alphaESSTransformedData" to "(CAST(substr(minute, 1, 2) AS INTEGER) * 60 + " +
+                "CAST(substr(minute, 4, 2) AS INTEGER) + 1) * " +
+                "(pv + 2 * load + 3 * feed + 5 * buy + 7 * charge + 11 * pv2load + 13 * pv2bat + " +
+                "17 * pv2grid + 19 * bat2load + 23 * bat2grid + 29 * grid2load + 31 * grid2bat + " +
+                "37 * evActual + 41 * batChargeIn + 43 * batDischargeOut + 47 * hwActual + 53 * hpActual)"
+        )
     }
 }
+
+/** Extra tables a snapshot carries alongside the ToutcDB schema; Room ignores them on open. */
+internal const val SNAPSHOT_META_TABLE = "snapshot_meta"
+internal const val SNAPSHOT_CLEAR_TABLE = "snapshot_clear"
+internal const val META_KIND = "kind"
+internal const val KIND_FULL = "full"
+internal const val KIND_DELTA = "delta"
+
+/** Source tables that grow by day, with the column whose first 10 chars are the day. */
+internal val SNAPSHOT_DAY_COLUMNS = listOf(
+    "alphaESSRawEnergy" to "theDate",
+    "alphaESSRawPower" to "uploadTime",
+    "alphaESSTransformedData" to "date"
+)
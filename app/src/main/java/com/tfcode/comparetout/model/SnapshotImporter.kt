@@ -17,6 +17,8 @@ import com.google.gson.JsonParser
 import com.google.gson.reflect.TypeToken
 import com.tfcode.comparetout.SimulatorLauncher
 import com.tfcode.comparetout.TOUTCApplication
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRollup
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData
 import com.tfcode.comparetout.ui2.UserTimezoneStore
 import java.io.File
 import java.io.FileNotFoundException
@@ -147,7 +149,7 @@ class SnapshotImporter(private val application: Application) {
         // into the `errors` list and let the caller decide how to render.
         return try {
             val summary = summarise(sql)
-            if (summary.isEmpty()) {
+            if (summary.isEmpty() && !(isDelta(sql) && countRows(sql, SNAPSHOT_CLEAR_TABLE) > 0)) {
                 Validation.FileError("Snapshot is empty — nothing to import.")
             } else {
                 val errors = runChecks(sql)
@@ -290,12 +292,13 @@ class SnapshotImporter(private val application: Application) {
         val stagingPlans: Map<com.tfcode.comparetout.model.priceplan.PricePlan,
             List<com.tfcode.comparetout.model.priceplan.DayRate>>?
         val stagingScenarios: List<com.tfcode.comparetout.model.scenario.ScenarioComponents>?
-        val stagingSysSns: Set<String>
+        val stagingSysSns: MutableSet<String>
         // AlphaESS systems live in alphaESSRawEnergy; ESBN/HA only ever produce
         // alphaESSTransformedData (HA always under sysSn "HomeAssistant"). Used
         // to register imported sources in the right management list below.
         val stagingAlphaSns: Set<String>
         val stagingTransformedSns: Set<String>
+        val delta: Boolean
         try {
             stagingPlans = staging.pricePlanDAO().allPricePlansForExport
             stagingScenarios = staging.scenarioDAO().allScenariosForExport
@@ -315,6 +318,9 @@ class SnapshotImporter(private val application: Application) {
             stagingTransformedSns = queryStrings(
                 sdb, "SELECT DISTINCT sysSn FROM alphaESSTransformedData"
             ).toHashSet()
+            delta = isDelta(sdb)
+            // A delta may only remove a source, so it touches the sources it clears too
+            if (delta) stagingSysSns += queryStrings(sdb, "SELECT DISTINCT sysSn FROM $SNAPSHOT_CLEAR_TABLE")
         } finally {
             staging.close()
         }
@@ -328,16 +334,22 @@ class SnapshotImporter(private val application: Application) {
         // single ATTACH session. paneldata / loadprofiledata FK columns are
         // rewritten using the maps built in applyScenarios so the rows land
         // against the freshly-assigned panelIndex / loadProfileIndex.
+        // A delta (see SnapshotExporter.buildDelta) carries no scenarios, only
+        // the source rows and deletions since its base, applied in batches instead.
         val misalignedPanelIds = mutableListOf<Long>()
-        val sourcesTouched = applyAttachedTables(
-            staged,
-            scenariosResult.panelIdMap,
-            scenariosResult.loadProfileIdMap,
-            stagingSysSns,
-            replaceExisting,
-            misalignedPanelIds,
-            warnings
-        )
+        val sourcesTouched = if (delta) {
+            applyDeltaSources(staged, stagingSysSns, warnings)
+        } else {
+            applyAttachedTables(
+                staged,
+                scenariosResult.panelIdMap,
+                scenariosResult.loadProfileIdMap,
+                stagingSysSns,
+                replaceExisting,
+                misalignedPanelIds,
+                warnings
+            )
+        }
 
         // Register the imported sources in the data-source management lists
         // (DataStore), so they show up there with their credentials flagged as
@@ -358,7 +370,8 @@ class SnapshotImporter(private val application: Application) {
         // re-stamp (REPLACE). It is idempotent and resumable, and reuses the dashboard migration banner for the
         // visual indication. (PanelDataRefreshWorker is deliberately NOT re-run here — it wipes ALL paneldata,
         // which would destroy correctly-imported PV; see plans/sim/timezone-and-rollout.md.)
-        if (sourcesTouched > 0) {
+        // A delta re-anchors just its own rows as it copies them, so it leaves the rest alone.
+        if (sourcesTouched > 0 && !delta) {
             (application as? TOUTCApplication)?.let { app ->
                 runCatching {
                     app.putStringValueIntoDataStore(TimezoneRestampWorker.DONE_KEY, "")
@@ -386,6 +399,10 @@ class SnapshotImporter(private val application: Application) {
         // Discard the staging file once everything has been committed.
         staged.delete()
 
+        // Source rows were copied on a raw connection the coordinator and Room never saw;
+        // make cached chart/KPI results built before the import stale.
+        ToutcDB.getWriteCoordinator(application).markChanged()
+
         return CommitResult(
             plansAdded = plansResult.added,
             plansReplaced = plansResult.replaced,
@@ -677,6 +694,156 @@ class SnapshotImporter(private val application: Application) {
         SOURCE_TABLES.forEach { t ->
             sql.execSQL("INSERT $conflictClause INTO $t SELECT * FROM staging.$t")
         }
+        // Rollups are derived, so they are rebuilt from the merged rows rather than copied.
+        val list = sysSns.joinToString(",") { "'${it.replace("'", "''")}'" }
+        sql.execSQL(AlphaESSTransformedData.BACKFILL_BUCKETS_SQL)
+        sql.execSQL("DELETE FROM alphaESSHourly WHERE sysSn IN ($list)")
+        sql.execSQL(AlphaESSRollup.HOURLY_INSERT + "WHERE sysSn IN ($list)" + AlphaESSRollup.HOURLY_GROUP)
+        sql.execSQL("DELETE FROM alphaESSDaily WHERE sysSn IN ($list)")
+        sql.execSQL(AlphaESSRollup.DAILY_INSERT + "WHERE sysSn IN ($list)" + AlphaESSRollup.DAILY_GROUP)
+    }
+
+    /**
+     * Apply a delta snapshot's source rows. Its clear list names the days it
+     * re-sends, the days deleted on the exporting device since its base, and
+     * whole sources that are new to the chain or gone. Each named day (or
+     * whole source) is cleared and gets the delta's rows for it in the same
+     * transaction, so a failure never leaves a day deleted without its
+     * replacement. The rows are upserted whatever the replace flag says,
+     * since they are what the exporting device holds now.
+     *
+     * Days are applied [DELTA_BATCH_DAYS] at a time, each batch one
+     * transaction run as an exclusive job on the [DBWriteCoordinator], so a
+     * large delta (e.g. the first one of a chain) never holds the write lock
+     * for the whole copy. Transformed rows are re-anchored to this device's
+     * zone as they land, and their rollups rebuilt over just those days. A
+     * failed batch rolls back and stops the copy; the batches before it are
+     * whole days, so importing the same file again completes it.
+     *
+     * Same separate-connection rule as [applyAttachedTables].
+     */
+    private fun applyDeltaSources(staged: Staged, sysSns: Set<String>, warnings: MutableList<String>): Int {
+        if (sysSns.isEmpty()) return 0
+        val live = ToutcDB.getDatabase(application)
+        val writer = ToutcDB.getWriteCoordinator(application)
+        val dbPath = application.getDatabasePath(live.openHelper.databaseName ?: "toutc_database")
+            .absolutePath
+        val attachPath = staged.file.absolutePath.replace("'", "''")
+        val zone = UserTimezoneStore.resolvedZone(application)
+
+        val db = android.database.sqlite.SQLiteDatabase.openDatabase(
+            dbPath, null, android.database.sqlite.SQLiteDatabase.OPEN_READWRITE
+        )
+        try {
+            db.execSQL("ATTACH DATABASE '$attachPath' AS staging")
+            try {
+                val (wholeSources, days) = readClears(db).partition { it.day == null }
+                wholeSources.forEach { clear ->
+                    writer.runExclusive(DBWriteCoordinator.Priority.BACKGROUND) {
+                        inTransaction(db) { applyDeltaClear(db, clear, zone) }
+                    }
+                }
+                days.groupBy { it.table to it.sysSn }.values.forEach { sourceDays ->
+                    sourceDays.chunked(DELTA_BATCH_DAYS).forEach { batch ->
+                        writer.runExclusive(DBWriteCoordinator.Priority.BACKGROUND) {
+                            inTransaction(db) { batch.forEach { applyDeltaClear(db, it, zone) } }
+                        }
+                    }
+                }
+                // Transform meta is not kept by day; every delta carries all of it
+                writer.runExclusive(DBWriteCoordinator.Priority.BACKGROUND) {
+                    inTransaction(db) {
+                        db.execSQL("INSERT OR REPLACE INTO alphaESSTransformMeta SELECT * FROM staging.alphaESSTransformMeta")
+                    }
+                }
+            } finally {
+                db.execSQL("DETACH DATABASE staging")
+            }
+        } catch (t: Throwable) {
+            warnings += "Delta copy failed, import the file again to finish it: ${t.message ?: "unknown error"}"
+        } finally {
+            db.close()
+        }
+        return sysSns.size
+    }
+
+    /** One entry of a delta's clear list: a source's rows on [day] of [table], or all of them. */
+    private data class DeltaClear(val table: String, val sysSn: String, val day: String?)
+
+    private fun readClears(db: android.database.sqlite.SQLiteDatabase): List<DeltaClear> {
+        val clears = mutableListOf<DeltaClear>()
+        db.rawQuery("SELECT tableName, sysSn, day FROM staging.$SNAPSHOT_CLEAR_TABLE", null).use { c ->
+            while (c.moveToNext()) {
+                // Table names are spliced into SQL, so only the source tables are honoured
+                if (c.getString(0) in SOURCE_TABLES) {
+                    clears += DeltaClear(c.getString(0), c.getString(1), if (c.isNull(2)) null else c.getString(2))
+                }
+            }
+        }
+        return clears
+    }
+
+    /**
+     * Replace the rows one clear-list entry covers with the delta's rows for it, and for
+     * transformed data re-anchor them and rebuild their rollups. The caller holds the transaction.
+     */
+    private fun applyDeltaClear(db: android.database.sqlite.SQLiteDatabase, clear: DeltaClear, zone: java.time.ZoneId) {
+        val dayCol = SNAPSHOT_DAY_COLUMNS.toMap()[clear.table]
+        val (where, args) = when {
+            clear.day == null -> "sysSn = ?" to arrayOf(clear.sysSn)
+            dayCol != null -> "sysSn = ? AND $dayCol >= ? AND $dayCol < date(?, '+1 day')" to
+                arrayOf(clear.sysSn, clear.day, clear.day)
+            else -> return
+        }
+        db.execSQL("DELETE FROM ${clear.table} WHERE $where", args)
+        db.execSQL("INSERT OR REPLACE INTO ${clear.table} SELECT * FROM staging.${clear.table} WHERE $where", args)
+        if (clear.table == "alphaESSTransformedData") {
+            anchorDeltaRows(db, zone, where, args)
+            db.execSQL(AlphaESSTransformedData.BACKFILL_BUCKETS_SQL + " AND $where", args)
+            db.execSQL("DELETE FROM alphaESSHourly WHERE $where", args)
+            db.execSQL(AlphaESSRollup.HOURLY_INSERT + "WHERE $where" + AlphaESSRollup.HOURLY_GROUP, args)
+            db.execSQL("DELETE FROM alphaESSDaily WHERE $where", args)
+            db.execSQL(AlphaESSRollup.DAILY_INSERT + "WHERE $where" + AlphaESSRollup.DAILY_GROUP, args)
+        }
+    }
+
+    /** Restamp the millis of the staged transformed rows matching [where] for this device's zone. */
+    private fun anchorDeltaRows(
+        db: android.database.sqlite.SQLiteDatabase,
+        zone: java.time.ZoneId,
+        where: String,
+        args: Array<String>
+    ) {
+        val update = db.compileStatement(
+            "UPDATE alphaESSTransformedData SET millisSinceEpoch = ? WHERE sysSn = ? AND date = ? AND minute = ?"
+        )
+        update.use { stmt ->
+            db.rawQuery("SELECT sysSn, date, minute FROM staging.alphaESSTransformedData WHERE $where", args).use { c ->
+                while (c.moveToNext()) {
+                    val millis = runCatching {
+                        LocalDateTime.of(LocalDate.parse(c.getString(1)), LocalTime.parse(c.getString(2)))
+                            .atZone(zone).toInstant().toEpochMilli()
+                    }.getOrNull()
+                    if (millis != null) {
+                        stmt.bindLong(1, millis)
+                        stmt.bindString(2, c.getString(0))
+                        stmt.bindString(3, c.getString(1))
+                        stmt.bindString(4, c.getString(2))
+                        stmt.executeUpdateDelete()
+                    }
+                }
+            }
+        }
+    }
+
+    private inline fun inTransaction(db: android.database.sqlite.SQLiteDatabase, block: () -> Unit) {
+        db.beginTransaction()
+        try {
+            block()
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
     }
 
     // ── Phase 4 — millis backfill for merged rows ───────────────────────────
@@ -688,6 +855,8 @@ class SnapshotImporter(private val application: Application) {
      *  - `alphaESSTransformedData` holds real importer data whose `date`/`minute` are the source's local
      *    wall-clock, so its instant is that wall-clock in the saved zone (matching Phase 1/2 ingestion) —
      *    computed in Java since SQLite can't do zone math.
+     *  - `alphaESSTransformedData` bucket columns (hour/day/month...) are wall-clock only, so any a copied row
+     *    lacks are filled in SQL too.
      *
      * Caveat: a snapshot's `paneldata` from a pre-fix build could carry the OLD grid (wrong date), in which case
      * a date+mod backfill yields a non-2001 instant and the panel still needs regenerating (Phase 3 territory) —
@@ -712,6 +881,9 @@ class SnapshotImporter(private val application: Application) {
                     "WHERE millisSinceEpoch IS NULL"
             )
 
+            // Wall-clock buckets the aggregate queries group on (zone-independent, so pure SQL).
+            db.execSQL(AlphaESSTransformedData.BACKFILL_BUCKETS_SQL)
+
             // Importer data: real local wall-clock -> instant in the saved zone (no SQL zone math).
             val zone = UserTimezoneStore.resolvedZone(application)
             var backfilled = 0
@@ -852,6 +1024,14 @@ class SnapshotImporter(private val application: Application) {
         return sql.query(q).use { c -> if (c.moveToFirst()) c.getLong(0) else 0L }
     }
 
+    /** True for a file [SnapshotExporter.buildDelta] wrote; older snapshots carry no meta table. */
+    private fun isDelta(sql: SupportSQLiteDatabase): Boolean {
+        val hasMeta = countRows(sql, "sqlite_master", "WHERE type = 'table' AND name = '$SNAPSHOT_META_TABLE'") > 0
+        if (!hasMeta) return false
+        return queryStrings(sql, "SELECT value FROM $SNAPSHOT_META_TABLE WHERE key = '$META_KIND'")
+            .firstOrNull() == KIND_DELTA
+    }
+
     private fun queryStrings(sql: SupportSQLiteDatabase, q: String): List<String> {
         val out = mutableListOf<String>()
         sql.query(q).use { c ->
@@ -891,6 +1071,9 @@ class SnapshotImporter(private val application: Application) {
             "alphaESSTransformMeta"
         )
 
+        /** Days of one source table applied per delta batch (transaction). */
+        private const val DELTA_BATCH_DAYS = 31
+
         // DataStore keys the "Manage data sources" screen reads its system lists
         // from (mirrors UI2DataSourceManagementViewModel). HA's canonical sysSn.
         private const val ALPHA_SYSTEM_LIST_KEY = "system_list"
@@ -39,6 +39,7 @@ import androidx.work.WorkerParameters;
 
 import com.tfcode.comparetout.R;
 import com.tfcode.comparetout.TOUTCApplication;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRollup;
 import com.tfcode.comparetout.ui2.UserTimezoneStore;
 
 import java.time.LocalDate;
@@ -51,7 +52,8 @@ import java.time.ZoneId;
  * re-anchors the already-imported {@code alphaESSTransformedData} rows to the saved zone by recomputing
  * {@code millisSinceEpoch} from each row's {@code date}+{@code minute} wall-clock interpreted in
  * {@link UserTimezoneStore#resolvedZone}. The wall-clock strings (the PK, and what Compare renders) are left
- * unchanged. In the same pass this also fills rows whose millis was never set (e.g. ESBN).
+ * unchanged. In the same pass this also fills rows whose millis was never set (e.g. ESBN), and once done
+ * rebuilds the hourly/daily rollups from the re-stamped rows.
  *
  * <p><b>Why a separate SQLite connection (not Room's).</b> Writing through Room's own connection fires Room's
  * <em>TEMP</em> invalidation triggers ({@code room_table_modification_log}), which break on WAL pooled
@@ -59,7 +61,8 @@ import java.time.ZoneId;
  * learned this the hard way). So we open a plain {@link SQLiteDatabase} — TEMP triggers are per-connection, so a
  * separate connection neither fires them nor disturbs Room's observers (Compare picks the new values up on its
  * next query). The earlier {@code SQLITE_BUSY} this caused (it competes with the sim/cost workers for the WAL
- * write lock) is handled by {@code PRAGMA busy_timeout} — the connection waits for the lock instead of throwing.</p>
+ * write lock) is handled by running each batch as an exclusive job on the {@link DBWriteCoordinator}, so it
+ * takes the lock between the workers' transactions; {@code PRAGMA busy_timeout} still covers anything else.</p>
  *
  * <p><b>Large-dataset safe / resumable.</b> Rows are paged by {@code rowid} (never loading the whole table), each
  * batch committed and a {@code rowid} high-water mark persisted to DataStore, so a kill (time limit / debugger
@@ -116,6 +119,7 @@ public class TimezoneRestampWorker extends Worker {
 
         ZoneId zone = UserTimezoneStore.resolvedZone(context);
         ToutcDB room = ToutcDB.getDatabase(context);
+        DBWriteCoordinator writer = ToutcDB.getWriteCoordinator(context);
         String dbPath = context.getDatabasePath(room.getOpenHelper().getDatabaseName()).getAbsolutePath();
 
         ensureChannel(context);
@@ -159,7 +163,13 @@ public class TimezoneRestampWorker extends Worker {
                             + ") — will resume on next run.");
                     return Result.retry();
                 }
-                int n = restampBatch(db, zone, cursor);
+                // Each batch is an exclusive job on the app's single writer, so it never waits on
+                // (or holds up) the sim/cost workers' writes; busy_timeout covers anyone else.
+                long after = cursor;
+                int[] batch = new int[1];
+                writer.runExclusive(DBWriteCoordinator.Priority.BACKGROUND,
+                        () -> batch[0] = restampBatch(db, zone, after));
+                int n = batch[0];
                 if (n == 0) break;          // no more rows after the cursor → finished
                 cursor = lastBatchRowid;    // max rowid the batch just committed
                 done += n;
@@ -173,6 +183,7 @@ public class TimezoneRestampWorker extends Worker {
                 notify(notificationManager, builder);
             }
 
+            writer.runExclusive(DBWriteCoordinator.Priority.BACKGROUND, () -> rebuildRollups(db));
             app.putStringValueIntoDataStore(DONE_KEY, "true");
             app.putStringValueIntoDataStore(CURSOR_KEY, "");
             Log.i(TAG, "Complete: re-stamped " + total + " rows.");
@@ -203,10 +214,17 @@ public class TimezoneRestampWorker extends Worker {
                 String date = c.getString(1);
                 String minute = c.getString(2);
                 try {
-                    long millis = LocalDateTime.of(LocalDate.parse(date), LocalTime.parse(minute))
-                            .atZone(zone).toInstant().toEpochMilli();
-                    db.execSQL("UPDATE alphaESSTransformedData SET millisSinceEpoch = ? WHERE rowid = ?",
-                            new Object[]{millis, rid});
+                    LocalDate day = LocalDate.parse(date);
+                    LocalTime time = LocalTime.parse(minute);
+                    long millis = LocalDateTime.of(day, time).atZone(zone).toInstant().toEpochMilli();
+                    // The wall-clock buckets don't depend on the zone; writing them here too heals any
+                    // row a raw copy left without them
+                    int monthKey = day.getYear() * 100 + day.getMonthValue();
+                    db.execSQL("UPDATE alphaESSTransformedData SET millisSinceEpoch = ?, hour = ?, dayKey = ?, " +
+                                    "doy = ?, dow = ?, monthKey = ?, year = ? WHERE rowid = ?",
+                            new Object[]{millis, time.getHour(), monthKey * 100 + day.getDayOfMonth(),
+                                    day.getDayOfYear(), day.getDayOfWeek().getValue() % 7, monthKey,
+                                    day.getYear(), rid});
                 } catch (Exception rowError) {
                     // A malformed date/minute must not poison the whole migration — skip it (leaving its
                     // millis as-is) and advance, so the run still converges. Logged for diagnosis.
@@ -223,6 +241,18 @@ public class TimezoneRestampWorker extends Worker {
         return n;
     }
 
+    /** Rebuild the hourly/daily rollups from the re-stamped rows, in one transaction. */
+    private void rebuildRollups(SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            for (String sql : AlphaESSRollup.REBUILD_SQL) db.execSQL(sql);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.i(TAG, "Rollups rebuilt.");
+    }
+
     private long count(SQLiteDatabase db, String sql, String[] args) {
         try (Cursor c = db.rawQuery(sql, args)) {
             return c.moveToFirst() ? c.getLong(0) : 0L;
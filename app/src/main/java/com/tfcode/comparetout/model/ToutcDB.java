@@ -18,18 +18,29 @@ package com.tfcode.comparetout.model;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.AutoMigration;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.AutoMigrationSpec;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.tfcode.comparetout.model.costings.Costings;
+import com.tfcode.comparetout.model.costings.ScenarioDayBand;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
+import com.tfcode.comparetout.model.costings.SourceDayBand;
+import com.tfcode.comparetout.model.costings.SourceDayCost;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSDailyRollup;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSHourlyRollup;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRollup;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformMeta;
 import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
 import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.DynamicRateChunk;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
 import com.tfcode.comparetout.model.scenario.Battery;
 import com.tfcode.comparetout.model.scenario.DischargeToGrid;
@@ -61,6 +72,7 @@ import com.tfcode.comparetout.model.scenario.Scenario2Panel;
 import com.tfcode.comparetout.model.scenario.ScenarioReadiness;
 import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -83,9 +95,13 @@ import java.util.concurrent.Executors;
         Costings.class, PanelData.class,
         AlphaESSRawPower.class, AlphaESSRawEnergy.class,
         AlphaESSTransformedData.class,
+        AlphaESSHourlyRollup.class, AlphaESSDailyRollup.class,
         AlphaESSTransformMeta.class,
-        ScenarioReadiness.class
-        }, version = 15,
+        ScenarioReadiness.class,
+        SourceDayCost.class, SourceDayBand.class,
+        DynamicRateChunk.class,
+        ScenarioDayCost.class, ScenarioDayBand.class
+        }, version = 21,
         autoMigrations = {
             @AutoMigration(from = 1, to = 2),
             @AutoMigration(from = 2, to = 3),
@@ -100,7 +116,13 @@ import java.util.concurrent.Executors;
             @AutoMigration(from = 11, to = 12),
             @AutoMigration(from = 12, to = 13),
             @AutoMigration(from = 13, to = 14),
-            @AutoMigration(from = 14, to = 15)})
+            @AutoMigration(from = 14, to = 15),
+            @AutoMigration(from = 15, to = 16),
+            @AutoMigration(from = 16, to = 17),
+            @AutoMigration(from = 17, to = 18),
+            @AutoMigration(from = 18, to = 19, spec = ToutcDB.BucketBackfill.class),
+            @AutoMigration(from = 19, to = 20, spec = ToutcDB.RollupBackfill.class),
+            @AutoMigration(from = 20, to = 21, spec = ToutcDB.ScenarioDayCostBackfill.class)})
 
 @TypeConverters({Converters.class})
 
@@ -160,18 +182,59 @@ public abstract class ToutcDB extends RoomDatabase {
      */
     public abstract AlphaEssDAO alphaEssDAO();
 
+    /** v19 adds the wall-clock bucket columns to alphaESSTransformedData; fill them for existing rows. */
+    public static class BucketBackfill implements AutoMigrationSpec {
+        @Override
+        public void onPostMigrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL(AlphaESSTransformedData.BACKFILL_BUCKETS_SQL);
+        }
+    }
+
+    /** v20 adds the hourly and daily rollups of alphaESSTransformedData; build them from the existing rows. */
+    public static class RollupBackfill implements AutoMigrationSpec {
+        @Override
+        public void onPostMigrate(@NonNull SupportSQLiteDatabase db) {
+            for (String sql : AlphaESSRollup.REBUILD_SQL) db.execSQL(sql);
+        }
+    }
+
+    /**
+     * v21 adds the per-day scenario costs. Flag the simulated scenarios with costings but no
+     * days, so the next costing pass writes their days; their costings are kept as they are.
+     */
+    public static class ScenarioDayCostBackfill implements AutoMigrationSpec {
+        @Override
+        public void onPostMigrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("UPDATE scenario_readiness SET costingNeeded = 1 " +
+                    "WHERE EXISTS (SELECT 1 FROM scenariosimulationdata AS s WHERE s.scenarioID = scenario_readiness.scenarioID) " +
+                    "AND EXISTS (SELECT 1 FROM costings AS c WHERE c.scenarioID = scenario_readiness.scenarioID " +
+                    "AND NOT EXISTS (SELECT 1 FROM scenariodaycost AS d " +
+                    "WHERE d.scenarioID = c.scenarioID AND d.pricePlanID = c.pricePlanID))");
+        }
+    }
+
     private static volatile ToutcDB INSTANCE;
-    private static final int NUMBER_OF_THREADS = 8;
-    static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    private static volatile DBWriteCoordinator WRITER;
+    private static final int NUMBER_OF_READ_THREADS = 4;
+
+    /** Room's query executor: LiveData refreshes and other reads. Writes go through the write coordinator. */
+    static final ExecutorService databaseReadExecutor =
+            Executors.newFixedThreadPool(NUMBER_OF_READ_THREADS);
+
+    /** Fire-and-forget writes from the UI, queued on the write coordinator at foreground priority. */
+    static final Executor databaseWriteExecutor = command ->
+            WRITER.submit(DBWriteCoordinator.Priority.FOREGROUND, command).exceptionally(failure -> {
+                failure.printStackTrace();
+                return null;
+            });
 
     /**
      * Get the singleton database instance with thread-safe initialization.
      * <p>
      * Uses double-checked locking pattern to ensure thread-safe singleton
      * creation while avoiding synchronization overhead after initialization.
-     * The database is configured with a dedicated thread pool for write
-     * operations to prevent blocking the main UI thread.
+     * The database runs in WAL mode: reads use a dedicated thread pool and
+     * never wait on the single writer (see {@link DBWriteCoordinator}).
      * 
      * @param context application context for database creation
      * @return the singleton ToutcDB instance
@@ -180,12 +243,21 @@ public abstract class ToutcDB extends RoomDatabase {
         if (INSTANCE == null) {
             synchronized (ToutcDB.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                                    ToutcDB.class, "toutc_database").setQueryExecutor(databaseWriteExecutor)
+                    ToutcDB db = Room.databaseBuilder(context.getApplicationContext(),
+                                    ToutcDB.class, "toutc_database").setQueryExecutor(databaseReadExecutor)
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
                             .build();
+                    WRITER = new DBWriteCoordinator(db);
+                    INSTANCE = db;
                 }
             }
         }
         return INSTANCE;
     }
+
+    /** The single writer every database write is queued on. */
+    static DBWriteCoordinator getWriteCoordinator(final Context context) {
+        getDatabase(context);
+        return WRITER;
+    }
 }
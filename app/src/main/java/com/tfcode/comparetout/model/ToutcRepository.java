@@ -21,6 +21,16 @@ import android.app.Application;
 import androidx.lifecycle.LiveData;
 
 import com.tfcode.comparetout.model.costings.Costings;
+import com.tfcode.comparetout.model.costings.SourceCostBucket;
+import com.tfcode.comparetout.model.costings.SourceDayBand;
+import com.tfcode.comparetout.model.costings.ScenarioDayBand;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
+import com.tfcode.comparetout.model.costings.ScenarioPlanBand;
+import com.tfcode.comparetout.model.costings.ScenarioPlanTotal;
+import com.tfcode.comparetout.model.costings.SourceDayCost;
+import com.tfcode.comparetout.model.costings.SourceDaySignature;
+import com.tfcode.comparetout.model.costings.SourcePlanBand;
+import com.tfcode.comparetout.model.costings.SourcePlanTotal;
 import com.tfcode.comparetout.model.importers.CostInputRow;
 import com.tfcode.comparetout.model.importers.IntervalRow;
 import com.tfcode.comparetout.model.importers.InverterDateRange;
@@ -33,7 +43,9 @@ import com.tfcode.comparetout.model.importers.alphaess.KeyStatsRow;
 import com.tfcode.comparetout.model.importers.alphaess.MaxCalcRow;
 import com.tfcode.comparetout.model.importers.alphaess.ScheduleRIInput;
 import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.DynamicRateChunk;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
 import com.tfcode.comparetout.model.scenario.Battery;
 import com.tfcode.comparetout.model.scenario.HeatPump;
 import com.tfcode.comparetout.model.scenario.DischargeToGrid;
@@ -56,7 +68,9 @@ import com.tfcode.comparetout.model.scenario.Scenario2EVCharge;
 import com.tfcode.comparetout.model.scenario.Scenario2EVDivert;
 import com.tfcode.comparetout.model.scenario.Scenario2HWSchedule;
 import com.tfcode.comparetout.model.scenario.Scenario2HWSystem;
+import com.tfcode.comparetout.model.scenario.Scenario2HeatPump;
 import com.tfcode.comparetout.model.scenario.Scenario2Inverter;
+import com.tfcode.comparetout.model.scenario.Scenario2LoadProfile;
 import com.tfcode.comparetout.model.scenario.Scenario2LoadShift;
 import com.tfcode.comparetout.model.scenario.Scenario2Panel;
 import com.tfcode.comparetout.model.scenario.ScenarioBarChartData;
@@ -66,6 +80,7 @@ import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
 import com.tfcode.comparetout.model.scenario.SimKPIs;
 import com.tfcode.comparetout.model.scenario.MICBreachRow;
 import com.tfcode.comparetout.model.scenario.SimulationInputData;
+import com.tfcode.comparetout.model.scenario.VirtualLoadProfile;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -104,6 +119,8 @@ import java.util.Map;
  * @see CostingDAO for cost calculation operations
  */
 public class ToutcRepository {
+    private final DBWriteCoordinator writer;
+
     private final PricePlanDAO pricePlanDAO;
     private final LiveData<Map<PricePlan, List<DayRate>>> allPricePlans;
 
@@ -118,6 +135,8 @@ public class ToutcRepository {
     private final LiveData<List<Scenario2HWSchedule>> hwScheduleRelations;
     private final LiveData<List<Scenario2EVCharge>> evChargeRelations;
     private final LiveData<List<Scenario2EVDivert>> evDivertRelations;
+    private final LiveData<List<Scenario2LoadProfile>> loadProfileRelations;
+    private final LiveData<List<Scenario2HeatPump>> heatPumpRelations;
     private final LiveData<List<PanelPVSummary>> panelPVSummary;
 
     private final CostingDAO costingDAO;
@@ -151,6 +170,7 @@ public class ToutcRepository {
      */
     public ToutcRepository(Application application) {
         ToutcDB db = ToutcDB.getDatabase(application);
+        writer = ToutcDB.getWriteCoordinator(application);
         pricePlanDAO = db.pricePlanDAO();
         allPricePlans = pricePlanDAO.loadPricePlans();
 
@@ -165,6 +185,8 @@ public class ToutcRepository {
         hwScheduleRelations = scenarioDAO.loadHWScheduleRelations();
         evChargeRelations = scenarioDAO.loadEVChargeRelations();
         evDivertRelations = scenarioDAO.loadEVDivertRelations();
+        loadProfileRelations = scenarioDAO.loadLoadProfileRelations();
+        heatPumpRelations = scenarioDAO.loadHeatPumpRelations();
         panelPVSummary = scenarioDAO.getPanelPVSummary();
 
         costingDAO = db.costingDAO();
@@ -183,6 +205,11 @@ public class ToutcRepository {
         return allPricePlans;
     }
 
+    /** Advances on every database write; see {@link QueryResultCache}. */
+    public long getDataVersion() {
+        return writer.getDataVersion();
+    }
+
     // You must call this on a non-UI thread or your app will throw an exception. Room ensures
     // that you're not doing any long running operations on the main thread, blocking the UI.
     public void insert(PricePlan pp, List<DayRate> drs, boolean clobber) {
@@ -194,9 +221,62 @@ public class ToutcRepository {
         });
     }
 
+    /** Record a stored plan's content hash (see {@link PricePlan#computeContentHash}). */
+    public void setPricePlanContentHash(long pricePlanID, long hash) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> pricePlanDAO.setContentHash(pricePlanID, hash));
+    }
+
+    /**
+     * Write the new and changed plans of a catalogue sync now, waiting on the calling (background)
+     * thread. Only the changed plans lose their costings, so the next costing pass prices
+     * just those plans (and any new ones) rather than the whole catalogue.
+     *
+     * @param plans new plans (index 0) and changed plans (index of the stored plan they replace)
+     * @param drs each plan's day rates, in the same order
+     * @return the IDs written, in the same order
+     */
+    public List<Long> syncPricePlansNow(List<PricePlan> plans, List<List<DayRate>> drs) {
+        if (plans.isEmpty()) return new ArrayList<>();
+        List<Boolean> replaced = new ArrayList<>();
+        for (PricePlan pp : plans) replaced.add(pp.getPricePlanIndex() != 0);
+        return writer.call(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            List<Long> ids = pricePlanDAO.syncPricePlans(plans, drs);
+            for (int i = 0; i < ids.size(); i++)
+                if (replaced.get(i)) costingDAO.deleteRelatedCostings(ids.get(i).intValue());
+            scenarioDAO.markAllScenariosNeedCosting(System.currentTimeMillis());
+            return ids;
+        });
+    }
+
+    /** Insert a dynamic plan now, waiting on the calling (background) thread, returning its ID (0 on failure). */
+    public long insertDynamicPricePlanNow(PricePlan pp, List<DayRate> drs, PriceSeries series) {
+        return writer.call(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            long id = pricePlanDAO.addNewDynamicPricePlan(pp, drs, series.toChunks(0L));
+            scenarioDAO.markAllScenariosNeedCosting(System.currentTimeMillis());
+            return id;
+        });
+    }
+
+    /** The unit-rate series of a dynamic plan, or null for a plan with only day rates. */
+    public PriceSeries getPriceSeries(long pricePlanID) {
+        List<DynamicRateChunk> chunks = pricePlanDAO.getDynamicRates(pricePlanID);
+        return chunks.isEmpty() ? null : PriceSeries.fromChunks(chunks);
+    }
+
+    /** Store a refreshed series for a dynamic plan; its scenario costings are recomputed. */
+    public void replacePriceSeriesNow(long pricePlanID, PriceSeries series) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            pricePlanDAO.replaceDynamicRates(pricePlanID, series.toChunks(pricePlanID));
+            costingDAO.deleteRelatedCostings((int) pricePlanID);
+            scenarioDAO.markAllScenariosNeedCosting(System.currentTimeMillis());
+        });
+    }
+
     public void deletePricePlan(Integer id) {
         ToutcDB.databaseWriteExecutor.execute(() -> {
             pricePlanDAO.deletePricePlan(id);
+            costingDAO.pruneSourceDayCosts();
+            costingDAO.pruneSourceDayBands();
 //            System.out.println("Size after delete = " + allPricePlans.getValue().entrySet().size());
         });
     }
@@ -217,7 +297,8 @@ public class ToutcRepository {
     }
 
     public long insertScenarioAndReturnID(ScenarioComponents sc, boolean clobber) {
-        return scenarioDAO.addNewScenarioWithComponents(sc.scenario, sc, clobber);
+        return writer.call(DBWriteCoordinator.Priority.FOREGROUND,
+                () -> scenarioDAO.addNewScenarioWithComponents(sc.scenario, sc, clobber));
     }
 
 
@@ -240,7 +321,8 @@ public class ToutcRepository {
     }
 
     public long saveLoadProfileAndReturnID(Long scenarioID, LoadProfile loadProfile) {
-        return scenarioDAO.saveLoadProfile(scenarioID, loadProfile);
+        return writer.call(DBWriteCoordinator.Priority.FOREGROUND,
+                () -> scenarioDAO.saveLoadProfile(scenarioID, loadProfile));
     }
 
     // Methods for Worker (LoadProfileData)
@@ -249,7 +331,7 @@ public class ToutcRepository {
     }
 
     public void deleteLoadProfileData(long id) {
-        scenarioDAO.deleteLoadProfileData(id);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.deleteLoadProfileData(id));
     }
 
     public LoadProfile getLoadProfileWithLoadProfileID(long mLoadProfileID) {
@@ -257,27 +339,35 @@ public class ToutcRepository {
     }
 
     public void createLoadProfileDataEntries(ArrayList<LoadProfileData> rows) {
-        scenarioDAO.createLoadProfileDataEntries(rows);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.createLoadProfileDataEntries(rows));
     }
 
     public void deleteSimulationDataForProfileID(long loadProfileID) {
-        scenarioDAO.deleteSimulationDataForProfileID(loadProfileID);
-        scenarioDAO.markProfileScenariosNeedSim(loadProfileID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            scenarioDAO.deleteSimulationDataForProfileID(loadProfileID);
+            scenarioDAO.markProfileScenariosNeedSim(loadProfileID, System.currentTimeMillis());
+        });
     }
 
     public void deleteCostingDataForProfileID(long loadProfileID) {
-        scenarioDAO.deleteCostingDataForProfileID(loadProfileID);
-        scenarioDAO.markProfileScenariosNeedCosting(loadProfileID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            scenarioDAO.deleteCostingDataForProfileID(loadProfileID);
+            scenarioDAO.markProfileScenariosNeedCosting(loadProfileID, System.currentTimeMillis());
+        });
     }
 
     public void deleteSimulationDataForPanelID(long panelID) {
-        scenarioDAO.deleteSimulationDataForPanelID(panelID);
-        scenarioDAO.markPanelScenarioNeedsSim(panelID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            scenarioDAO.deleteSimulationDataForPanelID(panelID);
+            scenarioDAO.markPanelScenarioNeedsSim(panelID, System.currentTimeMillis());
+        });
     }
 
     public void deleteCostingDataForPanelID(long panelID) {
-        scenarioDAO.deleteCostingDataForPanelID(panelID);
-        scenarioDAO.markPanelScenarioNeedsCosting(panelID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            scenarioDAO.deleteCostingDataForPanelID(panelID);
+            scenarioDAO.markPanelScenarioNeedsCosting(panelID, System.currentTimeMillis());
+        });
     }
 
     public List<Long> getAllScenariosThatNeedSimulation() {
@@ -296,27 +386,27 @@ public class ToutcRepository {
 
     /** Simulation succeeded for a scenario → up-to-date; costing now stale. */
     public void markSimulated(long scenarioID) {
-        scenarioDAO.markSimulated(scenarioID);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.markSimulated(scenarioID));
     }
 
     /** Simulation can't run yet (record the blocked reason so the gate skips it). */
     public void markSimBlocked(long scenarioID, int blockedStatus) {
-        scenarioDAO.markSimBlocked(scenarioID, blockedStatus);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.markSimBlocked(scenarioID, blockedStatus));
     }
 
     /** All (scenario × plan) costings present → costing up-to-date. */
     public void markCosted(long scenarioID) {
-        scenarioDAO.markCosted(scenarioID);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.markCosted(scenarioID));
     }
 
     /** Self-heal: panel data for this panel landed → unblock its scenario if it was blocked on panel data. */
     public void unblockPanelScenarios(long panelID) {
-        scenarioDAO.unblockPanelScenarios(panelID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.unblockPanelScenarios(panelID, System.currentTimeMillis()));
     }
 
     /** Self-heal: CDS weather for this scenario landed → unblock it if it was blocked on weather. */
     public void unblockWeatherScenario(long scenarioID) {
-        scenarioDAO.unblockWeatherScenario(scenarioID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.unblockWeatherScenario(scenarioID, System.currentTimeMillis()));
     }
 
     public Scenario getScenarioForID(long scenarioID) {
@@ -327,8 +417,54 @@ public class ToutcRepository {
         return scenarioDAO.getScenarioComponentsForScenarioID(scenarioID);
     }
 
+    // Every component linked to a scenario, by table (see the Directors tab)
+
+    public List<Panel> getAllLinkedPanels() {
+        return scenarioDAO.getAllLinkedPanels();
+    }
+
+    public List<Battery> getAllLinkedBatteries() {
+        return scenarioDAO.getAllLinkedBatteries();
+    }
+
+    public List<LoadShift> getAllLinkedLoadShifts() {
+        return scenarioDAO.getAllLinkedLoadShifts();
+    }
+
+    public List<DischargeToGrid> getAllLinkedDischarges() {
+        return scenarioDAO.getAllLinkedDischarges();
+    }
+
+    public List<Inverter> getAllLinkedInverters() {
+        return scenarioDAO.getAllLinkedInverters();
+    }
+
+    public List<EVCharge> getAllLinkedEVCharges() {
+        return scenarioDAO.getAllLinkedEVCharges();
+    }
+
+    public List<EVDivert> getAllLinkedEVDiverts() {
+        return scenarioDAO.getAllLinkedEVDiverts();
+    }
+
+    public List<HWSystem> getAllLinkedHWSystems() {
+        return scenarioDAO.getAllLinkedHWSystems();
+    }
+
+    public List<HWSchedule> getAllLinkedHWSchedules() {
+        return scenarioDAO.getAllLinkedHWSchedules();
+    }
+
+    public List<LoadProfile> getAllLinkedLoadProfiles() {
+        return scenarioDAO.getAllLinkedLoadProfiles();
+    }
+
+    public List<HeatPump> getAllLinkedHeatPumps() {
+        return scenarioDAO.getAllLinkedHeatPumps();
+    }
+
     public void saveSimulationDataForScenario(ArrayList<ScenarioSimulationData> simulationData) {
-        scenarioDAO.saveSimulationDataForScenario(simulationData);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.saveSimulationDataForScenario(simulationData));
     }
 
     public List<Long> getAllScenariosThatMayNeedCosting() {
@@ -344,7 +480,30 @@ public class ToutcRepository {
     }
 
     public void saveCosting(Costings costing) {
-        costingDAO.saveCosting(costing);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> costingDAO.saveCosting(costing));
+    }
+
+    public void saveCostings(List<Costings> costings) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> costingDAO.saveCostings(costings));
+    }
+
+    /** Save costings with their per-day costs and bands, in one transaction. */
+    public void saveCostings(List<Costings> costings, List<ScenarioDayCost> days, List<ScenarioDayBand> bands) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> costingDAO.saveCostings(costings, days, bands));
+    }
+
+    /** Save per-day costs and bands for costings that are already kept. */
+    public void saveScenarioDays(List<ScenarioDayCost> days, List<ScenarioDayBand> bands) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> costingDAO.saveScenarioDays(days, bands));
+    }
+
+    /** Exact cost per costed plan over simulated days [fromDay, toDay] (days of 2001). */
+    public List<ScenarioPlanTotal> getScenarioPlanTotals(long scenarioID, int fromDay, int toDay) {
+        return costingDAO.getScenarioPlanTotals(scenarioID, fromDay, toDay);
+    }
+
+    public List<ScenarioPlanBand> getScenarioPlanBands(long scenarioID, int fromDay, int toDay) {
+        return costingDAO.getScenarioPlanBands(scenarioID, fromDay, toDay);
     }
 
     public LiveData<List<Costings>> getAllCostings() {
@@ -409,6 +568,21 @@ public class ToutcRepository {
         return costingDAO.getBestCostingForScenario(scenarioID);
     }
 
+    /** The best costing so far, updated as each wave of plans is saved. */
+    public LiveData<Costings> getLiveBestCostingForScenario(long scenarioID) {
+        return costingDAO.loadBestCostingForScenario(scenarioID);
+    }
+
+    /** True once the scenario is simulated and costed against every plan. */
+    public LiveData<Boolean> getLiveCostingComplete(long scenarioID) {
+        return scenarioDAO.loadCostingComplete(scenarioID);
+    }
+
+    /** The scenario's simulation readiness, e.g. blocked waiting for panel data or weather. */
+    public LiveData<Integer> getLiveSimStatus(long scenarioID) {
+        return scenarioDAO.loadSimStatus(scenarioID);
+    }
+
     public List<Costings> getAllCostingsForScenario(Long scenarioID) {
         return costingDAO.getAllCostingsForScenario(scenarioID);
     }
@@ -418,11 +592,13 @@ public class ToutcRepository {
     }
 
     public long saveInverter(Long scenarioID, Inverter inverter) {
-        return scenarioDAO.saveInverter(scenarioID, inverter);
+        return writer.call(DBWriteCoordinator.Priority.FOREGROUND,
+                () -> scenarioDAO.saveInverter(scenarioID, inverter));
     }
 
     public void deleteInverterFromScenario(Long inverterID, Long scenarioID) {
-        scenarioDAO.deleteInverterFromScenario(inverterID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteInverterFromScenario(inverterID, scenarioID));
     }
 
     public void copyInverterFromScenario(long fromScenarioID, Long toScenarioID) {
@@ -448,17 +624,20 @@ public class ToutcRepository {
     }
 
     public void deletePanelFromScenario(Long panelID, Long scenarioID) {
-        scenarioDAO.deletePanelFromScenario(panelID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deletePanelFromScenario(panelID, scenarioID));
     }
 
     public long savePanel(Long scenarioID, Panel panel) {
-        return scenarioDAO.savePanel(scenarioID, panel);
+        return writer.call(DBWriteCoordinator.Priority.FOREGROUND,
+                () -> scenarioDAO.savePanel(scenarioID, panel));
     }
 
     /** Clone the generated time-series of one panel onto another (used by the wizard's COPY path so a copied
      *  scenario keeps its PV data instead of re-fetching or losing it). Synchronous, mirroring savePanel. */
     public void copyPanelData(long fromPanelID, long toPanelID) {
-        scenarioDAO.copyPanelData(fromPanelID, toPanelID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.copyPanelData(fromPanelID, toPanelID));
     }
 
     public void copyPanelFromScenario(long fromScenarioID, Long toScenarioID) {
@@ -488,14 +667,16 @@ public class ToutcRepository {
     }
 
     public void savePanelData(ArrayList<PanelData> panelDataList) {
-        scenarioDAO.savePanelData(panelDataList);
-        // Panel data landed → unblock any scenario that was waiting on this panel's data (self-heal).
-        // Centralised here so every panel-data writer (PVGIS direct/legacy, source PV, importer) benefits
-        // without knowing about readiness. A no-op for scenarios that weren't blocked on panel data.
-        java.util.Set<Long> panelIds = new java.util.HashSet<>();
-        for (PanelData row : panelDataList) panelIds.add(row.getPanelID());
-        long now = System.currentTimeMillis();
-        for (Long panelID : panelIds) scenarioDAO.unblockPanelScenarios(panelID, now);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            scenarioDAO.savePanelData(panelDataList);
+            // Panel data landed → unblock any scenario that was waiting on this panel's data (self-heal).
+            // Centralised here so every panel-data writer (PVGIS direct/legacy, source PV, importer) benefits
+            // without knowing about readiness. A no-op for scenarios that weren't blocked on panel data.
+            java.util.Set<Long> panelIds = new java.util.HashSet<>();
+            for (PanelData row : panelDataList) panelIds.add(row.getPanelID());
+            long now = System.currentTimeMillis();
+            for (Long panelID : panelIds) scenarioDAO.unblockPanelScenarios(panelID, now);
+        });
     }
 
     public LiveData<List<PanelPVSummary>> getPanelDataSummary() {
@@ -512,7 +693,7 @@ public class ToutcRepository {
     }
 
     public void updatePanel(Panel panel) {
-        scenarioDAO.updatePanel(panel);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> scenarioDAO.updatePanel(panel));
     }
 
     public boolean checkForMissingPanelData(Long scenarioID) {
@@ -528,20 +709,40 @@ public class ToutcRepository {
     }
 
     public void pruneCostings() {
-        ToutcDB.databaseWriteExecutor.execute(costingDAO::pruneCostings);
+        ToutcDB.databaseWriteExecutor.execute(() -> {
+            costingDAO.pruneCostings();
+            costingDAO.pruneScenarioDayCosts();
+            costingDAO.pruneScenarioDayBands();
+        });
     }
 
     public boolean costingExists(long scenarioID, long pricePlanIndex) {
         return costingDAO.costingExists(scenarioID, pricePlanIndex);
     }
 
+    public List<Long> getCostedPlanIDs(long scenarioID) {
+        return costingDAO.getCostedPlanIDs(scenarioID);
+    }
+
+    public List<Long> getPlanIDsWithoutDays(long scenarioID) {
+        return costingDAO.getPlanIDsWithoutDays(scenarioID);
+    }
+
     public void removeOldPanelData(Long panelID) {
         ToutcDB.databaseWriteExecutor.execute(() ->
             scenarioDAO.removePanelData(panelID));
     }
 
+    /**
+     * The scenario's load on the 2001 grid. Profiles with stored rows (imported / absolute-year) are read;
+     * a distribution-only profile has none and is computed on read ({@link VirtualLoadProfile}).
+     */
     public List<SimulationInputData> getSimulationInputNoSolar(long scenarioID) {
-        return scenarioDAO.getSimulationInputNoSolar(scenarioID);
+        List<SimulationInputData> rows = scenarioDAO.getSimulationInputNoSolar(scenarioID);
+        if (!rows.isEmpty()) return rows;
+        LoadProfile loadProfile = scenarioDAO.getLoadProfileForScenarioID(scenarioID);
+        if (null == loadProfile) return rows;
+        return VirtualLoadProfile.simulationInput(VirtualLoadProfile.loadSeries(loadProfile));
     }
 
     public List<SimulationInputData> getPVRowsForPanel(long panelID) {
@@ -578,31 +779,35 @@ public class ToutcRepository {
     }
 
     public void deleteBatteryFromScenario(Long batteryID, Long scenarioID) {
-        scenarioDAO.deleteBatteryFromScenario(batteryID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteBatteryFromScenario(batteryID, scenarioID));
     }
 
     /** Remove component rows no longer referenced by any scenario — left behind whenever an edit-save
      *  deletes-and-reinserts a scenario's components (battery, inverter, schedules, etc.). Reuses the same
      *  per-type DAO cleanup queries that {@code deleteScenario} already runs, so orphans don't accumulate. */
     public void deleteOrphanComponents() {
-        scenarioDAO.deleteOrphanBatteries();
-        scenarioDAO.deleteOrphanInverters();
-        scenarioDAO.deleteOrphanLoadShifts();
-        scenarioDAO.deleteOrphanDischarges();
-        scenarioDAO.deleteOrphanEVCharges();
-        scenarioDAO.deleteOrphanEVDiverts();
-        scenarioDAO.deleteOrphanHWSchedules();
-        scenarioDAO.deleteOrphanHWSystems();
-        scenarioDAO.deleteOrphanHWDiverts();
-        scenarioDAO.deleteOrphanLoadProfiles();
-        scenarioDAO.deleteOrphanLoadProfileData();
-        scenarioDAO.deleteOrphanPanels();
-        scenarioDAO.deleteOrphanPanelData();
-        scenarioDAO.deleteOrphanHeatPumps();
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () -> {
+            scenarioDAO.deleteOrphanBatteries();
+            scenarioDAO.deleteOrphanInverters();
+            scenarioDAO.deleteOrphanLoadShifts();
+            scenarioDAO.deleteOrphanDischarges();
+            scenarioDAO.deleteOrphanEVCharges();
+            scenarioDAO.deleteOrphanEVDiverts();
+            scenarioDAO.deleteOrphanHWSchedules();
+            scenarioDAO.deleteOrphanHWSystems();
+            scenarioDAO.deleteOrphanHWDiverts();
+            scenarioDAO.deleteOrphanLoadProfiles();
+            scenarioDAO.deleteOrphanLoadProfileData();
+            scenarioDAO.deleteOrphanPanels();
+            scenarioDAO.deleteOrphanPanelData();
+            scenarioDAO.deleteOrphanHeatPumps();
+        });
     }
 
     public void saveBatteryForScenario(Long scenarioID, Battery battery) {
-        scenarioDAO.saveBatteryForScenario(scenarioID, battery);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveBatteryForScenario(scenarioID, battery));
     }
 
     public List<String> getLinkedBatteries(long batteryIndex, Long scenarioID) {
@@ -620,11 +825,13 @@ public class ToutcRepository {
     }
 
     public void deleteHeatPumpFromScenario(Long heatPumpID, Long scenarioID) {
-        scenarioDAO.deleteHeatPumpFromScenario(heatPumpID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteHeatPumpFromScenario(heatPumpID, scenarioID));
     }
 
     public void saveHeatPumpForScenario(Long scenarioID, HeatPump heatPump) {
-        scenarioDAO.saveHeatPumpForScenario(scenarioID, heatPump);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveHeatPumpForScenario(scenarioID, heatPump));
     }
 
     public List<String> getLinkedHeatPumps(long heatPumpIndex, Long scenarioID) {
@@ -650,11 +857,13 @@ public class ToutcRepository {
     }
 
     public void deleteLoadShiftFromScenario(Long loadShiftID, Long scenarioID) {
-        scenarioDAO.deleteLoadShiftFromScenario(loadShiftID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteLoadShiftFromScenario(loadShiftID, scenarioID));
     }
 
     public void saveLoadShiftForScenario(Long scenarioID, LoadShift loadShift) {
-        scenarioDAO.saveLoadShiftForScenario(scenarioID, loadShift);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveLoadShiftForScenario(scenarioID, loadShift));
     }
 
     public List<String> getLinkedLoadShifts(long loadShiftIndex, Long scenarioID) {
@@ -672,14 +881,18 @@ public class ToutcRepository {
     }
 
     public void deleteSimulationDataForScenarioID(Long scenarioID) {
-        scenarioDAO.deleteSimulationDataForScenarioID(scenarioID);
-        // Sim output gone → scenario needs re-sim (and therefore re-costing).
-        scenarioDAO.markScenarioNeedsSim(scenarioID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () -> {
+            scenarioDAO.deleteSimulationDataForScenarioID(scenarioID);
+            // Sim output gone → scenario needs re-sim (and therefore re-costing).
+            scenarioDAO.markScenarioNeedsSim(scenarioID, System.currentTimeMillis());
+        });
     }
 
     public void deleteCostingDataForScenarioID(Long scenarioID) {
-        scenarioDAO.deleteCostingDataForScenarioID(scenarioID);
-        scenarioDAO.markScenarioNeedsCosting(scenarioID, System.currentTimeMillis());
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () -> {
+            scenarioDAO.deleteCostingDataForScenarioID(scenarioID);
+            scenarioDAO.markScenarioNeedsCosting(scenarioID, System.currentTimeMillis());
+        });
     }
 
     public List<ScenarioBarChartData> getBarData(Long scenarioID, int dayOfYear) {
@@ -707,7 +920,8 @@ public class ToutcRepository {
     }
 
     public void saveHWSystemForScenario(Long scenarioID, HWSystem hwSystem) {
-        scenarioDAO.saveHWSystemForScenario(scenarioID, hwSystem);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveHWSystemForScenario(scenarioID, hwSystem));
     }
 
     public void linkHWSystemFromScenario(long fromScenarioID, Long toScenarioID) {
@@ -753,11 +967,13 @@ public class ToutcRepository {
     }
 
     public void deleteHWScheduleFromScenario(Long hwScheduleID, Long scenarioID) {
-        scenarioDAO.deleteHWScheduleFromScenario(hwScheduleID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteHWScheduleFromScenario(hwScheduleID, scenarioID));
     }
 
     public void saveHWScheduleForScenario(Long scenarioID, HWSchedule hwSchedule) {
-        scenarioDAO.saveHWScheduleForScenario(scenarioID, hwSchedule);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveHWScheduleForScenario(scenarioID, hwSchedule));
     }
 
     public void copyHWScheduleFromScenario(long fromScenarioID, Long toScenarioID) {
@@ -783,11 +999,13 @@ public class ToutcRepository {
     }
 
     public void deleteEVChargeFromScenario(Long evChargeID, Long scenarioID) {
-        scenarioDAO.deleteEVChargeFromScenario(evChargeID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteEVChargeFromScenario(evChargeID, scenarioID));
     }
 
     public void saveEVChargeForScenario(Long scenarioID, EVCharge evCharge) {
-        scenarioDAO.saveEVChargeForScenario(scenarioID, evCharge);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveEVChargeForScenario(scenarioID, evCharge));
     }
 
     public void copyEVChargeFromScenario(long fromScenarioID, Long toScenarioID) {
@@ -808,16 +1026,26 @@ public class ToutcRepository {
         return evDivertRelations;
     }
 
+    public LiveData<List<Scenario2LoadProfile>> getAllLoadProfileRelations() {
+        return loadProfileRelations;
+    }
+
+    public LiveData<List<Scenario2HeatPump>> getAllHeatPumpRelations() {
+        return heatPumpRelations;
+    }
+
     public List<EVDivert> getEVDivertsForScenario(Long scenarioID) {
         return scenarioDAO.getEVDivertForScenarioID(scenarioID);
     }
 
     public void deleteEVDivertFromScenario(Long evDivertID, Long scenarioID) {
-        scenarioDAO.deleteEVDivertFromScenario(evDivertID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteEVDivertFromScenario(evDivertID, scenarioID));
     }
 
     public void saveEVDivertForScenario(Long scenarioID, EVDivert evDivert) {
-        scenarioDAO.saveEVDivertForScenario(scenarioID, evDivert);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveEVDivertForScenario(scenarioID, evDivert));
     }
 
     public void copyEVDivertFromScenario(long fromScenarioID, Long toScenarioID) {
@@ -852,20 +1080,27 @@ public class ToutcRepository {
     }
 
     public void addRawEnergy(AlphaESSRawEnergy energy) {
-        alphaEssDAO.addRawEnergy(energy);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> alphaEssDAO.addRawEnergy(energy));
     }
 
     public void addTransformedData(List<AlphaESSTransformedData> data){
-        alphaEssDAO.addTransformedData(data);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> alphaEssDAO.addTransformedData(data));
+    }
+
+    public void mergeGridReadings(List<AlphaESSTransformedData> buyRows, List<AlphaESSTransformedData> feedRows) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> alphaEssDAO.mergeGridReadings(buyRows, feedRows));
     }
 
     public void addRawPower(List<AlphaESSRawPower> powerEntityList) {
-        alphaEssDAO.addRawPower(powerEntityList);
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND, () -> alphaEssDAO.addRawPower(powerEntityList));
     }
 
     public void clearAlphaESSDataForSN(String systemSN) {
-        ToutcDB.databaseWriteExecutor.execute(() ->
-                alphaEssDAO.clearAlphaESSDataForSN(systemSN));
+        ToutcDB.databaseWriteExecutor.execute(() -> {
+            alphaEssDAO.clearAlphaESSDataForSN(systemSN);
+            costingDAO.deleteSourceDayCostsForSysSn(systemSN);
+            costingDAO.deleteSourceDayBandsForSysSn(systemSN);
+        });
     }
 
     public void deleteInverterDatesBySN(String sysSN, LocalDateTime selectedStart, LocalDateTime selectedEnd) {
@@ -925,6 +1160,38 @@ public class ToutcRepository {
         return alphaEssDAO.getSelectedAlphaESSData(serialNumber, from, to);
     }
 
+    public List<SourceDaySignature> getSourceDaySignatures(String sysSn, String from, String to) {
+        return costingDAO.getSourceDaySignatures(sysSn, from, to);
+    }
+
+    public List<SourcePlanTotal> getSourcePlanTotals(String sysSn, String from, String to) {
+        return costingDAO.getSourcePlanTotals(sysSn, from, to);
+    }
+
+    public List<SourceCostBucket> getSourceCostBuckets(String sysSn, String from, String to, int keyLength) {
+        return costingDAO.getSourceCostBuckets(sysSn, from, to, keyLength);
+    }
+
+    public List<SourcePlanBand> getSourcePlanBands(String sysSn, String from, String to) {
+        return costingDAO.getSourcePlanBands(sysSn, from, to);
+    }
+
+    public List<String> getCurrentSourceDates(String sysSn, String from, String to, long pricePlanID, long planHash) {
+        return costingDAO.getCurrentSourceDates(sysSn, from, to, pricePlanID, planHash);
+    }
+
+    public void replaceSourceDayCosts(String sysSn, long pricePlanID, String from, String to,
+                                      List<SourceDayCost> costs, List<SourceDayBand> bands) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND,
+                () -> costingDAO.replaceSourceDayCosts(sysSn, pricePlanID, from, to, costs, bands));
+    }
+
+    public void patchSourceDayCosts(String sysSn, long pricePlanID, List<String> dates,
+                                    List<SourceDayCost> costs, List<SourceDayBand> bands) {
+        writer.run(DBWriteCoordinator.Priority.BACKGROUND,
+                () -> costingDAO.patchSourceDayCosts(sysSn, pricePlanID, dates, costs, bands));
+    }
+
     public List<AlphaESSRawPower> getAlphaESSPowerForSharing(String serialNumber, String from) {
         return alphaEssDAO.getAlphaESSPowerForSharing(serialNumber, from);
     }
@@ -956,6 +1223,10 @@ public class ToutcRepository {
         return alphaEssDAO.getAlphaESSTransformedData(systemSN, from, to);
     }
 
+    public List<AlphaESSTransformedData> getAlphaESSTransformedDataBetween(String systemSN, long fromMillis, long toMillis) {
+        return alphaEssDAO.getAlphaESSTransformedDataBetween(systemSN, fromMillis, toMillis);
+    }
+
     public Double getBaseLoad(String systemSN, String from, String to) {
         return alphaEssDAO.getBaseLoad(systemSN, from, to);
     }
@@ -1047,7 +1318,8 @@ public class ToutcRepository {
     }
 
     public void saveDischargeForScenario(Long scenarioID, DischargeToGrid discharge) {
-        scenarioDAO.saveDischargeForScenario(scenarioID, discharge);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.saveDischargeForScenario(scenarioID, discharge));
     }
 
     public LiveData<List<Scenario2DischargeToGrid>> getAllDischargeRelations() {
@@ -1059,7 +1331,8 @@ public class ToutcRepository {
     }
 
     public void deleteDischargeFromScenario(Long dischargeID, Long scenarioID) {
-        scenarioDAO.deleteDischargeFromScenario(dischargeID, scenarioID);
+        writer.run(DBWriteCoordinator.Priority.FOREGROUND, () ->
+                scenarioDAO.deleteDischargeFromScenario(dischargeID, scenarioID));
     }
 
     public List<String> getLinkedDischarges(long d2gIndex, Long scenarioID) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.costings;
+
+import androidx.room.Entity;
+
+/**
+ * Units (kWh) bought at each price on one {@link ScenarioDayCost} day, so the rate-band split
+ * (SubTotals) of a period is a grouped SUM as well. Written and replaced with the day rows.
+ */
+@Entity(tableName = "scenariodayband", primaryKeys = {"scenarioID", "pricePlanID", "dayOf2001", "price"})
+public class ScenarioDayBand {
+
+    private long scenarioID;
+    private long pricePlanID;
+    private int dayOf2001;
+    private double price;
+    private double units;
+
+    public ScenarioDayBand() {}
+
+    public ScenarioDayBand(long scenarioID, long pricePlanID, int dayOf2001, double price, double units) {
+        this.scenarioID = scenarioID;
+        this.pricePlanID = pricePlanID;
+        this.dayOf2001 = dayOf2001;
+        this.price = price;
+        this.units = units;
+    }
+
+    public long getScenarioID() {
+        return scenarioID;
+    }
+
+    public void setScenarioID(long scenarioID) {
+        this.scenarioID = scenarioID;
+    }
+
+    public long getPricePlanID() {
+        return pricePlanID;
+    }
+
+    public void setPricePlanID(long pricePlanID) {
+        this.pricePlanID = pricePlanID;
+    }
+
+    public int getDayOf2001() {
+        return dayOf2001;
+    }
+
+    public void setDayOf2001(int dayOf2001) {
+        this.dayOf2001 = dayOf2001;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public double getUnits() {
+        return units;
+    }
+
+    public void setUnits(double units) {
+        this.units = units;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.costings;
+
+import androidx.room.Entity;
+
+/**
+ * One simulated day of a scenario priced against one plan, written by the CostingWorker with
+ * the scenario's {@link Costings} row. The dashboard's per-period scenario tariff view sums
+ * these, so any period is costed exactly from the interval-level pricing without re-reading
+ * the simulation. Rows only count while their scenario × plan still has a costing; a re-run
+ * simulation or an edited plan drops the costing and the next costing pass rewrites the days.
+ * Buy and sell are in cents; standing charges and bonuses stay with the plan.
+ */
+@Entity(tableName = "scenariodaycost", primaryKeys = {"scenarioID", "pricePlanID", "dayOf2001"})
+public class ScenarioDayCost {
+
+    private long scenarioID;
+    private long pricePlanID;
+    private int dayOf2001;
+    private double buy;
+    private double sell;
+
+    public ScenarioDayCost() {}
+
+    public ScenarioDayCost(long scenarioID, long pricePlanID, int dayOf2001, double buy, double sell) {
+        this.scenarioID = scenarioID;
+        this.pricePlanID = pricePlanID;
+        this.dayOf2001 = dayOf2001;
+        this.buy = buy;
+        this.sell = sell;
+    }
+
+    public long getScenarioID() {
+        return scenarioID;
+    }
+
+    public void setScenarioID(long scenarioID) {
+        this.scenarioID = scenarioID;
+    }
+
+    public long getPricePlanID() {
+        return pricePlanID;
+    }
+
+    public void setPricePlanID(long pricePlanID) {
+        this.pricePlanID = pricePlanID;
+    }
+
+    public int getDayOf2001() {
+        return dayOf2001;
+    }
+
+    public void setDayOf2001(int dayOf2001) {
+        this.dayOf2001 = dayOf2001;
+    }
+
+    public double getBuy() {
+        return buy;
+    }
+
+    public void setBuy(double buy) {
+        this.buy = buy;
+    }
+
+    public double getSell() {
+        return sell;
+    }
+
+    public void setSell(double sell) {
+        this.sell = sell;
+    }
+}
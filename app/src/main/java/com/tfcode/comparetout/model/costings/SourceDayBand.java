@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.costings;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * Units (kWh) bought at each price on one cached source day ({@link SourceDayCost}), so the
+ * rate-band split (SubTotals) of a range is a grouped SUM as well. Written and replaced
+ * together with the day's cost row.
+ */
+@Entity(tableName = "sourcedayband", primaryKeys = {"sysSn", "pricePlanID", "date", "price"})
+public class SourceDayBand {
+
+    @NonNull
+    private String sysSn = "";
+    private long pricePlanID;
+    @NonNull
+    private String date = "";
+    private double price;
+    private double units;
+
+    public SourceDayBand() {}
+
+    public SourceDayBand(@NonNull String sysSn, long pricePlanID, @NonNull String date, double price, double units) {
+        this.sysSn = sysSn;
+        this.pricePlanID = pricePlanID;
+        this.date = date;
+        this.price = price;
+        this.units = units;
+    }
+
+    @NonNull
+    public String getSysSn() {
+        return sysSn;
+    }
+
+    public void setSysSn(@NonNull String sysSn) {
+        this.sysSn = sysSn;
+    }
+
+    public long getPricePlanID() {
+        return pricePlanID;
+    }
+
+    public void setPricePlanID(long pricePlanID) {
+        this.pricePlanID = pricePlanID;
+    }
+
+    @NonNull
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(@NonNull String date) {
+        this.date = date;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public double getUnits() {
+        return units;
+    }
+
+    public void setUnits(double units) {
+        this.units = units;
+    }
+}
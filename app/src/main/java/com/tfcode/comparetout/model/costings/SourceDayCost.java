@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.costings;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * One day of an imported data source priced against one plan: the persisted, incremental
+ * cost cache behind the data-source costings (UI2 compare and dashboard).
+ * <p>
+ * A row is only used while it still describes the same inputs: {@code planHash} must match
+ * the plan's current rates and the day signature ({@code intervals}, {@code buyKWh},
+ * {@code feedKWh}, {@code buyByHour}) must match what the source holds for that day now.
+ * A day appended by a daily or catch-up import therefore has no row and is priced on its own,
+ * a re-imported day no longer matches and is re-priced, and editing a plan re-prices that
+ * plan alone. Buy and sell are in cents; standing charges and bonuses stay with the plan.
+ * Tiered (restricted) plans depend on usage across days and are not cached.
+ */
+@Entity(tableName = "sourcedaycost", primaryKeys = {"sysSn", "pricePlanID", "date"})
+public class SourceDayCost {
+
+    @NonNull
+    private String sysSn = "";
+    private long pricePlanID;
+    @NonNull
+    private String date = "";
+    private long planHash;
+    private int intervals; // transformed rows held for the day
+    private double buyKWh;
+    private double feedKWh;
+    private double buyByHour; // buy weighted by (hour + 1), so a shift within the day shows
+    private double buy;
+    private double sell;
+
+    @NonNull
+    public String getSysSn() {
+        return sysSn;
+    }
+
+    public void setSysSn(@NonNull String sysSn) {
+        this.sysSn = sysSn;
+    }
+
+    public long getPricePlanID() {
+        return pricePlanID;
+    }
+
+    public void setPricePlanID(long pricePlanID) {
+        this.pricePlanID = pricePlanID;
+    }
+
+    @NonNull
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(@NonNull String date) {
+        this.date = date;
+    }
+
+    public long getPlanHash() {
+        return planHash;
+    }
+
+    public void setPlanHash(long planHash) {
+        this.planHash = planHash;
+    }
+
+    public int getIntervals() {
+        return intervals;
+    }
+
+    public void setIntervals(int intervals) {
+        this.intervals = intervals;
+    }
+
+    public double getBuyKWh() {
+        return buyKWh;
+    }
+
+    public void setBuyKWh(double buyKWh) {
+        this.buyKWh = buyKWh;
+    }
+
+    public double getFeedKWh() {
+        return feedKWh;
+    }
+
+    public void setFeedKWh(double feedKWh) {
+        this.feedKWh = feedKWh;
+    }
+
+    public double getBuyByHour() {
+        return buyByHour;
+    }
+
+    public void setBuyByHour(double buyByHour) {
+        this.buyByHour = buyByHour;
+    }
+
+    public double getBuy() {
+        return buy;
+    }
+
+    public void setBuy(double buy) {
+        this.buy = buy;
+    }
+
+    public double getSell() {
+        return sell;
+    }
+
+    public void setSell(double sell) {
+        this.sell = sell;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.costings;
+
+import androidx.room.ColumnInfo;
+
+/** What an imported source holds for one day, compared against {@link SourceDayCost} rows. */
+public class SourceDaySignature {
+
+    @ColumnInfo(name = "date") public String date;
+    @ColumnInfo(name = "intervals") public int intervals;
+    @ColumnInfo(name = "buyKWh") public double buyKWh;
+    @ColumnInfo(name = "feedKWh") public double feedKWh;
+    @ColumnInfo(name = "buyByHour") public double buyByHour;
+}
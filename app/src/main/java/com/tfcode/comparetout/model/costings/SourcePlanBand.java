@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.costings;
+
+import androidx.room.ColumnInfo;
+
+/** Units bought at one price over a cached source range, for one plan. */
+public class SourcePlanBand {
+
+    @ColumnInfo(name = "pricePlanID") public long pricePlanID;
+    @ColumnInfo(name = "price") public double price;
+    @ColumnInfo(name = "units") public double units;
+}
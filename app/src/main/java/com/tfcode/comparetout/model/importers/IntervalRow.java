@@ -61,4 +61,33 @@ public class IntervalRow {
     @ColumnInfo(name= "HEATPUMPWIND") public double heatPumpWindSpeed = 0.0;
 
     @ColumnInfo(name= "INTERVAL") public String interval = "";
+
+    /** Add another row's summed flows into this one; the averaged heat pump drivers are left alone. */
+    public void add(IntervalRow other) {
+        pv += other.pv;
+        load += other.load;
+        feed += other.feed;
+        buy += other.buy;
+        pv2bat += other.pv2bat;
+        pv2load += other.pv2load;
+        bat2load += other.bat2load;
+        grid2bat += other.grid2bat;
+        evSchedule += other.evSchedule;
+        evDivert += other.evDivert;
+        hwSchedule += other.hwSchedule;
+        hwDivert += other.hwDivert;
+        bat2grid += other.bat2grid;
+        batCharge += other.batCharge;
+        batDischarge += other.batDischarge;
+        pv2grid += other.pv2grid;
+        grid2load += other.grid2load;
+        evActual += other.evActual;
+        batChargeIn += other.batChargeIn;
+        batDischargeOut += other.batDischargeOut;
+        hwActual += other.hwActual;
+        hpActual += other.hpActual;
+        heatPump += other.heatPump;
+        heatPumpBackup += other.heatPumpBackup;
+        heatPumpHeat += other.heatPumpHeat;
+    }
 }
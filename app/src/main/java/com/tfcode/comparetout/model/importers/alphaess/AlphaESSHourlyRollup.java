@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.tfcode.comparetout.model.importers.alphaess;
+
+import androidx.room.Entity;
+
+/** One hour of one source's imported data; see {@link AlphaESSRollup}. */
+@Entity(tableName = "alphaESSHourly", primaryKeys = {"sysSn", "date", "hour"})
+public class AlphaESSHourlyRollup extends AlphaESSRollup {
+
+    private int hour; // 0-23, local wall clock
+
+    public int getHour() { return hour; }
+    public void setHour(int hour) { this.hour = hour; }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package com.tfcode.comparetout.model.importers.alphaess;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Columns shared by the hourly and daily rollups of {@code alphaESSTransformedData}: the
+ * wall-clock buckets of the period and the energy flows summed over it. The aggregate
+ * queries behind the graphs, key stats and dashboard read these instead of the 5-minute
+ * rows, so a year of a source is ~8.8k hourly or 365 daily rows rather than ~105k.
+ * <p>
+ * Rollups are derived data. AlphaEssDAO re-aggregates the days a write touches in the
+ * same transaction, and {@link #REBUILD_SQL} rebuilds them from scratch after bulk raw
+ * edits (migration, snapshot import, timezone re-stamp). {@code batCharge} and
+ * {@code batDischarge} are the positive and (absolute) negative parts of {@code charge}.
+ */
+public abstract class AlphaESSRollup {
+
+    private static final String COLUMNS = "dayKey, doy, dow, monthKey, year, intervals, pv, load, feed, buy, " +
+            "pv2bat, pv2load, bat2load, grid2bat, pv2grid, grid2load, evActual, hwActual, hpActual, " +
+            "batChargeIn, batDischargeOut, bat2grid, batCharge, batDischarge";
+
+    private static final String FLOW_TOTALS = "TOTAL(pv), TOTAL(load), TOTAL(feed), TOTAL(buy), " +
+            "TOTAL(pv2bat), TOTAL(pv2load), TOTAL(bat2load), TOTAL(grid2bat), TOTAL(pv2grid), TOTAL(grid2load), " +
+            "TOTAL(evActual), TOTAL(hwActual), TOTAL(hpActual), TOTAL(batChargeIn), TOTAL(batDischargeOut), " +
+            "TOTAL(bat2grid), ";
+
+    /** Hourly rows from the 5-minute rows; append a WHERE on alphaESSTransformedData, then {@link #HOURLY_GROUP}. */
+    public static final String HOURLY_INSERT = "INSERT OR REPLACE INTO alphaESSHourly (sysSn, date, hour, " + COLUMNS + ") " +
+            "SELECT sysSn, date, hour, dayKey, doy, dow, monthKey, year, COUNT(*), " + FLOW_TOTALS +
+            "TOTAL(CASE WHEN charge > 0 THEN charge ELSE 0 END), ABS(TOTAL(CASE WHEN charge < 0 THEN charge ELSE 0 END)) " +
+            "FROM alphaESSTransformedData ";
+    public static final String HOURLY_GROUP = " GROUP BY sysSn, date, hour";
+
+    /** Daily rows from the hourly ones; append a WHERE on alphaESSHourly, then {@link #DAILY_GROUP}. */
+    public static final String DAILY_INSERT = "INSERT OR REPLACE INTO alphaESSDaily (sysSn, date, " + COLUMNS + ") " +
+            "SELECT sysSn, date, dayKey, doy, dow, monthKey, year, SUM(intervals), " + FLOW_TOTALS +
+            "TOTAL(batCharge), TOTAL(batDischarge) FROM alphaESSHourly ";
+    public static final String DAILY_GROUP = " GROUP BY sysSn, date";
+
+    /** Statements that rebuild both rollups from alphaESSTransformedData, in order. */
+    public static final String[] REBUILD_SQL = {
+            "DELETE FROM alphaESSHourly",
+            HOURLY_INSERT + HOURLY_GROUP,
+            "DELETE FROM alphaESSDaily",
+            DAILY_INSERT + DAILY_GROUP
+    };
+
+    @NonNull
+    private String sysSn = "";
+    @NonNull
+    private String date = ""; // YYYY-MM-DD
+    private int dayKey;
+    private int doy;
+    private int dow;
+    private int monthKey;
+    private int year;
+    private int intervals; // 5-minute rows summed
+    private double pv;
+    private double load;
+    private double feed;
+    private double buy;
+    private double pv2bat;
+    private double pv2load;
+    private double bat2load;
+    private double grid2bat;
+    private double pv2grid;
+    private double grid2load;
+    private double evActual;
+    private double hwActual;
+    private double hpActual;
+    private double batChargeIn;
+    private double batDischargeOut;
+    private double bat2grid;
+    private double batCharge;
+    private double batDischarge;
+
+    @NonNull
+    public String getSysSn() { return sysSn; }
+    public void setSysSn(@NonNull String sysSn) { this.sysSn = sysSn; }
+
+    @NonNull
+    public String getDate() { return date; }
+    public void setDate(@NonNull String date) { this.date = date; }
+
+    public int getDayKey() { return dayKey; }
+    public void setDayKey(int dayKey) { this.dayKey = dayKey; }
+
+    public int getDoy() { return doy; }
+    public void setDoy(int doy) { this.doy = doy; }
+
+    public int getDow() { return dow; }
+    public void setDow(int dow) { this.dow = dow; }
+
+    public int getMonthKey() { return monthKey; }
+    public void setMonthKey(int monthKey) { this.monthKey = monthKey; }
+
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
+
+    public int getIntervals() { return intervals; }
+    public void setIntervals(int intervals) { this.intervals = intervals; }
+
+    public double getPv() { return pv; }
+    public void setPv(double pv) { this.pv = pv; }
+
+    public double getLoad() { return load; }
+    public void setLoad(double load) { this.load = load; }
+
+    public double getFeed() { return feed; }
+    public void setFeed(double feed) { this.feed = feed; }
+
+    public double getBuy() { return buy; }
+    public void setBuy(double buy) { this.buy = buy; }
+
+    public double getPv2bat() { return pv2bat; }
+    public void setPv2bat(double pv2bat) { this.pv2bat = pv2bat; }
+
+    public double getPv2load() { return pv2load; }
+    public void setPv2load(double pv2load) { this.pv2load = pv2load; }
+
+    public double getBat2load() { return bat2load; }
+    public void setBat2load(double bat2load) { this.bat2load = bat2load; }
+
+    public double getGrid2bat() { return grid2bat; }
+    public void setGrid2bat(double grid2bat) { this.grid2bat = grid2bat; }
+
+    public double getPv2grid() { return pv2grid; }
+    public void setPv2grid(double pv2grid) { this.pv2grid = pv2grid; }
+
+    public double getGrid2load() { return grid2load; }
+    public void setGrid2load(double grid2load) { this.grid2load = grid2load; }
+
+    public double getEvActual() { return evActual; }
+    public void setEvActual(double evActual) { this.evActual = evActual; }
+
+    public double getHwActual() { return hwActual; }
+    public void setHwActual(double hwActual) { this.hwActual = hwActual; }
+
+    public double getHpActual() { return hpActual; }
+    public void setHpActual(double hpActual) { this.hpActual = hpActual; }
+
+    public double getBatChargeIn() { return batChargeIn; }
+    public void setBatChargeIn(double batChargeIn) { this.batChargeIn = batChargeIn; }
+
+    public double getBatDischargeOut() { return batDischargeOut; }
+    public void setBatDischargeOut(double batDischargeOut) { this.batDischargeOut = batDischargeOut; }
+
+    public double getBat2grid() { return bat2grid; }
+    public void setBat2grid(double bat2grid) { this.bat2grid = bat2grid; }
+
+    public double getBatCharge() { return batCharge; }
+    public void setBatCharge(double batCharge) { this.batCharge = batCharge; }
+
+    public double getBatDischarge() { return batDischarge; }
+    public void setBatDischarge(double batDischarge) { this.batDischarge = batDischarge; }
+}
@@ -19,9 +19,27 @@ package com.tfcode.comparetout.model.importers.alphaess;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 
-@Entity(tableName = "alphaESSTransformedData", primaryKeys = {"sysSn", "date", "minute"})
+import java.time.LocalDate;
+
+@Entity(tableName = "alphaESSTransformedData", primaryKeys = {"sysSn", "date", "minute"},
+        indices = {@Index(value = {"sysSn", "millisSinceEpoch"})})
 public class AlphaESSTransformedData {
+
+    /**
+     * Fills the bucket columns from date/minute for rows that have none yet (dayKey 0), e.g. rows
+     * written before v19. Same values as the setters derive; idempotent.
+     */
+    public static final String BACKFILL_BUCKETS_SQL = "UPDATE alphaESSTransformedData SET " +
+            "hour = CAST(substr(minute, 1, 2) AS INTEGER), " +
+            "dayKey = CAST(replace(date, '-', '') AS INTEGER), " +
+            "doy = CAST(strftime('%j', date) AS INTEGER), " +
+            "dow = CAST(strftime('%w', date) AS INTEGER), " +
+            "monthKey = CAST(substr(replace(date, '-', ''), 1, 6) AS INTEGER), " +
+            "year = CAST(substr(date, 1, 4) AS INTEGER) " +
+            "WHERE dayKey = 0";
+
     @NonNull
     private String sysSn = "";
     @NonNull
@@ -54,6 +72,15 @@ public class AlphaESSTransformedData {
     @ColumnInfo(defaultValue = "0") private double hwActual;
     @ColumnInfo(defaultValue = "0") private double hpActual;
 
+    // v19: local wall-clock buckets, derived from date/minute as they are set, so the
+    // aggregate queries group on integers instead of strftime() per row.
+    @ColumnInfo(defaultValue = "0") private int hour;      // 0-23
+    @ColumnInfo(defaultValue = "0") private int dayKey;    // yyyyMMdd
+    @ColumnInfo(defaultValue = "0") private int doy;       // 1-366
+    @ColumnInfo(defaultValue = "0") private int dow;       // 0 = Sunday, as strftime('%w')
+    @ColumnInfo(defaultValue = "0") private int monthKey;  // yyyyMM
+    @ColumnInfo(defaultValue = "0") private int year;
+
     public Long getMillisSinceEpoch() {
         return millisSinceEpoch;
     }
@@ -86,6 +113,17 @@ public class AlphaESSTransformedData {
 
     public void setDate(@NonNull String date) {
         this.date = date;
+        try {
+            LocalDate local = LocalDate.of(Integer.parseInt(date.substring(0, 4)),
+                    Integer.parseInt(date.substring(5, 7)), Integer.parseInt(date.substring(8, 10)));
+            year = local.getYear();
+            monthKey = year * 100 + local.getMonthValue();
+            dayKey = monthKey * 100 + local.getDayOfMonth();
+            doy = local.getDayOfYear();
+            dow = local.getDayOfWeek().getValue() % 7;
+        } catch (RuntimeException e) {
+            // Not yyyy-MM-dd: leave the buckets unset (dayKey 0)
+        }
     }
 
     @NonNull
@@ -95,6 +133,12 @@ public class AlphaESSTransformedData {
 
     public void setMinute(@NonNull String minute) {
         this.minute = minute;
+        try {
+            int colon = minute.indexOf(':');
+            hour = Integer.parseInt(colon < 0 ? minute : minute.substring(0, colon));
+        } catch (RuntimeException e) {
+            hour = 0;
+        }
     }
 
     public double getPv() {
@@ -156,4 +200,22 @@ public class AlphaESSTransformedData {
 
     public double getHpActual() { return hpActual; }
     public void setHpActual(double hpActual) { this.hpActual = hpActual; }
+
+    public int getHour() { return hour; }
+    public void setHour(int hour) { this.hour = hour; }
+
+    public int getDayKey() { return dayKey; }
+    public void setDayKey(int dayKey) { this.dayKey = dayKey; }
+
+    public int getDoy() { return doy; }
+    public void setDoy(int doy) { this.doy = doy; }
+
+    public int getDow() { return dow; }
+    public void setDow(int dow) { this.dow = dow; }
+
+    public int getMonthKey() { return monthKey; }
+    public void setMonthKey(int monthKey) { this.monthKey = monthKey; }
+
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
 }
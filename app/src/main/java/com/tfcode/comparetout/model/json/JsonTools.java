@@ -16,8 +16,6 @@
 
 package com.tfcode.comparetout.model.json;
 
-import android.util.Pair;
-
 import androidx.annotation.NonNull;
 
 import com.google.gson.Gson;
@@ -245,8 +243,8 @@ public class JsonTools {
                 for (Restriction r : entry.getKey().getRestrictions().getRestrictions()) {
                     RestrictionEntryJson rje = new RestrictionEntryJson();
                     rje.period = r.getPeriodicity().getValue();
-                    Map<String, Pair<Integer, Double>> restrictionEntries = r.getRestrictionEntries();
-                    for (Map.Entry<String, Pair<Integer, Double>> restrictionEntry : restrictionEntries.entrySet()) {
+                    Map<String, Restriction.Limit> restrictionEntries = r.getRestrictionEntries();
+                    for (Map.Entry<String, Restriction.Limit> restrictionEntry : restrictionEntries.entrySet()) {
                         rje.scope = restrictionEntry.getKey();
                         rje.limit = restrictionEntry.getValue().first;
                         rje.excessCost = restrictionEntry.getValue().second;
@@ -306,8 +304,8 @@ public class JsonTools {
             restrictions.active = pp.getRestrictions().isActive();
             restrictions.restrictionEntries = new ArrayList<>();
             for (Restriction r : pp.getRestrictions().getRestrictions()) {
-                Map<String, Pair<Integer, Double>> restrictionEntries = r.getRestrictionEntries();
-                for (Map.Entry<String, Pair<Integer, Double>> restrictionEntry : restrictionEntries.entrySet()) {
+                Map<String, Restriction.Limit> restrictionEntries = r.getRestrictionEntries();
+                for (Map.Entry<String, Restriction.Limit> restrictionEntry : restrictionEntries.entrySet()) {
                     RestrictionEntryJson rje = new RestrictionEntryJson();
                     rje.period = r.getPeriodicity().getValue();
                     rje.scope = restrictionEntry.getKey();
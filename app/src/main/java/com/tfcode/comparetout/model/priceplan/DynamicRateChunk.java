@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.priceplan;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * One calendar month of a dynamic plan's unit rates, stored as packed primitive columns
+ * (little-endian long slot starts and ends, double prices) rather than a row per slot.
+ * A year of half-hourly prices is twelve rows. {@link PriceSeries} packs and unpacks them;
+ * a month is rewritten whole when new prices for it arrive.
+ */
+@Entity(tableName = "dynamicrates", primaryKeys = {"pricePlanID", "month"})
+public class DynamicRateChunk {
+
+    private long pricePlanID;
+    @NonNull
+    private String month = ""; // yyyy-MM of the slot starts
+    private int slots;
+    @NonNull
+    private byte[] starts = new byte[0];
+    @NonNull
+    private byte[] ends = new byte[0];
+    @NonNull
+    private byte[] prices = new byte[0];
+
+    public long getPricePlanID() {
+        return pricePlanID;
+    }
+
+    public void setPricePlanID(long pricePlanID) {
+        this.pricePlanID = pricePlanID;
+    }
+
+    @NonNull
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(@NonNull String month) {
+        this.month = month;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+
+    @NonNull
+    public byte[] getStarts() {
+        return starts;
+    }
+
+    public void setStarts(@NonNull byte[] starts) {
+        this.starts = starts;
+    }
+
+    @NonNull
+    public byte[] getEnds() {
+        return ends;
+    }
+
+    public void setEnds(@NonNull byte[] ends) {
+        this.ends = ends;
+    }
+
+    @NonNull
+    public byte[] getPrices() {
+        return prices;
+    }
+
+    public void setPrices(@NonNull byte[] prices) {
+        this.prices = prices;
+    }
+}
@@ -19,6 +19,7 @@ package com.tfcode.comparetout.model.priceplan;
 import androidx.annotation.NonNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.ListIterator;
@@ -195,4 +196,9 @@ public class MinuteRateRange {
         return mRates;
     }
 
+    /** The begin-minute &rarr; price steps {@link #lookup(int)} resolves against, in minute order. */
+    public NavigableMap<Integer, Double> getSteps() {
+        return Collections.unmodifiableNavigableMap(mLookup);
+    }
+
 }
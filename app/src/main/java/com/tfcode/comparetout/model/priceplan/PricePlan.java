@@ -31,12 +31,15 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 
 @Entity(tableName = "PricePlans", indices = {
         @Index(value = {"supplier","planName"}, unique = true) })
@@ -95,6 +98,10 @@ public class PricePlan {
     @NonNull
     @ColumnInfo(name = "location", defaultValue = "")
     private String location = "";
+    // Canonical hash of the plan with its day rates and restrictions (computeContentHash);
+    // 0 = not yet computed (rows from before v18). Kept current by every PricePlanDAO write.
+    @ColumnInfo(name = "contentHash", defaultValue = "0")
+    private long contentHash = 0L;
 
 
     @Override
@@ -212,6 +219,14 @@ public class PricePlan {
         this.lastUpdate = lastUpdate;
     }
 
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(long contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public Restrictions getRestrictions() {
         return restrictions;
     }
@@ -236,6 +251,75 @@ public class PricePlan {
         return copy;
     }
 
+    /**
+     * FNV-1a over the plan's content as the user sees it: every field but the index, the
+     * active flag (a selection, not content) and the hash itself, the restrictions with their entries in rate order, and the day rates. Each
+     * day rate is hashed on its own (days sorted, minute steps as RateLookup applies them) and
+     * the day rate hashes are combined in sorted order, so neither storage order nor how the
+     * rates were entered (hours or minutes) changes the result. Never 0.
+     */
+    public long computeContentHash(List<DayRate> drs) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, supplier);
+        hash = mix(hash, planName);
+        hash = mix(hash, Double.doubleToLongBits(feed));
+        hash = mix(hash, Double.doubleToLongBits(standingCharges));
+        hash = mix(hash, Double.doubleToLongBits(signUpBonus));
+        hash = mix(hash, deemedExport ? 1 : 0);
+        hash = mix(hash, lastUpdate);
+        hash = mix(hash, reference);
+        hash = mix(hash, location);
+        if (null != restrictions) {
+            hash = mix(hash, restrictions.isActive() ? 1 : 0);
+            for (Restriction restriction : restrictions.getRestrictions()) {
+                hash = mix(hash, String.valueOf(restriction.getPeriodicity()));
+                Map<String, Restriction.Limit> entries = new TreeMap<>(restriction.getRestrictionEntries());
+                for (Map.Entry<String, Restriction.Limit> entry : entries.entrySet()) {
+                    hash = mix(hash, entry.getKey());
+                    hash = mix(hash, (null == entry.getValue().first) ? -1 : entry.getValue().first);
+                    hash = mix(hash, Double.doubleToLongBits((null == entry.getValue().second) ? -1D : entry.getValue().second));
+                }
+            }
+        }
+        long[] rateHashes = new long[drs.size()];
+        for (int i = 0; i < rateHashes.length; i++) {
+            DayRate dr = drs.get(i);
+            long rateHash = 0xcbf29ce484222325L;
+            rateHash = mix(rateHash, dr.getStartDate());
+            rateHash = mix(rateHash, dr.getEndDate());
+            List<Integer> days = new ArrayList<>(dr.getDays().ints);
+            Collections.sort(days);
+            for (Integer day : days) rateHash = mix(rateHash, day);
+            MinuteRateRange range = dr.getMinuteRateRange();
+            if (null == range || range.getRates().isEmpty()) range = MinuteRateRange.fromHours(dr.getHours());
+            NavigableMap<Integer, Double> steps = range.getSteps();
+            rateHash = mix(rateHash, steps.size());
+            for (Map.Entry<Integer, Double> step : steps.entrySet()) {
+                rateHash = mix(rateHash, step.getKey());
+                rateHash = mix(rateHash, Double.doubleToLongBits(step.getValue()));
+            }
+            rateHashes[i] = rateHash;
+        }
+        Arrays.sort(rateHashes);
+        hash = mix(hash, rateHashes.length);
+        for (long rateHash : rateHashes) hash = mix(hash, rateHash);
+        return (hash == 0L) ? 1L : hash;
+    }
+
+    private static long mix(long hash, String value) {
+        hash = mix(hash, value.length());
+        for (int i = 0; i < value.length(); i++) hash = mix(hash, value.charAt(i));
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
     public static final int VALID_PLAN = 0;
     public static final int INVALID_PLAN_DUPLICATE_DAYS = 1;
     public static final int INVALID_PLAN_MISSING_DAYS = 2;
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.priceplan;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The unit rates of a dynamic (e.g. Agile) plan: time-ordered price slots held in three
+ * primitive columns. Times are wall-clock millis, i.e. the local date-time of the tariff
+ * encoded as if it were UTC, the same convention as the millis on simulation rows, so a
+ * usage row's local time lines up without any zone arithmetic. Slots never overlap; a gap
+ * between them (a missing day of prices) is simply not covered.
+ * <p>
+ * Costing merge-joins a time-ordered usage series against the slots with a {@link Cursor},
+ * so it stays linear in intervals. Wherever the series has no price, the plan's day rates
+ * (a flat average for generated plans) apply instead.
+ */
+public final class PriceSeries {
+
+    public static final long SLOT_MILLIS_5 = 5 * 60_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long MILLIS_2001 = LocalDate.of(2001, 1, 1).toEpochDay() * DAY_MILLIS;
+    private static final int CELLS_PER_DAY = 288;
+
+    private final long[] mStarts;
+    private final long[] mEnds;
+    private final double[] mPrices;
+
+    private PriceSeries(long[] starts, long[] ends, double[] prices) {
+        mStarts = starts;
+        mEnds = ends;
+        mPrices = prices;
+    }
+
+    public int size() {
+        return mStarts.length;
+    }
+
+    public boolean isEmpty() {
+        return mStarts.length == 0;
+    }
+
+    public long getStart(int slot) {
+        return mStarts[slot];
+    }
+
+    public long getEnd(int slot) {
+        return mEnds[slot];
+    }
+
+    public double getPrice(int slot) {
+        return mPrices[slot];
+    }
+
+    /** End of the last slot, or {@code Long.MIN_VALUE} for an empty series. */
+    public long getLastEnd() {
+        return isEmpty() ? Long.MIN_VALUE : mEnds[mEnds.length - 1];
+    }
+
+    /** Lowest price in the series; +infinity for an empty series. */
+    public double lowestPrice() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (double price : mPrices) lowest = Math.min(lowest, price);
+        return lowest;
+    }
+
+    /** Time-weighted mean price across the slots, 0 for an empty series. */
+    public double mean() {
+        double weighted = 0D;
+        long covered = 0L;
+        for (int i = 0; i < mStarts.length; i++) {
+            weighted += mPrices[i] * (mEnds[i] - mStarts[i]);
+            covered += mEnds[i] - mStarts[i];
+        }
+        return covered == 0 ? 0D : weighted / covered;
+    }
+
+    public static long wallMillis(LocalDateTime localDateTime) {
+        return localDateTime.toEpochSecond(ZoneOffset.UTC) * 1000L;
+    }
+
+    /** Wall-clock millis of a minute on the simulation year's grid. */
+    public static long wallMillis2001(int do2001, int minuteOfDay) {
+        return MILLIS_2001 + (do2001 - 1) * DAY_MILLIS + minuteOfDay * 60_000L;
+    }
+
+    /**
+     * This series followed by {@code newer}: slots of this one that start at or after
+     * newer's first slot are replaced, so re-fetched prices win.
+     */
+    public PriceSeries append(PriceSeries newer) {
+        if (newer.isEmpty()) return this;
+        Builder builder = new Builder(size() + newer.size());
+        long cut = newer.mStarts[0];
+        for (int i = 0; i < size() && mStarts[i] < cut; i++)
+            builder.add(mStarts[i], Math.min(mEnds[i], cut), mPrices[i]);
+        for (int i = 0; i < newer.size(); i++) builder.add(newer.mStarts[i], newer.mEnds[i], newer.mPrices[i]);
+        return builder.build();
+    }
+
+    /**
+     * The series folded onto the simulation year (2001, 5-minute cells) by month, day and
+     * time of day, the most recent price winning where the series spans several years.
+     * Feb 29 has no 2001 counterpart and is dropped. Linear in the slots covered.
+     */
+    public PriceSeries projectTo2001() {
+        double[] cells = new double[365 * CELLS_PER_DAY];
+        Arrays.fill(cells, Double.NaN);
+        long cachedDay = Long.MIN_VALUE;
+        int cachedBase = -1;
+        for (int i = 0; i < size(); i++) {
+            // First 5-minute boundary at or after the slot start
+            long t = Math.floorDiv(mStarts[i] + SLOT_MILLIS_5 - 1, SLOT_MILLIS_5) * SLOT_MILLIS_5;
+            for (; t < mEnds[i]; t += SLOT_MILLIS_5) {
+                long day = Math.floorDiv(t, DAY_MILLIS);
+                if (day != cachedDay) {
+                    cachedDay = day;
+                    LocalDate date = LocalDate.ofEpochDay(day);
+                    cachedBase = (date.getMonthValue() == 2 && date.getDayOfMonth() == 29) ? -1
+                            : (LocalDate.of(2001, date.getMonthValue(), date.getDayOfMonth()).getDayOfYear() - 1) * CELLS_PER_DAY;
+                }
+                if (cachedBase < 0) continue;
+                cells[cachedBase + (int) ((t - day * DAY_MILLIS) / SLOT_MILLIS_5)] = mPrices[i];
+            }
+        }
+        Builder builder = new Builder(size());
+        int cell = 0;
+        while (cell < cells.length) {
+            if (Double.isNaN(cells[cell])) {
+                cell++;
+                continue;
+            }
+            int run = cell + 1;
+            while (run < cells.length && cells[run] == cells[cell]) run++;
+            builder.add(MILLIS_2001 + cell * SLOT_MILLIS_5, MILLIS_2001 + run * SLOT_MILLIS_5, cells[cell]);
+            cell = run;
+        }
+        return builder.build();
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Walks the slots alongside a time-ordered usage series. Each call resumes where the
+     * previous one stopped; going back in time restarts from the first slot.
+     */
+    public final class Cursor {
+        private int mNext;
+        private long mLastFrom = Long.MIN_VALUE;
+        private double mCoverage;
+
+        private Cursor() {}
+
+        /**
+         * Time-weighted mean price over {@code [from, from + span)}, or NaN where no slot
+         * covers any of it. {@link #getCoverage} then gives the covered fraction.
+         */
+        public double mean(long from, long span) {
+            if (from < mLastFrom) mNext = 0;
+            mLastFrom = from;
+            long to = from + span;
+            while (mNext < mStarts.length && mEnds[mNext] <= from) mNext++;
+            double weighted = 0D;
+            long covered = 0L;
+            for (int i = mNext; i < mStarts.length && mStarts[i] < to; i++) {
+                long overlap = Math.min(to, mEnds[i]) - Math.max(from, mStarts[i]);
+                if (overlap <= 0) continue;
+                weighted += mPrices[i] * overlap;
+                covered += overlap;
+            }
+            mCoverage = (span <= 0) ? 0D : (double) covered / span;
+            return covered == 0 ? Double.NaN : weighted / covered;
+        }
+
+        public double getCoverage() {
+            return mCoverage;
+        }
+    }
+
+    // ── Storage ────────────────────────────────────────────────────────────────────────────
+
+    /** Chunks as read for one plan, in any order. */
+    public static PriceSeries fromChunks(List<DynamicRateChunk> chunks) {
+        List<DynamicRateChunk> ordered = new ArrayList<>(chunks);
+        ordered.sort((a, b) -> a.getMonth().compareTo(b.getMonth()));
+        int total = 0;
+        for (DynamicRateChunk chunk : ordered) total += chunk.getSlots();
+        Builder builder = new Builder(total);
+        for (DynamicRateChunk chunk : ordered) {
+            ByteBuffer starts = ByteBuffer.wrap(chunk.getStarts()).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer ends = ByteBuffer.wrap(chunk.getEnds()).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer prices = ByteBuffer.wrap(chunk.getPrices()).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < chunk.getSlots(); i++)
+                builder.add(starts.getLong(), ends.getLong(), prices.getDouble());
+        }
+        return builder.build();
+    }
+
+    /** One chunk per calendar month of slot starts. */
+    public List<DynamicRateChunk> toChunks(long pricePlanID) {
+        List<DynamicRateChunk> chunks = new ArrayList<>();
+        int from = 0;
+        while (from < size()) {
+            String month = month(mStarts[from]);
+            int to = from + 1;
+            while (to < size() && month(mStarts[to]).equals(month)) to++;
+            int slots = to - from;
+            ByteBuffer starts = ByteBuffer.allocate(slots * 8).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer ends = ByteBuffer.allocate(slots * 8).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer prices = ByteBuffer.allocate(slots * 8).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = from; i < to; i++) {
+                starts.putLong(mStarts[i]);
+                ends.putLong(mEnds[i]);
+                prices.putDouble(mPrices[i]);
+            }
+            DynamicRateChunk chunk = new DynamicRateChunk();
+            chunk.setPricePlanID(pricePlanID);
+            chunk.setMonth(month);
+            chunk.setSlots(slots);
+            chunk.setStarts(starts.array());
+            chunk.setEnds(ends.array());
+            chunk.setPrices(prices.array());
+            chunks.add(chunk);
+            from = to;
+        }
+        return chunks;
+    }
+
+    private static String month(long wallMillis) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(wallMillis, DAY_MILLIS));
+        return String.format("%04d-%02d", date.getYear(), date.getMonthValue());
+    }
+
+    /**
+     * Collects slots in time order. A slot that starts before the previous one ends (the
+     * repeated hour when clocks go back) is dropped, as are empty slots.
+     */
+    public static final class Builder {
+        private long[] mStarts;
+        private long[] mEnds;
+        private double[] mPrices;
+        private int mSize;
+
+        public Builder(int expectedSlots) {
+            int capacity = Math.max(16, expectedSlots);
+            mStarts = new long[capacity];
+            mEnds = new long[capacity];
+            mPrices = new double[capacity];
+        }
+
+        public Builder add(long start, long end, double price) {
+            if (end <= start) return this;
+            if (mSize > 0 && start < mEnds[mSize - 1]) return this;
+            if (mSize == mStarts.length) {
+                mStarts = Arrays.copyOf(mStarts, mSize * 2);
+                mEnds = Arrays.copyOf(mEnds, mSize * 2);
+                mPrices = Arrays.copyOf(mPrices, mSize * 2);
+            }
+            mStarts[mSize] = start;
+            mEnds[mSize] = end;
+            mPrices[mSize] = price;
+            mSize++;
+            return this;
+        }
+
+        public PriceSeries build() {
+            return new PriceSeries(Arrays.copyOf(mStarts, mSize), Arrays.copyOf(mEnds, mSize),
+                    Arrays.copyOf(mPrices, mSize));
+        }
+    }
+}
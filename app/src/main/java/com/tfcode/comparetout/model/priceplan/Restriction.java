@@ -16,8 +16,6 @@
 
 package com.tfcode.comparetout.model.priceplan;
 
-import android.util.Pair;
-
 import java.util.HashMap;
 import java.util.Map;
 
@@ -47,23 +45,37 @@ public class Restriction {
         }
     }
 
+    /**
+     * The kWh limit for a rate and the price charged beyond it. Field names match the
+     * {@code android.util.Pair} this replaced, so stored restrictions read back unchanged.
+     */
+    public static final class Limit {
+        public final Integer first;
+        public final Double second;
+
+        public Limit(Integer kWhLimit, Double revisedPrice) {
+            first = kWhLimit;
+            second = revisedPrice;
+        }
+    }
+
     private RestrictionType periodicity;
-    private final Map<String, Pair<Integer, Double>> restrictionEntries = new HashMap<>();
+    private final Map<String, Limit> restrictionEntries = new HashMap<>();
 
     public void addEntry(RestrictionType type, String cost, int kWhLimit, double revisedPrice) {
         periodicity = type;
-        restrictionEntries.put(cost, new Pair<>(kWhLimit, revisedPrice));
+        restrictionEntries.put(cost, new Limit(kWhLimit, revisedPrice));
     }
 
     public RestrictionType getPeriodicity() {
         return periodicity;
     }
 
-    public Pair<Integer, Double> getRestrictionForCost(String cost) {
+    public Limit getRestrictionForCost(String cost) {
         return restrictionEntries.get(cost);
     }
 
-    public Map<String, Pair<Integer, Double>> getRestrictionEntries() {
+    public Map<String, Limit> getRestrictionEntries() {
         return restrictionEntries;
     }
 }
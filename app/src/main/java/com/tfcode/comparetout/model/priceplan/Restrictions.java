@@ -16,8 +16,6 @@
 
 package com.tfcode.comparetout.model.priceplan;
 
-import android.util.Pair;
-
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,7 +42,7 @@ public class Restrictions {
     public Restriction getRestrictionForCost(String rate) {
         Restriction ret = null;
         for (Restriction r : restrictions) {
-            Pair<Integer, Double> match = r.getRestrictionForCost(rate);
+            Restriction.Limit match = r.getRestrictionForCost(rate);
             if (!(match == null)) {
                 ret = r;
                 break;
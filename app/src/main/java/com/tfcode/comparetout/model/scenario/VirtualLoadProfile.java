@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.scenario;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The synthetic load of a distribution-only profile, computed on read instead of stored.
+ * <p>
+ * A profile without loadprofiledata rows is "virtual": its year on the 2001 grid is a pure
+ * function of annual usage and the month / day-of-week / hour distributions, so it is built
+ * here into a primitive array when the simulation asks for it. Only profiles that come from
+ * imported data (or an absolute-year source) keep rows. Same formula and evaluation order as
+ * the generator that used to store them, so the doubles are identical.
+ */
+public final class VirtualLoadProfile {
+
+    public static final int SLOTS_PER_DAY = 288;
+    public static final int DAYS = 365;
+    public static final int SLOTS = DAYS * SLOTS_PER_DAY;
+
+    private static final long MILLIS_2001 = LocalDate.of(2001, 1, 1).toEpochDay() * 86_400_000L;
+    private static final long SLOT_MILLIS = 5 * 60_000L;
+
+    private static final String[] DATES = new String[DAYS];
+    private static final String[] MINUTES = new String[SLOTS_PER_DAY];
+    static {
+        LocalDate day = LocalDate.of(2001, 1, 1);
+        for (int d = 0; d < DAYS; d++) {
+            DATES[d] = day.toString();
+            day = day.plusDays(1);
+        }
+        for (int s = 0; s < SLOTS_PER_DAY; s++)
+            MINUTES[s] = String.format("%02d:%02d", (s * 5) / 60, (s * 5) % 60);
+    }
+
+    private VirtualLoadProfile() {}
+
+    /** Load (kWh per 5 minutes) for every slot of 2001, slot 0 = 2001-01-01 00:00. */
+    public static double[] loadSeries(LoadProfile loadProfile) {
+        List<Double> months = loadProfile.getMonthlyDist().monthlyDist;
+        List<Double> days = loadProfile.getDowDist().dowDist;
+        List<Double> hours = loadProfile.getHourlyDist().dist;
+        double[] hourPct = new double[24];
+        for (int h = 0; h < 24; h++) hourPct[h] = hours.get(h) / 100d;
+
+        double[] load = new double[SLOTS];
+        LocalDate day = LocalDate.of(2001, 1, 1);
+        for (int d = 0; d < DAYS; d++) {
+            int isoDow = day.getDayOfWeek().getValue();
+            // The first occurrence of this weekday is on day ((dom - 1) % 7) + 1.
+            int firstOccurrence = ((day.getDayOfMonth() - 1) % 7) + 1;
+            int dowInMonth = (day.lengthOfMonth() - firstOccurrence) / 7 + 1;
+            double monthUse = loadProfile.getAnnualUsage() * (months.get(day.getMonthValue() - 1) / 100d);
+            // Index 0 is Sunday in the profile's dowDist
+            double dayUse = (monthUse / (double) dowInMonth) * (days.get(isoDow % 7) / 100d);
+            int base = d * SLOTS_PER_DAY;
+            for (int s = 0; s < SLOTS_PER_DAY; s++) load[base + s] = (dayUse * hourPct[s / 12]) / 12d;
+            day = day.plusDays(1);
+        }
+        return load;
+    }
+
+    /** The series as simulation input rows (no PV), shaped like {@code ScenarioDAO.getSimulationInputNoSolar}. */
+    public static List<SimulationInputData> simulationInput(double[] load) {
+        List<SimulationInputData> rows = new ArrayList<>(load.length);
+        LocalDate day = LocalDate.of(2001, 1, 1);
+        for (int d = 0; d < DAYS; d++) {
+            int isoDow = day.getDayOfWeek().getValue();
+            int base = d * SLOTS_PER_DAY;
+            for (int s = 0; s < SLOTS_PER_DAY; s++) {
+                SimulationInputData row = new SimulationInputData();
+                row.date = DATES[d];
+                row.minute = MINUTES[s];
+                row.load = load[base + s];
+                row.mod = s * 5;
+                row.dow = isoDow;
+                row.do2001 = d + 1;
+                row.millisSinceEpoch = MILLIS_2001 + (base + s) * SLOT_MILLIS;
+                rows.add(row);
+            }
+            day = day.plusDays(1);
+        }
+        return rows;
+    }
+
+    /** A fresh copy of the rows, for callers that merge PV into them. */
+    public static List<SimulationInputData> copyOf(List<SimulationInputData> rows) {
+        List<SimulationInputData> copy = new ArrayList<>(rows.size());
+        for (SimulationInputData row : rows) {
+            SimulationInputData c = new SimulationInputData();
+            c.date = row.date;
+            c.minute = row.minute;
+            c.load = row.load;
+            c.mod = row.mod;
+            c.dow = row.dow;
+            c.do2001 = row.do2001;
+            c.tpv = row.tpv;
+            c.millisSinceEpoch = row.millisSinceEpoch;
+            copy.add(c);
+        }
+        return copy;
+    }
+}
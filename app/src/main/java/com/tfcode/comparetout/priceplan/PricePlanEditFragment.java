@@ -22,7 +22,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.text.Editable;
 import android.text.InputType;
-import android.util.Pair;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -351,7 +350,7 @@ public class PricePlanEditFragment extends Fragment {
                     annually.setChecked(restriction.getPeriodicity() == Restriction.RestrictionType.annual);
                     monthly.setChecked(restriction.getPeriodicity() == Restriction.RestrictionType.monthly);
                     bimonthly.setChecked(restriction.getPeriodicity() == Restriction.RestrictionType.bimonthly);
-                    Pair<Integer, Double> pair = restriction.getRestrictionForCost(String.valueOf(r));
+                    Restriction.Limit pair = restriction.getRestrictionForCost(String.valueOf(r));
                     limit.setText(String.valueOf(pair.first));
                     revised.setText(String.valueOf(pair.second));
                 }
@@ -442,8 +441,8 @@ public class PricePlanEditFragment extends Fragment {
         // Populate the new restrictions list with unmodified entries
         for (Restriction originalRestriction : restrictionsList) {
             Restriction.RestrictionType recurrence = originalRestriction.getPeriodicity();
-            Map<String, Pair<Integer, Double>> sneaks = originalRestriction.getRestrictionEntries();
-            for (Map.Entry<String, Pair<Integer, Double>> entry : sneaks.entrySet()) {
+            Map<String, Restriction.Limit> sneaks = originalRestriction.getRestrictionEntries();
+            for (Map.Entry<String, Restriction.Limit> entry : sneaks.entrySet()) {
                 if (!(entry.getKey().equals(String.valueOf(rate)))) {
                     Restriction newR = restrictionMap.getOrDefault(recurrence, new Restriction());
                     assert newR != null; // It will never be because of the getOrDefault
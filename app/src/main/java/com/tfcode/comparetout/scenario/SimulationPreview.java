@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.scenario;
+
+import com.tfcode.comparetout.model.costings.Costings;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
+import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
+import com.tfcode.comparetout.model.scenario.Panel;
+import com.tfcode.comparetout.model.scenario.Scenario;
+import com.tfcode.comparetout.model.scenario.ScenarioComponents;
+import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
+import com.tfcode.comparetout.model.scenario.SimulationInputData;
+import com.tfcode.comparetout.model.scenario.VirtualLoadProfile;
+import com.tfcode.comparetout.scenario.sim.HeatPumpComponent;
+import com.tfcode.comparetout.util.RateLookup;
+import com.tfcode.comparetout.util.ScenarioCosting;
+import com.tfcode.comparetout.util.UsageIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Simulates and costs a scenario that was never saved, for live what-if numbers while the
+ * user drags a control. The same input assembly and engine as {@link SimulationWorker}, and
+ * the same {@link ScenarioCosting} as the CostingWorker, but everything stays in memory: nothing is
+ * written to scenariosimulationdata or costings, and no worker is enqueued.
+ * <p>
+ * Nothing here reads the database either. The caller supplies the load grid, each panel's PV
+ * rows, the heat pump's demand and the compiled plans, so a preview costs one engine pass plus
+ * one index walk per plan. A heat pump is previewed only when the caller could build its
+ * demand ({@link SimulationWorker#buildHeatPumpComponent}, which needs its weather series);
+ * otherwise the result says it was left out.
+ */
+public final class SimulationPreview {
+
+    private static final int MONTHS = 12;
+
+    private SimulationPreview() {}
+
+    /** A plan to price the preview against. */
+    public static final class Plan {
+        final PricePlan plan;
+        final RateLookup lookup;
+        final PriceSeries series;
+
+        /**
+         * @param lookup A lookup of the plan's own for this preview (lookups carry tier state).
+         * @param series The plan's dynamic prices projected to 2001, or null for a fixed-rate plan.
+         */
+        public Plan(PricePlan plan, RateLookup lookup, PriceSeries series) {
+            this.plan = plan;
+            this.lookup = lookup;
+            this.series = series;
+        }
+    }
+
+    /** One plan's cost of the previewed year, in cents: the costing the CostingWorker would save. */
+    public static final class PlanCost {
+        public final long pricePlanID;
+        public final String fullPlanName;
+        public final double buy;
+        public final double sell;
+        public final double net;
+        public final double[] monthlyBuy = new double[MONTHS];
+        public final double[] monthlySell = new double[MONTHS];
+
+        PlanCost(ScenarioCosting planCosting, int[] monthOfDay) {
+            Costings costing = planCosting.costing;
+            pricePlanID = costing.getPricePlanID();
+            fullPlanName = costing.getFullPlanName();
+            buy = costing.getBuy();
+            sell = costing.getSell();
+            net = costing.getNet();
+            for (ScenarioDayCost day : planCosting.days) {
+                monthlyBuy[monthOfDay[day.getDayOf2001()]] += day.getBuy();
+                monthlySell[monthOfDay[day.getDayOf2001()]] += day.getSell();
+            }
+        }
+    }
+
+    /** The previewed year: energy per month in kWh, and the plans' costs cheapest first. */
+    public static final class Result {
+        public final double[] monthlyLoad = new double[MONTHS];
+        public final double[] monthlyPV = new double[MONTHS];
+        public final double[] monthlyBuy = new double[MONTHS];
+        public final double[] monthlyFeed = new double[MONTHS];
+        public final List<PlanCost> plans = new ArrayList<>();
+        /** The scenario has a heat pump, but no demand was supplied for it, so it is not in the numbers. */
+        public boolean heatPumpLeftOut;
+
+        public double getLoad() { return sum(monthlyLoad); }
+        public double getPV() { return sum(monthlyPV); }
+        public double getBuy() { return sum(monthlyBuy); }
+        public double getFeed() { return sum(monthlyFeed); }
+
+        /** The cheapest plan, or null when none was priced. */
+        public PlanCost getBest() {
+            return plans.isEmpty() ? null : plans.get(0);
+        }
+    }
+
+    /**
+     * Simulate the components over the load grid and price the result against the plans.
+     * @param components The scenario to preview; its has* flags are derived from the component
+     *                   lists here, as the DAO does on insert.
+     * @param loadGrid The load series, see {@link VirtualLoadProfile#simulationInput}.
+     * @param panelRows A panel's PV rows, sized for that panel.
+     * @param heatPump The heat pump's demand over {@code loadGrid}, or null to leave it out.
+     */
+    public static Result run(ScenarioComponents components, List<SimulationInputData> loadGrid,
+                             Function<Panel, List<SimulationInputData>> panelRows, HeatPumpComponent heatPump,
+                             List<Plan> plans) {
+        deriveFlags(components, heatPump);
+        SimulationWorker.EngineInputs inputs = SimulationWorker.assembleInputs(components, loadGrid, heatPump, panelRows);
+        List<ScenarioSimulationData> rows = SimulationWorker.simulate(0L, inputs);
+
+        Result result = new Result();
+        result.heatPumpLeftOut = null == heatPump && null != components.heatPumps && !components.heatPumps.isEmpty();
+        int[] monthOfDay = monthOfDay();
+        for (ScenarioSimulationData row : rows) {
+            int month = monthOfDay[row.getDayOf2001()];
+            result.monthlyLoad[month] += row.getLoad();
+            result.monthlyPV[month] += row.getPv();
+            result.monthlyBuy[month] += row.getBuy();
+            result.monthlyFeed[month] += row.getFeed();
+        }
+        if (rows.isEmpty()) return result;
+        UsageIndex usage = ScenarioCosting.index(rows);
+        double gridExportMax = components.loadProfile.getGridExportMax();
+        for (Plan plan : plans)
+            result.plans.add(new PlanCost(ScenarioCosting.cost(components.scenario, usage, plan.plan, plan.lookup,
+                    plan.series, gridExportMax), monthOfDay));
+        result.plans.sort(Comparator.comparingDouble(cost -> cost.net));
+        return result;
+    }
+
+    /** PV rows scaled by {@code factor}, e.g. to resize a panel without fetching PVGIS again. */
+    public static List<SimulationInputData> scaled(List<SimulationInputData> rows, double factor) {
+        List<SimulationInputData> copy = VirtualLoadProfile.copyOf(rows);
+        for (SimulationInputData row : copy) row.setTpv(row.getTpv() * factor);
+        return copy;
+    }
+
+    /** Month (0-11) by day of 2001; day 366 of a leap-year grid folds into December. */
+    private static int[] monthOfDay() {
+        int[] months = new int[367];
+        for (int doy = 1; doy <= 366; doy++)
+            months[doy] = LocalDate.ofYearDay(2001, Math.min(doy, 365)).getMonthValue() - 1;
+        return months;
+    }
+
+    /** Set the has* flags from the component lists, as ScenarioDAO.addNewScenarioWithComponents does. */
+    private static void deriveFlags(ScenarioComponents components, HeatPumpComponent heatPump) {
+        Scenario scenario = components.scenario;
+        scenario.setHasInverters(null != components.inverters && !components.inverters.isEmpty());
+        scenario.setHasBatteries(null != components.batteries && !components.batteries.isEmpty());
+        scenario.setHasPanels(null != components.panels && !components.panels.isEmpty());
+        scenario.setHasHWSystem(null != components.hwSystem);
+        scenario.setHasLoadProfiles(null != components.loadProfile);
+        scenario.setHasLoadShifts(null != components.loadShifts && !components.loadShifts.isEmpty());
+        scenario.setHasDischarges(null != components.discharges && !components.discharges.isEmpty());
+        scenario.setHasEVCharges(null != components.evCharges && !components.evCharges.isEmpty());
+        scenario.setHasHWSchedules(null != components.hwSchedules && !components.hwSchedules.isEmpty());
+        scenario.setHasHWDivert(null != components.hwDivert && components.hwDivert.isActive());
+        scenario.setHasEVDivert(null != components.evDiverts && !components.evDiverts.isEmpty());
+        scenario.setHasHeatPump(null != heatPump);
+    }
+
+    private static double sum(double[] values) {
+        double total = 0D;
+        for (double value : values) total += value;
+        return total;
+    }
+}
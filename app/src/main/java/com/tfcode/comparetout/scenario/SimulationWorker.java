@@ -50,6 +50,7 @@ import com.tfcode.comparetout.model.scenario.ScenarioReadiness;
 import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
 import com.tfcode.comparetout.model.scenario.HeatPump;
 import com.tfcode.comparetout.model.scenario.SimulationInputData;
+import com.tfcode.comparetout.model.scenario.VirtualLoadProfile;
 import com.tfcode.comparetout.scenario.sim.CsvWeatherProvider;
 import com.tfcode.comparetout.scenario.sim.HeatPumpComponent;
 import com.tfcode.comparetout.scenario.sim.HeatPumpDemandModel;
@@ -67,6 +68,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * SimulationWorker is a background Worker that simulates all scenarios requiring simulation.
@@ -148,7 +150,6 @@ public class SimulationWorker extends Worker {
                      * This ensures the simulation is based on the latest user configuration.
                      */
                     ScenarioComponents scenarioComponents = mToutcRepository.getScenarioComponentsForScenarioID(scenarioID);
-                    double exportMax = scenarioComponents.loadProfile.getGridExportMax();
                     Scenario scenario = scenarioComponents.scenario;
                     if (scenario.isHasPanels()) {
                         /*
@@ -185,18 +186,16 @@ public class SimulationWorker extends Worker {
                         sendNotification(notificationManager, notificationId, builder);
                     }
 
-                    int rowsToProcess = 0;
-                    Map<Inverter, SimulationEngine.InputData> inputDataMap = new HashMap<>();
-                    // Scenario-level inputs (load export limit, hot water, EV) — shared by all inverters.
-                    ScenarioInputs scenarioInputs;
-
                     // Heat pump (scenario-level demand): built once from its config + weather, aligned to the
                     // grid (Phase 4 of plans/hp/plan.md). Null when no heat pump ⇒ nothing registered.
                     HeatPumpComponent heatPumpComponent = null;
+                    // The load grid is read (or, for a distribution-only profile, computed) once per scenario;
+                    // each inverter merges its PV into its own copy.
+                    List<SimulationInputData> loadGrid = mToutcRepository.getSimulationInputNoSolar(scenarioID);
                     if (scenario.isHasHeatPump() && !(null == scenarioComponents.heatPumps)
                             && !scenarioComponents.heatPumps.isEmpty()) {
                         HeatPump hp = scenarioComponents.heatPumps.get(0);
-                        List<SimulationInputData> hpGrid = mToutcRepository.getSimulationInputNoSolar(scenarioID);
+                        List<SimulationInputData> hpGrid = loadGrid;
                         // A historical PV import (AlphaESS / Home Assistant) drives the weather to its real year
                         // (cached on the source-period key, content realigned to 2001 by the fetch worker);
                         // PVGIS/legacy/no-PV ⇒ null ⇒ the load-grid period, exactly as before.
@@ -223,91 +222,15 @@ public class SimulationWorker extends Worker {
                                 continue;
                             }
                         }
-                        heatPumpComponent = buildHeatPumpComponent(hp, hpGrid, pvPeriod);
+                        heatPumpComponent = buildHeatPumpComponent(getApplicationContext(), hp, hpGrid, pvPeriod);
                     }
 
                     /*
                      * INPUT DATA PREPARATION
                      * For each inverter, gather simulation input data (load, PV, battery, schedules, etc.).
-                     * This block builds the InputData map, which centralizes all scenario factors for simulation.
                      */
-                    if (scenario.isHasInverters()) {
-                        // Hot water and EV are scenario-level (not inverter-bound): gather once.
-                        HWSystem configuredHotWater = null;
-                        Boolean hotWaterDivert = false;
-                        List<HWSchedule> hotWaterSchedules = null;
-                        if (scenario.isHasHWSystem()) {
-                            configuredHotWater = scenarioComponents.hwSystem;
-                            if (scenario.isHasHWDivert()) hotWaterDivert = scenarioComponents.hwDivert.isActive();
-                            if (scenario.isHasHWSchedules() && !scenarioComponents.hwSchedules.isEmpty()) hotWaterSchedules = scenarioComponents.hwSchedules;
-                        }
-                        List<EVCharge> evCharges = null;
-                        List<EVDivert> evDiverts = null;
-                        if (scenario.isHasEVCharges() && !scenarioComponents.evCharges.isEmpty()) evCharges = scenarioComponents.evCharges;
-                        if (scenario.isHasEVDivert() && !scenarioComponents.evDiverts.isEmpty()) evDiverts = scenarioComponents.evDiverts;
-                        scenarioInputs = new ScenarioInputs(configuredHotWater, hotWaterDivert, hotWaterSchedules,
-                                evCharges, evDiverts, exportMax, heatPumpComponent);
-                        for (Inverter inverter : scenarioComponents.inverters) {
-                            // Get some load simulation data to start with
-                            List<SimulationInputData> simulationInputData = mToutcRepository.getSimulationInputNoSolar(scenarioID);
-                            rowsToProcess = simulationInputData.size();
-
-                            // Aggregate this inverter's PV keyed by UTC millis, then merge it onto the load
-                            // series by matching millis (replaces the old positional + DST-magic merge).
-                            Map<Long, Double> inverterPVByMillis = getPVForInverterByMillis(scenarioComponents, inverter);
-                            mergePVByMillis(simulationInputData, inverterPVByMillis);
-                            // Get connected battery (if any, and max 1)
-                            Battery connectedBattery = null;
-                            SimulationEngine.ForceDischargeToGrid connectedDischarge = null;
-                            SimulationEngine.ChargeFromGrid chargeFromGrid = null;
-                            if (scenario.isHasBatteries()) {
-                                for (Battery battery : scenarioComponents.batteries)
-                                    if (battery.getInverter().equals(inverter.getInverterName()))
-                                        connectedBattery = battery;
-                                if (scenario.isHasLoadShifts()) {
-                                    chargeFromGrid = new SimulationEngine.ChargeFromGrid(scenarioComponents.loadShifts, rowsToProcess);
-                                }
-                                if (scenario.isHasDischarges()) {
-                                    List<DischargeToGrid> connectedDischarges = new ArrayList<>();
-                                    for (DischargeToGrid dischargeToGrid : scenarioComponents.discharges) {
-                                        if (dischargeToGrid.getInverter().equals(inverter.getInverterName()))
-                                            connectedDischarges.add(dischargeToGrid);
-                                    }
-                                    if (!(connectedDischarges.isEmpty()))
-                                        connectedDischarge = new SimulationEngine.ForceDischargeToGrid(connectedDischarges, rowsToProcess);
-                                }
-                            }
-                            // Associate the inverter with its inverter-bound state only. Hot water / EV
-                            // are scenario-level (see scenarioInputs) and are not passed per inverter.
-                            SimulationEngine.InputData iData = new SimulationEngine.InputData(inverter, simulationInputData,
-                                    connectedBattery, chargeFromGrid, connectedDischarge);
-                            inputDataMap.put(inverter, iData);
-                        }
-                    } else { // No solar simulation, but we need a 'perfect' inverter
-                        Inverter inverter = new Inverter();
-                        inverter.setInverterIndex(0);
-                        inverter.setDc2acLoss(0);
-                        inverter.setDc2dcLoss(0);
-                        inverter.setAc2dcLoss(0);
-                        inverter.setMinExcess(0);
-
-                        // Scenario-level inputs. With no inverters there is no PV excess to divert, so
-                        // (as before) hot-water divert and EV divert are not engaged here.
-                        HWSystem configuredHotWater = null;
-                        List<HWSchedule> hotWaterSchedules = null;
-                        if (scenario.isHasHWSystem()) {
-                            configuredHotWater = scenarioComponents.hwSystem;
-                            if (scenario.isHasHWSchedules() && !scenarioComponents.hwSchedules.isEmpty()) hotWaterSchedules = scenarioComponents.hwSchedules;
-                        }
-                        List<EVCharge> evCharges = null;
-                        if (scenario.isHasEVCharges() && !scenarioComponents.evCharges.isEmpty()) evCharges = scenarioComponents.evCharges;
-                        scenarioInputs = new ScenarioInputs(configuredHotWater, null, hotWaterSchedules,
-                                evCharges, null, exportMax, heatPumpComponent);
-                        SimulationEngine.InputData idata = new SimulationEngine.InputData(inverter, mToutcRepository.getSimulationInputNoSolar(scenarioID),
-                                null, null, null);
-                        inputDataMap.put(inverter, idata);
-                        rowsToProcess = idata.simulationInputData.size();
-                    }
+                    EngineInputs engineInputs = assembleInputs(scenarioComponents, loadGrid, heatPumpComponent,
+                            panel -> mToutcRepository.getPVRowsForPanel(panel.getPanelIndex()));
 
                     builder.setContentText("Simulating: " + scenario.getScenarioName());
                     if (System.nanoTime() - notifyTime > 1e+9) {
@@ -317,16 +240,9 @@ public class SimulationWorker extends Worker {
 
                     /*
                      * SIMULATION EXECUTION
-                     * Drive the engine over a UTC TimeAxis covering the input series at the 5-minute cadence.
-                     * The axis is built from the data's own millis range, so this reproduces the historical
-                     * full-year run; the engine itself is now period-agnostic and millis-driven.
+                     * Run the engine over the assembled inputs (see simulate).
                      */
-                    List<SimulationInputData> axisSeries = inputDataMap.values().iterator().next().simulationInputData;
-                    long axisStart = millisOf(axisSeries.get(0));
-                    TimeAxis axis = TimeAxis.fiveMinute(axisStart,
-                            axisStart + (long) rowsToProcess * TimeAxis.FIVE_MINUTES_MILLIS);
-                    ArrayList<ScenarioSimulationData> outputRows =
-                            SimulationEngine.simulate(scenarioID, scenarioInputs, axis, inputDataMap);
+                    ArrayList<ScenarioSimulationData> outputRows = simulate(scenarioID, engineInputs);
 
                     /*
                      * RESULT STORAGE
@@ -377,6 +293,130 @@ public class SimulationWorker extends Worker {
         return Result.success();
     }
 
+    /** The engine inputs for one scenario: scenario-level inputs plus one InputData per inverter. */
+    static final class EngineInputs {
+        final ScenarioInputs scenarioInputs;
+        final Map<Inverter, SimulationEngine.InputData> inputDataMap;
+        final int rowsToProcess;
+
+        EngineInputs(ScenarioInputs scenarioInputs, Map<Inverter, SimulationEngine.InputData> inputDataMap,
+                     int rowsToProcess) {
+            this.scenarioInputs = scenarioInputs;
+            this.inputDataMap = inputDataMap;
+            this.rowsToProcess = rowsToProcess;
+        }
+    }
+
+    /**
+     * Assemble the engine inputs for a scenario's components. Nothing here reads the database:
+     * the load grid and each panel's PV rows are supplied, so {@link SimulationPreview} can
+     * run the same assembly over components that were never saved.
+     * @param loadGrid The load series (no PV); each inverter merges its PV into its own copy.
+     * @param heatPumpComponent Scenario-level heat-pump demand, or null.
+     * @param panelRows A panel's PV rows.
+     */
+    static EngineInputs assembleInputs(ScenarioComponents scenarioComponents, List<SimulationInputData> loadGrid,
+                                       HeatPumpComponent heatPumpComponent,
+                                       Function<Panel, List<SimulationInputData>> panelRows) {
+        Scenario scenario = scenarioComponents.scenario;
+        double exportMax = scenarioComponents.loadProfile.getGridExportMax();
+        int rowsToProcess = 0;
+        Map<Inverter, SimulationEngine.InputData> inputDataMap = new HashMap<>();
+        // Scenario-level inputs (load export limit, hot water, EV) — shared by all inverters.
+        ScenarioInputs scenarioInputs;
+        if (scenario.isHasInverters()) {
+            // Hot water and EV are scenario-level (not inverter-bound): gather once.
+            HWSystem configuredHotWater = null;
+            Boolean hotWaterDivert = false;
+            List<HWSchedule> hotWaterSchedules = null;
+            if (scenario.isHasHWSystem()) {
+                configuredHotWater = scenarioComponents.hwSystem;
+                if (scenario.isHasHWDivert()) hotWaterDivert = scenarioComponents.hwDivert.isActive();
+                if (scenario.isHasHWSchedules() && !scenarioComponents.hwSchedules.isEmpty()) hotWaterSchedules = scenarioComponents.hwSchedules;
+            }
+            List<EVCharge> evCharges = null;
+            List<EVDivert> evDiverts = null;
+            if (scenario.isHasEVCharges() && !scenarioComponents.evCharges.isEmpty()) evCharges = scenarioComponents.evCharges;
+            if (scenario.isHasEVDivert() && !scenarioComponents.evDiverts.isEmpty()) evDiverts = scenarioComponents.evDiverts;
+            scenarioInputs = new ScenarioInputs(configuredHotWater, hotWaterDivert, hotWaterSchedules,
+                    evCharges, evDiverts, exportMax, heatPumpComponent);
+            for (Inverter inverter : scenarioComponents.inverters) {
+                // Get some load simulation data to start with
+                List<SimulationInputData> simulationInputData = VirtualLoadProfile.copyOf(loadGrid);
+                rowsToProcess = simulationInputData.size();
+
+                // Aggregate this inverter's PV keyed by UTC millis, then merge it onto the load
+                // series by matching millis (replaces the old positional + DST-magic merge).
+                Map<Long, Double> inverterPVByMillis = getPVForInverterByMillis(scenarioComponents, inverter, panelRows);
+                mergePVByMillis(simulationInputData, inverterPVByMillis);
+                // Get connected battery (if any, and max 1)
+                Battery connectedBattery = null;
+                SimulationEngine.ForceDischargeToGrid connectedDischarge = null;
+                SimulationEngine.ChargeFromGrid chargeFromGrid = null;
+                if (scenario.isHasBatteries()) {
+                    for (Battery battery : scenarioComponents.batteries)
+                        if (battery.getInverter().equals(inverter.getInverterName()))
+                            connectedBattery = battery;
+                    if (scenario.isHasLoadShifts()) {
+                        chargeFromGrid = new SimulationEngine.ChargeFromGrid(scenarioComponents.loadShifts, rowsToProcess);
+                    }
+                    if (scenario.isHasDischarges()) {
+                        List<DischargeToGrid> connectedDischarges = new ArrayList<>();
+                        for (DischargeToGrid dischargeToGrid : scenarioComponents.discharges) {
+                            if (dischargeToGrid.getInverter().equals(inverter.getInverterName()))
+                                connectedDischarges.add(dischargeToGrid);
+                        }
+                        if (!(connectedDischarges.isEmpty()))
+                            connectedDischarge = new SimulationEngine.ForceDischargeToGrid(connectedDischarges, rowsToProcess);
+                    }
+                }
+                // Associate the inverter with its inverter-bound state only. Hot water / EV
+                // are scenario-level (see scenarioInputs) and are not passed per inverter.
+                SimulationEngine.InputData iData = new SimulationEngine.InputData(inverter, simulationInputData,
+                        connectedBattery, chargeFromGrid, connectedDischarge);
+                inputDataMap.put(inverter, iData);
+            }
+        } else { // No solar simulation, but we need a 'perfect' inverter
+            Inverter inverter = new Inverter();
+            inverter.setInverterIndex(0);
+            inverter.setDc2acLoss(0);
+            inverter.setDc2dcLoss(0);
+            inverter.setAc2dcLoss(0);
+            inverter.setMinExcess(0);
+
+            // Scenario-level inputs. With no inverters there is no PV excess to divert, so
+            // (as before) hot-water divert and EV divert are not engaged here.
+            HWSystem configuredHotWater = null;
+            List<HWSchedule> hotWaterSchedules = null;
+            if (scenario.isHasHWSystem()) {
+                configuredHotWater = scenarioComponents.hwSystem;
+                if (scenario.isHasHWSchedules() && !scenarioComponents.hwSchedules.isEmpty()) hotWaterSchedules = scenarioComponents.hwSchedules;
+            }
+            List<EVCharge> evCharges = null;
+            if (scenario.isHasEVCharges() && !scenarioComponents.evCharges.isEmpty()) evCharges = scenarioComponents.evCharges;
+            scenarioInputs = new ScenarioInputs(configuredHotWater, null, hotWaterSchedules,
+                    evCharges, null, exportMax, heatPumpComponent);
+            SimulationEngine.InputData idata = new SimulationEngine.InputData(inverter, loadGrid,
+                    null, null, null);
+            inputDataMap.put(inverter, idata);
+            rowsToProcess = idata.simulationInputData.size();
+        }
+        return new EngineInputs(scenarioInputs, inputDataMap, rowsToProcess);
+    }
+
+    /**
+     * Drive the engine over a UTC TimeAxis covering the input series at the 5-minute cadence.
+     * The axis is built from the data's own millis range, so this reproduces the historical
+     * full-year run; the engine itself is period-agnostic and millis-driven.
+     */
+    static ArrayList<ScenarioSimulationData> simulate(long scenarioID, EngineInputs inputs) {
+        List<SimulationInputData> axisSeries = inputs.inputDataMap.values().iterator().next().simulationInputData;
+        long axisStart = millisOf(axisSeries.get(0));
+        TimeAxis axis = TimeAxis.fiveMinute(axisStart,
+                axisStart + (long) inputs.rowsToProcess * TimeAxis.FIVE_MINUTES_MILLIS);
+        return SimulationEngine.simulate(scenarioID, inputs.scenarioInputs, axis, inputs.inputDataMap);
+    }
+
     /**
      * Merges PV (photovoltaic) data into the simulation input data for each time step.
      * Merges aggregated PV onto the load series by matching UTC millis (replaces the old positional merge
@@ -406,12 +446,6 @@ public class SimulationWorker extends Worker {
      * @param inverter The inverter to aggregate PV for.
      * @return PV (kWh per interval) keyed by UTC millis.
      */
-    /**
-     * Builds the heat-pump demand component for a scenario: derives the sim grid millis from the load rows
-     * exactly as the engine derives {@code ctx.millis}, loads the weather (the offline sample asset for v1;
-     * the CDS-fetched series is Phase 6), and aligns/calibrates the model onto that grid. Returns null if the
-     * weather can't be loaded, so the rest of the simulation is unaffected.
-     */
     /**
      * Enqueue the CDS weather fetch for a scenario whose real weather isn't cached yet. Unique-per-scenario
      * with {@link ExistingWorkPolicy#KEEP} so repeated recompute passes don't pile up duplicate fetches; the
@@ -426,10 +460,17 @@ public class SimulationWorker extends Worker {
                 .enqueueUniqueWork("hp_weather_" + scenarioID, ExistingWorkPolicy.KEEP, fetch);
     }
 
-    private HeatPumpComponent buildHeatPumpComponent(HeatPump hp, List<SimulationInputData> gridRows,
-                                                     String[] pvPeriod) {
+    /**
+     * Builds the heat-pump demand component for a scenario: derives the sim grid millis from the load rows
+     * exactly as the engine derives {@code ctx.millis}, loads the weather (the offline sample asset for v1;
+     * the CDS-fetched series is Phase 6), and aligns/calibrates the model onto that grid. Returns null if the
+     * weather can't be loaded, so the rest of the simulation is unaffected. Also used by
+     * {@link SimulationPreview} callers, which build it once and reuse it across previews.
+     */
+    public static HeatPumpComponent buildHeatPumpComponent(Context context, HeatPump hp,
+                                                           List<SimulationInputData> gridRows, String[] pvPeriod) {
         long[] gridMillis = HeatPumpWeatherCache.gridMillis(gridRows);
-        WeatherProvider weather = loadWeather(hp, gridMillis, pvPeriod);
+        WeatherProvider weather = loadWeather(context, hp, gridMillis, pvPeriod);
         if (weather == null) return null; // weather unavailable ⇒ no heat-pump contribution
         return HeatPumpComponent.build(configFromHeatPump(hp), weather, gridMillis);
     }
@@ -440,15 +481,15 @@ public class SimulationWorker extends Worker {
      * unreadable cache — falls back to the offline sample asset. Both paths feed the <b>same</b>
      * {@link CsvWeatherProvider}, so the cache is a drop-in for the asset (Phase 6 of plans/hp/plan.md).
      */
-    private WeatherProvider loadWeather(HeatPump hp, long[] gridMillis, String[] pvPeriod) {
+    private static WeatherProvider loadWeather(Context context, HeatPump hp, long[] gridMillis, String[] pvPeriod) {
         if ("cds".equals(hp.getWeatherSource())) {
             // Same key the fetch worker wrote: the historical source period when PV was imported, else the
             // load-grid span. The cached content is already on the 2001 grid either way.
             File cache = (pvPeriod != null)
-                    ? HeatPumpWeatherCache.cacheFile(getApplicationContext(),
+                    ? HeatPumpWeatherCache.cacheFile(context,
                         hp.getLatitude(), hp.getLongitude(), pvPeriod[0], pvPeriod[1])
                     : HeatPumpWeatherCache.cacheFile(
-                        getApplicationContext(), hp.getLatitude(), hp.getLongitude(), gridMillis);
+                        context, hp.getLatitude(), hp.getLongitude(), gridMillis);
             if (cache.exists()) {
                 try (InputStream is = new FileInputStream(cache)) {
                     return new CsvWeatherProvider(new InputStreamReader(is));
@@ -462,7 +503,7 @@ public class SimulationWorker extends Worker {
             }
             return null; // CDS selected but no usable real weather ⇒ no HP contribution (never the sample asset)
         }
-        try (InputStream is = getApplicationContext().getAssets()
+        try (InputStream is = context.getAssets()
                 .open("hp-weather/era5-timeseries-2001-synthetic.csv")) {
             return new CsvWeatherProvider(new InputStreamReader(is));
         } catch (IOException e) {
@@ -507,13 +548,14 @@ public class SimulationWorker extends Worker {
         return a;
     }
 
-    private Map<Long, Double> getPVForInverterByMillis(ScenarioComponents scenarioComponents, Inverter inverter) {
+    private static Map<Long, Double> getPVForInverterByMillis(ScenarioComponents scenarioComponents, Inverter inverter,
+                                                              Function<Panel, List<SimulationInputData>> panelRows) {
         Map<Long, Double> inverterPV = new HashMap<>();
         for (int mppt = 1; mppt <= inverter.getMpptCount(); mppt++) {
             Map<Long, Double> mpptPV = new HashMap<>();
             for (Panel panel : scenarioComponents.panels) {
                 if (panel.getMppt() == mppt && panel.getInverter().equals(inverter.getInverterName())) {
-                    List<SimulationInputData> panelPV = mToutcRepository.getPVRowsForPanel(panel.getPanelIndex());
+                    List<SimulationInputData> panelPV = panelRows.apply(panel);
                     boolean parallel = panel.getConnectionMode() == Panel.PARALLEL;
                     for (SimulationInputData pvRow : panelPV) {
                         long millis = millisOf(pvRow);
@@ -673,8 +673,7 @@ public class BatterySettingsActivity extends InsetRespectingActivity {
                             mSimulationInProgress = false;
                         }
                         if ( (workInfo.getState() == WorkInfo.State.ENQUEUED || workInfo.getState() == WorkInfo.State.RUNNING)
-                                && ( workInfo.getTags().contains("com.tfcode.comparetout.scenario.loadprofile.GenerateMissingLoadDataWorker")
-                                || workInfo.getTags().contains("com.tfcode.comparetout.scenario.SimulationWorker")
+                                && ( workInfo.getTags().contains("com.tfcode.comparetout.scenario.SimulationWorker")
                                 || workInfo.getTags().contains("com.tfcode.comparetout.CostingWorker" ))) {
                             mSimulationInProgressBar.setVisibility(View.VISIBLE);
                             mSimulationInProgress = true;
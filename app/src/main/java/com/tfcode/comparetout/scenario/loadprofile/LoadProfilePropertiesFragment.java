@@ -38,10 +38,6 @@ import androidx.annotation.Nullable;
 import androidx.core.view.MenuProvider;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
-import androidx.work.Data;
-import androidx.work.OneTimeWorkRequest;
-import androidx.work.WorkManager;
-import androidx.work.WorkRequest;
 
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textview.MaterialTextView;
@@ -123,7 +119,7 @@ public class LoadProfilePropertiesFragment extends Fragment {
             if (!(null == profile)) {
                 mLoadProfile = profile;
                 updateMasterCopy();
-                checkForDataAndGenerateIfNeeded();
+                deleteDerivedDataIfSaved();
             }
             else {
                 String loadProfileJsonString = ((LoadProfileActivity) requireActivity()).getLoadProfileJson();
@@ -139,18 +135,12 @@ public class LoadProfilePropertiesFragment extends Fragment {
         });
     }
 
-    private void checkForDataAndGenerateIfNeeded() {
-        Data.Builder builder = new Data.Builder();
-        builder.putLong("LoadProfileID", mLoadProfile.getLoadProfileIndex());
-        builder.putBoolean("DeleteFirst", mSaved );
-        WorkRequest genLPDataWorkRequest =
-                new OneTimeWorkRequest.Builder(DeleteLoadDataFromProfileWorker.class)
-                        .setInputData(builder.build())
-                        .build();
-        if (!(null == getContext()))
-            WorkManager
-                .getInstance(getContext())
-                .enqueue(genLPDataWorkRequest);
+    private void deleteDerivedDataIfSaved() {
+        if (!mSaved) return;
+        long loadProfileID = mLoadProfile.getLoadProfileIndex();
+        mViewModel.deleteLoadProfileData(loadProfileID);
+        mViewModel.deleteSimulationDataForProfileID(loadProfileID);
+        mViewModel.deleteCostingDataForProfileID(loadProfileID);
     }
 
     @Override
@@ -3,6 +3,7 @@ package com.tfcode.comparetout.ui2
 import android.app.Application
 import android.content.Context
 import android.util.Log
+import com.tfcode.comparetout.model.QueryResultCache
 import com.tfcode.comparetout.model.ToutcRepository
 import dagger.Module
 import dagger.Provides
@@ -23,4 +24,10 @@ object AppModule {
         Log.d("UI2", "AppModule.provideRepository — ToutcRepository created: $repo")
         return repo
     }
+
+    /** Chart and KPI query results shared by the UI2 view models; see [QueryResultCache]. */
+    @Provides
+    @Singleton
+    fun provideQueryResultCache(repository: ToutcRepository): QueryResultCache =
+        QueryResultCache({ repository.dataVersion }, QueryResultCache.DEFAULT_MAX_WEIGHT)
 }
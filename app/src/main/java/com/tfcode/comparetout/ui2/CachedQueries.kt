@@ -0,0 +1,108 @@
+package com.tfcode.comparetout.ui2
+
+import com.tfcode.comparetout.model.QueryResultCache
+import com.tfcode.comparetout.model.ToutcRepository
+import com.tfcode.comparetout.model.importers.IntervalRow
+import com.tfcode.comparetout.model.importers.alphaess.KPIRow
+import java.time.LocalDate
+import java.util.TreeMap
+
+/**
+ * The aggregate queries the UI2 screens chart and total, read through the shared
+ * [QueryResultCache]. Graphs, Dashboard and Compare all key the same query the same way
+ * here, so a range one screen loaded is a memory hit for the others.
+ */
+enum class RowBucket { HOUR, DOY, DATE, DOW, MONTH, YEAR }
+
+/**
+ * Imported-source rows for [sysSn] over [from]..[to] (yyyy-MM-dd), summed or averaged per bucket.
+ * Day-or-coarser sums are folded from [sourceDays] rather than queried, so every screen and
+ * widget over one source shares a single scan of the daily rollup.
+ */
+fun QueryResultCache.sourceRows(
+    repository: ToutcRepository, sysSn: String, from: String, to: String,
+    bucket: RowBucket, average: Boolean = false
+): List<IntervalRow> = get(listOf("source", sysSn, from, to, bucket, average)) {
+    if (average) when (bucket) {
+        RowBucket.HOUR  -> repository.getAvgHour(sysSn, from, to)
+        RowBucket.DOY   -> repository.getAvgDOY(sysSn, from, to)
+        RowBucket.DOW   -> repository.getAvgDOW(sysSn, from, to)
+        RowBucket.MONTH -> repository.getAvgMonth(sysSn, from, to)
+        RowBucket.YEAR  -> repository.getAvgYear(sysSn, from, to)
+        RowBucket.DATE  -> throw IllegalArgumentException("No per-date average query")
+    } else when (bucket) {
+        RowBucket.HOUR  -> repository.getSumHour(sysSn, from, to)
+        else            -> foldDays(daysBetween(repository, sysSn, from, to), bucket)
+    }
+}
+
+/**
+ * Every day of [sysSn]'s imported data, one row per date in date order, from one scan of
+ * the daily rollup. Small (365 rows a year) and reused for every range of the source.
+ */
+fun QueryResultCache.sourceDays(repository: ToutcRepository, sysSn: String): List<IntervalRow> =
+    get(listOf("sourceDays", sysSn)) { repository.getSumByDate(sysSn, "0000-01-01", "9999-12-31") }
+
+/** The self-consumption / sufficiency KPIs for [sysSn] over [from]..[to], as [ToutcRepository.getKPIs] computes them. */
+fun QueryResultCache.sourceKpis(
+    repository: ToutcRepository, sysSn: String, from: String, to: String
+): KPIRow = get(listOf("sourceKpis", sysSn, from, to)) {
+    val days = daysBetween(repository, sysSn, from, to)
+    val pvSum = days.sumOf { it.pv }
+    val feedSum = days.sumOf { it.feed }
+    val loadSum = days.sumOf { it.load }
+    // SQL sums over no rows are NULL, and SQLite divides by zero to NULL
+    fun ratio(n: Double, d: Double) = if (days.isEmpty() || d == 0.0) null else n / d * 100
+    KPIRow().apply {
+        selfConsumption    = ratio(pvSum - feedSum, pvSum)
+        selfSufficiency    = ratio(pvSum - feedSum, loadSum)
+        maxSelfSufficiency = ratio(pvSum, loadSum)
+        pv   = if (days.isEmpty()) null else Math.round(pvSum * 100) / 100.0
+        feed = if (days.isEmpty()) null else Math.round(feedSum * 100) / 100.0
+    }
+}
+
+private fun QueryResultCache.daysBetween(
+    repository: ToutcRepository, sysSn: String, from: String, to: String
+): List<IntervalRow> = sourceDays(repository, sysSn).filter { it.interval in from..to }
+
+/** Sum per-date rows into [bucket]s, keyed and ordered as the matching DAO group-by. */
+private fun foldDays(days: List<IntervalRow>, bucket: RowBucket): List<IntervalRow> {
+    if (bucket == RowBucket.DATE) return days
+    val buckets = TreeMap<Int, IntervalRow>()
+    for (day in days) {
+        val date = runCatching { LocalDate.parse(day.interval) }.getOrNull() ?: continue
+        val key = when (bucket) {
+            RowBucket.DOY   -> date.dayOfYear
+            RowBucket.DOW   -> date.dayOfWeek.value % 7     // strftime('%w'): 0 = Sunday
+            RowBucket.MONTH -> date.year * 100 + date.monthValue
+            RowBucket.YEAR  -> date.year
+            else            -> throw IllegalArgumentException("No daily fold for $bucket")
+        }
+        buckets.getOrPut(key) { IntervalRow().apply { interval = key.toString() } }.add(day)
+    }
+    return buckets.values.toList()
+}
+
+/** Simulation rows for [scenarioId] over [from]..[to], summed or averaged per bucket. */
+fun QueryResultCache.simRows(
+    repository: ToutcRepository, scenarioId: Long, from: String, to: String,
+    bucket: RowBucket, average: Boolean = false
+): List<IntervalRow> = get(listOf("sim", scenarioId, from, to, bucket, average)) {
+    val id = scenarioId.toString()
+    if (average) when (bucket) {
+        RowBucket.HOUR  -> repository.getSimAvgHour(id, from, to)
+        RowBucket.DOY   -> repository.getSimAvgDOY(id, from, to)
+        RowBucket.DOW   -> repository.getSimAvgDOW(id, from, to)
+        RowBucket.MONTH -> repository.getSimAvgMonth(id, from, to)
+        RowBucket.YEAR  -> repository.getSimAvgYear(id, from, to)
+        RowBucket.DATE  -> throw IllegalArgumentException("Simulation rows are per day of year")
+    } else when (bucket) {
+        RowBucket.HOUR  -> repository.getSimSumHour(id, from, to)
+        RowBucket.DOY   -> repository.getSimSumDOY(id, from, to)
+        RowBucket.DOW   -> repository.getSimSumDOW(id, from, to)
+        RowBucket.MONTH -> repository.getSimSumMonth(id, from, to)
+        RowBucket.YEAR  -> repository.getSimSumYear(id, from, to)
+        RowBucket.DATE  -> throw IllegalArgumentException("Simulation rows are per day of year")
+    }
+}
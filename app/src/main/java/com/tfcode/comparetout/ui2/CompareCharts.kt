@@ -17,6 +17,7 @@ import androidx.compose.foundation.layout.width
 import androidx.compose.material3.MaterialTheme
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.remember
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.geometry.Offset
@@ -26,6 +27,7 @@ import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.Path
 import androidx.compose.ui.res.stringResource
 import com.tfcode.comparetout.R
+import com.tfcode.comparetout.util.SeriesPyramid
 import androidx.compose.ui.graphics.drawscope.DrawScope
 import androidx.compose.ui.graphics.drawscope.Stroke
 import androidx.compose.ui.graphics.drawscope.clipPath
@@ -377,6 +379,10 @@ fun buildCompareLines(data: List<ChartDatum>, series: List<SeriesDef>): List<Com
     return lines
 }
 
+/** The line's buckets indexed for drawing at screen resolution; x is the bucket index. */
+private fun CompareLine.pyramid(): SeriesPyramid =
+    SeriesPyramid(FloatArray(points.size) { it.toFloat() }, FloatArray(points.size) { points[it].toFloat() })
+
 private fun shortenLabel(s: String): String = if (s.length <= 18) s else s.take(17) + "…"
 
 /**
@@ -399,6 +405,9 @@ fun CompareLineChart(
 ) {
     val lines = buildCompareLines(data, series)
     if (lines.isEmpty()) return
+    // Long HOUR-scale ranges hold far more buckets than the plot has pixels; draw each line
+    // from a min/max pyramid at the canvas width instead of every bucket.
+    val pyramids = remember(lines) { lines.map { it.pyramid() } }
     val allPts = lines.flatMap { it.points }
     val dataMax = allPts.maxOrNull() ?: 1.0
     val dataMin = allPts.minOrNull() ?: 0.0
@@ -428,16 +437,17 @@ fun CompareLineChart(
                     Offset(axisW, zeroY), Offset(size.width, zeroY), 2f)
             }
             val plotW = size.width - axisW
-            lines.forEach { line ->
+            lines.forEachIndexed { li, line ->
                 val n = line.points.size
-                if (n == 0) return@forEach
+                if (n == 0) return@forEachIndexed
                 val denom = (n - 1).coerceAtLeast(1).toFloat()
+                val pyramid = pyramids[li]
                 val path = Path()
-                line.points.forEachIndexed { i, v ->
+                pyramid.select(0f, denom, plotW.toInt()).forEachIndexed { k, i ->
                     val x = if (n == 1) axisW + plotW / 2f
                             else axisW + plotW * i / denom
-                    val y = zeroY - (v / span).toFloat() * plotH
-                    if (i == 0) path.moveTo(x, y) else path.lineTo(x, y)
+                    val y = zeroY - (pyramid.getY(i) / span).toFloat() * plotH
+                    if (k == 0) path.moveTo(x, y) else path.lineTo(x, y)
                 }
                 if (area) {
                     // Fill between the line and the zero baseline (which may sit
@@ -90,9 +90,9 @@ class HeatPumpWeatherFetchWorker(
         // Location + period → the shared cache path. The grid span derives the calendar period (both modes).
         val grid = repository.getSimulationInputNoSolar(scenarioID)
         if (grid.isEmpty()) {
-            // We run AFTER GenerateMissingLoadDataWorker in the chain, so its load rows are already committed —
-            // an empty grid here means the scenario genuinely has no load data, in which case the sim won't use
-            // weather anyway. Don't block the chained sim with retries; skip (it falls back to the sample asset).
+            // Distribution-only profiles are computed on read, so an empty grid here means the scenario has no
+            // load profile at all, in which case the sim won't use weather anyway. Don't block the chained sim
+            // with retries; skip (it falls back to the sample asset).
             finish("Heat-pump weather: no load data — using sample weather")
             return Result.success()
         }
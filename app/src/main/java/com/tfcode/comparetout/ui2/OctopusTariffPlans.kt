@@ -27,22 +27,29 @@ import com.tfcode.comparetout.model.priceplan.DayRate
 import com.tfcode.comparetout.model.priceplan.DoubleHolder
 import com.tfcode.comparetout.model.priceplan.MinuteRateRange
 import com.tfcode.comparetout.model.priceplan.PricePlan
+import com.tfcode.comparetout.model.priceplan.PriceSeries
 import dagger.hilt.EntryPoint
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
 import kotlinx.coroutines.runBlocking
 import java.time.Instant
 import java.time.LocalDate
+import java.time.LocalDateTime
 import java.time.OffsetDateTime
 import java.time.ZoneId
+import java.time.ZoneOffset
 import javax.inject.Inject
 import javax.inject.Singleton
 
 /**
  * Generates real supplier plans from the public Octopus Energy tariff API for
  * one GSP region ("A".."P"): every import product open for sign-up, excluding
- * dynamic pricing (Agile/Tracker — the repeating DayRate model cannot hold
- * per-day prices, OQ-1) and prepay/business/restricted products.
+ * Tracker (daily prices) and prepay/business/restricted products.
+ *
+ * Agile is generated as a dynamic plan: its half-hourly unit rates for the
+ * last year are stored as a [PriceSeries], and each later run appends what
+ * has been published since. The plan's day rate is the series' flat average,
+ * which applies wherever the series has no price.
  *
  * The export rate on every generated plan is the region's Outgoing Fixed rate
  * (a labelled assumption — see the plan's reference note). Standing charges
@@ -97,8 +104,7 @@ class OctopusTariffPlans @Inject constructor(
 
             val openImports = products.filter {
                 it.direction == "IMPORT" && it.availableTo == null &&
-                        !it.isTracker && !it.isPrepay && !it.isBusiness && !it.isRestricted &&
-                        !it.code.startsWith("AGILE")
+                        !it.isTracker && !it.isPrepay && !it.isBusiness && !it.isRestricted
             }
             val codes = openImports.map { it.code }.toMutableList()
 
@@ -112,6 +118,20 @@ class OctopusTariffPlans @Inject constructor(
             for (code in codes) {
                 // Polite spacing between public-API bursts.
                 Thread.sleep(POLITE_DELAY_MS)
+                if (code.startsWith(AGILE_PREFIX)) {
+                    val synced = try {
+                        syncDynamicPlan(client, code, gsp, feedRate, existingNames)
+                    } catch (e: OctopusException) {
+                        null
+                    }
+                    when {
+                        synced == null -> skipped++
+                        synced.second -> added++
+                        else -> existing++
+                    }
+                    if (synced != null && code == currentProductCode) currentPlanName = synced.first
+                    continue
+                }
                 val plan = try {
                     buildPlan(client, code, gsp, feedRate)
                 } catch (e: OctopusException) {
@@ -179,6 +199,94 @@ class OctopusTariffPlans @Inject constructor(
         return plan to listOf(dayRate)
     }
 
+    /**
+     * Adds the dynamic plan for [productCode] in [gsp], or refreshes the stored
+     * series of one added earlier. Returns the plan name and whether it was
+     * added, or null when the product has no single-register tariff there or
+     * no prices came back for a new plan.
+     */
+    private fun syncDynamicPlan(
+        client: OctopusRestClient,
+        productCode: String,
+        gsp: String,
+        feedRate: Double,
+        existingNames: Set<String>
+    ): Pair<String, Boolean>? {
+        val detail = client.getProductDetail(productCode)
+        val regional = detail.singleRegisterElectricityTariffs?.get(gsp) ?: return null
+        val tariff = regional["direct_debit_monthly"] ?: regional.values.firstOrNull() ?: return null
+        val tariffCode = tariff.code ?: return null
+        val name = detail.displayName ?: productCode
+
+        val existingId = if (name in existingNames) repository.allPricePlansNow
+            ?.firstOrNull { it.supplier == SUPPLIER && it.planName == name }?.pricePlanIndex else null
+        val stored = existingId?.let { repository.getPriceSeries(it) }
+        // A same-named plan without a series is the user's own; leave it alone.
+        if (existingId != null && stored == null) return name to false
+
+        // Re-fetch the last stored day (prices can be restated), else a year of history.
+        val periodFrom = if (stored != null && !stored.isEmpty)
+            LocalDateTime.ofEpochSecond(stored.lastEnd / 1000, 0, ZoneOffset.UTC)
+                .minusDays(1).atZone(LONDON).toInstant()
+        else LocalDate.now(LONDON).minusDays(HISTORY_DAYS).atStartOfDay(LONDON).toInstant()
+        val periodTo = LocalDate.now(LONDON).plusDays(2).atStartOfDay(LONDON).toInstant()
+        val fetched = priceSeries(client.getStandardUnitRates(
+            productCode, tariffCode, periodFrom.toString(), periodTo.toString()))
+
+        if (existingId != null && stored != null) {
+            val merged = stored.append(fetched)
+            if (merged.size() != stored.size() || merged.lastEnd != stored.lastEnd)
+                repository.replacePriceSeriesNow(existingId, merged)
+            return name to false
+        }
+        if (fetched.isEmpty) return null
+
+        val standingPencePerDay = firstRate(
+            client.getStandingCharges(productCode, tariffCode, yesterdayFrom(), yesterdayTo())
+        ) ?: 0.0
+        val plan = PricePlan()
+        plan.supplier = SUPPLIER
+        plan.planName = name
+        plan.standingCharges = standingPencePerDay * 365.0 / 100.0   // pence/day → £/year
+        plan.feed = feedRate
+        plan.isDeemedExport = false
+        plan.reference = "Auto-generated from the Octopus API ($tariffCode). " +
+                "Dynamic half-hourly prices, refreshed on each sync; the flat average applies " +
+                "outside them. Export rate assumes Outgoing Fixed."
+        plan.isActive = true
+
+        val average = fetched.mean()
+        val dayRate = DayRate()
+        dayRate.days = IntHolder()               // all days
+        val mrr = MinuteRateRange()
+        mrr.add(0, 1440, average)
+        dayRate.minuteRateRange = mrr
+        val hours = DoubleHolder()
+        for (h in 0..24) hours.doubles[h] = average
+        dayRate.hours = hours
+
+        return if (repository.insertDynamicPricePlanNow(plan, listOf(dayRate), fetched) == 0L) null
+        else name to true
+    }
+
+    /** Unit-rate entries (newest first from the API) as a wall-clock Europe/London series. */
+    private fun priceSeries(rates: List<RatesResponse.Rate>): PriceSeries {
+        val slots = rates
+            .filter { it.paymentMethod == null || it.paymentMethod.equals("DIRECT_DEBIT", true) }
+            .mapNotNull { rate ->
+                val from = rate.validFrom?.let { parseInstant(it) } ?: return@mapNotNull null
+                val to = rate.validTo?.let { parseInstant(it) } ?: from.plusSeconds(SLOT_SECONDS)
+                Triple(wallMillis(from), wallMillis(to), rate.valueIncVat)
+            }
+            .sortedBy { it.first }
+        val builder = PriceSeries.Builder(slots.size)
+        slots.forEach { (start, end, price) -> builder.add(start, end, price) }
+        return builder.build()
+    }
+
+    private fun wallMillis(instant: Instant): Long =
+        PriceSeries.wallMillis(instant.atZone(LONDON).toLocalDateTime())
+
     /**
      * Yesterday's unit-rate entries mapped onto minutes-of-day in Europe/London.
      * Returns null when the pattern is dynamic (too many distinct windows) or
@@ -282,6 +390,9 @@ class OctopusTariffPlans @Inject constructor(
     private companion object {
         const val SUPPLIER = "Octopus Energy"
         const val MAX_DAILY_WINDOWS = 12
+        const val AGILE_PREFIX = "AGILE"
+        const val HISTORY_DAYS = 366L
+        const val SLOT_SECONDS = 30 * 60L
         const val POLITE_DELAY_MS = 200L
         val LONDON: ZoneId = ZoneId.of("Europe/London")
     }
@@ -0,0 +1,68 @@
+package com.tfcode.comparetout.ui2
+
+import android.os.Process
+import android.util.Log
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Loads the periods either side of the one on screen, so a step back or forward is a
+ * [com.tfcode.comparetout.model.QueryResultCache] hit rather than a Room query.
+ *
+ * Prefetches run one at a time on a single background-priority thread, so background DB
+ * load is at most one query. Each load waits while any [foreground] fetch is in flight,
+ * so a tap never queues behind a guess. The view models cancel their prefetch job as soon
+ * as the user changes scale, period or subject; a cancelled job stops before its next load.
+ */
+@Singleton
+class PeriodPrefetcher @Inject constructor() {
+
+    private val dispatcher = Executors.newSingleThreadExecutor { work ->
+        Thread({
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND)
+            work.run()
+        }, "period-prefetch").apply { isDaemon = true }
+    }.asCoroutineDispatcher()
+
+    @PublishedApi
+    internal val inFlight = AtomicInteger()
+
+    /** Run a fetch the user is waiting on; prefetches hold back until it finishes. */
+    inline fun <T> foreground(fetch: () -> T): T {
+        inFlight.incrementAndGet()
+        try {
+            return fetch()
+        } finally {
+            inFlight.decrementAndGet()
+        }
+    }
+
+    /** Run [loads] in order, in [scope], behind any foreground fetch. */
+    fun launch(scope: CoroutineScope, loads: List<() -> Unit>): Job = scope.launch(dispatcher) {
+        for (load in loads) {
+            while (inFlight.get() > 0) delay(IDLE_POLL_MILLIS)
+            ensureActive()
+            try {
+                load()
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.w(TAG, "Prefetch failed", e)
+            }
+        }
+    }
+
+    private companion object {
+        const val TAG = "PeriodPrefetcher"
+        const val IDLE_POLL_MILLIS = 50L
+    }
+}
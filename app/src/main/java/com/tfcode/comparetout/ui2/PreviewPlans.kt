@@ -0,0 +1,24 @@
+package com.tfcode.comparetout.ui2
+
+import com.tfcode.comparetout.model.ToutcRepository
+import com.tfcode.comparetout.scenario.SimulationPreview
+import com.tfcode.comparetout.util.SourceCostCache
+
+/**
+ * The [count] plans that came cheapest for the stored scenario [scenarioId], compiled for one
+ * [SimulationPreview]. Empty until that scenario has been costed. Simple mode and the wizard
+ * both preview against these, so a live number is comparable with the scenario's own ranking.
+ */
+internal fun cheapestPreviewPlans(
+    repository: ToutcRepository, scenarioId: Long, count: Int
+): List<SimulationPreview.Plan> {
+    val cheapest = repository.getAllCostingsForScenario(scenarioId).orEmpty()
+        .sortedBy { it.net }.take(count).map { it.pricePlanID }
+    if (cheapest.isEmpty()) return emptyList()
+    val plans = repository.allPricePlansNow.orEmpty().associateBy { it.pricePlanIndex }
+    return cheapest.mapNotNull { planId ->
+        val plan = plans[planId] ?: return@mapNotNull null
+        SimulationPreview.Plan(plan, SourceCostCache.compile(repository, plan).newLookup(),
+            repository.getPriceSeries(planId)?.projectTo2001())
+    }
+}
@@ -22,6 +22,7 @@ import com.tfcode.comparetout.model.ToutcRepository
 import com.tfcode.comparetout.model.json.JsonTools
 import com.tfcode.comparetout.model.json.priceplan.PricePlanJsonFile
 import com.tfcode.comparetout.model.priceplan.DayRate
+import com.tfcode.comparetout.model.priceplan.PricePlan
 import com.tfcode.comparetout.region.RegionProfiles
 import dagger.hilt.EntryPoint
 import dagger.hilt.InstallIn
@@ -44,7 +45,13 @@ import javax.inject.Singleton
  *
  * This is the same payload + transform the legacy `MainActivity` "download"
  * menu used (`MainActivity.java:600-665`), ported to Kotlin/coroutines and
- * routed through the public [ToutcRepository] surface — no DAO/Java edits.
+ * routed through the public [ToutcRepository] surface.
+ *
+ * The sync is incremental: each downloaded plan (with its day rates and
+ * restrictions) is hashed with [PricePlan.computeContentHash] and compared with
+ * the stored plan's hash, so only new and changed plans are written, in one
+ * transaction. A changed plan keeps its ID and loses only its own costings, so
+ * a refresh that changes two plans re-costs two plans, not the catalogue.
  *
  * Simple mode needs *real* tariffs to show a meaningful cost (fabricated
  * samples are unacceptable), but the list is community-maintained and **may be
@@ -57,9 +64,10 @@ class PricePlanDownloader @Inject constructor(
 ) {
 
     sealed class Result {
-        /** [added] new plans inserted, [replaced] existing names overwritten
-         * (only possible when clobber = true). */
-        data class Loaded(val added: Int, val replaced: Int) : Result()
+        /** [added] new plans inserted, [replaced] existing plans whose content
+         * changed and were overwritten (only possible when clobber = true),
+         * [unchanged] existing plans left as stored. */
+        data class Loaded(val added: Int, val replaced: Int, val unchanged: Int = 0) : Result()
         /** The fetch succeeded but the list was empty. */
         data object Empty : Result()
         /** No connectivity / host unreachable — distinct so the UI can prompt a retry. */
@@ -69,8 +77,8 @@ class PricePlanDownloader @Inject constructor(
 
     /**
      * @param clobber when true, a downloaded plan whose name already exists
-     *   overwrites it; when false (default) the existing plan is kept and the
-     *   download is effectively additive.
+     *   overwrites it if its content differs; when false (default) the existing
+     *   plan is kept and the download is effectively additive.
      */
     suspend fun download(clobber: Boolean = false): Result = withContext(Dispatchers.IO) {
         // The feed is region-specific; an edition without a curated feed
@@ -86,18 +94,35 @@ class PricePlanDownloader @Inject constructor(
 
             if (plans.isEmpty()) return@withContext Result.Empty
 
-            val existingNames: Set<String> =
-                repository.allPricePlansNow?.mapNotNull { it.planName }?.toSet().orEmpty()
+            val stored: Map<Pair<String, String>, PricePlan> = repository.allPricePlansNow
+                .orEmpty().associateBy { it.supplier to it.planName }
+            val writes = ArrayList<PricePlan>()
+            val writeRates = ArrayList<List<DayRate>>()
             var added = 0
             var replaced = 0
+            var unchanged = 0
             plans.forEach { pp ->
                 val plan = JsonTools.createPricePlan(pp)
                 val drs = ArrayList<DayRate>()
                 pp.rates?.forEach { drs.add(JsonTools.createDayRate(it)) }
-                repository.insert(plan, drs, clobber)
-                if (plan.planName in existingNames) replaced += 1 else added += 1
+                val existing = stored[plan.supplier to plan.planName]
+                when {
+                    existing == null -> {
+                        writes += plan
+                        writeRates += drs
+                        added += 1
+                    }
+                    !clobber || storedHash(existing) == plan.computeContentHash(drs) -> unchanged += 1
+                    else -> {
+                        plan.pricePlanIndex = existing.pricePlanIndex
+                        writes += plan
+                        writeRates += drs
+                        replaced += 1
+                    }
+                }
             }
-            Result.Loaded(added, replaced)
+            repository.syncPricePlansNow(writes, writeRates)
+            Result.Loaded(added, replaced, unchanged)
         } catch (e: UnknownHostException) {
             Result.NoNetwork
         } catch (e: ConnectException) {
@@ -111,6 +136,14 @@ class PricePlanDownloader @Inject constructor(
         }
     }
 
+    /** The stored plan's content hash, computed and recorded once for plans stored before v18. */
+    private fun storedHash(plan: PricePlan): Long {
+        if (plan.contentHash != 0L) return plan.contentHash
+        val hash = plan.computeContentHash(repository.getAllDayRatesForPricePlanID(plan.pricePlanIndex))
+        repository.setPricePlanContentHash(plan.pricePlanIndex, hash)
+        return hash
+    }
+
     companion object {
 
         /**
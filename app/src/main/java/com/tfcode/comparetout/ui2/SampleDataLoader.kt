@@ -32,7 +32,6 @@ import com.tfcode.comparetout.model.json.priceplan.PricePlanJsonFile
 import com.tfcode.comparetout.model.json.scenario.ScenarioJsonFile
 import com.tfcode.comparetout.model.priceplan.DayRate
 import com.tfcode.comparetout.scenario.SimulationWorker
-import com.tfcode.comparetout.scenario.loadprofile.GenerateMissingLoadDataWorker
 import dagger.hilt.EntryPoint
 import dagger.hilt.InstallIn
 import dagger.hilt.android.qualifiers.ApplicationContext
@@ -137,7 +136,7 @@ class SampleDataLoader @Inject constructor(
      * Build a single WorkManager chain that fetches PVGIS data for every panel
      * BEFORE running the simulation pipeline:
      *
-     *     [PVGIS_1, PVGIS_2, …] → GenerateLoad → Simulate → Cost
+     *     [PVGIS_1, PVGIS_2, …] → Simulate → Cost
      *
      * Why not just `SimulatorLauncher.simulateIfNeeded` like the wizard does?
      * Because `SimulationWorker` skips any scenario whose panels don't yet have
@@ -161,17 +160,16 @@ class SampleDataLoader @Inject constructor(
                 .addTag("pvgis_direct_$id")
                 .build()
         }
-        val generateLoad = OneTimeWorkRequestBuilder<GenerateMissingLoadDataWorker>().build()
         val simulate     = OneTimeWorkRequestBuilder<SimulationWorker>().build()
         val cost         = OneTimeWorkRequestBuilder<CostingWorker>().build()
 
-        val afterPvgis: WorkContinuation = if (pvgisRequests.isEmpty()) {
-            wm.beginUniqueWork("Simulation", ExistingWorkPolicy.REPLACE, generateLoad)
+        val throughSim: WorkContinuation = if (pvgisRequests.isEmpty()) {
+            wm.beginUniqueWork("Simulation", ExistingWorkPolicy.REPLACE, simulate)
         } else {
             wm.beginUniqueWork("Simulation", ExistingWorkPolicy.REPLACE, pvgisRequests)
-                .then(generateLoad)
+                .then(simulate)
         }
-        afterPvgis.then(simulate).then(cost).enqueue()
+        throughSim.then(cost).enqueue()
     }
 
     private fun readAsset(path: String): String =
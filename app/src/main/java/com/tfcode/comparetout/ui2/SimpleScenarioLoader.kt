@@ -40,7 +40,6 @@ import com.tfcode.comparetout.model.scenario.Panel
 import com.tfcode.comparetout.model.scenario.Scenario
 import com.tfcode.comparetout.model.scenario.ScenarioComponents
 import com.tfcode.comparetout.scenario.SimulationWorker
-import com.tfcode.comparetout.scenario.loadprofile.GenerateMissingLoadDataWorker
 import com.tfcode.comparetout.scenario.loadprofile.StandardLoadProfiles
 import dagger.hilt.EntryPoint
 import dagger.hilt.InstallIn
@@ -138,6 +137,30 @@ class SimpleScenarioLoader @Inject constructor(
         }
     }
 
+    /**
+     * Run the pipeline again for an already built scenario, e.g. after the simulation was
+     * blocked because a panel's PVGIS data could not be fetched.
+     */
+    suspend fun rerun(scenarioId: Long): Result = withContext(Dispatchers.IO) {
+        try {
+            val panelIds = repository.getPanelsForScenario(scenarioId).orEmpty().map { it.panelIndex }
+            enqueuePipeline(panelIds)
+            Result.Built(scenarioId, panelIds.size)
+        } catch (e: Exception) {
+            Result.Failed(e)
+        }
+    }
+
+    /**
+     * The components [buildAndRun] would insert for [inputs], without touching the DB —
+     * for [com.tfcode.comparetout.scenario.SimulationPreview]. Null when the usage
+     * distribution can't be resolved.
+     */
+    fun components(inputs: SimpleInputs): ScenarioComponents? {
+        val (hourly, daily, monthly, sourceLabel) = resolveDistribution(inputs.usage) ?: return null
+        return buildComponents(inputs, hourly, daily, monthly, sourceLabel)
+    }
+
     // ── Component assembly ────────────────────────────────────────────────
 
     private fun buildComponents(
@@ -305,7 +328,7 @@ class SimpleScenarioLoader @Inject constructor(
      * the simulation runs (the simulator skips scenarios whose panels have no
      * data yet — see [SampleDataLoader]'s note):
      *
-     *     [PVGIS_1, …] → GenerateLoad → Simulate → Cost
+     *     [PVGIS_1, …] → Simulate → Cost
      */
     private fun enqueuePipeline(panelIds: List<Long>) {
         val wm = WorkManager.getInstance(context)
@@ -317,17 +340,16 @@ class SimpleScenarioLoader @Inject constructor(
                 .addTag("pvgis_direct_$id")
                 .build()
         }
-        val generateLoad = OneTimeWorkRequestBuilder<GenerateMissingLoadDataWorker>().build()
         val simulate = OneTimeWorkRequestBuilder<SimulationWorker>().build()
         val cost = OneTimeWorkRequestBuilder<CostingWorker>().build()
 
-        val afterPvgis: WorkContinuation = if (pvgisRequests.isEmpty()) {
-            wm.beginUniqueWork("Simulation", ExistingWorkPolicy.REPLACE, generateLoad)
+        val throughSim: WorkContinuation = if (pvgisRequests.isEmpty()) {
+            wm.beginUniqueWork("Simulation", ExistingWorkPolicy.REPLACE, simulate)
         } else {
             wm.beginUniqueWork("Simulation", ExistingWorkPolicy.REPLACE, pvgisRequests)
-                .then(generateLoad)
+                .then(simulate)
         }
-        afterPvgis.then(simulate).then(cost).enqueue()
+        throughSim.then(cost).enqueue()
     }
 
     companion object {
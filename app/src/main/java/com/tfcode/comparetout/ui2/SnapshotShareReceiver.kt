@@ -0,0 +1,26 @@
+package com.tfcode.comparetout.ui2
+
+import android.app.Application
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.util.Log
+import com.tfcode.comparetout.model.SnapshotExporter
+
+/**
+ * Called by the share chooser once the user has picked a target for a
+ * snapshot. Only then do the export's marks become the base of the next
+ * delta, so a cancelled share doesn't leave the next delta missing rows
+ * the receiving device never got.
+ */
+class SnapshotShareReceiver : BroadcastReceiver() {
+
+    override fun onReceive(context: Context, intent: Intent) {
+        runCatching { SnapshotExporter(context.applicationContext as Application).keepPendingBase() }
+            .onFailure { Log.w(TAG, "Could not keep the delta base", it) }
+    }
+
+    private companion object {
+        const val TAG = "SnapshotShare"
+    }
+}
@@ -11,15 +11,23 @@ import com.tfcode.comparetout.ComparisonUIViewModel
 import com.tfcode.comparetout.R
 import com.tfcode.comparetout.TOUTCApplication
 import com.tfcode.comparetout.region.RegionProfiles
+import com.tfcode.comparetout.model.QueryResultCache
 import com.tfcode.comparetout.model.ToutcRepository
 import com.tfcode.comparetout.model.costings.SubTotals
+import com.tfcode.comparetout.model.importers.CostInputRow
 import com.tfcode.comparetout.model.importers.InverterDateRange
 import com.tfcode.comparetout.model.priceplan.PricePlan
+import com.tfcode.comparetout.model.priceplan.PriceSeries
 import com.tfcode.comparetout.model.scenario.Scenario
-import com.tfcode.comparetout.util.RateLookup
+import com.tfcode.comparetout.util.SourceCostCache
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
@@ -34,11 +42,13 @@ import org.json.JSONObject
 import java.time.LocalDate
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import java.time.temporal.ChronoUnit
 import javax.inject.Inject
 
 /** DataStore keys — the Compare tab's prefs live beside the other UI prefs. */
 private const val COMPARE_STATE_KEY = "ui2_compare_state"
 private const val NOVICE_MODE_KEY = "wizard_novice_mode"   // shared app-wide novice flag
+private const val HOUR_MILLIS = 3_600_000L                  // source cost rows are hourly sums
 
 /**
  * Granularity of the x-axis for line/area charts. AUTO derives a concrete scale
@@ -244,7 +254,8 @@ internal fun buildSimSlots(list: List<Long>, displayFor: (Long) -> String): List
 @HiltViewModel
 class UI2CompareViewModel @Inject constructor(
     private val repository: ToutcRepository,
-    private val application: Application
+    private val application: Application,
+    private val cache: QueryResultCache
 ) : ViewModel() {
 
     companion object {
@@ -753,7 +764,9 @@ class UI2CompareViewModel @Inject constructor(
         computeJob?.cancel()
         _computing.value = true
         computeJob = viewModelScope.launch(Dispatchers.IO) {
-            val res = runCatching { computeResults(s) }.getOrElse { CompareResults() }
+            val res = runCatching { computeResults(s) }
+                .onFailure { if (it is CancellationException) throw it }
+                .getOrElse { CompareResults() }
             _results.value = res
             _computing.value = false
         }
@@ -761,7 +774,15 @@ class UI2CompareViewModel @Inject constructor(
 
     // ── computation ─────────────────────────────────────────────────────────
 
-    private fun computeResults(s: CompareState): CompareResults {
+    /**
+     * Build the comparison from independent units — one usage row per subject, one cost
+     * row per subject × plan — run concurrently and recombined in slot order. Each unit is
+     * memoised in the shared [QueryResultCache] under the subject, resolved range, axis
+     * scale and plan that shape it, so a selection change only computes the units it
+     * touched; the rest come back from memory. A data source's missing plans are costed
+     * together so its days (or hourly rows) are read once, not once per plan.
+     */
+    private suspend fun computeResults(s: CompareState): CompareResults = coroutineScope {
         val sourcesByKey = sourceItems.value.associateBy { it.sysSn }
         val simsByKey    = simItems.value.associateBy { it.scenarioId }
         val plans        = _plans.value.filter { it.pricePlanIndex in s.plans }
@@ -773,31 +794,52 @@ class UI2CompareViewModel @Inject constructor(
         val wantCost  = s.what != CompareWhat.USAGE
         val wantUsage = s.what != CompareWhat.COST
 
-        val costRows  = mutableListOf<CompareCostRow>()
-        val usageRows = mutableListOf<CompareUsageRow>()
+        val usageUnits = mutableListOf<Deferred<CompareUsageRow>>()
+        val costUnits  = mutableListOf<Deferred<List<CompareCostRow>>>()
 
         for (slot in srcSlots) {
             val src = sourcesByKey[slot.sysSn] ?: continue
             val (gran, anchor) = resolveRange(s, slot.subjectId) ?: continue
+            val (from, to) = dateRange(gran, anchor, s.advanced, src.startDate, src.finishDate)
             // Resolve the chart axis scale per subject — AUTO picks from this
             // subject's own timeframe so two subjects with different ranges can
             // legitimately get different scales (e.g. 2 months → Day, 3 yrs → Month).
-            val scale = if (s.displayScale == CompareAxisScale.AUTO)
-                CompareAxisScale.resolveAuto(subjectSpanDays(src, gran, anchor, s.advanced))
-            else s.displayScale
-            if (wantUsage) usageRows += sourceUsage(src, gran, anchor, s.advanced, scale, slot.subjectId, slot.displayName)
-            if (wantCost)  costRows  += sourceCosts(src, gran, anchor, s.advanced, scale, plans, slot.subjectId, slot.displayName)
+            val scale = resolveScale(s.displayScale, from, to)
+            if (wantUsage) usageUnits += async {
+                cache.get(listOf("cmpSourceUsage", src.sysSn, from, to, scale)) {
+                    sourceUsage(src.sysSn, from, to, scale)
+                }.copy(subjectId = slot.subjectId, subjectName = slot.displayName)
+            }
+            if (wantCost && plans.isNotEmpty()) costUnits += async {
+                val keys = plans.map { listOf<Any>("cmpSourceCost", src.sysSn, from, to, scale, it.pricePlanIndex) }
+                cache.getAll(keys) { missing ->
+                    sourceCosts(src.sysSn, from, to, scale, missing.map { plans[it] })
+                }.map { it.copy(subjectId = slot.subjectId, subjectName = slot.displayName) }
+            }
         }
         for (slot in simSlots) {
             val sim = simsByKey[slot.scenarioId] ?: continue
             val (gran, anchor) = resolveRange(s, slot.subjectId) ?: continue
-            val scale = if (s.displayScale == CompareAxisScale.AUTO)
-                CompareAxisScale.resolveAuto(simSpanDays(sim, gran, anchor, s.advanced))
-            else s.displayScale
-            if (wantUsage) usageRows += simUsage(sim, gran, anchor, s.advanced, scale, slot.subjectId, slot.displayName)
-            if (wantCost)  costRows  += simCosts(sim, gran, anchor, s.advanced, scale, plans, slot.subjectId, slot.displayName)
+            val dr = cache.get(listOf("simDateRange", sim.scenarioId)) {
+                repository.getSimDateRanges(sim.scenarioId.toString())
+            }
+            val (from, to) = dateRange(
+                gran, anchor, s.advanced,
+                dr?.startDate ?: "2001-01-01", dr?.finishDate ?: "2001-12-31"
+            )
+            val scale = resolveScale(s.displayScale, from, to)
+            if (wantUsage) usageUnits += async {
+                cache.get(listOf("cmpSimUsage", sim.scenarioId, from, to, scale)) {
+                    simUsage(sim.scenarioId, from, to, scale)
+                }.copy(subjectId = slot.subjectId, subjectName = slot.displayName)
+            }
+            if (wantCost) for (plan in plans) costUnits += async {
+                listOf(cache.get(listOf("cmpSimCost", sim.scenarioId, from, to, scale, plan.pricePlanIndex)) {
+                    simCost(sim.scenarioId, from, to, scale, plan)
+                }.copy(subjectId = slot.subjectId, subjectName = slot.displayName))
+            }
         }
-        return CompareResults(cost = costRows.sortedBy { it.net }, usage = usageRows)
+        CompareResults(cost = costUnits.awaitAll().flatten().sortedBy { it.net }, usage = usageUnits.awaitAll())
     }
 
     /** Resolve a granularity + anchor to a concrete [from, to] clamped to the data. */
@@ -811,44 +853,29 @@ class UI2CompareViewModel @Inject constructor(
                to.coerceIn(dataStart, dataEnd).format(dateFmt)
     }
 
-    /** Inclusive span in days for a subject's resolved timeframe — fuel for AUTO. */
-    private fun subjectSpanDays(
-        src: CompareSourceItem, gran: DataSourcePeriod, anchor: LocalDate, advanced: Boolean
-    ): Long {
-        val (from, to) = dateRange(gran, anchor, advanced, src.startDate, src.finishDate)
-        return parseOr(to, LocalDate.now()).toEpochDay() -
-               parseOr(from, LocalDate.now()).toEpochDay() + 1
-    }
-
-    private fun simSpanDays(
-        sim: CompareSimItem, gran: DataSourcePeriod, anchor: LocalDate, advanced: Boolean
-    ): Long {
-        val dr = repository.getSimDateRanges(sim.scenarioId.toString())
-        val (from, to) = dateRange(
-            gran, anchor, advanced,
-            dr?.startDate ?: "2001-01-01", dr?.finishDate ?: "2001-12-31"
-        )
-        return parseOr(to, LocalDate.now()).toEpochDay() -
-               parseOr(from, LocalDate.now()).toEpochDay() + 1
-    }
+    /** The axis scale for a subject's resolved [from, to]; AUTO goes by its inclusive span in days. */
+    private fun resolveScale(scale: CompareAxisScale, from: String, to: String): CompareAxisScale =
+        if (scale != CompareAxisScale.AUTO) scale
+        else CompareAxisScale.resolveAuto(
+            parseOr(to, LocalDate.now()).toEpochDay() - parseOr(from, LocalDate.now()).toEpochDay() + 1)
 
     private fun parseOr(s: String, fallback: LocalDate): LocalDate =
         runCatching { LocalDate.parse(s, dateFmt) }.getOrDefault(fallback)
 
     // ── data-source computation ─────────────────────────────────────────────
 
+    // The unit builders below leave subjectId / subjectName blank: a unit is shared by
+    // every slot with the same subject and range, and computeResults stamps each copy.
+
     private fun sourceUsage(
-        src: CompareSourceItem, gran: DataSourcePeriod, anchor: LocalDate, advanced: Boolean,
-        scale: CompareAxisScale,
-        subjectId: String, subjectName: String
+        sysSn: String, from: String, to: String, scale: CompareAxisScale
     ): CompareUsageRow {
-        val (from, to) = dateRange(gran, anchor, advanced, src.startDate, src.finishDate)
         // Totals always come from DOY (one row per day) — independent of axis scale.
-        val rows = repository.getSumDOY(src.sysSn, from, to)
-        val tlRows = fetchSourceTimelineRows(src.sysSn, from, to, scale)
+        val rows = cache.sourceRows(repository, sysSn, from, to, RowBucket.DOY)
+        val tlRows = fetchSourceTimelineRows(sysSn, from, to, scale)
         return CompareUsageRow(
-            subjectId = subjectId,
-            subjectName = subjectName,
+            subjectId = "",
+            subjectName = "",
             isSimulation = false,
             load = rows.sumOf { it.load },
             buy = rows.sumOf { it.buy },
@@ -873,105 +900,154 @@ class UI2CompareViewModel @Inject constructor(
         )
     }
 
+    /**
+     * Cost the plans against one data source, rows in the order of [plans]. Day-or-coarser
+     * buckets price every plan in one [SourceCostCache.cost] call, keyed by date prefix; only
+     * the hour-of-day axis still needs the per-row walk, and its rows are read once here
+     * before the plans are priced in parallel.
+     */
     private fun sourceCosts(
-        src: CompareSourceItem, gran: DataSourcePeriod, anchor: LocalDate, advanced: Boolean,
-        scale: CompareAxisScale,
-        plans: List<PricePlan>, subjectId: String, subjectName: String
+        sysSn: String, from: String, to: String, scale: CompareAxisScale, plans: List<PricePlan>
     ): List<CompareCostRow> {
-        val (from, to) = dateRange(gran, anchor, advanced, src.startDate, src.finishDate)
-        val hourly = repository.getSelectedAlphaESSData(src.sysSn, from, to)
         val fromD = parseOr(from, LocalDate.now())
         val toD = parseOr(to, LocalDate.now())
         val days = toD.toEpochDay() - fromD.toEpochDay() + 1
         val axis = costBucketAxis(scale, fromD, toD)
-        return plans.map { plan ->
-            val dayRates = repository.getAllDayRatesForPricePlanID(plan.pricePlanIndex)
-            val lookup = RateLookup(plan, dayRates)
-            lookup.setStartDOY(fromD.dayOfYear)
-            var buy = 0.0; var sell = 0.0
-            val n = axis.labels.size.coerceAtLeast(1)
-            val bucketedNet = DoubleArray(n)
-            val bucketedBuy = DoubleArray(n)
-            val bucketedSell = DoubleArray(n)
-            val subTotals = SubTotals()
-            hourly.forEach { row ->
-                val ldt = LocalDateTime.parse(row.dateTime, rowFmt)
-                val dow = ldt.dayOfWeek.value.let { if (it == 7) 0 else it }
-                val price = lookup.getRate(ldt.dayOfYear, ldt.hour * 60 + ldt.minute, dow, row.buy)
-                val rowBuy = price * row.buy
-                val rowSell = plan.feed * row.feed
-                buy += rowBuy
-                sell += rowSell
-                val idx = axis.indexOf(ldt)
-                if (idx in bucketedNet.indices) {
-                    bucketedNet[idx] += (rowBuy - rowSell) / 100.0
-                    bucketedBuy[idx] += rowBuy / 100.0
-                    bucketedSell[idx] += rowSell / 100.0
-                }
-                subTotals.addToPrice(price, row.buy)
+        val keyLength = when (scale) {
+            CompareAxisScale.HOUR -> 0
+            CompareAxisScale.YEAR -> 4
+            CompareAxisScale.MONTH, CompareAxisScale.AUTO -> 7
+            else -> 10
+        }
+        if (keyLength > 0) {
+            val costs = SourceCostCache.cost(repository, sysSn, from, to, plans, keyLength)
+            return plans.map { plan -> cachedCostRow(plan, costs.getValue(plan.pricePlanIndex), axis, days) }
+        }
+        val hourly = repository.getSelectedAlphaESSData(sysSn, from, to)
+        val times = hourly.map { LocalDateTime.parse(it.dateTime, rowFmt) }
+        return SourceCostCache.priceAll(plans) { plan -> hourlyCostRow(plan, hourly, times, fromD, axis, days) }
+    }
+
+    /** A plan's row from its per-day source costs, already rolled up to the axis buckets. */
+    private fun cachedCostRow(
+        plan: PricePlan, cached: SourceCostCache.PlanCost, axis: CostBucketAxis, days: Long
+    ): CompareCostRow {
+        val n = axis.labels.size.coerceAtLeast(1)
+        val bucketedNet = DoubleArray(n)
+        val bucketedBuy = DoubleArray(n)
+        val bucketedSell = DoubleArray(n)
+        cached.buckets.forEach { (key, bucket) ->
+            val date = LocalDate.parse(when (key.length) { 4 -> "$key-01-01"; 7 -> "$key-01"; else -> key })
+            val idx = axis.indexOf(date.atStartOfDay())
+            if (idx in bucketedNet.indices) {
+                bucketedNet[idx] += (bucket[0] - bucket[1]) / 100.0
+                bucketedBuy[idx] += bucket[0] / 100.0
+                bucketedSell[idx] += bucket[1] / 100.0
+            }
+        }
+        return costRow(plan, axis, days, cached.buy, cached.sell, cached.subTotals,
+            bucketedNet, bucketedBuy, bucketedSell)
+    }
+
+    /** A plan's row from a walk over the source's hourly rows (the hour-of-day axis). */
+    private fun hourlyCostRow(
+        plan: PricePlan, hourly: List<CostInputRow>, times: List<LocalDateTime>, fromD: LocalDate,
+        axis: CostBucketAxis, days: Long
+    ): CompareCostRow {
+        var buy = 0.0; var sell = 0.0
+        val n = axis.labels.size.coerceAtLeast(1)
+        val bucketedNet = DoubleArray(n)
+        val bucketedBuy = DoubleArray(n)
+        val bucketedSell = DoubleArray(n)
+        val subTotals = SubTotals()
+        val lookup = SourceCostCache.compile(repository, plan).newLookup()
+        lookup.setStartDOY(fromD.dayOfYear)
+        // Dynamic plans: merge-join the (time-ordered) rows against the unit rates.
+        val cursor = repository.getPriceSeries(plan.pricePlanIndex)?.cursor()
+        hourly.forEachIndexed { i, row ->
+            val ldt = times[i]
+            val dow = ldt.dayOfWeek.value.let { if (it == 7) 0 else it }
+            val dynamic = cursor?.mean(PriceSeries.wallMillis(ldt.truncatedTo(ChronoUnit.HOURS)), HOUR_MILLIS)
+            val coverage = cursor?.coverage ?: 0.0
+            val price = if (dynamic != null && coverage >= 1.0) dynamic else {
+                val fallback = lookup.getRate(ldt.dayOfYear, ldt.hour * 60 + ldt.minute, dow, row.buy)
+                if (dynamic != null && coverage > 0.0) dynamic * coverage + fallback * (1.0 - coverage) else fallback
             }
-            // buy cost split by tariff rate band: price × kWh-at-that-price.
-            // Keep the cheapest-first ordering of bands AND the matching rate list
-            // (c/kWh) so the pie labels can show the rate that produced each slice.
-            val sortedRates = subTotals.prices.sorted()
-            val buyBands = sortedRates
-                .map { p -> p * (subTotals.getSubTotalForPrice(p) ?: 0.0) / 100.0 }
-            val fixed = plan.standingCharges * (days / 365.0)
-            // Spread fixed / bonus across the buckets that actually hold variable
-            // cost, so the line doesn't show a flat artificial offset in empty buckets.
-            val coveredBuckets = bucketedNet.count { it != 0.0 }.coerceAtLeast(1)
-            val perBucketFixed = fixed / coveredBuckets
-            val perBucketBonus = plan.signUpBonus / coveredBuckets
-            val bucketedFixed = DoubleArray(n)
-            val bucketedBonus = DoubleArray(n)
-            for (i in bucketedNet.indices) if (bucketedNet[i] != 0.0) {
-                bucketedNet[i] += perBucketFixed
-                bucketedFixed[i] = perBucketFixed
-                bucketedBonus[i] = perBucketBonus
+            val rowBuy = price * row.buy
+            val rowSell = plan.feed * row.feed
+            buy += rowBuy
+            sell += rowSell
+            val idx = axis.indexOf(ldt)
+            if (idx in bucketedNet.indices) {
+                bucketedNet[idx] += (rowBuy - rowSell) / 100.0
+                bucketedBuy[idx] += rowBuy / 100.0
+                bucketedSell[idx] += rowSell / 100.0
             }
-            val net = (buy - sell) / 100.0 + fixed
-            CompareCostRow(
-                subjectId = subjectId,
-                subjectName = subjectName,
-                isSimulation = false,
-                planId = plan.pricePlanIndex,
-                planName = "${plan.supplier} · ${plan.planName}",
-                available = true,
-                net = net,
-                buy = buy / 100.0,
-                sell = sell / 100.0,
-                fixed = fixed,
-                bonus = plan.signUpBonus,
-                buyBands = buyBands.ifEmpty { listOf(buy / 100.0) },
-                buyBandRates = sortedRates.ifEmpty { emptyList() },
-                timeline = BucketSeries(axis.labels, mapOf(
-                    "net"   to bucketedNet.toList(),
-                    "buy"   to bucketedBuy.toList(),
-                    "sell"  to bucketedSell.toList(),
-                    "fixed" to bucketedFixed.toList(),
-                    "bonus" to bucketedBonus.toList()
-                ))
-            )
+            // Whole-unit bands for dynamic plans, as UsageIndex keeps them
+            subTotals.addToPrice(if (cursor != null) Math.round(price).toDouble() else price, row.buy)
+        }
+        return costRow(plan, axis, days, buy, sell, subTotals, bucketedNet, bucketedBuy, bucketedSell)
+    }
+
+    /** The cost row for a plan's totals (cents) and its bucketed net / buy / sell (currency). */
+    private fun costRow(
+        plan: PricePlan, axis: CostBucketAxis, days: Long, buy: Double, sell: Double, subTotals: SubTotals,
+        bucketedNet: DoubleArray, bucketedBuy: DoubleArray, bucketedSell: DoubleArray
+    ): CompareCostRow {
+        // buy cost split by tariff rate band: price × kWh-at-that-price.
+        // Keep the cheapest-first ordering of bands AND the matching rate list
+        // (c/kWh) so the pie labels can show the rate that produced each slice.
+        val sortedRates = subTotals.prices.sorted()
+        val buyBands = sortedRates
+            .map { p -> p * (subTotals.getSubTotalForPrice(p) ?: 0.0) / 100.0 }
+        val fixed = plan.standingCharges * (days / 365.0)
+        // Spread fixed / bonus across the buckets that actually hold variable
+        // cost, so the line doesn't show a flat artificial offset in empty buckets.
+        val coveredBuckets = bucketedNet.count { it != 0.0 }.coerceAtLeast(1)
+        val perBucketFixed = fixed / coveredBuckets
+        val perBucketBonus = plan.signUpBonus / coveredBuckets
+        val bucketedFixed = DoubleArray(bucketedNet.size)
+        val bucketedBonus = DoubleArray(bucketedNet.size)
+        for (i in bucketedNet.indices) if (bucketedNet[i] != 0.0) {
+            bucketedNet[i] += perBucketFixed
+            bucketedFixed[i] = perBucketFixed
+            bucketedBonus[i] = perBucketBonus
         }
+        val net = (buy - sell) / 100.0 + fixed
+        return CompareCostRow(
+            subjectId = "",
+            subjectName = "",
+            isSimulation = false,
+            planId = plan.pricePlanIndex,
+            planName = "${plan.supplier} · ${plan.planName}",
+            available = true,
+            net = net,
+            buy = buy / 100.0,
+            sell = sell / 100.0,
+            fixed = fixed,
+            bonus = plan.signUpBonus,
+            buyBands = buyBands.ifEmpty { listOf(buy / 100.0) },
+            buyBandRates = sortedRates.ifEmpty { emptyList() },
+            timeline = BucketSeries(axis.labels, mapOf(
+                "net"   to bucketedNet.toList(),
+                "buy"   to bucketedBuy.toList(),
+                "sell"  to bucketedSell.toList(),
+                "fixed" to bucketedFixed.toList(),
+                "bonus" to bucketedBonus.toList()
+            ))
+        )
     }
 
     // ── simulation computation ──────────────────────────────────────────────
 
     private fun simUsage(
-        sim: CompareSimItem, gran: DataSourcePeriod, anchor: LocalDate, advanced: Boolean,
-        scale: CompareAxisScale,
-        subjectId: String, subjectName: String
+        scenarioId: Long, from: String, to: String, scale: CompareAxisScale
     ): CompareUsageRow {
-        val dr = repository.getSimDateRanges(sim.scenarioId.toString())
-        val (from, to) = dateRange(
-            gran, anchor, advanced,
-            dr?.startDate ?: "2001-01-01", dr?.finishDate ?: "2001-12-31"
-        )
-        val rows = repository.getSimSumDOY(sim.scenarioId.toString(), from, to)
-        val tlRows = fetchSimTimelineRows(sim.scenarioId.toString(), from, to, scale)
+        val rows = cache.simRows(repository, scenarioId, from, to, RowBucket.DOY)
+        val tlRows = fetchSimTimelineRows(scenarioId, from, to, scale)
         return CompareUsageRow(
-            subjectId = subjectId,
-            subjectName = subjectName,
+            subjectId = "",
+            subjectName = "",
             isSimulation = true,
             load = rows.sumOf { it.load },
             buy = rows.sumOf { it.buy },
@@ -993,61 +1069,54 @@ class UI2CompareViewModel @Inject constructor(
         )
     }
 
-    private fun simCosts(
-        sim: CompareSimItem, gran: DataSourcePeriod, anchor: LocalDate, advanced: Boolean,
-        scale: CompareAxisScale,
-        plans: List<PricePlan>, subjectId: String, subjectName: String
-    ): List<CompareCostRow> {
+    private fun simCost(
+        scenarioId: Long, from: String, to: String, scale: CompareAxisScale, plan: PricePlan
+    ): CompareCostRow {
         // Simulations carry pre-computed annual costings (CostingWorker output).
         // The chart timeline is a smear (no per-bucket sim repricing yet) across
         // however many buckets the chosen axis scale has for this timeframe.
-        val dr = repository.getSimDateRanges(sim.scenarioId.toString())
-        val (from, to) = dateRange(
-            gran, anchor, advanced,
-            dr?.startDate ?: "2001-01-01", dr?.finishDate ?: "2001-12-31"
-        )
         val axis = costBucketAxis(scale, parseOr(from, LocalDate.now()), parseOr(to, LocalDate.now()))
         val n = axis.labels.size.coerceAtLeast(1)
-        val costings = repository.getAllCostingsForScenario(sim.scenarioId)
-        return plans.map { plan ->
-            val c = costings.firstOrNull { it.pricePlanID == plan.pricePlanIndex }
-            val net = (c?.net ?: 0.0) / 100.0
-            val buy = (c?.buy ?: 0.0) / 100.0
-            val sell = (c?.sell ?: 0.0) / 100.0
-            val fixed = plan.standingCharges
-            val bonus = plan.signUpBonus
-            val st = c?.subTotals
-            val sortedRates = if (st != null && st.prices.isNotEmpty())
-                st.prices.sorted() else emptyList()
-            val buyBands =
-                if (sortedRates.isNotEmpty())
-                    sortedRates.map { p -> p * (st!!.getSubTotalForPrice(p) ?: 0.0) / 100.0 }
-                else listOf(buy)
-            CompareCostRow(
-                subjectId = subjectId,
-                subjectName = subjectName,
-                isSimulation = true,
-                planId = plan.pricePlanIndex,
-                planName = "${plan.supplier} · ${plan.planName}",
-                available = c != null,
-                net = net,
-                buy = buy,
-                sell = sell,
-                fixed = fixed,
-                bonus = bonus,
-                buyBands = buyBands,
-                buyBandRates = sortedRates,
-                // Sims have no per-bucket cost detail (CostingWorker emits annual
-                // totals), so every series is smeared uniformly across the axis.
-                timeline = BucketSeries(axis.labels, mapOf(
-                    "net"   to List(n) { net / n },
-                    "buy"   to List(n) { buy / n },
-                    "sell"  to List(n) { sell / n },
-                    "fixed" to List(n) { fixed / n },
-                    "bonus" to List(n) { bonus / n }
-                ))
-            )
+        val costings = cache.get(listOf("simCostings", scenarioId)) {
+            repository.getAllCostingsForScenario(scenarioId)
         }
+        val c = costings.firstOrNull { it.pricePlanID == plan.pricePlanIndex }
+        val net = (c?.net ?: 0.0) / 100.0
+        val buy = (c?.buy ?: 0.0) / 100.0
+        val sell = (c?.sell ?: 0.0) / 100.0
+        val fixed = plan.standingCharges
+        val bonus = plan.signUpBonus
+        val st = c?.subTotals
+        val sortedRates = if (st != null && st.prices.isNotEmpty())
+            st.prices.sorted() else emptyList()
+        val buyBands =
+            if (sortedRates.isNotEmpty())
+                sortedRates.map { p -> p * (st!!.getSubTotalForPrice(p) ?: 0.0) / 100.0 }
+            else listOf(buy)
+        return CompareCostRow(
+            subjectId = "",
+            subjectName = "",
+            isSimulation = true,
+            planId = plan.pricePlanIndex,
+            planName = "${plan.supplier} · ${plan.planName}",
+            available = c != null,
+            net = net,
+            buy = buy,
+            sell = sell,
+            fixed = fixed,
+            bonus = bonus,
+            buyBands = buyBands,
+            buyBandRates = sortedRates,
+            // Sims have no per-bucket cost detail (CostingWorker emits annual
+            // totals), so every series is smeared uniformly across the axis.
+            timeline = BucketSeries(axis.labels, mapOf(
+                "net"   to List(n) { net / n },
+                "buy"   to List(n) { buy / n },
+                "sell"  to List(n) { sell / n },
+                "fixed" to List(n) { fixed / n },
+                "bonus" to List(n) { bonus / n }
+            ))
+        )
     }
 
     // ── bucketing helpers ───────────────────────────────────────────────────
@@ -1110,27 +1179,29 @@ class UI2CompareViewModel @Inject constructor(
     /** Pick the right DAO method for the source-usage timeline at [scale]. */
     private fun fetchSourceTimelineRows(
         sysSn: String, from: String, to: String, scale: CompareAxisScale
-    ): List<com.tfcode.comparetout.model.importers.IntervalRow> = when (scale) {
-        CompareAxisScale.AUTO  -> repository.getSumMonth(sysSn, from, to)
-        CompareAxisScale.HOUR  -> repository.getSumHour(sysSn, from, to)
-        // Calendar-date grouping, NOT day-of-year: a DOY key folds the same day of
-        // different years into one summed bucket, which corrupted multi-year ranges.
-        CompareAxisScale.DAY   -> repository.getSumByDate(sysSn, from, to)
-        CompareAxisScale.DOW   -> repository.getSumDOW(sysSn, from, to)
-        CompareAxisScale.MONTH -> repository.getSumMonth(sysSn, from, to)
-        CompareAxisScale.YEAR  -> repository.getSumYear(sysSn, from, to)
-    }
+    ): List<com.tfcode.comparetout.model.importers.IntervalRow> = cache.sourceRows(repository, sysSn, from, to,
+        when (scale) {
+            CompareAxisScale.AUTO  -> RowBucket.MONTH
+            CompareAxisScale.HOUR  -> RowBucket.HOUR
+            // Calendar-date grouping, NOT day-of-year: a DOY key folds the same day of
+            // different years into one summed bucket, which corrupted multi-year ranges.
+            CompareAxisScale.DAY   -> RowBucket.DATE
+            CompareAxisScale.DOW   -> RowBucket.DOW
+            CompareAxisScale.MONTH -> RowBucket.MONTH
+            CompareAxisScale.YEAR  -> RowBucket.YEAR
+        })
 
     private fun fetchSimTimelineRows(
-        idStr: String, from: String, to: String, scale: CompareAxisScale
-    ): List<com.tfcode.comparetout.model.importers.IntervalRow> = when (scale) {
-        CompareAxisScale.AUTO  -> repository.getSimSumMonth(idStr, from, to)
-        CompareAxisScale.HOUR  -> repository.getSimSumHour(idStr, from, to)
-        CompareAxisScale.DAY   -> repository.getSimSumDOY(idStr, from, to)
-        CompareAxisScale.DOW   -> repository.getSimSumDOW(idStr, from, to)
-        CompareAxisScale.MONTH -> repository.getSimSumMonth(idStr, from, to)
-        CompareAxisScale.YEAR  -> repository.getSimSumYear(idStr, from, to)
-    }
+        scenarioId: Long, from: String, to: String, scale: CompareAxisScale
+    ): List<com.tfcode.comparetout.model.importers.IntervalRow> = cache.simRows(repository, scenarioId, from, to,
+        when (scale) {
+            CompareAxisScale.AUTO  -> RowBucket.MONTH
+            CompareAxisScale.HOUR  -> RowBucket.HOUR
+            CompareAxisScale.DAY   -> RowBucket.DOY
+            CompareAxisScale.DOW   -> RowBucket.DOW
+            CompareAxisScale.MONTH -> RowBucket.MONTH
+            CompareAxisScale.YEAR  -> RowBucket.YEAR
+        })
 
     /**
      * Build a BucketSeries from already-grouped IntervalRow data. The DAO has
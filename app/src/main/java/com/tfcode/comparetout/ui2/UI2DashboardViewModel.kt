@@ -10,6 +10,7 @@ import androidx.lifecycle.map
 import androidx.lifecycle.viewModelScope
 import com.tfcode.comparetout.ComparisonUIViewModel
 import com.tfcode.comparetout.R
+import com.tfcode.comparetout.model.QueryResultCache
 import com.tfcode.comparetout.model.ToutcRepository
 import com.tfcode.comparetout.model.costings.Costings
 import com.tfcode.comparetout.model.costings.SubTotals
@@ -18,11 +19,15 @@ import com.tfcode.comparetout.model.scenario.PanelPVSummary
 import com.tfcode.comparetout.model.scenario.ScenarioComponents
 import com.tfcode.comparetout.model.scenario.SimKPIs
 import com.tfcode.comparetout.scenario.HeatPumpWeatherCache
-import com.tfcode.comparetout.util.RateLookup
+import com.tfcode.comparetout.util.SourceCostCache
 import dagger.hilt.android.lifecycle.HiltViewModel
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.flatMapLatest
@@ -31,8 +36,8 @@ import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.time.LocalDate
-import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 
 enum class DataSourcePeriod(@StringRes val labelRes: Int) {
@@ -111,9 +116,14 @@ data class KpiMonthRow(
 class UI2DashboardViewModel @Inject constructor(
     private val repository: ToutcRepository,
     @ApplicationContext private val context: Context,
-    favouritePlanStore: FavouritePlanStore
+    favouritePlanStore: FavouritePlanStore,
+    private val cache: QueryResultCache,
+    private val prefetcher: PeriodPrefetcher
 ) : ViewModel() {
 
+    /** The running neighbour prefetch per picker, keyed by the SLOT_ constants. */
+    private val prefetchJobs = ConcurrentHashMap<String, Job>()
+
     /** Plan-id the user has marked as their current supplier plan, or null. */
     val favouritePlanId = favouritePlanStore.id.asLiveData()
 
@@ -142,7 +152,6 @@ class UI2DashboardViewModel @Inject constructor(
     }
 
     private val timeFormatter     = DateTimeFormatter.ofPattern("yyyy-MM-dd")
-    private val dateTimeFormatter  = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
 
     private val _activeItem = MutableStateFlow<ActiveDashboardItem?>(null)
 
@@ -260,6 +269,7 @@ class UI2DashboardViewModel @Inject constructor(
 
     fun setActiveSimulationId(id: Long) {
         Log.d("UI2", "UI2DashboardViewModel.setActiveSimulationId($id)")
+        cancelPrefetch()
         _activeItem.value = ActiveDashboardItem.Simulation(id)
         _dataBounds.value = null
         // The actual sim year is read from the DB on the IO thread below; until
@@ -300,6 +310,7 @@ class UI2DashboardViewModel @Inject constructor(
      * the persisted selection has been cleared.
      */
     fun clearActive() {
+        cancelPrefetch()
         _activeItem.value = null
         _dataBounds.value = null
         _pvChartData.value = null
@@ -318,6 +329,7 @@ class UI2DashboardViewModel @Inject constructor(
         endDate: String
     ) {
         Log.d("UI2", "UI2DashboardViewModel.setActiveDataSource($sysSn)")
+        cancelPrefetch()
         _explorePeriod.value  = DataSourcePeriod.ALL
         _exploreAnchor.value  = LocalDate.now()
         _exploreTotals.value  = null
@@ -338,21 +350,38 @@ class UI2DashboardViewModel @Inject constructor(
         }.getOrNull()
         val item = ActiveDashboardItem.DataSource(sysSn, importerType, startDate, endDate)
         viewModelScope.launch(Dispatchers.IO) {
-            val sharedTotals = fetchTotals(DataSourcePeriod.ALL, LocalDate.now(), false, item)
-            _exploreTotals.value     = sharedTotals
-            _usageTotals.value       = sharedTotals
-            _usageDistribution.value = fetchDistribution(DataSourcePeriod.ALL, LocalDate.now(), false, item)
-            _tariffCostings.value    = fetchCostings(DataSourcePeriod.ALL, LocalDate.now(), false, item)
-            if (importerType != ComparisonUIViewModel.Importer.ESBNHDF &&
-                importerType != ComparisonUIViewModel.Importer.OCTOPUS) {
-                _pvChartData.value = fetchPvChartData(DataSourcePeriod.ALL, LocalDate.now(), false, item)
-            } else {
-                _pvChartData.value = emptyList()
-            }
+            prefetcher.foreground { loadDataSourceWidgets(item) }
             recomputeKpis()
         }
     }
 
+    /**
+     * First load of every data-source widget at "*", planned together rather than widget by
+     * widget. The two scans the widgets fold from — the source's daily rollup (totals, usage
+     * by weekday and month, PV by month, KPIs for any period) and its hour-of-day profile —
+     * run concurrently with the tariff costing; each widget is then built in memory.
+     */
+    private suspend fun loadDataSourceWidgets(item: ActiveDashboardItem.DataSource) = coroutineScope {
+        val now = LocalDate.now()
+        val (from, to) = anchorDateRange(DataSourcePeriod.ALL, now, false, item.startDate, item.endDate)
+        val costings = async { fetchCostings(DataSourcePeriod.ALL, now, false, item) }
+        awaitAll(
+            async { cache.sourceDays(repository, item.sysSn) },
+            async { cache.sourceRows(repository, item.sysSn, from, to, RowBucket.HOUR) }
+        )
+        val sharedTotals = fetchTotals(DataSourcePeriod.ALL, now, false, item)
+        _exploreTotals.value     = sharedTotals
+        _usageTotals.value       = sharedTotals
+        _usageDistribution.value = fetchDistribution(DataSourcePeriod.ALL, now, false, item)
+        if (item.importerType != ComparisonUIViewModel.Importer.ESBNHDF &&
+            item.importerType != ComparisonUIViewModel.Importer.OCTOPUS) {
+            _pvChartData.value = fetchPvChartData(DataSourcePeriod.ALL, now, false, item)
+        } else {
+            _pvChartData.value = emptyList()
+        }
+        _tariffCostings.value = costings.await()
+    }
+
     private fun resetKpiDefaults() {
         _kpiPeriod.value = DataSourcePeriod.MONTH
         _kpiAnchor.value = LocalDate.now()
@@ -415,7 +444,7 @@ class UI2DashboardViewModel @Inject constructor(
         _exploreAnchor.value = anchor
         _exploreTotals.value = null
         val item = _activeItem.value as? ActiveDashboardItem.DataSource ?: return
-        viewModelScope.launch(Dispatchers.IO) { _exploreTotals.value = fetchTotals(period, anchor, advanced, item) }
+        loadExplore(period, anchor, advanced, item)
     }
 
     fun navigateExplore(forward: Boolean, advanced: Boolean) {
@@ -425,7 +454,14 @@ class UI2DashboardViewModel @Inject constructor(
         val anchor = moveAnchor(_exploreAnchor.value, period, forward, item) ?: return
         _exploreAnchor.value = anchor
         _exploreTotals.value = null
-        viewModelScope.launch(Dispatchers.IO) { _exploreTotals.value = fetchTotals(period, anchor, advanced, item) }
+        loadExplore(period, anchor, advanced, item)
+    }
+
+    private fun loadExplore(
+        period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean, item: ActiveDashboardItem.DataSource
+    ) = viewModelScope.launch(Dispatchers.IO) {
+        _exploreTotals.value = prefetcher.foreground { fetchTotals(period, anchor, advanced, item) }
+        prefetchAround(SLOT_EXPLORE, period, anchor, item) { fetchTotals(period, it, advanced, item) }
     }
 
     fun setUsagePeriod(period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean) {
@@ -434,10 +470,7 @@ class UI2DashboardViewModel @Inject constructor(
         _usageTotals.value       = null
         _usageDistribution.value = null
         val item = _activeItem.value as? ActiveDashboardItem.DataSource ?: return
-        viewModelScope.launch(Dispatchers.IO) {
-            _usageTotals.value       = fetchTotals(period, anchor, advanced, item)
-            _usageDistribution.value = fetchDistribution(period, anchor, advanced, item)
-        }
+        loadUsage(period, anchor, advanced, item)
     }
 
     fun navigateUsage(forward: Boolean, advanced: Boolean) {
@@ -448,10 +481,20 @@ class UI2DashboardViewModel @Inject constructor(
         _usageAnchor.value       = anchor
         _usageTotals.value       = null
         _usageDistribution.value = null
-        viewModelScope.launch(Dispatchers.IO) {
+        loadUsage(period, anchor, advanced, item)
+    }
+
+    private fun loadUsage(
+        period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean, item: ActiveDashboardItem.DataSource
+    ) = viewModelScope.launch(Dispatchers.IO) {
+        prefetcher.foreground {
             _usageTotals.value       = fetchTotals(period, anchor, advanced, item)
             _usageDistribution.value = fetchDistribution(period, anchor, advanced, item)
         }
+        prefetchAround(SLOT_USAGE, period, anchor, item) {
+            fetchTotals(period, it, advanced, item)
+            fetchDistribution(period, it, advanced, item)
+        }
     }
 
     fun setTariffPeriod(period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean) {
@@ -459,7 +502,7 @@ class UI2DashboardViewModel @Inject constructor(
         _tariffAnchor.value = anchor
         _tariffCostings.value = null
         val item = _activeItem.value as? ActiveDashboardItem.DataSource ?: return
-        viewModelScope.launch(Dispatchers.IO) { _tariffCostings.value = fetchCostings(period, anchor, advanced, item) }
+        loadTariff(period, anchor, advanced, item)
     }
 
     fun navigateTariff(forward: Boolean, advanced: Boolean) {
@@ -469,7 +512,14 @@ class UI2DashboardViewModel @Inject constructor(
         val anchor = moveAnchor(_tariffAnchor.value, period, forward, item) ?: return
         _tariffAnchor.value = anchor
         _tariffCostings.value = null
-        viewModelScope.launch(Dispatchers.IO) { _tariffCostings.value = fetchCostings(period, anchor, advanced, item) }
+        loadTariff(period, anchor, advanced, item)
+    }
+
+    private fun loadTariff(
+        period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean, item: ActiveDashboardItem.DataSource
+    ) = viewModelScope.launch(Dispatchers.IO) {
+        _tariffCostings.value = prefetcher.foreground { fetchCostings(period, anchor, advanced, item) }
+        prefetchAround(SLOT_TARIFF, period, anchor, item) { fetchCostings(period, it, advanced, item) }
     }
 
     fun setPvPeriod(period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean) {
@@ -477,7 +527,7 @@ class UI2DashboardViewModel @Inject constructor(
         _pvAnchor.value    = anchor
         _pvChartData.value = null
         val item = _activeItem.value as? ActiveDashboardItem.DataSource ?: return
-        viewModelScope.launch(Dispatchers.IO) { _pvChartData.value = fetchPvChartData(period, anchor, advanced, item) }
+        loadPv(period, anchor, advanced, item)
     }
 
     fun navigatePv(forward: Boolean, advanced: Boolean) {
@@ -487,7 +537,41 @@ class UI2DashboardViewModel @Inject constructor(
         val anchor = moveAnchor(_pvAnchor.value, period, forward, item) ?: return
         _pvAnchor.value    = anchor
         _pvChartData.value = null
-        viewModelScope.launch(Dispatchers.IO) { _pvChartData.value = fetchPvChartData(period, anchor, advanced, item) }
+        loadPv(period, anchor, advanced, item)
+    }
+
+    private fun loadPv(
+        period: DataSourcePeriod, anchor: LocalDate, advanced: Boolean, item: ActiveDashboardItem.DataSource
+    ) = viewModelScope.launch(Dispatchers.IO) {
+        _pvChartData.value = prefetcher.foreground { fetchPvChartData(period, anchor, advanced, item) }
+        prefetchAround(SLOT_PV, period, anchor, item) { fetchPvChartData(period, it, advanced, item) }
+    }
+
+    // ── Neighbour prefetch ────────────────────────────────────────────────────
+
+    /**
+     * Warm the cache with what a step back and a step forward on one picker would
+     * fetch, replacing whatever that picker was prefetching before.
+     */
+    private fun prefetchAround(
+        slot: String,
+        period: DataSourcePeriod,
+        anchor: LocalDate,
+        item: ActiveDashboardItem.DataSource,
+        load: (LocalDate) -> Unit
+    ) {
+        prefetchJobs.remove(slot)?.cancel()
+        val neighbours = listOf(false, true)
+            .mapNotNull { forward -> moveAnchor(anchor, period, forward, item) }
+            .filter { it != anchor }   // clamped at the edge of the data
+            .distinct()
+        if (neighbours.isEmpty()) return
+        prefetchJobs[slot] = prefetcher.launch(viewModelScope, neighbours.map { n -> { load(n) } })
+    }
+
+    private fun cancelPrefetch() {
+        prefetchJobs.values.forEach { it.cancel() }
+        prefetchJobs.clear()
     }
 
     private fun fetchPvChartData(
@@ -499,7 +583,7 @@ class UI2DashboardViewModel @Inject constructor(
         val (from, to) = anchorDateRange(period, anchor, advanced, item.startDate, item.endDate)
         return when (period) {
             DataSourcePeriod.YESTERDAY -> {
-                repository.getSumHour(item.sysSn, from, to)
+                cache.sourceRows(repository, item.sysSn, from, to, RowBucket.HOUR)
                     .filter { it.pv > 0 }
                     .mapNotNull { row ->
                         val h = row.interval.toIntOrNull() ?: return@mapNotNull null
@@ -508,7 +592,7 @@ class UI2DashboardViewModel @Inject constructor(
             }
             DataSourcePeriod.MONTH -> {
                 val yearForDoy = LocalDate.parse(from, timeFormatter).year
-                repository.getSumDOY(item.sysSn, from, to)
+                cache.sourceRows(repository, item.sysSn, from, to, RowBucket.DOY)
                     .filter { it.pv > 0 }
                     .mapNotNull { row ->
                         val doy = row.interval.toIntOrNull() ?: return@mapNotNull null
@@ -519,7 +603,7 @@ class UI2DashboardViewModel @Inject constructor(
             }
             DataSourcePeriod.YEAR -> {
                 val monthNames = listOf("Jan","Feb","Mar","Apr","May","Jun","Jul","Aug","Sep","Oct","Nov","Dec")
-                repository.getSumMonth(item.sysSn, from, to)
+                cache.sourceRows(repository, item.sysSn, from, to, RowBucket.MONTH)
                     .filter { it.pv > 0 }
                     .mapNotNull { row ->
                         val s = row.interval ?: return@mapNotNull null
@@ -529,7 +613,7 @@ class UI2DashboardViewModel @Inject constructor(
                     }
             }
             DataSourcePeriod.ALL ->
-                buildPvMonthly(repository.getSumMonth(item.sysSn, from, to))
+                buildPvMonthly(cache.sourceRows(repository, item.sysSn, from, to, RowBucket.MONTH))
         }
     }
 
@@ -554,7 +638,7 @@ class UI2DashboardViewModel @Inject constructor(
         item: ActiveDashboardItem.DataSource
     ): PeriodTotals {
         val (from, to) = anchorDateRange(period, anchor, advanced, item.startDate, item.endDate)
-        val rows = repository.getSumDOY(item.sysSn, from, to)
+        val rows = cache.sourceRows(repository, item.sysSn, from, to, RowBucket.DOY)
         return PeriodTotals(
             load        = rows.sumOf { it.load },
             buy         = rows.sumOf { it.buy },
@@ -579,7 +663,9 @@ class UI2DashboardViewModel @Inject constructor(
     ): List<DataSourceCostingRow> {
         val (from, to) = anchorDateRange(period, anchor, advanced, item.startDate, item.endDate)
         val days = LocalDate.parse(to, timeFormatter).toEpochDay() - LocalDate.parse(from, timeFormatter).toEpochDay() + 1
-        return computeDataSourceCostings(item.sysSn, from, to, days)
+        return cache.get(listOf("sourceCostings", item.sysSn, from, to)) {
+            computeDataSourceCostings(item.sysSn, from, to, days)
+        }
     }
 
     private fun fetchDistribution(
@@ -597,9 +683,9 @@ class UI2DashboardViewModel @Inject constructor(
                 item.importerType != ComparisonUIViewModel.Importer.OCTOPUS
         val pick: (IntervalRow) -> Double = { if (useLoad) it.load else it.buy }
 
-        val hourRows  = repository.getSumHour(item.sysSn, from, to)
-        val dowRows   = repository.getSumDOW(item.sysSn, from, to)
-        val monthRows = repository.getSumMonth(item.sysSn, from, to)
+        val hourRows  = cache.sourceRows(repository, item.sysSn, from, to, RowBucket.HOUR)
+        val dowRows   = cache.sourceRows(repository, item.sysSn, from, to, RowBucket.DOW)
+        val monthRows = cache.sourceRows(repository, item.sysSn, from, to, RowBucket.MONTH)
         if (hourRows.isEmpty() && dowRows.isEmpty() && monthRows.isEmpty()) return null
 
         val hourly = DoubleArray(24)
@@ -655,27 +741,15 @@ class UI2DashboardViewModel @Inject constructor(
         to: String,
         days: Long
     ): List<DataSourceCostingRow> {
-        val hourlyData = repository.getSelectedAlphaESSData(sysSn, from, to)
-        val plans      = repository.allPricePlansNow
+        val plans = repository.allPricePlansNow
+        // Per-day plan costs are cached; only days imported (or plans edited) since the last look are priced.
+        val costs = SourceCostCache.cost(repository, sysSn, from, to, plans, 0)
 
         return plans.map { plan ->
-            val dayRates  = repository.getAllDayRatesForPricePlanID(plan.pricePlanIndex)
-            val lookup    = RateLookup(plan, dayRates)
-            lookup.setStartDOY(LocalDate.parse(from, timeFormatter).dayOfYear)
-
-            val subTotals = SubTotals()
-            var buy = 0.0; var sell = 0.0
-
-            hourlyData.forEach { row ->
-                val ldt   = LocalDateTime.parse(row.dateTime, dateTimeFormatter)
-                val doy   = ldt.dayOfYear
-                val mod   = ldt.hour * 60 + ldt.minute
-                val dow   = ldt.dayOfWeek.value.let { if (it == 7) 0 else it } // 7=Sun→0
-                val price = lookup.getRate(doy, mod, dow, row.buy)
-                buy  += price * row.buy
-                sell += plan.feed * row.feed
-                subTotals.addToPrice(price, row.buy)
-            }
+            val cost      = costs.getValue(plan.pricePlanIndex)
+            val subTotals = cost.subTotals
+            val buy = cost.buy
+            val sell = cost.sell
 
             val fixed = plan.standingCharges * (days / 365.0)
             val net   = (buy - sell) + (fixed * 100.0)
@@ -790,10 +864,16 @@ class UI2DashboardViewModel @Inject constructor(
     }
 
     /**
-     * Recompute the KPI summary + monthly table for the current period / anchor.
-     * Caller must already be on the IO dispatcher.
+     * Recompute the KPI summary + monthly table for the current period / anchor,
+     * then prefetch the neighbouring periods. Caller must already be on the IO
+     * dispatcher.
      */
     private suspend fun recomputeKpis() {
+        prefetcher.foreground { computeKpis() }
+        prefetchKpiNeighbours()
+    }
+
+    private suspend fun computeKpis() {
         val item = _activeItem.value ?: return
         val bounds = kpiSourceDateRange() ?: run {
             _kpiSummary.value = KpiSummary.Empty
@@ -815,7 +895,7 @@ class UI2DashboardViewModel @Inject constructor(
                     _kpiMonths.value = null
                     return
                 }
-                val k = repository.getKPIs(fromStr, toStr, item.sysSn)
+                val k = cache.sourceKpis(repository, item.sysSn, fromStr, toStr)
                 _kpiSummary.value = if (k == null) KpiSummary.Empty else KpiSummary(
                     selfConsumption    = (k.selfConsumption    ?: 0.0).coerceFiniteOr0(),
                     selfSufficiency    = (k.selfSufficiency    ?: 0.0).coerceFiniteOr0(),
@@ -825,15 +905,17 @@ class UI2DashboardViewModel @Inject constructor(
                     load               = 0.0
                 )
                 // Whole-source key stats: same query the legacy import fragment runs.
-                val stats = when (item.importerType) {
-                    ComparisonUIViewModel.Importer.ALPHAESS        ->
-                        repository.getKeyStats(item.startDate, item.endDate, item.sysSn)
-                    // The HA key-stats query is generic over the transformed
-                    // table; Solis rows carry pv/load/charge so it applies too.
-                    ComparisonUIViewModel.Importer.HOME_ASSISTANT,
-                    ComparisonUIViewModel.Importer.SOLIS           ->
-                        repository.getHAKeyStats(item.startDate, item.endDate, item.sysSn)
-                    else -> emptyList()
+                val stats = cache.get(listOf("sourceKeyStats", item.sysSn, item.importerType, item.startDate, item.endDate)) {
+                    when (item.importerType) {
+                        ComparisonUIViewModel.Importer.ALPHAESS        ->
+                            repository.getKeyStats(item.startDate, item.endDate, item.sysSn)
+                        // The HA key-stats query is generic over the transformed
+                        // table; Solis rows carry pv/load/charge so it applies too.
+                        ComparisonUIViewModel.Importer.HOME_ASSISTANT,
+                        ComparisonUIViewModel.Importer.SOLIS           ->
+                            repository.getHAKeyStats(item.startDate, item.endDate, item.sysSn)
+                        else -> emptyList()
+                    }
                 }
                 _kpiMonths.value = stats.orEmpty().mapNotNull { row ->
                     val label = row.month ?: return@mapNotNull null   // "YY-MM"
@@ -851,7 +933,7 @@ class UI2DashboardViewModel @Inject constructor(
             is ActiveDashboardItem.Simulation -> {
                 // Sim data is daily — aggregate per-day rows ourselves so the same
                 // KPIs work whether the user picked Day / Month / Year / All.
-                val rows = repository.getSimSumDOY(item.id.toString(), fromStr, toStr)
+                val rows = cache.simRows(repository, item.id, fromStr, toStr, RowBucket.DOY)
                 val pv = rows.sumOf { it.pv }
                 val feed = rows.sumOf { it.feed }
                 val load = rows.sumOf { it.load }
@@ -864,16 +946,45 @@ class UI2DashboardViewModel @Inject constructor(
                 // The monthly table is uncoupled from the range picker — always
                 // build it from the full simulation span so the J/F/M/A/… filter
                 // can show every month the sim covers, not just the period slice.
-                val fullRows = repository.getSimSumDOY(
-                    item.id.toString(),
+                val fullRows = cache.simRows(
+                    repository, item.id,
                     bounds.first.format(timeFormatter),
-                    bounds.second.format(timeFormatter)
+                    bounds.second.format(timeFormatter),
+                    RowBucket.DOY
                 )
                 _kpiMonths.value = buildMonthRowsFromDoy(fullRows, bounds.first.year)
             }
         }
     }
 
+    /** Warm the cache with the KPI queries a step back or forward on the KPI picker would run. */
+    private suspend fun prefetchKpiNeighbours() {
+        prefetchJobs.remove(SLOT_KPI)?.cancel()
+        val item = _activeItem.value ?: return
+        if (item is ActiveDashboardItem.DataSource &&
+            (item.importerType == ComparisonUIViewModel.Importer.ESBNHDF ||
+             item.importerType == ComparisonUIViewModel.Importer.OCTOPUS)) return
+        val period = _kpiPeriod.value
+        if (period == DataSourcePeriod.ALL) return
+        val (start, end) = kpiSourceDateRange() ?: return
+        val anchor = _kpiAnchor.value
+        val neighbours = listOf(false, true)
+            .map { forward -> stepAnchor(anchor, period, forward, start, end) }
+            .filter { it != anchor }
+            .distinct()
+        if (neighbours.isEmpty()) return
+        prefetchJobs[SLOT_KPI] = prefetcher.launch(viewModelScope, neighbours.map { n -> {
+            val (from, to) = periodDateRange(period, n, advanced = false, start, end)
+            val fromStr = from.format(timeFormatter)
+            val toStr = to.format(timeFormatter)
+            when (item) {
+                is ActiveDashboardItem.DataSource -> cache.sourceKpis(repository, item.sysSn, fromStr, toStr)
+                is ActiveDashboardItem.Simulation -> cache.simRows(repository, item.id, fromStr, toStr, RowBucket.DOY)
+            }
+            Unit
+        } })
+    }
+
     /** Group day-of-year rows by calendar month → KpiMonthRow (best/worst/avg). */
     private fun buildMonthRowsFromDoy(
         rows: List<IntervalRow>, baseYear: Int
@@ -906,10 +1017,10 @@ class UI2DashboardViewModel @Inject constructor(
 
     /**
      * Recompute the scenario Tariff Plan costings for the current period / anchor.
-     * Aggregates the simulation's per-hour buy/feed totals across the chosen
-     * window and applies each price plan's RateLookup at a representative day
-     * inside the period. That's close enough for a dashboard widget and is
-     * orders of magnitude cheaper than re-running the costing worker.
+     * Plans the costing worker has priced are totalled exactly from their per-day costs
+     * and bands over the period's days of the simulated year. A plan still waiting on the
+     * worker falls back to pricing the period's per-hour totals at a representative day,
+     * which is close enough until its days land.
      */
     private suspend fun recomputeScenarioTariff() = withContext(Dispatchers.IO) {
         val item = _activeItem.value as? ActiveDashboardItem.Simulation ?: run {
@@ -922,29 +1033,49 @@ class UI2DashboardViewModel @Inject constructor(
             _scenarioTariffPeriod.value, _scenarioTariffAnchor.value, advanced = false,
             bounds.first, bounds.second
         )
-        val fromStr = from.format(timeFormatter)
-        val toStr   = to.format(timeFormatter)
         val days = (to.toEpochDay() - from.toEpochDay() + 1).coerceAtLeast(1)
-        val midDay = from.plusDays(days / 2)
+        val plans = repository.allPricePlansNow.orEmpty()
 
-        val hourRows = repository.getSimSumHour(item.id.toString(), fromStr, toStr)
-        val plans    = repository.allPricePlansNow.orEmpty()
+        // Days of 2001 the period covers; a period across new year wraps round
+        val dayRanges = when {
+            days >= 365 -> listOf(1 to 366)
+            from.dayOfYear <= to.dayOfYear -> listOf(from.dayOfYear to to.dayOfYear)
+            else -> listOf(from.dayOfYear to 366, 1 to to.dayOfYear)
+        }
+        val totals = dayRanges.flatMap { (fromDay, toDay) ->
+            cache.get(listOf("scenarioPlanTotals", item.id, fromDay, toDay)) {
+                repository.getScenarioPlanTotals(item.id, fromDay, toDay)
+            }
+        }.groupBy { it.pricePlanID }
+        val bands = dayRanges.flatMap { (fromDay, toDay) ->
+            cache.get(listOf("scenarioPlanBands", item.id, fromDay, toDay)) {
+                repository.getScenarioPlanBands(item.id, fromDay, toDay)
+            }
+        }.groupBy { it.pricePlanID }
+        val pending = plans.filter { it.pricePlanIndex !in totals }
+        val hourRows = if (pending.isEmpty()) emptyList()
+            else cache.simRows(repository, item.id, from.format(timeFormatter), to.format(timeFormatter), RowBucket.HOUR)
+        val midDay = from.plusDays(days / 2)
 
         val rows = plans.map { plan ->
-            val dayRates  = repository.getAllDayRatesForPricePlanID(plan.pricePlanIndex)
-            val lookup    = RateLookup(plan, dayRates)
-            lookup.setStartDOY(midDay.dayOfYear)
             val subTotals = SubTotals()
             var buy = 0.0
             var sell = 0.0
-            hourRows.forEach { row ->
-                val h = row.interval.toIntOrNull() ?: return@forEach
-                val mod = h * 60
+            val planTotals = totals[plan.pricePlanIndex]
+            if (planTotals != null) {
+                planTotals.forEach { buy += it.buy; sell += it.sell }
+                bands[plan.pricePlanIndex]?.forEach { subTotals.addToPrice(it.price, it.units) }
+            } else {
+                val lookup = SourceCostCache.compile(repository, plan).newLookup()
+                lookup.setStartDOY(midDay.dayOfYear)
                 val dow = midDay.dayOfWeek.value.let { if (it == 7) 0 else it }
-                val rate = lookup.getRate(midDay.dayOfYear, mod, dow, row.buy)
-                buy  += rate * row.buy
-                sell += plan.feed * row.feed
-                subTotals.addToPrice(rate, row.buy)
+                hourRows.forEach { row ->
+                    val h = row.interval.toIntOrNull() ?: return@forEach
+                    val rate = lookup.getRate(midDay.dayOfYear, h * 60, dow, row.buy)
+                    buy  += rate * row.buy
+                    sell += plan.feed * row.feed
+                    subTotals.addToPrice(rate, row.buy)
+                }
             }
             // Unit convention matches fetchCostings() (data-source mode):
             // net/buy/sell are **cents**, fixed is **euros**. DataSourceCostingsTable
@@ -974,6 +1105,14 @@ class UI2DashboardViewModel @Inject constructor(
         val s = this.takeWhile { it.isDigit() || it == '.' || it == '-' }
         return s.toDoubleOrNull() ?: 0.0
     }
+
+    private companion object {
+        const val SLOT_KPI     = "kpi"
+        const val SLOT_EXPLORE = "explore"
+        const val SLOT_USAGE   = "usage"
+        const val SLOT_TARIFF  = "tariff"
+        const val SLOT_PV      = "pv"
+    }
 }
 
 data class DashboardDataSourceInfo(
@@ -17,11 +17,14 @@ import com.tfcode.comparetout.model.scenario.Scenario2EVCharge
 import com.tfcode.comparetout.model.scenario.Scenario2EVDivert
 import com.tfcode.comparetout.model.scenario.Scenario2HWSchedule
 import com.tfcode.comparetout.model.scenario.Scenario2HWSystem
+import com.tfcode.comparetout.model.scenario.Scenario2HeatPump
 import com.tfcode.comparetout.model.scenario.Scenario2Inverter
+import com.tfcode.comparetout.model.scenario.Scenario2LoadProfile
 import com.tfcode.comparetout.model.scenario.Scenario2LoadShift
 import com.tfcode.comparetout.model.scenario.Scenario2Panel
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
@@ -153,6 +156,8 @@ class UI2DirectorViewModel @Inject constructor(
     private val _hwSchedRel   = MutableStateFlow<List<Scenario2HWSchedule>>(emptyList())
     private val _loadShiftRel = MutableStateFlow<List<Scenario2LoadShift>>(emptyList())
     private val _dischargeRel = MutableStateFlow<List<Scenario2DischargeToGrid>>(emptyList())
+    private val _usageRel     = MutableStateFlow<List<Scenario2LoadProfile>>(emptyList())
+    private val _heatPumpRel  = MutableStateFlow<List<Scenario2HeatPump>>(emptyList())
     private val _scenarios    = MutableStateFlow<List<Scenario>>(emptyList())
 
     private val _instances = MutableStateFlow<List<DirectorInstance>>(emptyList())
@@ -161,6 +166,9 @@ class UI2DirectorViewModel @Inject constructor(
     private val _loading   = MutableStateFlow(true)
     private val _saving    = MutableStateFlow(false)
 
+    // Latest instances per subject; guarded by itself so a subject rebuild publishes atomically
+    private val bySubject = HashMap<DirectorSubject, List<DirectorInstance>>()
+
     private val _core = combine(_instances, _edits, _seeded) { i, e, s -> Triple(i, e, s) }
 
     val uiState: StateFlow<DirectorUiState> = combine(
@@ -214,21 +222,31 @@ class UI2DirectorViewModel @Inject constructor(
             repository.allDischargeRelations.asFlow().collect { _dischargeRel.value = it ?: emptyList() }
         }
         viewModelScope.launch(Dispatchers.Main) {
-            repository.allScenarios.asFlow().collect { _scenarios.value = it ?: emptyList() }
+            repository.allLoadProfileRelations.asFlow().collect { _usageRel.value = it ?: emptyList() }
         }
-        // collectLatest (not collect): a fresh relation change cancels an in-flight rebuild, so two rebuilds
-        // racing off one save can't finish out of order and leave _instances holding the stale result.
         viewModelScope.launch(Dispatchers.Main) {
-            combine(_panelRel, _batteryRel, _inverterRel, _evChargeRel, _evDivertRel) { _, _, _, _, _ -> }
-                .collectLatest { rebuild() }
+            repository.allHeatPumpRelations.asFlow().collect { _heatPumpRel.value = it ?: emptyList() }
         }
         viewModelScope.launch(Dispatchers.Main) {
-            combine(_hwRel, _hwSchedRel, _loadShiftRel, _dischargeRel) { _, _, _, _ -> }
-                .collectLatest { rebuild() }
-        }
-        viewModelScope.launch(Dispatchers.Main) {
-            _scenarios.collectLatest { rebuild() }
+            repository.allScenarios.asFlow().collect { _scenarios.value = it ?: emptyList() }
         }
+        // A relation emitting rebuilds only its own subject. collectLatest (not collect): a fresh change
+        // cancels that subject's in-flight rebuild, so two racing off one save can't finish out of order.
+        rebuildOn(_panelRel,     DirectorSubject.PV_PANEL)
+        rebuildOn(_batteryRel,   DirectorSubject.BATTERY_SETTINGS)
+        rebuildOn(_loadShiftRel, DirectorSubject.BATTERY_SCHEDULE)
+        rebuildOn(_dischargeRel, DirectorSubject.BATTERY_DISCHARGE)
+        rebuildOn(_inverterRel,  DirectorSubject.INVERTER_SETTINGS)
+        rebuildOn(_evChargeRel,  DirectorSubject.EV_SCHEDULE)
+        rebuildOn(_evDivertRel,  DirectorSubject.EV_DIVERT)
+        rebuildOn(_hwRel,        DirectorSubject.HW_SETTINGS)
+        rebuildOn(_hwSchedRel,   DirectorSubject.HW_SCHEDULE)
+        rebuildOn(_usageRel,     DirectorSubject.USAGE_PROFILE)
+        rebuildOn(_heatPumpRel,  DirectorSubject.HEAT_PUMP_SETTINGS)
+    }
+
+    private fun rebuildOn(relation: Flow<*>, subject: DirectorSubject) {
+        viewModelScope.launch(Dispatchers.Main) { relation.collectLatest { rebuild(listOf(subject)) } }
     }
 
     // ── pending-edit / seed API (cached until save) ─────────────────────────
@@ -339,144 +357,131 @@ class UI2DirectorViewModel @Inject constructor(
 
     // ── build the component list from the relation tables ───────────────────
 
-    private suspend fun rebuild() = withContext(Dispatchers.IO) {
-        val out = mutableListOf<DirectorInstance>()
-
-        out += instancesOf(DirectorSubject.PV_PANEL,
-            _panelRel.value.map { it.scenarioID to it.panelID }) { id, sid ->
-            repository.getPanelsForScenario(sid).firstOrNull { it.panelIndex == id }?.let { p ->
-                p.panelName.ifBlank { "PV string" } to listOf(
-                    "Panels" to "${p.panelCount}", "Power" to "${p.panelkWp} W",
-                    "Azimuth" to "${p.azimuth}°", "Slope" to "${p.slope}°")
+    /**
+     * Rebuild [subjects] from the relation rows already in memory and one bulk query per
+     * component table, then publish every subject's instances in subject order.
+     */
+    private suspend fun rebuild(subjects: Collection<DirectorSubject> = DirectorSubject.entries) =
+        withContext(Dispatchers.IO) {
+            val built = subjects.associateWith { subject ->
+                runCatching { build(subject) }.getOrElse { it.printStackTrace(); emptyList() }
             }
-        }
-        out += instancesOf(DirectorSubject.BATTERY_SETTINGS,
-            _batteryRel.value.map { it.scenarioID to it.batteryID }) { id, sid ->
-            repository.getBatteriesForScenarioID(sid).firstOrNull { it.batteryIndex == id }?.let { b ->
-                "%.1f kWh battery".format(b.batterySize) to listOf(
-                    "Capacity" to "%.1f kWh".format(b.batterySize),
-                    "Max charge" to "%.1f kW".format(b.maxCharge),
-                    "Max discharge" to "%.1f kW".format(b.maxDischarge),
-                    "Discharge stop" to "%.0f%%".format(b.dischargeStop))
+            synchronized(bySubject) {
+                bySubject.putAll(built)
+                _instances.value = DirectorSubject.entries.flatMap { bySubject[it].orEmpty() }
             }
+            _loading.value = false
         }
-        out += instancesOf(DirectorSubject.BATTERY_SCHEDULE,
-            _loadShiftRel.value.map { it.scenarioID to it.loadShiftID }) { id, sid ->
-            repository.getLoadShiftsForScenarioID(sid).firstOrNull { it.loadShiftIndex == id }?.let { ls ->
-                ls.name.ifBlank { "Charge schedule" } to listOf(
-                    "Window" to "${hours(ls.begin)}–${hours(ls.end)}",
-                    "Stop at" to "%.0f%%".format(ls.stopAt),
-                    "Inverter" to ls.inverter)
-            }
+
+    private fun build(subject: DirectorSubject): List<DirectorInstance> = when (subject) {
+        DirectorSubject.PV_PANEL -> instancesOf(subject,
+            _panelRel.value.map { it.scenarioID to it.panelID },
+            { repository.allLinkedPanels }, { it.panelIndex }) { p ->
+            p.panelName.ifBlank { "PV string" } to listOf(
+                "Panels" to "${p.panelCount}", "Power" to "${p.panelkWp} W",
+                "Azimuth" to "${p.azimuth}°", "Slope" to "${p.slope}°")
         }
-        out += instancesOf(DirectorSubject.BATTERY_DISCHARGE,
-            _dischargeRel.value.map { it.scenarioID to it.dischargeID }) { id, sid ->
-            repository.getDischargesForScenario(sid).firstOrNull { it.d2gIndex == id }?.let { d ->
-                d.name.ifBlank { "Discharge schedule" } to listOf(
-                    "Window" to "${hours(d.begin)}–${hours(d.end)}",
-                    "Rate" to "%.1f kW".format(d.rate),
-                    "Stop at" to "%.0f%%".format(d.stopAt),
-                    "Inverter" to d.inverter)
-            }
+        DirectorSubject.BATTERY_SETTINGS -> instancesOf(subject,
+            _batteryRel.value.map { it.scenarioID to it.batteryID },
+            { repository.allLinkedBatteries }, { it.batteryIndex }) { b ->
+            "%.1f kWh battery".format(b.batterySize) to listOf(
+                "Capacity" to "%.1f kWh".format(b.batterySize),
+                "Max charge" to "%.1f kW".format(b.maxCharge),
+                "Max discharge" to "%.1f kW".format(b.maxDischarge),
+                "Discharge stop" to "%.0f%%".format(b.dischargeStop))
         }
-        out += instancesOf(DirectorSubject.INVERTER_SETTINGS,
-            _inverterRel.value.map { it.scenarioID to it.inverterID }) { id, sid ->
-            repository.getInvertersForScenario(sid).firstOrNull { it.inverterIndex == id }?.let { v ->
-                v.inverterName.ifBlank { "Inverter" } to listOf(
-                    "Rating" to "%.1f kW".format(v.maxInverterLoad),
-                    "MPPT inputs" to "${v.mpptCount}",
-                    "AC→DC loss" to "${v.ac2dcLoss}%", "DC→AC loss" to "${v.dc2acLoss}%")
-            }
+        DirectorSubject.BATTERY_SCHEDULE -> instancesOf(subject,
+            _loadShiftRel.value.map { it.scenarioID to it.loadShiftID },
+            { repository.allLinkedLoadShifts }, { it.loadShiftIndex }) { ls ->
+            ls.name.ifBlank { "Charge schedule" } to listOf(
+                "Window" to "${hours(ls.begin)}–${hours(ls.end)}",
+                "Stop at" to "%.0f%%".format(ls.stopAt),
+                "Inverter" to ls.inverter)
         }
-        out += instancesOf(DirectorSubject.EV_SCHEDULE,
-            _evChargeRel.value.map { it.scenarioID to it.evChargeID }) { id, sid ->
-            repository.getEVChargesForScenario(sid).firstOrNull { it.evChargeIndex == id }?.let { e ->
-                e.name.ifBlank { "EV schedule" } to listOf(
-                    "Charge draw" to "%.1f kW".format(e.draw),
-                    "Window" to "${hours(e.begin)}–${hours(e.end)}")
-            }
+        DirectorSubject.BATTERY_DISCHARGE -> instancesOf(subject,
+            _dischargeRel.value.map { it.scenarioID to it.dischargeID },
+            { repository.allLinkedDischarges }, { it.d2gIndex }) { d ->
+            d.name.ifBlank { "Discharge schedule" } to listOf(
+                "Window" to "${hours(d.begin)}–${hours(d.end)}",
+                "Rate" to "%.1f kW".format(d.rate),
+                "Stop at" to "%.0f%%".format(d.stopAt),
+                "Inverter" to d.inverter)
         }
-        out += instancesOf(DirectorSubject.EV_DIVERT,
-            _evDivertRel.value.map { it.scenarioID to it.evDivertID }) { id, sid ->
-            repository.getEVDivertsForScenario(sid).firstOrNull { it.evDivertIndex == id }?.let { d ->
-                d.name.ifBlank { "EV divert" } to listOf(
-                    "Window" to "${hours(d.begin)}–${hours(d.end)}",
-                    "Daily max" to "%.1f kWh".format(d.dailyMax),
-                    "EV 1st" to if (d.isEv1st) "Yes" else "No",
-                    "Active" to if (d.isActive) "Yes" else "No")
-            }
+        DirectorSubject.INVERTER_SETTINGS -> instancesOf(subject,
+            _inverterRel.value.map { it.scenarioID to it.inverterID },
+            { repository.allLinkedInverters }, { it.inverterIndex }) { v ->
+            v.inverterName.ifBlank { "Inverter" } to listOf(
+                "Rating" to "%.1f kW".format(v.maxInverterLoad),
+                "MPPT inputs" to "${v.mpptCount}",
+                "AC→DC loss" to "${v.ac2dcLoss}%", "DC→AC loss" to "${v.dc2acLoss}%")
         }
-        out += instancesOf(DirectorSubject.HW_SETTINGS,
-            _hwRel.value.map { it.scenarioID to it.hwSystemID }) { id, sid ->
-            repository.getHWSystemForScenarioID(sid)?.takeIf { it.hwSystemIndex == id }?.let { h ->
-                "${h.hwCapacity} L hot water" to listOf(
-                    "Tank" to "${h.hwCapacity} L", "Target" to "${h.hwTarget}°C",
-                    "Daily use" to "${h.hwUsage} L", "Loss" to "${h.hwLoss}%")
-            }
+        DirectorSubject.EV_SCHEDULE -> instancesOf(subject,
+            _evChargeRel.value.map { it.scenarioID to it.evChargeID },
+            { repository.allLinkedEVCharges }, { it.evChargeIndex }) { e ->
+            e.name.ifBlank { "EV schedule" } to listOf(
+                "Charge draw" to "%.1f kW".format(e.draw),
+                "Window" to "${hours(e.begin)}–${hours(e.end)}")
         }
-        out += instancesOf(DirectorSubject.HW_SCHEDULE,
-            _hwSchedRel.value.map { it.scenarioID to it.hwScheduleID }) { id, sid ->
-            repository.getHWSchedulesForScenario(sid).firstOrNull { it.hwScheduleIndex == id }?.let { hs ->
-                hs.name.ifBlank { "Hot water schedule" } to listOf(
-                    "Window" to "${hours(hs.begin)}–${hours(hs.end)}")
-            }
+        DirectorSubject.EV_DIVERT -> instancesOf(subject,
+            _evDivertRel.value.map { it.scenarioID to it.evDivertID },
+            { repository.allLinkedEVDiverts }, { it.evDivertIndex }) { d ->
+            d.name.ifBlank { "EV divert" } to listOf(
+                "Window" to "${hours(d.begin)}–${hours(d.end)}",
+                "Daily max" to "%.1f kWh".format(d.dailyMax),
+                "EV 1st" to if (d.isEv1st) "Yes" else "No",
+                "Active" to if (d.isActive) "Yes" else "No")
         }
-        // Usage Data — no relation table; group scenarios by their load-profile id.
-        val usageRows = _scenarios.value.mapNotNull { s ->
-            val lp = runCatching {
-                repository.getScenarioComponentsForScenarioID(s.scenarioIndex)?.loadProfile
-            }.getOrNull()
-            if (lp != null) s.scenarioIndex to lp.loadProfileIndex else null
+        DirectorSubject.HW_SETTINGS -> instancesOf(subject,
+            _hwRel.value.map { it.scenarioID to it.hwSystemID },
+            { repository.allLinkedHWSystems }, { it.hwSystemIndex }) { h ->
+            "${h.hwCapacity} L hot water" to listOf(
+                "Tank" to "${h.hwCapacity} L", "Target" to "${h.hwTarget}°C",
+                "Daily use" to "${h.hwUsage} L", "Loss" to "${h.hwLoss}%")
         }
-        out += instancesOf(DirectorSubject.USAGE_PROFILE, usageRows) { id, sid ->
-            val lp = runCatching {
-                repository.getScenarioComponentsForScenarioID(sid)?.loadProfile
-            }.getOrNull()
-            if (lp != null && lp.loadProfileIndex == id) {
-                lp.distributionSource.ifBlank { "Usage profile" } to listOf(
-                    "Source" to lp.distributionSource.ifBlank { "—" },
-                    "Annual" to "%.0f kWh".format(lp.annualUsage),
-                    "Import max" to "%.1f kW".format(lp.gridImportMax),
-                    "Export max" to "%.1f kW".format(lp.gridExportMax))
-            } else null
+        DirectorSubject.HW_SCHEDULE -> instancesOf(subject,
+            _hwSchedRel.value.map { it.scenarioID to it.hwScheduleID },
+            { repository.allLinkedHWSchedules }, { it.hwScheduleIndex }) { hs ->
+            hs.name.ifBlank { "Hot water schedule" } to listOf(
+                "Window" to "${hours(hs.begin)}–${hours(hs.end)}")
         }
-
-        // Heat Pump — no relation LiveData wired; resolve per scenario via its components
-        // (same approach as Usage Data). A scenario can hold 1 heat pump; share it like HW.
-        val heatPumpRows = _scenarios.value.flatMap { s ->
-            val hps = runCatching {
-                repository.getScenarioComponentsForScenarioID(s.scenarioIndex)?.heatPumps
-            }.getOrNull() ?: emptyList()
-            hps.map { s.scenarioIndex to it.heatPumpIndex }
+        DirectorSubject.USAGE_PROFILE -> instancesOf(subject,
+            _usageRel.value.map { it.scenarioID to it.loadProfileID },
+            { repository.allLinkedLoadProfiles }, { it.loadProfileIndex }) { lp ->
+            lp.distributionSource.ifBlank { "Usage profile" } to listOf(
+                "Source" to lp.distributionSource.ifBlank { "—" },
+                "Annual" to "%.0f kWh".format(lp.annualUsage),
+                "Import max" to "%.1f kW".format(lp.gridImportMax),
+                "Export max" to "%.1f kW".format(lp.gridExportMax))
         }
-        out += instancesOf(DirectorSubject.HEAT_PUMP_SETTINGS, heatPumpRows) { id, sid ->
-            val hp = runCatching {
-                repository.getScenarioComponentsForScenarioID(sid)?.heatPumps
-            }.getOrNull()?.firstOrNull { it.heatPumpIndex == id }
-            if (hp != null) {
-                "%.1f kW heat pump".format(hp.capacityKw) to listOf(
-                    "Capacity" to "%.1f kW".format(hp.capacityKw),
-                    "SCOP" to "%.1f".format(hp.scop),
-                    "Rated COP" to "%.1f".format(hp.copRated),
-                    "Backup" to if (hp.isBackupHeater) "Yes" else "No")
-            } else null
+        // A scenario can hold 1 heat pump; share it like HW.
+        DirectorSubject.HEAT_PUMP_SETTINGS -> instancesOf(subject,
+            _heatPumpRel.value.map { it.scenarioID to it.heatPumpID },
+            { repository.allLinkedHeatPumps }, { it.heatPumpIndex }) { hp ->
+            "%.1f kW heat pump".format(hp.capacityKw) to listOf(
+                "Capacity" to "%.1f kW".format(hp.capacityKw),
+                "SCOP" to "%.1f".format(hp.scop),
+                "Rated COP" to "%.1f".format(hp.copRated),
+                "Backup" to if (hp.isBackupHeater) "Yes" else "No")
         }
-
-        _instances.value = out
-        _loading.value = false
     }
 
-    /** Group relation rows by component id (keeps every component with 1+ scenarios). */
-    private fun instancesOf(
+    /**
+     * Group relation rows by component id (keeps every component with 1+ scenarios) and
+     * describe each from the linked components, loaded with one query when there are rows.
+     */
+    private fun <T> instancesOf(
         subject: DirectorSubject,
         rows: List<Pair<Long, Long>>,                       // (scenarioId, componentId)
-        resolve: (componentId: Long, sampleScenario: Long) -> Pair<String, List<Pair<String, String>>>?
+        components: () -> List<T>,
+        idOf: (T) -> Long,
+        describe: (T) -> Pair<String, List<Pair<String, String>>>
     ): List<DirectorInstance> {
+        if (rows.isEmpty()) return emptyList()
+        val byId = components().associateBy(idOf)
         return rows.groupBy({ it.second }, { it.first }).entries.mapNotNull { (componentId, scs) ->
-            val linked = scs.toSet()
-            val resolved = runCatching { resolve(componentId, linked.first()) }.getOrNull()
-                ?: return@mapNotNull null
-            DirectorInstance(subject, componentId, resolved.first, resolved.second, linked)
+            val component = byId[componentId] ?: return@mapNotNull null
+            val described = runCatching { describe(component) }.getOrNull() ?: return@mapNotNull null
+            DirectorInstance(subject, componentId, described.first, described.second, scs.toSet())
         }.sortedBy { it.name.lowercase() }
     }
 
@@ -124,6 +124,7 @@ import com.tfcode.comparetout.R
 import com.tfcode.comparetout.ui2.UI2GraphsViewModel.DisplayScale
 import com.tfcode.comparetout.ui2.UI2GraphsViewModel.FilterSeries
 import com.tfcode.comparetout.ui2.UI2GraphsViewModel.GraphType
+import com.tfcode.comparetout.util.LineChartDetail
 import dagger.hilt.android.AndroidEntryPoint
 import kotlinx.coroutines.launch
 import java.time.LocalDate
@@ -850,6 +851,8 @@ private fun LineOrAreaChartView(state: UI2GraphsViewModel.GraphState, filled: Bo
                 }
             }
             chart.data = LineData(datasets)
+            // Hand the chart screen-resolution entries, re-selected as the user zooms
+            LineChartDetail.attach(chart)
             chart.invalidate()
         }
     )
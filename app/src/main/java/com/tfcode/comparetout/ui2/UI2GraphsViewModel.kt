@@ -6,6 +6,7 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.tfcode.comparetout.ComparisonUIViewModel
 import com.tfcode.comparetout.R
+import com.tfcode.comparetout.model.QueryResultCache
 import com.tfcode.comparetout.model.ToutcRepository
 import com.tfcode.comparetout.model.importers.IntervalRow
 import com.tfcode.comparetout.model.scenario.ScenarioBarChartData
@@ -13,6 +14,7 @@ import com.tfcode.comparetout.model.scenario.ScenarioComponents
 import com.tfcode.comparetout.model.scenario.ScenarioLineGraphData
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
@@ -25,15 +27,17 @@ import javax.inject.Inject
 
 @HiltViewModel
 class UI2GraphsViewModel @Inject constructor(
-    private val repository: ToutcRepository
+    private val repository: ToutcRepository,
+    private val cache: QueryResultCache,
+    private val prefetcher: PeriodPrefetcher
 ) : ViewModel() {
 
-    enum class DisplayScale(@StringRes val fullLabelRes: Int) {
-        HOUR(R.string.ui2_wiz_hour),
-        DOY(R.string.ui2_cmp_day),
-        WEEK(R.string.ui2_week),
-        MNTH(R.string.ui2_cmp_month),
-        YEAR(R.string.ui2_cmp_year)
+    enum class DisplayScale(@StringRes val fullLabelRes: Int, val bucket: RowBucket) {
+        HOUR(R.string.ui2_wiz_hour, RowBucket.HOUR),
+        DOY(R.string.ui2_cmp_day, RowBucket.DOY),
+        WEEK(R.string.ui2_week, RowBucket.DOW),
+        MNTH(R.string.ui2_cmp_month, RowBucket.MONTH),
+        YEAR(R.string.ui2_cmp_year, RowBucket.YEAR)
     }
 
     enum class StepSize(@StringRes val fullLabelRes: Int) {
@@ -181,6 +185,8 @@ class UI2GraphsViewModel @Inject constructor(
     private val _state = MutableStateFlow(GraphState())
     val state: StateFlow<GraphState> = _state.asStateFlow()
 
+    @Volatile private var prefetchJob: Job? = null
+
     fun initialize(scenarioId: Long) {
         if (_state.value.scenarioId == scenarioId && _state.value.components != null) return
         Log.d("UI2Graphs", "initialize($scenarioId)")
@@ -249,32 +255,26 @@ class UI2GraphsViewModel @Inject constructor(
         }
     }
 
-    fun stepBack() {
-        val s = _state.value
-        val fromDate = LocalDate.parse(s.from, FMT)
-        val toDate = LocalDate.parse(s.to, FMT)
-        val (newFrom, newTo) = when (s.stepSize) {
-            StepSize.DAY   -> Pair(fromDate.minusDays(1), toDate.minusDays(1))
-            StepSize.WEEK  -> Pair(fromDate.minusWeeks(1), toDate.minusWeeks(1))
-            StepSize.MONTH -> monthStep(fromDate, toDate, -1)
-            StepSize.YEAR  -> Pair(fromDate.minusYears(1), toDate.minusYears(1))
-        }
+    fun stepBack() = step(-1L)
+
+    fun stepForward() = step(1L)
+
+    private fun step(direction: Long) {
+        val (newFrom, newTo) = stepped(_state.value, direction) ?: return
         _state.update { it.copy(from = newFrom.format(FMT), to = newTo.format(FMT)) }
         viewModelScope.launch(Dispatchers.IO) { fetchData() }
     }
 
-    fun stepForward() {
-        val s = _state.value
-        val fromDate = LocalDate.parse(s.from, FMT)
-        val toDate = LocalDate.parse(s.to, FMT)
-        val (newFrom, newTo) = when (s.stepSize) {
-            StepSize.DAY   -> Pair(fromDate.plusDays(1), toDate.plusDays(1))
-            StepSize.WEEK  -> Pair(fromDate.plusWeeks(1), toDate.plusWeeks(1))
-            StepSize.MONTH -> monthStep(fromDate, toDate, 1)
-            StepSize.YEAR  -> Pair(fromDate.plusYears(1), toDate.plusYears(1))
+    /** [s]'s range moved one step of its step size, back (-1) or forward (1). */
+    private fun stepped(s: GraphState, direction: Long): Pair<LocalDate, LocalDate>? {
+        val fromDate = runCatching { LocalDate.parse(s.from, FMT) }.getOrNull() ?: return null
+        val toDate = runCatching { LocalDate.parse(s.to, FMT) }.getOrNull() ?: return null
+        return when (s.stepSize) {
+            StepSize.DAY   -> Pair(fromDate.plusDays(direction), toDate.plusDays(direction))
+            StepSize.WEEK  -> Pair(fromDate.plusWeeks(direction), toDate.plusWeeks(direction))
+            StepSize.MONTH -> monthStep(fromDate, toDate, direction)
+            StepSize.YEAR  -> Pair(fromDate.plusYears(direction), toDate.plusYears(direction))
         }
-        _state.update { it.copy(from = newFrom.format(FMT), to = newTo.format(FMT)) }
-        viewModelScope.launch(Dispatchers.IO) { fetchData() }
     }
 
     /**
@@ -325,70 +325,65 @@ class UI2GraphsViewModel @Inject constructor(
         }
     }
 
+    /** What one fetch puts on screen. */
+    private class GraphRows(
+        val intervalData: List<IntervalRow> = emptyList(),
+        val singleDayBarData: List<ScenarioBarChartData> = emptyList(),
+        val lineData: List<ScenarioLineGraphData> = emptyList()
+    )
+
     private suspend fun fetchData() = withContext(Dispatchers.IO) {
         val s = _state.value
-        val from = s.from
-        val to = s.to
-        if (from.isEmpty() || to.isEmpty()) return@withContext
+        if (s.from.isEmpty() || s.to.isEmpty()) return@withContext
+        // Whatever was being prefetched was for the old scale, period or subject
+        prefetchJob?.cancel()
 
         _state.update { it.copy(isLoading = true) }
+        if (!s.isDataSourceMode && s.scenarioId == 0L) return@withContext
 
+        Log.d("UI2Graphs", "fetchData: ${if (s.isDataSourceMode) s.dataSysSn else s.scenarioId} from=${s.from} to=${s.to} scale=${s.displayScale} calc=${s.calculation}")
+        val rows = prefetcher.foreground { loadRows(s) }
+        Log.d("UI2Graphs", "fetchData: got ${rows.intervalData.size} rows, lineData=${rows.lineData.size}")
+        _state.update { it.copy(intervalData = rows.intervalData, singleDayBarData = rows.singleDayBarData,
+            lineData = rows.lineData, isLoading = false) }
+        prefetchNeighbours(s)
+    }
+
+    /** The rows for [s]'s subject, range, scale and calculation, through the shared cache. */
+    private fun loadRows(s: GraphState): GraphRows {
+        val from = s.from
+        val to = s.to
         if (s.isDataSourceMode) {
-            val sysSn = s.dataSysSn
-            Log.d("UI2Graphs", "fetchData (DS): sysSn=$sysSn from=$from to=$to scale=${s.displayScale} calc=${s.calculation}")
-            val rows: List<IntervalRow> = when (s.calculation) {
-                Calculation.SUM -> when (s.displayScale) {
-                    DisplayScale.HOUR  -> repository.getSumHour(sysSn, from, to)
-                    DisplayScale.DOY   -> repository.getSumDOY(sysSn, from, to)
-                    DisplayScale.WEEK  -> repository.getSumDOW(sysSn, from, to)
-                    DisplayScale.MNTH  -> repository.getSumMonth(sysSn, from, to)
-                    DisplayScale.YEAR  -> repository.getSumYear(sysSn, from, to)
-                }
-                Calculation.AVG -> when (s.displayScale) {
-                    DisplayScale.HOUR  -> repository.getAvgHour(sysSn, from, to)
-                    DisplayScale.DOY   -> repository.getAvgDOY(sysSn, from, to)
-                    DisplayScale.WEEK  -> repository.getAvgDOW(sysSn, from, to)
-                    DisplayScale.MNTH  -> repository.getAvgMonth(sysSn, from, to)
-                    DisplayScale.YEAR  -> repository.getAvgYear(sysSn, from, to)
-                }
-            }
-            Log.d("UI2Graphs", "fetchData (DS): got ${rows.size} rows")
-            _state.update { it.copy(intervalData = rows, singleDayBarData = emptyList(), lineData = emptyList(), isLoading = false) }
-            return@withContext
+            return GraphRows(intervalData = cache.sourceRows(
+                repository, s.dataSysSn, from, to, s.displayScale.bucket, s.calculation == Calculation.AVG))
         }
-
-        // Simulation mode
         val id = s.scenarioId
-        if (id == 0L) return@withContext
-        Log.d("UI2Graphs", "fetchData: id=$id from=$from to=$to scale=${s.displayScale} calc=${s.calculation}")
-
         val dayOfYear = runCatching { LocalDate.parse(from, FMT).dayOfYear }.getOrElse { 1 }
-
-        if (s.isSingleDay && s.displayScale == DisplayScale.HOUR) {
-            val barData  = repository.getBarData(id, dayOfYear)
-            val lineData = repository.getLineData(id, dayOfYear)
-            _state.update { it.copy(singleDayBarData = barData, lineData = lineData, intervalData = emptyList(), isLoading = false) }
+        val lineData = if (s.isSingleDay)
+            cache.get(listOf("simLines", id, dayOfYear)) { repository.getLineData(id, dayOfYear) }
+        else emptyList()
+        return if (s.isSingleDay && s.displayScale == DisplayScale.HOUR) {
+            GraphRows(
+                singleDayBarData = cache.get(listOf("simBars", id, dayOfYear)) { repository.getBarData(id, dayOfYear) },
+                lineData = lineData)
         } else {
-            val idStr = id.toString()
-            val rows: List<IntervalRow> = when (s.calculation) {
-                Calculation.SUM -> when (s.displayScale) {
-                    DisplayScale.HOUR  -> repository.getSimSumHour(idStr, from, to)
-                    DisplayScale.DOY   -> repository.getSimSumDOY(idStr, from, to)
-                    DisplayScale.WEEK  -> repository.getSimSumDOW(idStr, from, to)
-                    DisplayScale.MNTH  -> repository.getSimSumMonth(idStr, from, to)
-                    DisplayScale.YEAR  -> repository.getSimSumYear(idStr, from, to)
-                }
-                Calculation.AVG -> when (s.displayScale) {
-                    DisplayScale.HOUR  -> repository.getSimAvgHour(idStr, from, to)
-                    DisplayScale.DOY   -> repository.getSimAvgDOY(idStr, from, to)
-                    DisplayScale.WEEK  -> repository.getSimAvgDOW(idStr, from, to)
-                    DisplayScale.MNTH  -> repository.getSimAvgMonth(idStr, from, to)
-                    DisplayScale.YEAR  -> repository.getSimAvgYear(idStr, from, to)
-                }
-            }
-            val lineData = if (s.isSingleDay) repository.getLineData(id, dayOfYear) else emptyList()
-            Log.d("UI2Graphs", "fetchData: got ${rows.size} rows, lineData=${lineData.size}")
-            _state.update { it.copy(intervalData = rows, singleDayBarData = emptyList(), lineData = lineData, isLoading = false) }
+            GraphRows(intervalData = cache.simRows(
+                repository, id, from, to, s.displayScale.bucket, s.calculation == Calculation.AVG),
+                lineData = lineData)
+        }
+    }
+
+    /** Warm the cache with the periods a step back and a step forward would show. */
+    private fun prefetchNeighbours(s: GraphState) {
+        val dataStart = runCatching { LocalDate.parse(s.dataStartDate, FMT) }.getOrNull()
+        val dataEnd = runCatching { LocalDate.parse(s.dataEndDate, FMT) }.getOrNull()
+        val neighbours = listOf(-1L, 1L).mapNotNull { direction ->
+            val (from, to) = stepped(s, direction) ?: return@mapNotNull null
+            // Nothing to load wholly outside the data
+            if (dataStart != null && to.isBefore(dataStart)) return@mapNotNull null
+            if (dataEnd != null && from.isAfter(dataEnd)) return@mapNotNull null
+            s.copy(from = from.format(FMT), to = to.format(FMT))
         }
+        prefetchJob = prefetcher.launch(viewModelScope, neighbours.map { n -> { loadRows(n); Unit } })
     }
 }
@@ -169,10 +169,16 @@ class UI2HaBackfillViewModel @Inject constructor(
         val generation = ++previewGeneration
         _previewLoading.postValue(true)
         viewModelScope.launch(Dispatchers.IO) {
-            val sourceRows = repository.getAlphaESSTransformedData(
-                sourceSysSn, from.toString(), to.toString())
-            val haRows = repository.getAlphaESSTransformedData(
-                "HomeAssistant", from.toString(), to.toString())
+            val zone = UserTimezoneStore.resolvedZone(app)
+            // The hourly view is bucketed by instant, so read the day by instant
+            // too, off the (sysSn, millisSinceEpoch) index.
+            val dayFrom = from.atStartOfDay(zone).toInstant().toEpochMilli()
+            val dayTo = from.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli()
+            fun rows(sysSn: String): List<AlphaESSTransformedData> =
+                if (hourly) repository.getAlphaESSTransformedDataBetween(sysSn, dayFrom, dayTo)
+                else repository.getAlphaESSTransformedData(sysSn, from.toString(), to.toString())
+            val sourceRows = rows(sourceSysSn)
+            val haRows = rows("HomeAssistant")
 
             val labels: List<String>
             val hourStarts: List<Long>
@@ -181,7 +187,6 @@ class UI2HaBackfillViewModel @Inject constructor(
             if (hourly) {
                 // Hour buckets keyed the same way the worker buckets them
                 // (UTC-hour-aligned millis), labelled in the user's zone.
-                val zone = UserTimezoneStore.resolvedZone(app)
                 val starts = mutableListOf<Long>()
                 val hourLabels = mutableListOf<String>()
                 var t = from.atStartOfDay(zone)
@@ -1,6 +1,7 @@
 package com.tfcode.comparetout.ui2
 
 import android.app.Application
+import android.app.PendingIntent
 import android.content.Intent
 import android.net.Uri
 import android.os.Bundle
@@ -125,9 +126,10 @@ import javax.inject.Inject
 // comparisons against the *current selection*, so a global all-pairs CSV
 // has no analogue. Per-panel CSV/JSON share lives on the Compare tab itself.
 //
-// The DB-snapshot export rows below (Everything / Selection) build a real
-// SQLite file via [SnapshotExporter] and share it through the FileProvider
-// declared in AndroidManifest.xml. Import-side handling is a later phase.
+// The DB-snapshot export rows below (Everything / Changes / Selection) build a
+// real SQLite file via [SnapshotExporter] and share it through the FileProvider
+// declared in AndroidManifest.xml. "Changes" is a delta against the last
+// Everything or Changes export; the snapshot import row applies either kind.
 // ──────────────────────────────────────────────────────────────────────────
 
 @AndroidEntryPoint
@@ -235,6 +237,21 @@ class UI2ImportExportViewModel @Inject constructor(
         }.getOrNull()
     }
 
+    /**
+     * Build a delta snapshot of the source data changed since the last full
+     * or delta export (see [SnapshotExporter.buildDelta]) and return its URI.
+     */
+    suspend fun buildDelta(filenameSuffix: String): Uri? = withContext(Dispatchers.IO) {
+        runCatching {
+            val app = getApplication<Application>()
+            val dir = File(app.cacheDir, "exports").apply { mkdirs() }
+            val stamp = SimpleDateFormat("yyyyMMdd-HHmm", Locale.US).format(Date())
+            val target = File(dir, "eco-power-optimiser-$filenameSuffix-$stamp.db")
+            snapshotExporter.buildDelta(target)
+            FileProvider.getUriForFile(app, "${app.packageName}.fileprovider", target)
+        }.getOrNull()
+    }
+
     // ── DB snapshot import ─────────────────────────────────────────────────
 
     suspend fun stageAndValidate(uri: Uri): SnapshotImporter.Validation = withContext(Dispatchers.IO) {
@@ -403,17 +420,11 @@ private fun ImportExportScreen(
         }
     }
 
-    fun runSnapshotExport(
-        label: String,
-        scopeKind: SnapshotExporter.Scope,
-        includeOutputs: Boolean,
-        filenameSuffix: String,
-        subject: String
-    ) {
+    fun runSnapshotExport(label: String, subject: String, build: suspend () -> Uri?) {
         if (workingLabel != null) return
         workingLabel = label
         scope.launch {
-            val uri = viewModel.buildSnapshot(scopeKind, includeOutputs, filenameSuffix)
+            val uri = build()
             workingLabel = null
             if (uri != null) {
                 context.shareSnapshot(uri, subject)
@@ -528,13 +539,26 @@ private fun ImportExportScreen(
                         busy = workingLabel == "snapshot-all",
                         anyBusy = workingLabel != null,
                         onClick = {
-                            runSnapshotExport(
-                                label = "snapshot-all",
-                                scopeKind = SnapshotExporter.Scope.Everything,
-                                includeOutputs = true,
-                                filenameSuffix = "all",
-                                subject = subject
-                            )
+                            runSnapshotExport("snapshot-all", subject) {
+                                viewModel.buildSnapshot(SnapshotExporter.Scope.Everything, true, "all")
+                            }
+                        }
+                    )
+                }
+                item("export_db_delta") {
+                    val subject = stringResource(R.string.ui2_ie_snapshot_subject)
+                    DataRow(
+                        title = stringResource(R.string.ui2_ie_delta_db),
+                        format = "SQLite",
+                        helpText = stringResource(R.string.ui2_ie_help_delta),
+                        actionIcon = Icons.Default.Backup,
+                        actionTint = MaterialTheme.colorScheme.primary,
+                        busy = workingLabel == "snapshot-delta",
+                        anyBusy = workingLabel != null,
+                        onClick = {
+                            runSnapshotExport("snapshot-delta", subject) {
+                                viewModel.buildDelta("changes")
+                            }
                         }
                     )
                 }
@@ -785,19 +809,21 @@ private fun ImportExportScreen(
                     if (nScenarios > 0 && nSources > 0) append("-")
                     if (nSources > 0) append("${nSources}sources")
                 }
-                runSnapshotExport(
-                    label = "snapshot-selection",
-                    scopeKind = SnapshotExporter.Scope.Selection(selectedScenarioIds, selectedSysSns),
-                    includeOutputs = includeOutputs,
-                    filenameSuffix = suffix,
-                    subject = subject
-                )
+                runSnapshotExport("snapshot-selection", subject) {
+                    viewModel.buildSnapshot(
+                        SnapshotExporter.Scope.Selection(selectedScenarioIds, selectedSysSns), includeOutputs, suffix
+                    )
+                }
             }
         )
     }
 }
 
-/** Fire a system share with a content URI pointing at the binary snapshot. */
+/**
+ * Fire a system share with a content URI pointing at the binary snapshot. The
+ * chooser tells [SnapshotShareReceiver] when a target is picked, which keeps
+ * the export's delta base.
+ */
 private fun android.content.Context.shareSnapshot(uri: Uri, subject: String) {
     val send = Intent(Intent.ACTION_SEND).apply {
         type = "application/vnd.sqlite3"
@@ -805,7 +831,11 @@ private fun android.content.Context.shareSnapshot(uri: Uri, subject: String) {
         if (subject.isNotBlank()) putExtra(Intent.EXTRA_SUBJECT, subject)
         addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
     }
-    startActivity(Intent.createChooser(send, null))
+    val shared = PendingIntent.getBroadcast(
+        this, 0, Intent(this, SnapshotShareReceiver::class.java),
+        PendingIntent.FLAG_IMMUTABLE or PendingIntent.FLAG_UPDATE_CURRENT
+    )
+    startActivity(Intent.createChooser(send, null, shared.intentSender))
 }
 
 @Composable
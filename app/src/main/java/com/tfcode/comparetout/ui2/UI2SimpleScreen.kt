@@ -102,6 +102,7 @@ fun UI2SimpleScreen(
     val state by viewModel.uiState.collectAsState()
     val status by viewModel.status.collectAsState()
     val result by viewModel.result.collectAsState()
+    val preview by viewModel.preview.collectAsState()
     val planCount by viewModel.planCount.collectAsState()
     val hdfState by viewModel.hdfState.collectAsState()
 
@@ -172,6 +173,7 @@ fun UI2SimpleScreen(
                 UsageCard(state, viewModel, showHints, hdfState, onImportHdf)
                 SolarCard(state, viewModel, showHints, onRequestLocation)
                 BatteryCard(state, viewModel, showHints)
+                preview?.let { PreviewCard(it) }
 
                 Button(
                     onClick = viewModel::calculate,
@@ -428,6 +430,51 @@ private fun BatteryCard(
     }
 }
 
+/** Live numbers for the inputs as they stand, before the user commits with Calculate. */
+@Composable
+private fun PreviewCard(p: UI2SimpleViewModel.Preview) {
+    val cur = RegionProfiles.current.currencySymbol
+    Surface(
+        color = MaterialTheme.colorScheme.secondaryContainer,
+        shape = MaterialTheme.shapes.medium,
+        modifier = Modifier.fillMaxWidth()
+    ) {
+        Column(Modifier.padding(16.dp), verticalArrangement = Arrangement.spacedBy(6.dp)) {
+            Text(stringResource(R.string.ui2_simple_preview_title),
+                style = MaterialTheme.typography.titleSmall)
+            Text(
+                String.format(Locale.US, "$cur%,.0f", p.annualNetEuro),
+                style = MaterialTheme.typography.headlineSmall,
+                fontWeight = FontWeight.SemiBold
+            )
+            if (p.planName.isNotBlank()) {
+                Text(
+                    stringResource(R.string.ui2_simple_cheapest_plan, p.planName),
+                    style = MaterialTheme.typography.bodySmall
+                )
+            }
+            Text(
+                stringResource(R.string.ui2_simple_buy_sell,
+                    String.format(Locale.US, "$cur%,.0f", p.annualBuyEuro),
+                    String.format(Locale.US, "$cur%,.0f", p.annualSellEuro)),
+                style = MaterialTheme.typography.labelSmall
+            )
+            if (p.annualPvKwh > 0.0) {
+                Text(
+                    stringResource(R.string.ui2_simple_preview_pv,
+                        String.format(Locale.US, "%,.0f", p.annualPvKwh)),
+                    style = MaterialTheme.typography.labelSmall
+                )
+            }
+            Text(
+                stringResource(R.string.ui2_simple_preview_hint),
+                style = MaterialTheme.typography.labelSmall,
+                color = MaterialTheme.colorScheme.onSurfaceVariant
+            )
+        }
+    }
+}
+
 @Composable
 private fun ResultCard(
     status: UI2SimpleViewModel.Status,
@@ -463,6 +510,21 @@ private fun ResultCard(
                     }
                 }
 
+                UI2SimpleViewModel.Status.BLOCKED -> {
+                    val reason by vm.blockedReason.collectAsState()
+                    Text(
+                        stringResource(
+                            if (reason == UI2SimpleViewModel.BlockedReason.WEATHER)
+                                R.string.ui2_simple_blocked_weather
+                            else R.string.ui2_simple_blocked_panel_data),
+                        style = MaterialTheme.typography.bodyMedium,
+                        color = MaterialTheme.colorScheme.error
+                    )
+                    TextButton(onClick = vm::retryBlocked) {
+                        Text(stringResource(R.string.ui2_simple_retry))
+                    }
+                }
+
                 UI2SimpleViewModel.Status.ERROR ->
                     Text(
                         stringResource(R.string.ui2_simple_error),
@@ -505,6 +567,13 @@ private fun ResultCard(
                             style = MaterialTheme.typography.labelSmall,
                             color = MaterialTheme.colorScheme.onSurfaceVariant
                         )
+                        if (!r.complete) {
+                            Text(
+                                stringResource(R.string.ui2_simple_costing_more),
+                                style = MaterialTheme.typography.labelSmall,
+                                color = MaterialTheme.colorScheme.onSurfaceVariant
+                            )
+                        }
                     }
                 }
             }
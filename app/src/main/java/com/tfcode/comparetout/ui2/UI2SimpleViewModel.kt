@@ -18,16 +18,23 @@ package com.tfcode.comparetout.ui2
 
 import android.content.Context
 import androidx.lifecycle.ViewModel
+import androidx.lifecycle.asFlow
 import androidx.lifecycle.viewModelScope
 import com.google.gson.Gson
 import com.google.gson.reflect.TypeToken
 import com.tfcode.comparetout.TOUTCApplication
 import com.tfcode.comparetout.importers.esbn.ImportESBNOverview
 import com.tfcode.comparetout.model.ToutcRepository
+import com.tfcode.comparetout.model.scenario.Panel
+import com.tfcode.comparetout.model.scenario.ScenarioReadiness
+import com.tfcode.comparetout.model.scenario.SimulationInputData
+import com.tfcode.comparetout.model.scenario.VirtualLoadProfile
+import com.tfcode.comparetout.scenario.SimulationPreview
 import com.tfcode.comparetout.scenario.loadprofile.StandardLoadProfiles
 import dagger.hilt.android.lifecycle.HiltViewModel
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -36,11 +43,13 @@ import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asSharedFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.time.LocalDate
 import java.time.temporal.ChronoUnit
+import java.util.function.Function
 import javax.inject.Inject
 
 /**
@@ -56,7 +65,10 @@ class UI2SimpleViewModel @Inject constructor(
     private val downloader: PricePlanDownloader
 ) : ViewModel() {
 
-    enum class Status { IDLE, BUILDING, SIMULATING, READY, ERROR }
+    enum class Status { IDLE, BUILDING, SIMULATING, BLOCKED, READY, ERROR }
+
+    /** Why the simulation can't run yet, while [Status.BLOCKED]. */
+    enum class BlockedReason { PANEL_DATA, WEATHER }
 
     /** Where the yearly usage comes from. */
     enum class UsageMode { STANDARD, HDF }
@@ -77,7 +89,18 @@ class UI2SimpleViewModel @Inject constructor(
         val annualNetEuro: Double,
         val planName: String,
         val annualBuyEuro: Double,
-        val annualSellEuro: Double
+        val annualSellEuro: Double,
+        /** False while the worker is still pricing plans; the cheapest so far may yet be beaten. */
+        val complete: Boolean = true
+    )
+
+    /** Live numbers for inputs changed since the last Calculate, from [SimulationPreview]. */
+    data class Preview(
+        val annualNetEuro: Double,
+        val planName: String,
+        val annualBuyEuro: Double,
+        val annualSellEuro: Double,
+        val annualPvKwh: Double
     )
 
     private val app get() = context.applicationContext as TOUTCApplication
@@ -88,9 +111,15 @@ class UI2SimpleViewModel @Inject constructor(
     private val _status = MutableStateFlow(Status.IDLE)
     val status: StateFlow<Status> = _status.asStateFlow()
 
+    private val _blockedReason = MutableStateFlow<BlockedReason?>(null)
+    val blockedReason: StateFlow<BlockedReason?> = _blockedReason.asStateFlow()
+
     private val _result = MutableStateFlow<Result?>(null)
     val result: StateFlow<Result?> = _result.asStateFlow()
 
+    private val _preview = MutableStateFlow<Preview?>(null)
+    val preview: StateFlow<Preview?> = _preview.asStateFlow()
+
     private val _planCount = MutableStateFlow(0)
     val planCount: StateFlow<Int> = _planCount.asStateFlow()
 
@@ -106,6 +135,21 @@ class UI2SimpleViewModel @Inject constructor(
 
     private var derived: SimpleScenarioLoader.UsageSource.Derived? = null
 
+    private var resultJob: Job? = null
+
+    /** The inputs the stored scenario was built from; the preview shows only when they differ. */
+    @Volatile private var calculatedState: UiState? = null
+
+    // Previews run one at a time, so the caches below need no locking.
+    private val previewDispatcher = Dispatchers.Default.limitedParallelism(1)
+    private var previewLoad: Pair<Any, List<SimulationInputData>>? = null
+    private var previewPanel: BasePanel? = null
+
+    /** The stored scenario's panel and its PVGIS rows, which previews resize rather than re-fetch. */
+    private class BasePanel(val scenarioId: Long, val panel: Panel, val rows: List<SimulationInputData>) {
+        val watts = (panel.panelCount * panel.panelkWp).toDouble()
+    }
+
     private val _events = MutableSharedFlow<String>(extraBufferCapacity = 4)
     val events: SharedFlow<String> = _events.asSharedFlow()
 
@@ -117,13 +161,15 @@ class UI2SimpleViewModel @Inject constructor(
             val restored = withContext(Dispatchers.IO) { readPersistedInputs() }
             if (restored != null) {
                 _uiState.value = restored
+                calculatedState = restored
                 // Re-hydrate the HDF profile from the still-imported data so a
                 // restored "My ESBN data" selection can Calculate without re-import.
                 if (restored.usageMode == UsageMode.HDF) tryDeriveHdf(announce = false)
-                pollExistingResult()
+                withStoredId()?.let { watchResult(it) }
             } else {
                 loadExisting()
             }
+            viewModelScope.launch { previewOnEdit() }
             // Persist any later edits (debounced) so they survive app restarts.
             _uiState.collectLatest { state ->
                 delay(400)
@@ -206,24 +252,17 @@ class UI2SimpleViewModel @Inject constructor(
         } else {
             SimpleScenarioLoader.UsageSource.Slp(StandardLoadProfiles.URBAN_SMART)
         }
-        val inputs = SimpleScenarioLoader.SimpleInputs(
-            annualKwh = annual,
-            usage = usage,
-            hasSolar = s.hasSolar,
-            solarKwp = s.solarKwp,
-            latitude = s.locationLat ?: 0.0,
-            longitude = s.locationLon ?: 0.0,
-            azimuthDegrees = s.azimuth.toIntOrNull() ?: 180,
-            batteryKwh = s.batteryKwh.toDouble(),
-            nightCharge = s.nightCharge
-        )
+        val inputs = simpleInputs(s, annual, usage)
+        resultJob?.cancel()
+        calculatedState = s
+        _preview.value = null
         _status.value = Status.BUILDING
         _result.value = null
         viewModelScope.launch {
             when (val r = loader.buildAndRun(inputs)) {
                 is SimpleScenarioLoader.Result.Built -> {
                     _status.value = Status.SIMULATING
-                    pollForResult(r.scenarioId)
+                    watchResult(r.scenarioId)
                 }
                 is SimpleScenarioLoader.Result.Failed -> {
                     _status.value = Status.ERROR
@@ -233,10 +272,25 @@ class UI2SimpleViewModel @Inject constructor(
         }
     }
 
-    /** Re-read the cost for the current simple scenario (e.g. after a manual wait). */
+    /** Re-follow the cost for the current simple scenario (e.g. after tariffs changed). */
     fun refreshResult() {
         val id = withStoredId() ?: return
-        viewModelScope.launch { pollForResult(id, attempts = 1) }
+        watchResult(id)
+    }
+
+    /** Fetch the missing data and simulate again, after the simulation was blocked. */
+    fun retryBlocked() {
+        val id = withStoredId() ?: return
+        _status.value = Status.SIMULATING
+        viewModelScope.launch {
+            when (val r = loader.rerun(id)) {
+                is SimpleScenarioLoader.Result.Built -> watchResult(r.scenarioId)
+                is SimpleScenarioLoader.Result.Failed -> {
+                    _status.value = Status.ERROR
+                    _events.tryEmit("Couldn’t retry: ${r.error.message ?: "unknown error"}")
+                }
+            }
+        }
     }
 
     fun downloadTariffs() {
@@ -253,12 +307,93 @@ class UI2SimpleViewModel @Inject constructor(
             refreshPlanCount()
             _events.tryEmit(msg)
             // If a scenario is already built, its cost can now be computed.
-            withStoredId()?.let { pollForResult(it, attempts = 1) }
+            withStoredId()?.let { watchResult(it) }
         }
     }
 
     // ── Internals ─────────────────────────────────────────────────────────
 
+    private fun simpleInputs(
+        s: UiState, annual: Double, usage: SimpleScenarioLoader.UsageSource
+    ) = SimpleScenarioLoader.SimpleInputs(
+        annualKwh = annual,
+        usage = usage,
+        hasSolar = s.hasSolar,
+        solarKwp = s.solarKwp,
+        latitude = s.locationLat ?: 0.0,
+        longitude = s.locationLon ?: 0.0,
+        azimuthDegrees = s.azimuth.toIntOrNull() ?: 180,
+        batteryKwh = s.batteryKwh.toDouble(),
+        nightCharge = s.nightCharge
+    )
+
+    /**
+     * Re-preview on every edit, once the user pauses. A drag that moves on cancels the
+     * preview for the value it left, so only the settled value's numbers land.
+     */
+    private suspend fun previewOnEdit() {
+        _uiState.collectLatest { state ->
+            if (state == calculatedState) {
+                _preview.value = null
+                return@collectLatest
+            }
+            delay(PREVIEW_DEBOUNCE_MILLIS)
+            _preview.value = withContext(previewDispatcher) {
+                runCatching { preview(state) }.onFailure { it.printStackTrace() }.getOrNull()
+            }
+        }
+    }
+
+    /**
+     * Simulate and cost [s] in memory against the plans that came cheapest for the stored
+     * scenario. Needs the stored scenario's PV rows, so there is no preview before the first
+     * Calculate has fetched them, nor for a new location or roof direction (that needs a
+     * fresh PVGIS fetch — Calculate does it).
+     */
+    private fun preview(s: UiState): Preview? {
+        val id = withStoredId() ?: return null
+        val annual = s.annualKwh.toDoubleOrNull()?.takeIf { it > 0.0 } ?: return null
+        val usage = if (s.usageMode == UsageMode.HDF) derived ?: return null
+            else SimpleScenarioLoader.UsageSource.Slp(StandardLoadProfiles.URBAN_SMART)
+        val inputs = simpleInputs(s, annual, usage)
+        val components = loader.components(inputs) ?: return null
+
+        val base = if (inputs.hasSolar) basePanel(id) ?: return null else null
+        if (base != null && (base.panel.azimuth != inputs.azimuthDegrees
+                    || base.panel.latitude != inputs.latitude || base.panel.longitude != inputs.longitude))
+            return null
+        val plans = cheapestPreviewPlans(repository, id, PREVIEW_PLANS)
+        if (plans.isEmpty()) return null
+
+        val loadKey = listOf(annual, usage)
+        val loadGrid = previewLoad?.takeIf { it.first == loadKey }?.second
+            ?: VirtualLoadProfile.simulationInput(VirtualLoadProfile.loadSeries(components.loadProfile))
+                .also { previewLoad = loadKey to it }
+        val panelRows = Function<Panel, List<SimulationInputData>> { panel ->
+            if (base == null) emptyList()
+            else SimulationPreview.scaled(base.rows, panel.panelCount * panel.panelkWp / base.watts)
+        }
+
+        val result = SimulationPreview.run(components, loadGrid, panelRows, null, plans)
+        val best = result.best ?: return null
+        return Preview(
+            annualNetEuro = best.net / 100.0,
+            planName = best.fullPlanName,
+            annualBuyEuro = best.buy / 100.0,
+            annualSellEuro = best.sell / 100.0,
+            annualPvKwh = result.pv
+        )
+    }
+
+    private fun basePanel(id: Long): BasePanel? {
+        previewPanel?.takeIf { it.scenarioId == id }?.let { return it }
+        val panel = repository.getPanelsForScenario(id).orEmpty().firstOrNull() ?: return null
+        val rows = repository.getPVRowsForPanel(panel.panelIndex)
+        // Still being fetched: try again on the next edit rather than caching nothing
+        if (rows.isNullOrEmpty() || panel.panelCount * panel.panelkWp <= 0) return null
+        return BasePanel(id, panel, rows).also { previewPanel = it }
+    }
+
     private fun refreshPlanCount() {
         viewModelScope.launch {
             _planCount.value = withContext(Dispatchers.IO) {
@@ -353,33 +488,56 @@ class UI2SimpleViewModel @Inject constructor(
     }
 
     /**
-     * Poll the best costing for [id] until it appears (costing is produced by a
-     * background worker after the simulation). With no price plans there can be
-     * no costing, so we don't wait — the UI prompts to download tariffs instead.
+     * Follow the best costing for [id] as the background worker produces it (costing runs
+     * after the simulation). Room re-emits as each wave of plans is saved, so the cheapest
+     * plan so far shows as soon as one exists and [Result.complete] flips once every plan
+     * is costed. With no price plans there can be no costing, so we don't wait — the UI
+     * prompts to download tariffs instead. While the readiness row says the simulation is
+     * blocked (PVGIS or weather data missing) nothing will be costed, so the status is
+     * [Status.BLOCKED] and the UI offers a retry; it returns to SIMULATING once unblocked.
      */
-    private suspend fun pollForResult(id: Long, attempts: Int = 45) {
+    private fun watchResult(id: Long) {
+        resultJob?.cancel()
         if (_planCount.value <= 0) {
             _status.value = Status.READY
             return
         }
-        repeat(attempts) {
-            val costing = withContext(Dispatchers.IO) {
-                runCatching { repository.getBestCostingForScenario(id) }.getOrNull()
-            }
-            if (costing != null) {
-                _result.value = Result(
-                    annualNetEuro = costing.net / 100.0,
-                    planName = costing.fullPlanName ?: "",
-                    annualBuyEuro = costing.buy / 100.0,
-                    annualSellEuro = costing.sell / 100.0
-                )
-                _status.value = Status.READY
-                return
-            }
-            if (attempts > 1) delay(2_000)
+        resultJob = viewModelScope.launch {
+            combine(
+                repository.getLiveBestCostingForScenario(id).asFlow(),
+                repository.getLiveCostingComplete(id).asFlow(),
+                repository.getLiveSimStatus(id).asFlow()
+            ) { costing, complete, simStatus -> Triple(costing, complete == true, blockedReason(simStatus)) }
+                .collect { (costing, complete, blocked) ->
+                    _blockedReason.value = if (costing == null) blocked else null
+                    if (costing != null) {
+                        _result.value = Result(
+                            annualNetEuro = costing.net / 100.0,
+                            planName = costing.fullPlanName ?: "",
+                            annualBuyEuro = costing.buy / 100.0,
+                            annualSellEuro = costing.sell / 100.0,
+                            complete = complete
+                        )
+                        _status.value = Status.READY
+                    } else if (complete) {
+                        // Costed with nothing to show (every plan removed meanwhile)
+                        _result.value = null
+                        _status.value = Status.READY
+                    } else if (blocked != null) {
+                        _result.value = null
+                        _status.value = Status.BLOCKED
+                    } else if (_status.value == Status.BLOCKED) {
+                        // Unblocked (data fetched), so the simulation runs again
+                        _status.value = Status.SIMULATING
+                    }
+                }
         }
-        // Timed out waiting — leave SIMULATING; the user can refresh shortly.
-        if (attempts > 1) _events.tryEmit("Still simulating — tap Refresh in a moment")
+    }
+
+    private fun blockedReason(simStatus: Int?): BlockedReason? = when (simStatus) {
+        ScenarioReadiness.SIM_BLOCKED_PANEL_DATA -> BlockedReason.PANEL_DATA
+        ScenarioReadiness.SIM_BLOCKED_WEATHER -> BlockedReason.WEATHER
+        else -> null
     }
 
     /** Reflect an existing simple scenario's inputs + cost back into the UI.
@@ -393,7 +551,7 @@ class UI2SimpleViewModel @Inject constructor(
             val lp = comps.loadProfile
             val panel = comps.panels?.firstOrNull()
             val battery = comps.batteries?.firstOrNull()
-            _uiState.update {
+            val existing = _uiState.value.let {
                 it.copy(
                     annualKwh = lp?.annualUsage?.toInt()?.toString() ?: it.annualKwh,
                     hasSolar = panel != null,
@@ -405,15 +563,9 @@ class UI2SimpleViewModel @Inject constructor(
                     nightCharge = !comps.loadShifts.isNullOrEmpty()
                 )
             }
-            pollForResult(id, attempts = 1)
-        }
-    }
-
-    /** Re-read just the cost for the already-restored simple scenario. */
-    private fun pollExistingResult() {
-        viewModelScope.launch {
-            val id = withStoredId() ?: return@launch
-            pollForResult(id, attempts = 1)
+            calculatedState = existing
+            _uiState.value = existing
+            watchResult(id)
         }
     }
 
@@ -425,4 +577,9 @@ class UI2SimpleViewModel @Inject constructor(
     private fun writePersistedInputs(state: UiState) {
         runCatching { app.putStringValueIntoDataStore(SIMPLE_INPUTS_KEY, Gson().toJson(state)) }
     }
+
+    private companion object {
+        const val PREVIEW_DEBOUNCE_MILLIS = 150L
+        const val PREVIEW_PLANS = 5
+    }
 }
@@ -126,6 +126,7 @@ import com.tfcode.comparetout.TOUTCApplication
 import com.tfcode.comparetout.model.json.scenario.ScenarioJsonFile
 import com.tfcode.comparetout.model.scenario.PanelPVSummary
 import com.tfcode.comparetout.model.scenario.Scenario
+import com.tfcode.comparetout.region.RegionProfiles
 import com.tfcode.comparetout.scenario.HeatPumpWeatherCache
 import com.tfcode.comparetout.scenario.loadprofile.StandardLoadProfiles
 import dagger.hilt.android.AndroidEntryPoint
@@ -134,6 +135,7 @@ import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.time.LocalDate
+import java.util.Locale
 
 // Pixels of scroll delta before the collapsing header toggles — small enough to feel
 // responsive, large enough to ignore fingertip wobble.
@@ -170,6 +172,7 @@ private fun WizardScreen(
     val pendingLocationRequest by viewModel.pendingLocationRequest.observeAsState(null)
     val panelPvSummary         by viewModel.panelPvSummary.observeAsState(emptyList())
     val pvgisParamCheck        by viewModel.pvgisParamCheck.observeAsState(emptyMap())
+    val preview                by viewModel.preview.observeAsState(null)
     val isSaving               = saveResult == WizardSaveResult.Saving
     var simulationQueued       by remember { mutableStateOf(false) }
     var pvgisQueued            by remember { mutableIntStateOf(0) }
@@ -739,6 +742,8 @@ private fun WizardScreen(
                 )
             }
 
+            preview?.let { WizardPreviewCard(it) }
+
             Spacer(Modifier.height(104.dp))
             }
         }
@@ -785,6 +790,58 @@ private fun WizardScreen(
     }
 }
 
+/** Live numbers for the wizard's settings as they stand, before Save re-simulates them. */
+@Composable
+private fun WizardPreviewCard(p: UI2WizardViewModel.Preview) {
+    val cur = RegionProfiles.current.currencySymbol
+    Surface(
+        color = MaterialTheme.colorScheme.secondaryContainer,
+        shape = MaterialTheme.shapes.medium,
+        modifier = Modifier.fillMaxWidth()
+    ) {
+        Column(Modifier.padding(16.dp), verticalArrangement = Arrangement.spacedBy(6.dp)) {
+            Text(stringResource(R.string.ui2_simple_preview_title),
+                style = MaterialTheme.typography.titleSmall)
+            Text(
+                String.format(Locale.US, "$cur%,.0f", p.annualNetEuro),
+                style = MaterialTheme.typography.headlineSmall,
+                fontWeight = FontWeight.SemiBold
+            )
+            if (p.planName.isNotBlank()) {
+                Text(
+                    stringResource(R.string.ui2_simple_cheapest_plan, p.planName),
+                    style = MaterialTheme.typography.bodySmall
+                )
+            }
+            Text(
+                stringResource(R.string.ui2_simple_buy_sell,
+                    String.format(Locale.US, "$cur%,.0f", p.annualBuyEuro),
+                    String.format(Locale.US, "$cur%,.0f", p.annualSellEuro)),
+                style = MaterialTheme.typography.labelSmall
+            )
+            if (p.annualPvKwh > 0.0) {
+                Text(
+                    stringResource(R.string.ui2_simple_preview_pv,
+                        String.format(Locale.US, "%,.0f", p.annualPvKwh)),
+                    style = MaterialTheme.typography.labelSmall
+                )
+            }
+            if (p.heatPumpLeftOut) {
+                Text(
+                    stringResource(R.string.ui2_wiz_preview_no_heat_pump),
+                    style = MaterialTheme.typography.labelSmall,
+                    color = MaterialTheme.colorScheme.error
+                )
+            }
+            Text(
+                stringResource(R.string.ui2_wiz_preview_hint),
+                style = MaterialTheme.typography.labelSmall,
+                color = MaterialTheme.colorScheme.onSurfaceVariant
+            )
+        }
+    }
+}
+
 /** Each per-accordion Import button writes one of these into the wizard's
  *  scaffold state to open the matching sheet. */
 private enum class WizardImportScope { USAGE, INVERTERS, PV, BATTERY, HW, EV, HEATPUMP }
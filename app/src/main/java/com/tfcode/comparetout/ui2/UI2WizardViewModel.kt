@@ -37,21 +37,33 @@ import com.tfcode.comparetout.model.scenario.Panel
 import com.tfcode.comparetout.model.scenario.PanelPVSummary
 import com.tfcode.comparetout.model.scenario.Scenario
 import com.tfcode.comparetout.model.scenario.ScenarioComponents
+import com.tfcode.comparetout.model.scenario.SimulationInputData
+import com.tfcode.comparetout.model.scenario.VirtualLoadProfile
+import com.tfcode.comparetout.scenario.HeatPumpWeatherCache
+import com.tfcode.comparetout.scenario.SimulationPreview
+import com.tfcode.comparetout.scenario.SimulationWorker
 import com.tfcode.comparetout.scenario.loadprofile.StandardLoadProfiles
+import com.tfcode.comparetout.scenario.sim.HeatPumpComponent
 import com.tfcode.comparetout.scenario.sim.SimTime
 import dagger.hilt.android.lifecycle.HiltViewModel
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.collectLatest
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import java.time.LocalDate
 import java.time.LocalDateTime
 import java.time.ZoneOffset
 import java.time.format.DateTimeFormatter
 import java.time.temporal.ChronoUnit
+import java.util.IdentityHashMap
 import java.util.UUID
+import java.util.function.Function
 import javax.inject.Inject
 
 enum class ScenarioMode { NEW, COPY, LINK, IMPORT }
@@ -748,6 +760,25 @@ class UI2WizardViewModel @Inject constructor(
     private val _saveResult = MutableStateFlow<WizardSaveResult>(WizardSaveResult.Idle)
     val saveResult = _saveResult.asLiveData()
 
+    /** Live numbers for the settings as they stand, from [SimulationPreview]. */
+    data class Preview(
+        val annualNetEuro: Double,
+        val planName: String,
+        val annualBuyEuro: Double,
+        val annualSellEuro: Double,
+        val annualPvKwh: Double,
+        val heatPumpLeftOut: Boolean
+    )
+
+    private val _preview = MutableStateFlow<Preview?>(null)
+    val preview = _preview.asLiveData()
+
+    // Previews run one at a time, so the caches below need no locking.
+    private val previewDispatcher = Dispatchers.Default.limitedParallelism(1)
+    private var previewLoad: Pair<Any, List<SimulationInputData>>? = null
+    private val previewPvRows = HashMap<List<Any?>, List<SimulationInputData>>()
+    private var previewHeatPump: Pair<Any, HeatPumpComponent>? = null
+
     // Monthly PV totals per panel — used to display already-fetched PVGIS data (ID-based, edit mode)
     val panelPvSummary: LiveData<List<PanelPVSummary>> = repository.panelDataSummary
 
@@ -815,6 +846,7 @@ class UI2WizardViewModel @Inject constructor(
         }
 
         if (isEditMode) loadExisting()
+        viewModelScope.launch { previewOnEdit() }
     }
 
     private fun loadExisting() {
@@ -939,6 +971,92 @@ class UI2WizardViewModel @Inject constructor(
         )
     }
 
+    /**
+     * Re-preview on every edit, once the user pauses. An edit that moves on cancels the
+     * preview for the one it left, so only the settled settings' numbers land.
+     */
+    private suspend fun previewOnEdit() {
+        _builder.collectLatest { b ->
+            delay(PREVIEW_DEBOUNCE_MILLIS)
+            _preview.value = withContext(previewDispatcher) {
+                try {
+                    preview(b)
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (e: Exception) {
+                    android.util.Log.w(TAG, "Preview failed", e)
+                    null
+                }
+            }
+        }
+    }
+
+    /**
+     * Simulate and cost [b] in memory against the plans that came cheapest for the scenario
+     * being edited (or copied or linked). Every panel needs that scenario's PV rows for the
+     * same location, roof and data source, resized to its kWp, so a new or moved panel has no
+     * preview until Save has fetched it; nor has an absolute-year load, which Save builds.
+     * A heat pump is included once its weather is at hand, see [previewHeatPump].
+     */
+    private fun preview(b: WizardBuilder): Preview? {
+        val baseId = if (isEditMode) scenarioId else b.basedOnId
+        if (baseId <= 0L || !b.isLoadComplete || b.loadAbsoluteYear) return null
+        val plans = cheapestPreviewPlans(repository, baseId, PREVIEW_PLANS)
+        if (plans.isEmpty()) return null
+        val stored = repository.getScenarioComponentsForScenarioID(baseId)
+        val components = b.toScenarioComponents()
+        components.panels = b.panelEntries.map { it.toPanel() }
+
+        val rowsByPanel = IdentityHashMap<Panel, List<SimulationInputData>>()
+        for ((entry, panel) in b.panelEntries.zip(components.panels)) {
+            if (entry.pvDataSource == PanelDataSource.NONE) continue
+            val before = stored.panels.orEmpty().firstOrNull { it.panelIndex == entry.panelIndex } ?: return null
+            val key = pvRowsKey(before)
+            if (key != pvRowsKey(panel) || before.panelCount * before.panelkWp <= 0) return null
+            val rows = previewPvRows[key] ?: repository.getPVRowsForPanel(before.panelIndex)
+                ?.takeIf { it.isNotEmpty() }?.also { previewPvRows[key] = it } ?: return null
+            rowsByPanel[panel] = SimulationPreview.scaled(rows,
+                panel.panelCount * panel.panelkWp / (before.panelCount * before.panelkWp).toDouble())
+        }
+        val panelRows = Function<Panel, List<SimulationInputData>> { rowsByPanel[it].orEmpty() }
+
+        // The stored load grid while the usage is as loaded; otherwise the edited distributions
+        val lp = components.loadProfile
+        val loadKey = listOf(lp.annualUsage, lp.hourlyDist?.dist, lp.dowDist?.dowDist, lp.monthlyDist?.monthlyDist)
+        val storedLoad = stored.loadProfile?.let {
+            listOf(it.annualUsage, it.hourlyDist?.dist, it.dowDist?.dowDist, it.monthlyDist?.monthlyDist)
+        } == loadKey
+        val gridKey = listOf(storedLoad, baseId, loadKey)
+        val loadGrid = previewLoad?.takeIf { it.first == gridKey }?.second ?: when {
+            storedLoad -> repository.getSimulationInputNoSolar(baseId)
+            loadKey.all { it != null } -> VirtualLoadProfile.simulationInput(VirtualLoadProfile.loadSeries(lp))
+            else -> return null
+        }.also { previewLoad = gridKey to it }
+
+        val heatPump = components.heatPumps.orEmpty().firstOrNull()?.let { hp ->
+            val pvPeriod = HeatPumpWeatherCache.pvSourcePeriod(components.panels)
+            val key = listOf(b.heatPumpEntries.first(), gridKey, pvPeriod?.toList())
+            previewHeatPump?.takeIf { it.first == key }?.second
+                ?: SimulationWorker.buildHeatPumpComponent(context, hp, loadGrid, pvPeriod)
+                    ?.also { previewHeatPump = key to it }
+        }
+
+        val result = SimulationPreview.run(components, loadGrid, panelRows, heatPump, plans)
+        val best = result.best ?: return null
+        return Preview(
+            annualNetEuro = best.net / 100.0,
+            planName = best.fullPlanName,
+            annualBuyEuro = best.buy / 100.0,
+            annualSellEuro = best.sell / 100.0,
+            annualPvKwh = result.pv,
+            heatPumpLeftOut = result.heatPumpLeftOut
+        )
+    }
+
+    /** What a panel's PV rows depend on, apart from its size. */
+    private fun pvRowsKey(p: Panel): List<Any?> = listOf(p.latitude, p.longitude, p.slope, p.azimuth,
+        p.systemLoss, p.dataSource, p.dataStartDate, p.dataEndDate)
+
     fun toggleNoviceMode() {
         val newValue = !_noviceMode.value
         _noviceMode.value = newValue
@@ -1885,8 +2003,8 @@ class UI2WizardViewModel @Inject constructor(
                         context.getString(R.string.ui2_wiz_save_err_name_in_use))
                 }
                 // Absolute-year load: write the source's REAL series onto the 2001 grid now. Create paths only
-                // (a fresh load profile has no loadprofiledata, so the plain @Insert can't collide and the
-                // GenerateMissingLoadDataWorker will skip a profile that already has rows). The loadSource/sysSn
+                // (a fresh load profile has no loadprofiledata, so the plain @Insert can't collide; stored rows
+                // take precedence over the virtual, distribution-computed load). The loadSource/sysSn
                 // guards mean a stale absolute flag (left if the user later switched to SLP/Copy/Link) is ignored.
                 if (b.loadAbsoluteYear && b.loadSource == LoadSource.SOURCE &&
                     b.loadSourceSysSn.isNotBlank() && !isEditMode) {
@@ -1910,4 +2028,10 @@ class UI2WizardViewModel @Inject constructor(
             }
         }
     }
+
+    private companion object {
+        const val TAG = "UI2Wizard"
+        const val PREVIEW_DEBOUNCE_MILLIS = 150L
+        const val PREVIEW_PLANS = 5
+    }
 }
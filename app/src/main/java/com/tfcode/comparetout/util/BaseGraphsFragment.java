@@ -1823,6 +1823,7 @@ public abstract class BaseGraphsFragment extends Fragment {
 
         LineData data = new LineData(dataSets);
         mLineChart.setData(data);
+        LineChartDetail.attach(mLineChart);
 
         mLineChart.getDescription().setEnabled(false);
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import android.view.MotionEvent;
+
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a LineChart's data sets at screen resolution. {@link #attach} snapshots every data
+ * set's entries into a {@link SeriesPyramid} and hands the chart only what the visible range
+ * needs at the chart's pixel width; as the user zooms or pans, the entries are re-selected
+ * from the pyramid, so detail comes back as the range narrows. The x axis is pinned to the
+ * full series so the viewport still spans all of it.
+ * <p>
+ * A window one visible width either side of the viewport is loaded, so panning only
+ * re-selects once it leaves that window, or when the zoom changes by more than half.
+ */
+public final class LineChartDetail implements OnChartGestureListener {
+
+    private final LineChart mChart;
+    private final List<SeriesPyramid> mPyramids = new ArrayList<>();
+    private float mFirst;
+    private float mLast;
+    private float mLoadedFrom;
+    private float mLoadedTo;
+    private float mLoadedSpan;
+
+    private LineChartDetail(LineChart chart) {
+        mChart = chart;
+    }
+
+    /** Call after {@code chart.setData()}; replaces any earlier attachment. */
+    public static void attach(LineChart chart) {
+        LineData data = chart.getData();
+        if (data == null) return;
+        LineChartDetail detail = new LineChartDetail(chart);
+        float first = Float.MAX_VALUE;
+        float last = -Float.MAX_VALUE;
+        for (ILineDataSet set : data.getDataSets()) {
+            int count = set.getEntryCount();
+            float[] x = new float[count];
+            float[] y = new float[count];
+            for (int i = 0; i < count; i++) {
+                Entry entry = set.getEntryForIndex(i);
+                x[i] = entry.getX();
+                y[i] = entry.getY();
+            }
+            SeriesPyramid pyramid = new SeriesPyramid(x, y);
+            detail.mPyramids.add(pyramid);
+            if (count > 0) {
+                first = Math.min(first, pyramid.getFirstX());
+                last = Math.max(last, pyramid.getLastX());
+            }
+        }
+        if (first > last) {
+            chart.getXAxis().resetAxisMinimum();
+            chart.getXAxis().resetAxisMaximum();
+            chart.setOnChartGestureListener(null);
+            return;
+        }
+        detail.mFirst = first;
+        detail.mLast = last;
+        chart.getXAxis().setAxisMinimum(first);
+        chart.getXAxis().setAxisMaximum(last);
+        chart.setOnChartGestureListener(detail);
+        detail.load(first, last);
+    }
+
+    private void refine() {
+        float from = mChart.getLowestVisibleX();
+        float to = mChart.getHighestVisibleX();
+        float span = to - from;
+        if (from >= mLoadedFrom && to <= mLoadedTo && span > mLoadedSpan / 2 && span < mLoadedSpan * 2)
+            return;
+        load(from, to);
+    }
+
+    private void load(float from, float to) {
+        float span = to - from;
+        mLoadedFrom = Math.max(mFirst, from - span);
+        mLoadedTo = Math.min(mLast, to + span);
+        mLoadedSpan = span;
+        float width = mChart.getViewPortHandler().contentWidth();
+        if (width <= 0) width = mChart.getResources().getDisplayMetrics().widthPixels;
+        // The same density across the loaded window as across the visible part of it
+        int pixels = (span > 0) ? (int) Math.ceil(width * (mLoadedTo - mLoadedFrom) / span) : (int) width;
+        List<ILineDataSet> sets = mChart.getData().getDataSets();
+        for (int s = 0; s < sets.size() && s < mPyramids.size(); s++) {
+            SeriesPyramid pyramid = mPyramids.get(s);
+            int[] rows = pyramid.select(mLoadedFrom, mLoadedTo, pixels);
+            List<Entry> entries = new ArrayList<>(rows.length);
+            for (int row : rows) entries.add(new Entry(pyramid.getX(row), pyramid.getY(row)));
+            ((LineDataSet) sets.get(s)).setValues(entries);
+        }
+        mChart.getData().notifyDataChanged();
+        mChart.notifyDataSetChanged();
+        mChart.invalidate();
+    }
+
+    @Override
+    public void onChartScale(MotionEvent me, float scaleX, float scaleY) {
+        refine();
+    }
+
+    @Override
+    public void onChartTranslate(MotionEvent me, float dX, float dY) {
+        refine();
+    }
+
+    @Override
+    public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {
+        refine(); // double-tap zoom lands after onChartDoubleTapped
+    }
+
+    @Override
+    public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture lastPerformedGesture) {}
+
+    @Override
+    public void onChartLongPressed(MotionEvent me) {}
+
+    @Override
+    public void onChartDoubleTapped(MotionEvent me) {}
+
+    @Override
+    public void onChartSingleTapped(MotionEvent me) {}
+
+    @Override
+    public void onChartFling(MotionEvent me1, MotionEvent me2, float velocityX, float velocityY) {}
+}
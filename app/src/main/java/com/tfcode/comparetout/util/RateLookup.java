@@ -16,8 +16,6 @@
 
 package com.tfcode.comparetout.util;
 
-import android.util.Pair;
-
 import com.tfcode.comparetout.model.priceplan.DayRate;
 import com.tfcode.comparetout.model.priceplan.MinuteRateRange;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
@@ -26,6 +24,7 @@ import com.tfcode.comparetout.model.priceplan.Restrictions;
 
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -57,14 +56,16 @@ import java.util.TreeMap;
  * accurate usage counters throughout the calculation process.
  */
 public class RateLookup {
-    private final NavigableMap<Integer, NavigableMap<Integer, MinuteRateRange>> mLookup
-            = new TreeMap<>();
+    // Compiled from the plan and never changed after construction, so copies share them
+    private final NavigableMap<Integer, NavigableMap<Integer, MinuteRateRange>> mLookup;
+    private final Map<Double, Restriction.RestrictionType> mRestrictions;
+    private final Map<Double, Restriction.Limit> mLimits;
 
     private final Map<Double, Double> mTiers = new TreeMap<>(); // Rate -> used_kWh
     private final Map<Double, Integer> mPeriodStart = new HashMap<>();
-    private final Map<Double, Restriction.RestrictionType> mRestrictions = new HashMap<>();
-    private final Map<Double, Pair<Integer, Double>> mLimits = new HashMap<>();
     private int mStartDOY = 0;
+    // Segments per distinct MinuteRateRange (a plan has a handful), keyed by identity; null = no definition.
+    private final Map<MinuteRateRange, Segments> mSegments = new IdentityHashMap<>();
 
     /**
      * Set the starting day of year for usage period calculations.
@@ -93,13 +94,16 @@ public class RateLookup {
      * @param drs list of day rates defining time-based pricing structures
      */
     public RateLookup(PricePlan pricePlan, List<DayRate> drs) {
+        mLookup = new TreeMap<>();
+        mRestrictions = new HashMap<>();
+        mLimits = new HashMap<>();
         // Initialize usage restrictions for tiered pricing
         Restrictions restrictions = pricePlan.getRestrictions();
         // Need to check for null as the DB update omitted a default object with no entries
         if (!(null == restrictions)) for (Restriction r : restrictions.getRestrictions()) {
             Restriction.RestrictionType type = r.getPeriodicity();
-            Map<String, Pair<Integer, Double>> entries = r.getRestrictionEntries();
-            for (Map.Entry<String, Pair<Integer, Double>> entry : entries.entrySet()) {
+            Map<String, Restriction.Limit> entries = r.getRestrictionEntries();
+            for (Map.Entry<String, Restriction.Limit> entry : entries.entrySet()) {
                 Double rate = Double.parseDouble(entry.getKey());
                 mRestrictions.put(rate, type);
                 mLimits.put(rate, entry.getValue());
@@ -138,6 +142,21 @@ public class RateLookup {
         }
     }
 
+    private RateLookup(RateLookup compiled) {
+        mLookup = compiled.mLookup;
+        mRestrictions = compiled.mRestrictions;
+        mLimits = compiled.mLimits;
+    }
+
+    /**
+     * A lookup over the same compiled rates with its own tier usage, start day and segment
+     * cache, so one compiled plan can price several ranges, on several threads, without
+     * rebuilding it. Copy from a lookup that is not itself pricing.
+     */
+    public RateLookup copy() {
+        return new RateLookup(this);
+    }
+
     /**
      * Get the electricity rate for a specific time and usage amount.
      * <p>
@@ -161,6 +180,78 @@ public class RateLookup {
         return rate;
     }
 
+    /** True when the plan has no day rates, in which case {@link #getRate} is always zero. */
+    public boolean isEmpty() {
+        return mLookup.isEmpty();
+    }
+
+    /** True when usage at this base rate is tracked against a tier limit (see {@link #getRate}). */
+    public boolean isRestricted(double rate) {
+        return mRestrictions.containsKey(rate);
+    }
+
+    /** The lowest rate a tier limit can switch a restricted rate to; +infinity when nothing is restricted. */
+    public double getLowestTierRate() {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (Restriction.Limit limit : mLimits.values())
+            if (limit != null && limit.second != null) lowest = Math.min(lowest, limit.second);
+        return lowest;
+    }
+
+    /**
+     * The base-rate segments in force on a day, for costing by segment rather than by interval
+     * ({@link UsageIndex}). Segment {@code i} covers minutes {@code [begins[i], begins[i+1])}, the last
+     * one runs to the end of the day, and every minute resolves to the same price as
+     * {@link #getRate} would give before restrictions.
+     *
+     * @return the day's segments; a day with no rate definition is one zero-priced segment
+     */
+    public Segments getSegments(int do2001, int dayOfWeek) {
+        MinuteRateRange minuteRateRange = null;
+        Map.Entry<Integer, NavigableMap<Integer, MinuteRateRange>> dateEntry = mLookup.floorEntry(do2001);
+        if (dateEntry != null) {
+            Map.Entry<Integer, MinuteRateRange> minuteEntry = dateEntry.getValue().floorEntry(dayOfWeek);
+            if (minuteEntry != null) minuteRateRange = minuteEntry.getValue();
+        }
+        Segments segments = mSegments.get(minuteRateRange);
+        if (segments == null) {
+            segments = buildSegments(minuteRateRange);
+            mSegments.put(minuteRateRange, segments);
+        }
+        return segments;
+    }
+
+    private static Segments buildSegments(MinuteRateRange minuteRateRange) {
+        NavigableMap<Integer, Double> steps = (minuteRateRange == null)
+                ? new TreeMap<>() : minuteRateRange.getSteps();
+        // Minutes before the first step have no floor entry and price at zero, as MinuteRateRange.lookup does.
+        boolean leadingZero = steps.isEmpty() || steps.firstKey() > 0;
+        int count = steps.size() + (leadingZero ? 1 : 0);
+        int[] begins = new int[count];
+        double[] prices = new double[count];
+        int i = 0;
+        if (leadingZero) {
+            i = 1;
+        }
+        for (Map.Entry<Integer, Double> step : steps.entrySet()) {
+            begins[i] = step.getKey();
+            prices[i] = step.getValue();
+            i++;
+        }
+        return new Segments(begins, prices);
+    }
+
+    /** A day's base rates as parallel arrays of segment start minute and price, in minute order. */
+    public static final class Segments {
+        public final int[] begins;
+        public final double[] prices;
+
+        Segments(int[] begins, double[] prices) {
+            this.begins = begins;
+            this.prices = prices;
+        }
+    }
+
     /**
      * Retrieve the base electricity rate before applying usage restrictions.
      * <p>
@@ -207,7 +298,7 @@ public class RateLookup {
         updatePeriod(rate, do2001, minuteOfDay);
         double totalUsedKWH = updateTotalUsed(rate, usedKWH);
 
-        Pair<Integer, Double> limit = mLimits.get(rate);
+        Restriction.Limit limit = mLimits.get(rate);
         if (limit != null && limit.first != null && totalUsedKWH > limit.first) {
             return limit.second; // Return secondary rate if limit exceeded
         } else {
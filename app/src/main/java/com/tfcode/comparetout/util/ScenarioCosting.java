@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import com.tfcode.comparetout.model.costings.Costings;
+import com.tfcode.comparetout.model.costings.ScenarioDayBand;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
+import com.tfcode.comparetout.model.costings.SubTotals;
+import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
+import com.tfcode.comparetout.model.scenario.Scenario;
+import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A scenario's simulation output priced against one plan: the costing row with the per-day
+ * costs and bands it was summed from. The CostingWorker saves these; SimulationPreview
+ * builds the same thing in memory, so a preview and a saved costing cannot drift apart.
+ */
+public final class ScenarioCosting {
+
+    public static final double DAYS = 365; // TODO look at the biggest & smallest dates in the sim data
+
+    public final Costings costing = new Costings();
+    public final List<ScenarioDayCost> days = new ArrayList<>();
+    public final List<ScenarioDayBand> bands = new ArrayList<>();
+
+    private ScenarioCosting() {}
+
+    /** Index simulation output for costing; the rows must not be empty. */
+    public static UsageIndex index(List<ScenarioSimulationData> rows) {
+        UsageIndex.Builder indexBuilder = new UsageIndex.Builder(rows.size());
+        for (ScenarioSimulationData row : rows)
+            indexBuilder.add(row.getDayOf2001(), (row.getDayOfWeek() == 7) ? 0 : row.getDayOfWeek(),
+                    row.getMinuteOfDay(), row.getBuy(), row.getFeed(),
+                    PriceSeries.wallMillis2001(row.getDayOf2001(), row.getMinuteOfDay()));
+        return indexBuilder.build();
+    }
+
+    /** A deemed-export plan pays for 81.48% of the export limit each day, whatever was fed. */
+    public static boolean isDeemed(Scenario scenario, PricePlan pp) {
+        return pp.isDeemedExport() && scenario.isHasInverters();
+    }
+
+    public static double deemedDaySell(PricePlan pp, double gridExportMax) {
+        return gridExportMax * 0.8148 * pp.getFeed();
+    }
+
+    /** Buy less sell, plus the standing charge, less the sign-up bonus; all in cents. */
+    public static double net(PricePlan pp, double buy, double sell) {
+        return ((buy - sell) + (pp.getStandingCharges() * 100 * (DAYS / 365))) - (pp.getSignUpBonus() * 100);
+    }
+
+    /**
+     * COST CALCULATION
+     * Price the indexed usage by rate segment (per interval only where a tier applies), a day
+     * at a time and in day order. Each day's buy, sell and subtotals are kept as well, so the
+     * dashboard can total any period of the scenario exactly.
+     * @param lookup A lookup of this costing's own; its tier state is consumed.
+     * @param series The plan's dynamic prices projected to 2001, or null for a fixed-rate plan.
+     */
+    public static ScenarioCosting cost(Scenario scenario, UsageIndex usage, PricePlan pp, RateLookup lookup,
+                                       PriceSeries series, double gridExportMax) {
+        ScenarioCosting planCosting = new ScenarioCosting();
+        Costings costing = planCosting.costing;
+        costing.setScenarioID(scenario.getScenarioIndex());
+        costing.setScenarioName(scenario.getScenarioName());
+        costing.setPricePlanID(pp.getPricePlanIndex());
+        costing.setFullPlanName(pp.getSupplier() + ":" + pp.getPlanName());
+        boolean deemed = isDeemed(scenario, pp);
+        double deemedDaySell = deemedDaySell(pp, gridExportMax);
+        // Dynamic plans are merge-joined against their unit rates instead
+        PriceSeries.Cursor cursor = (null == series) ? null : series.cursor();
+        Map<Integer, ScenarioDayCost> days = new TreeMap<>();
+        Map<Integer, SubTotals> dayBands = new TreeMap<>();
+        double buy = 0D;
+        double sell = 0D;
+        for (int day = 0; day < usage.getDayCount(); day++) {
+            int doy = usage.getDayOfYear(day);
+            SubTotals daySubTotals = dayBands.computeIfAbsent(doy, d -> new SubTotals());
+            UsageIndex.Cost dayCost = (null == cursor)
+                    ? usage.costDay(day, lookup, pp.getFeed(), daySubTotals)
+                    : usage.costDay(day, cursor, PriceSeries.SLOT_MILLIS_5, lookup, pp.getFeed(), daySubTotals);
+            buy += dayCost.buy;
+            sell += dayCost.sell;
+            ScenarioDayCost dayRow = days.get(doy);
+            if (null == dayRow) {
+                dayRow = new ScenarioDayCost(scenario.getScenarioIndex(), pp.getPricePlanIndex(), doy,
+                        dayCost.buy, deemed ? deemedDaySell : dayCost.sell);
+                days.put(doy, dayRow);
+            } else {
+                dayRow.setBuy(dayRow.getBuy() + dayCost.buy);
+                if (!deemed) dayRow.setSell(dayRow.getSell() + dayCost.sell);
+            }
+        }
+        SubTotals subTotals = new SubTotals();
+        for (Map.Entry<Integer, SubTotals> day : dayBands.entrySet()) {
+            for (Double price : day.getValue().getPrices()) {
+                double units = day.getValue().getSubTotalForPrice(price);
+                subTotals.addToPrice(price, units);
+                planCosting.bands.add(new ScenarioDayBand(scenario.getScenarioIndex(), pp.getPricePlanIndex(),
+                        day.getKey(), price, units));
+            }
+        }
+        planCosting.days.addAll(days.values());
+        costing.setBuy(buy);
+        costing.setSubTotals(subTotals);
+        /*
+         * Handle deemed export plans by calculating export income based on max export and plan rules.
+         * This is used for certain regulatory or supplier-specific plans.
+         */
+        if (deemed) sell = deemedDaySell * DAYS;
+        costing.setSell(sell);
+        /*
+         * NET COST CALCULATION
+         * Combine buy, sell, standing charges, and sign-up bonuses to get the net cost.
+         */
+        costing.setNet(net(pp, buy, sell));
+        return planCosting;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import java.util.Arrays;
+
+/**
+ * Level-of-detail index over one x-ordered chart series, so a chart draws a few points per
+ * pixel of width however many rows the range holds.
+ * <p>
+ * Level 0 is the series itself; level k groups it into buckets of 2^k points and keeps,
+ * per bucket, the positions of its lowest and highest point. Each level is built from the
+ * one below, so the whole pyramid costs about 2n ints and is built once per series.
+ * {@link #select} picks the coarsest level that still gives at least one bucket per pixel
+ * over the visible x range and returns each bucket's min and max in x order. Peaks and
+ * troughs (a spike in load, a burst of export) survive downsampling, which averaging or
+ * striding would lose. The points returned are always real rows, so values on screen
+ * (highlights, markers) are never interpolated.
+ */
+public final class SeriesPyramid {
+
+    private final float[] mX;
+    private final float[] mY;
+    private final int[][] mMin; // mMin[k - 1][b]: row of the lowest point in bucket b of level k
+    private final int[][] mMax;
+
+    /** @param x ascending x positions; @param y the values at them, same length */
+    public SeriesPyramid(float[] x, float[] y) {
+        if (x.length != y.length) throw new IllegalArgumentException("x and y differ in length");
+        mX = x;
+        mY = y;
+        int levels = 0;
+        for (int n = x.length; n > 1; n = (n + 1) / 2) levels++;
+        mMin = new int[levels][];
+        mMax = new int[levels][];
+        int[] belowMin = null;
+        int[] belowMax = null;
+        int belowSize = x.length;
+        for (int k = 0; k < levels; k++) {
+            int size = (belowSize + 1) / 2;
+            int[] min = new int[size];
+            int[] max = new int[size];
+            for (int b = 0; b < size; b++) {
+                int left = 2 * b;
+                int right = Math.min(left + 1, belowSize - 1);
+                int minL = (belowMin == null) ? left : belowMin[left];
+                int minR = (belowMin == null) ? right : belowMin[right];
+                int maxL = (belowMax == null) ? left : belowMax[left];
+                int maxR = (belowMax == null) ? right : belowMax[right];
+                min[b] = (y[minR] < y[minL]) ? minR : minL;
+                max[b] = (y[maxR] > y[maxL]) ? maxR : maxL;
+            }
+            mMin[k] = min;
+            mMax[k] = max;
+            belowMin = min;
+            belowMax = max;
+            belowSize = size;
+        }
+    }
+
+    public int size() {
+        return mX.length;
+    }
+
+    public float getX(int row) {
+        return mX[row];
+    }
+
+    public float getY(int row) {
+        return mY[row];
+    }
+
+    public float getFirstX() {
+        return mX.length == 0 ? 0F : mX[0];
+    }
+
+    public float getLastX() {
+        return mX.length == 0 ? 0F : mX[mX.length - 1];
+    }
+
+    /**
+     * Rows to draw for the x range {@code [from, to]} on {@code pixels} of width, ascending.
+     * One row either side of the range is included so the line runs off the edges rather
+     * than stopping short. Ranges with no more than two rows per pixel come back whole.
+     */
+    public int[] select(float from, float to, int pixels) {
+        if (mX.length == 0) return new int[0];
+        int lo = Math.max(0, lowerBound(from) - 1);
+        int hi = Math.min(mX.length - 1, lowerBound(Math.nextUp(to)));
+        if (hi < lo) hi = lo;
+        int rows = hi - lo + 1;
+        pixels = Math.max(1, pixels);
+        if (rows <= 2 * pixels) {
+            int[] all = new int[rows];
+            for (int i = 0; i < rows; i++) all[i] = lo + i;
+            return all;
+        }
+        int level = 1;
+        while (level < mMin.length && (rows >> (level + 1)) >= pixels) level++;
+        int bucket = 1 << level;
+        int first = lo >> level;
+        int last = hi >> level;
+        int[] out = new int[2 * (last - first + 1) + 2];
+        int n = 0;
+        out[n++] = lo;
+        for (int b = first; b <= last; b++) {
+            int min;
+            int max;
+            if (b == first || b == last) {
+                // Edge buckets straddle the range; scan just the part inside it
+                int start = Math.max(lo, b * bucket);
+                int end = Math.min(hi, b * bucket + bucket - 1);
+                min = start;
+                max = start;
+                for (int r = start + 1; r <= end; r++) {
+                    if (mY[r] < mY[min]) min = r;
+                    if (mY[r] > mY[max]) max = r;
+                }
+            } else {
+                min = mMin[level - 1][b];
+                max = mMax[level - 1][b];
+            }
+            int a = Math.min(min, max);
+            int c = Math.max(min, max);
+            if (a > out[n - 1]) out[n++] = a;
+            if (c > out[n - 1]) out[n++] = c;
+        }
+        if (hi > out[n - 1]) out[n++] = hi;
+        return Arrays.copyOf(out, n);
+    }
+
+    /** First row whose x is at or after {@code x}. */
+    private int lowerBound(float x) {
+        int lo = 0, hi = mX.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (mX[mid] < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
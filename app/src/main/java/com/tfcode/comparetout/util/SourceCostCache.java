@@ -0,0 +1,494 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import com.tfcode.comparetout.model.ToutcRepository;
+import com.tfcode.comparetout.model.costings.SourceCostBucket;
+import com.tfcode.comparetout.model.costings.SourceDayBand;
+import com.tfcode.comparetout.model.costings.SourceDayCost;
+import com.tfcode.comparetout.model.costings.SourceDaySignature;
+import com.tfcode.comparetout.model.costings.SourcePlanBand;
+import com.tfcode.comparetout.model.costings.SourcePlanTotal;
+import com.tfcode.comparetout.model.costings.SubTotals;
+import com.tfcode.comparetout.model.importers.CostInputRow;
+import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.MinuteRateRange;
+import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
+import com.tfcode.comparetout.model.priceplan.Restriction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Per-day plan costs for an imported source, kept in sourcedaycost / sourcedayband so that
+ * re-opening the dashboard or compare screens only prices the days that changed.
+ * <p>
+ * Nothing is invalidated on write. A cached day counts only while it still matches the source's
+ * current signature for that date (interval count and buy/feed sums, see
+ * {@code CostingDAO.getSourceDaySignatures}), and a plan's rows count only while their hash
+ * matches the plan's current rates. Whatever is missing for a plan is priced here from the
+ * hourly rows and written back, so imports, re-imports, deletes and plan edits all fall out of
+ * the read.
+ * <p>
+ * Plans with usage restrictions (tiers) are not cached: a day's price depends on the usage
+ * before it in the selected range, so they are priced live over the whole range. Dynamic plans
+ * are priced live too, merge-joined against their {@link PriceSeries}, as their prices are
+ * refreshed as they are published.
+ * <p>
+ * This is also the one place sources are priced. The hourly rows are decoded once into a
+ * {@link UsageIndex}, each plan's rates are compiled once per content version and reused
+ * ({@link #compile}), plans are priced in parallel ({@link #priceAll}), and recent results are
+ * held day-bucketed so the dashboard and compare screens share them.
+ */
+public final class SourceCostCache {
+
+    private static final long ROW_SPAN = 3_600_000L; // getSelectedAlphaESSData sums each hour
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int DAY_KEY_LENGTH = 10;
+    // SQLite's default limit on bound variables is 999
+    private static final int MAX_DATES_PER_PATCH = 500;
+
+    private SourceCostCache() {}
+
+    /** One plan's cost over the range, in the plan's currency unit (cents). */
+    public static final class PlanCost {
+        public double buy;
+        public double sell;
+        public final SubTotals subTotals = new SubTotals();
+        /** Date prefix (see {@link #cost}) to {buy, sell}. */
+        public final Map<String, double[]> buckets = new HashMap<>();
+
+        /** A copy for one caller, its day buckets rolled up to {@code keyLength} (0 for none). */
+        PlanCost rollUp(int keyLength) {
+            PlanCost copy = new PlanCost();
+            copy.buy = buy;
+            copy.sell = sell;
+            for (Double price : subTotals.getPrices()) copy.subTotals.addToPrice(price, subTotals.getSubTotalForPrice(price));
+            if (keyLength > 0) for (Map.Entry<String, double[]> bucket : buckets.entrySet())
+                copy.addToBucket(bucket.getKey().substring(0, Math.min(keyLength, bucket.getKey().length())),
+                        bucket.getValue()[0], bucket.getValue()[1]);
+            return copy;
+        }
+
+        private void addToBucket(String key, double buy, double sell) {
+            double[] bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new double[2];
+                buckets.put(key, bucket);
+            }
+            bucket[0] += buy;
+            bucket[1] += sell;
+        }
+    }
+
+    /** A plan's rates compiled once per content version (see {@link PricePlan#computeContentHash}). */
+    public static final class CompiledPlan {
+        final long contentHash;
+        final long planHash;
+        final boolean restricted;
+        private final RateLookup mTemplate;
+
+        CompiledPlan(long contentHash, long planHash, boolean restricted, RateLookup template) {
+            this.contentHash = contentHash;
+            this.planHash = planHash;
+            this.restricted = restricted;
+            mTemplate = template;
+        }
+
+        /** A fresh lookup over the compiled rates, for one pricing pass. */
+        public RateLookup newLookup() {
+            return mTemplate.copy();
+        }
+    }
+
+    /** An imported source's hourly rows decoded once into a {@link UsageIndex}, with each day's date. */
+    public static final class SourceUsage {
+        public final UsageIndex usage;
+        public final String[] dayDates;
+
+        SourceUsage(UsageIndex usage, String[] dayDates) {
+            this.usage = usage;
+            this.dayDates = dayDates;
+        }
+    }
+
+    /**
+     * Compiled plans by pricePlanIndex. A plan whose stored content hash still matches is
+     * reused without reading its day rates again; one without a hash is compiled every time.
+     */
+    private static final Map<Long, CompiledPlan> COMPILED = new ConcurrentHashMap<>();
+
+    /**
+     * Recent results by source range, plans and data, day-bucketed so any bucket size can be
+     * rolled up from them. The dashboard and compare screens asking for the same source and
+     * range share one pricing, even when they ask at the same time.
+     */
+    private static final int MAX_RESULTS = 8;
+    private static final Map<String, CompletableFuture<Map<Long, PlanCost>>> RESULTS =
+            new LinkedHashMap<String, CompletableFuture<Map<Long, PlanCost>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Map<Long, PlanCost>>> eldest) {
+                    return size() > MAX_RESULTS;
+                }
+            };
+
+    public static CompiledPlan compile(ToutcRepository repository, PricePlan plan) {
+        long contentHash = plan.getContentHash();
+        CompiledPlan compiled = COMPILED.get(plan.getPricePlanIndex());
+        if (compiled != null && contentHash != 0L && compiled.contentHash == contentHash) return compiled;
+        List<DayRate> drs = repository.getAllDayRatesForPricePlanID(plan.getPricePlanIndex());
+        compiled = new CompiledPlan(contentHash, planHash(plan, drs), isRestricted(plan), new RateLookup(plan, drs));
+        if (contentHash != 0L) COMPILED.put(plan.getPricePlanIndex(), compiled);
+        return compiled;
+    }
+
+    /**
+     * Decode hourly rows ({@code yyyy-MM-dd HH:mm:ss}, time-ordered) without a date-time parse
+     * per row: each day's date is parsed once and the hour and minute read from their digits.
+     */
+    public static SourceUsage decode(List<CostInputRow> rows) {
+        UsageIndex.Builder builder = new UsageIndex.Builder(rows.size());
+        String date = null;
+        int doy = 0, dow = 0;
+        long dayMillis = 0L;
+        for (CostInputRow row : rows) {
+            String dateTime = row.dateTime;
+            if (date == null || !dateTime.startsWith(date)) {
+                date = dateTime.substring(0, 10);
+                LocalDate day = LocalDate.parse(date);
+                doy = day.getDayOfYear();
+                dow = day.getDayOfWeek().getValue() % 7; // 7=Sun→0
+                dayMillis = day.toEpochDay() * DAY_MILLIS;
+            }
+            int hour = digits(dateTime, 11);
+            int minute = digits(dateTime, 14);
+            builder.add(doy, dow, hour * 60 + minute, row.buy, row.feed, dayMillis + hour * ROW_SPAN);
+        }
+        UsageIndex usage = builder.build();
+        String[] dayDates = new String[usage.getDayCount()];
+        for (int day = 0; day < dayDates.length; day++)
+            dayDates[day] = rows.get(usage.getFirstRow(day)).dateTime.substring(0, 10);
+        return new SourceUsage(usage, dayDates);
+    }
+
+    private static int digits(String s, int at) {
+        return (s.charAt(at) - '0') * 10 + (s.charAt(at + 1) - '0');
+    }
+
+    /**
+     * Price each plan on the common fork-join pool, results in plan order. {@code price} must
+     * not write to the database; callers write the results afterwards.
+     */
+    public static <T> List<T> priceAll(List<PricePlan> plans, Function<PricePlan, T> price) {
+        List<Callable<T>> tasks = new ArrayList<>(plans.size());
+        for (PricePlan plan : plans) tasks.add(() -> price.apply(plan));
+        List<T> out = new ArrayList<>(plans.size());
+        try {
+            for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) out.add(future.get());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Cost every plan over an imported source's dates {@code [from, to]}.
+     * Runs queries and writes, so call it off the main thread.
+     *
+     * @param bucketKeyLength 10 buckets by day, 7 by month, 4 by year; 0 for no buckets
+     * @return cost per pricePlanIndex, for every plan passed in
+     */
+    public static Map<Long, PlanCost> cost(ToutcRepository repository, String sysSn, String from, String to,
+                                           List<PricePlan> plans, int bucketKeyLength) {
+        Map<Long, PlanCost> result = new LinkedHashMap<>();
+        List<SourceDaySignature> signatures = repository.getSourceDaySignatures(sysSn, from, to);
+        if (signatures.isEmpty()) {
+            for (PricePlan plan : plans) result.put(plan.getPricePlanIndex(), new PlanCost());
+            return result;
+        }
+        Map<Long, PriceSeries> dynamic = new HashMap<>();
+        for (PricePlan plan : plans) {
+            PriceSeries series = repository.getPriceSeries(plan.getPricePlanIndex());
+            if (series != null) dynamic.put(plan.getPricePlanIndex(), series);
+        }
+
+        String key = resultKey(sysSn, from, to, plans, dynamic, signatures);
+        CompletableFuture<Map<Long, PlanCost>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<Long, PlanCost>> shared;
+        synchronized (RESULTS) {
+            shared = RESULTS.get(key);
+            if (shared == null) RESULTS.put(key, mine);
+        }
+        if (shared == null) {
+            try {
+                mine.complete(costByDay(repository, sysSn, from, to, plans, signatures, dynamic));
+            } catch (Throwable e) {
+                // Errors too, or callers waiting on this key would block forever
+                synchronized (RESULTS) {
+                    RESULTS.remove(key);
+                }
+                mine.completeExceptionally(e);
+                throw e;
+            }
+            shared = mine;
+        }
+        Map<Long, PlanCost> byDay;
+        try {
+            byDay = shared.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        for (PricePlan plan : plans)
+            result.put(plan.getPricePlanIndex(), byDay.get(plan.getPricePlanIndex()).rollUp(bucketKeyLength));
+        return result;
+    }
+
+    /** Everything the result depends on: the range, each plan's version and series, and the day signatures. */
+    private static String resultKey(String sysSn, String from, String to, List<PricePlan> plans,
+                                    Map<Long, PriceSeries> dynamic, List<SourceDaySignature> signatures) {
+        long hash = 0xcbf29ce484222325L;
+        for (PricePlan plan : plans) {
+            hash = mix(hash, plan.getPricePlanIndex());
+            // An unhashed plan could change without its key changing, so never share it
+            hash = mix(hash, plan.getContentHash() != 0L ? plan.getContentHash() : System.nanoTime());
+            PriceSeries series = dynamic.get(plan.getPricePlanIndex());
+            if (series != null) {
+                hash = mix(hash, series.size());
+                hash = mix(hash, series.getLastEnd());
+                hash = mix(hash, Double.doubleToLongBits(series.mean()));
+            }
+        }
+        for (SourceDaySignature signature : signatures) {
+            hash = mix(hash, signature.date.hashCode());
+            hash = mix(hash, signature.intervals);
+            hash = mix(hash, Double.doubleToLongBits(signature.buyKWh));
+            hash = mix(hash, Double.doubleToLongBits(signature.feedKWh));
+            hash = mix(hash, Double.doubleToLongBits(signature.buyByHour));
+        }
+        return sysSn + '|' + from + '|' + to + '|' + plans.size() + '|' + hash;
+    }
+
+    /** Day-bucketed costs for every plan: cached days read back, missing days priced and written. */
+    private static Map<Long, PlanCost> costByDay(ToutcRepository repository, String sysSn, String from, String to,
+                                                 List<PricePlan> plans, List<SourceDaySignature> signatures,
+                                                 Map<Long, PriceSeries> dynamic) {
+        Map<Long, PlanCost> result = new LinkedHashMap<>();
+        for (PricePlan plan : plans) result.put(plan.getPricePlanIndex(), new PlanCost());
+        Map<String, SourceDaySignature> signatureByDate = new HashMap<>();
+        for (SourceDaySignature signature : signatures) signatureByDate.put(signature.date, signature);
+
+        Map<Long, Map<Long, SourcePlanTotal>> totals = new HashMap<>();
+        for (SourcePlanTotal total : repository.getSourcePlanTotals(sysSn, from, to)) {
+            Map<Long, SourcePlanTotal> byHash = totals.get(total.pricePlanID);
+            if (byHash == null) {
+                byHash = new HashMap<>();
+                totals.put(total.pricePlanID, byHash);
+            }
+            byHash.put(total.planHash, total);
+        }
+
+        Map<Long, Long> hashes = new HashMap<>();
+        Map<Long, CompiledPlan> compiled = new HashMap<>();
+        List<PricePlan> live = new ArrayList<>();
+        List<PricePlan> stale = new ArrayList<>();
+        for (PricePlan plan : plans) {
+            CompiledPlan rates = compile(repository, plan);
+            compiled.put(plan.getPricePlanIndex(), rates);
+            if (dynamic.containsKey(plan.getPricePlanIndex()) || rates.restricted) {
+                live.add(plan);
+                continue;
+            }
+            hashes.put(plan.getPricePlanIndex(), rates.planHash);
+            Map<Long, SourcePlanTotal> byHash = totals.get(plan.getPricePlanIndex());
+            SourcePlanTotal total = (byHash == null) ? null : byHash.get(rates.planHash);
+            if (total == null || total.days != signatures.size()) stale.add(plan);
+        }
+
+        if (!live.isEmpty() || !stale.isEmpty()) {
+            SourceUsage source = decode(repository.getSelectedAlphaESSData(sysSn, from, to));
+            UsageIndex usage = source.usage;
+            String[] dayDates = source.dayDates;
+
+            Map<Long, Set<String>> current = new HashMap<>();
+            for (PricePlan plan : stale) {
+                long id = plan.getPricePlanIndex();
+                Map<Long, SourcePlanTotal> byHash = totals.get(id);
+                if (byHash != null && byHash.containsKey(hashes.get(id)))
+                    current.put(id, new HashSet<>(repository.getCurrentSourceDates(sysSn, from, to, id, hashes.get(id))));
+            }
+            List<DayCosts> priced = priceAll(stale, plan -> {
+                long id = plan.getPricePlanIndex();
+                long hash = hashes.get(id);
+                Set<String> keep = current.containsKey(id) ? current.get(id) : new HashSet<>();
+                RateLookup lookup = compiled.get(id).newLookup();
+                DayCosts dayCosts = new DayCosts();
+                for (int day = 0; day < dayDates.length; day++) {
+                    String date = dayDates[day];
+                    SourceDaySignature signature = signatureByDate.get(date);
+                    if (signature == null || keep.contains(date)) continue;
+                    SubTotals subTotals = new SubTotals();
+                    UsageIndex.Cost cost = usage.costDay(day, lookup, plan.getFeed(), subTotals);
+                    dayCosts.costs.add(dayCost(sysSn, id, hash, signature, cost));
+                    for (Double price : subTotals.getPrices())
+                        dayCosts.bands.add(new SourceDayBand(sysSn, id, date, price, subTotals.getSubTotalForPrice(price)));
+                }
+                return dayCosts;
+            });
+            for (int i = 0; i < stale.size(); i++) {
+                long id = stale.get(i).getPricePlanIndex();
+                DayCosts dayCosts = priced.get(i);
+                if (!current.containsKey(id)) repository.replaceSourceDayCosts(sysSn, id, from, to, dayCosts.costs, dayCosts.bands);
+                else patch(repository, sysSn, id, dayCosts.costs, dayCosts.bands);
+            }
+
+            int startDOY = LocalDate.parse(from).getDayOfYear();
+            priceAll(live, plan -> {
+                PlanCost planCost = result.get(plan.getPricePlanIndex());
+                RateLookup lookup = compiled.get(plan.getPricePlanIndex()).newLookup();
+                lookup.setStartDOY(startDOY);
+                UsageIndex.DaySink sink = (day, buy, sell) -> planCost.addToBucket(dayDates[day], buy, sell);
+                PriceSeries series = dynamic.get(plan.getPricePlanIndex());
+                UsageIndex.Cost cost = (series == null)
+                        ? usage.cost(lookup, plan.getFeed(), planCost.subTotals, sink)
+                        : usage.cost(series, ROW_SPAN, lookup, plan.getFeed(), planCost.subTotals, sink);
+                planCost.buy = cost.buy;
+                planCost.sell = cost.sell;
+                return planCost;
+            });
+        }
+
+        if (live.size() == plans.size()) return result;
+        for (SourcePlanTotal total : repository.getSourcePlanTotals(sysSn, from, to)) {
+            PlanCost planCost = cachedCost(result, hashes, total.pricePlanID);
+            if (planCost == null || total.planHash != hashes.get(total.pricePlanID)) continue;
+            planCost.buy = total.buy;
+            planCost.sell = total.sell;
+        }
+        for (SourcePlanBand band : repository.getSourcePlanBands(sysSn, from, to)) {
+            PlanCost planCost = cachedCost(result, hashes, band.pricePlanID);
+            if (planCost != null) planCost.subTotals.addToPrice(band.price, band.units);
+        }
+        for (SourceCostBucket bucket : repository.getSourceCostBuckets(sysSn, from, to, DAY_KEY_LENGTH)) {
+            PlanCost planCost = cachedCost(result, hashes, bucket.pricePlanID);
+            if (planCost != null) planCost.addToBucket(bucket.bucket, bucket.buy, bucket.sell);
+        }
+        return result;
+    }
+
+    /** One stale plan's priced days, waiting to be written. */
+    private static final class DayCosts {
+        final List<SourceDayCost> costs = new ArrayList<>();
+        final List<SourceDayBand> bands = new ArrayList<>();
+    }
+
+    /** The result entry for a plan priced from the cache, or null for plans priced live (or not asked for). */
+    private static PlanCost cachedCost(Map<Long, PlanCost> result, Map<Long, Long> hashes, long pricePlanID) {
+        return hashes.containsKey(pricePlanID) ? result.get(pricePlanID) : null;
+    }
+
+    private static SourceDayCost dayCost(String sysSn, long pricePlanID, long hash,
+                                         SourceDaySignature signature, UsageIndex.Cost cost) {
+        SourceDayCost row = new SourceDayCost();
+        row.setSysSn(sysSn);
+        row.setPricePlanID(pricePlanID);
+        row.setDate(signature.date);
+        row.setPlanHash(hash);
+        row.setIntervals(signature.intervals);
+        row.setBuyKWh(signature.buyKWh);
+        row.setFeedKWh(signature.feedKWh);
+        row.setBuyByHour(signature.buyByHour);
+        row.setBuy(cost.buy);
+        row.setSell(cost.sell);
+        return row;
+    }
+
+    private static void patch(ToutcRepository repository, String sysSn, long pricePlanID,
+                              List<SourceDayCost> costs, List<SourceDayBand> bands) {
+        for (int start = 0; start < costs.size(); start += MAX_DATES_PER_PATCH) {
+            List<SourceDayCost> chunk = costs.subList(start, Math.min(costs.size(), start + MAX_DATES_PER_PATCH));
+            Set<String> dates = new HashSet<>();
+            for (SourceDayCost cost : chunk) dates.add(cost.getDate());
+            List<SourceDayBand> chunkBands = new ArrayList<>();
+            for (SourceDayBand band : bands) if (dates.contains(band.getDate())) chunkBands.add(band);
+            repository.patchSourceDayCosts(sysSn, pricePlanID, new ArrayList<>(dates), chunk, chunkBands);
+        }
+    }
+
+    static boolean isRestricted(PricePlan plan) {
+        if (plan.getRestrictions() == null) return false;
+        for (Restriction restriction : plan.getRestrictions().getRestrictions())
+            if (!restriction.getRestrictionEntries().isEmpty()) return true;
+        return false;
+    }
+
+    /**
+     * FNV-1a over everything that decides a day's price: the feed rate and each day rate's
+     * dates, days and minute steps, in the order {@link RateLookup} applies them.
+     */
+    static long planHash(PricePlan plan, List<DayRate> dayRates) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, Double.doubleToLongBits(plan.getFeed()));
+        for (DayRate dayRate : dayRates) {
+            hash = mix(hash, dayRate.getStartDate().hashCode());
+            hash = mix(hash, dayRate.getEndDate().hashCode());
+            for (Integer day : dayRate.getDays().ints) hash = mix(hash, day);
+            MinuteRateRange range = dayRate.getMinuteRateRange();
+            if (range == null || range.getRates().isEmpty()) range = MinuteRateRange.fromHours(dayRate.getHours());
+            NavigableMap<Integer, Double> steps = range.getSteps();
+            hash = mix(hash, steps.size());
+            for (Map.Entry<Integer, Double> step : steps.entrySet()) {
+                hash = mix(hash, step.getKey());
+                hash = mix(hash, Double.doubleToLongBits(step.getValue()));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
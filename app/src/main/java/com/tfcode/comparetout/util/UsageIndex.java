@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import com.tfcode.comparetout.model.costings.SubTotals;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative buy/feed index over a usage series, so a price plan is costed per rate segment
+ * rather than per interval.
+ * <p>
+ * Rows are added in time order and grouped into days; the index keeps each row's minute of
+ * day and running (prefix) sums of buy and feed. Costing a plan then asks {@link RateLookup}
+ * for each day's handful of segments and prices the kWh between two binary-searched row
+ * positions in one step: O(days &times; segments &times; log rows-per-day) instead of a rate
+ * lookup per interval. The same index serves simulation output (CostingWorker) and imported
+ * data (ImportOverviewFragment, the UI2 dashboard and compare screens), and is built once
+ * and reused for every plan.
+ * <p>
+ * Restriction tiers depend on the running usage at each interval, so a segment whose base
+ * rate is restricted is still walked interval by interval through {@link RateLookup#getRate},
+ * in time order. Only those rows touch the tier state, and they reach it in the same order
+ * as before, so tiered plans cost exactly as the per-interval loop did.
+ * <p>
+ * Dynamic plans have no segments: rows added with their wall-clock millis are merge-joined
+ * against the plan's {@link PriceSeries} instead, still one pass over the rows.
+ */
+public final class UsageIndex {
+
+    private final int mDays;
+    private final int[] mDayStart;   // first row of each day; mDayStart[mDays] == row count
+    private final int[] mDayDoy;
+    private final int[] mDayDow;
+    private final int[] mMinute;
+    private final double[] mBuy;
+    private final long[] mMillis;    // wall-clock start of each row, when added with one
+    private final double[] mCumBuy;  // mCumBuy[i] = sum of buy over rows [0, i)
+    private final double[] mCumFeed;
+
+    /** Receives each day's cost as the plan is priced (e.g. for charting buckets). */
+    public interface DaySink {
+        void onDay(int day, double buy, double sell);
+    }
+
+    /** Totals for one plan, in the plan's currency unit (cents). */
+    public static final class Cost {
+        public double buy;
+        public double sell;
+    }
+
+    private UsageIndex(Builder b) {
+        mDays = b.mDays;
+        mDayStart = Arrays.copyOf(b.mDayStart, mDays + 1);
+        mDayStart[mDays] = b.mRows;
+        mDayDoy = Arrays.copyOf(b.mDayDoy, mDays);
+        mDayDow = Arrays.copyOf(b.mDayDow, mDays);
+        mMinute = Arrays.copyOf(b.mMinute, b.mRows);
+        mBuy = Arrays.copyOf(b.mBuy, b.mRows);
+        mMillis = Arrays.copyOf(b.mMillis, b.mRows);
+        mCumBuy = new double[b.mRows + 1];
+        mCumFeed = new double[b.mRows + 1];
+        for (int i = 0; i < b.mRows; i++) {
+            mCumBuy[i + 1] = mCumBuy[i] + b.mBuy[i];
+            mCumFeed[i + 1] = mCumFeed[i] + b.mFeed[i];
+        }
+    }
+
+    public int getDayCount() {
+        return mDays;
+    }
+
+    /** The day of year {@code day}'s rows were added with. */
+    public int getDayOfYear(int day) {
+        return mDayDoy[day];
+    }
+
+    /** Index of the first row of {@code day}, in the order the rows were added. */
+    public int getFirstRow(int day) {
+        return mDayStart[day];
+    }
+
+    public int getRowCount() {
+        return mMinute.length;
+    }
+
+    public double getTotalBuy() {
+        return mCumBuy[mCumBuy.length - 1];
+    }
+
+    public double getTotalFeed() {
+        return mCumFeed[mCumFeed.length - 1];
+    }
+
+    /**
+     * The lowest base rate the plan applies on any day of the series, over every segment of
+     * those days (tiers not included, see {@link RateLookup#getLowestTierRate}). Zero for an
+     * empty series.
+     */
+    public double lowestRate(RateLookup lookup) {
+        double lowest = (mDays == 0) ? 0D : Double.POSITIVE_INFINITY;
+        RateLookup.Segments previous = null;
+        for (int day = 0; day < mDays; day++) {
+            RateLookup.Segments segments = lookup.getSegments(mDayDoy[day], mDayDow[day]);
+            if (segments == previous) continue; // cached per rate range, so runs of days share one
+            previous = segments;
+            for (double price : segments.prices) lowest = Math.min(lowest, price);
+        }
+        return lowest;
+    }
+
+    /**
+     * Price the series against a plan.
+     *
+     * @param lookup    the plan's rates; its tier state advances as a per-interval loop would advance it
+     * @param feedRate  the plan's (flat) feed-in rate
+     * @param subTotals receives kWh per applied price, as the per-interval loops recorded them
+     * @param sink      optional per-day callback, may be null
+     */
+    public Cost cost(RateLookup lookup, double feedRate, SubTotals subTotals, DaySink sink) {
+        Cost cost = new Cost();
+        for (int day = 0; day < mDays; day++) {
+            Cost dayCost = costDay(day, lookup, feedRate, subTotals);
+            cost.buy += dayCost.buy;
+            cost.sell += dayCost.sell;
+            if (sink != null) sink.onDay(day, dayCost.buy, dayCost.sell);
+        }
+        return cost;
+    }
+
+    /**
+     * Price one day. Days must be priced in order when the plan has restricted rates, as
+     * {@link #cost} does; a plan without them can price any day on its own.
+     */
+    public Cost costDay(int day, RateLookup lookup, double feedRate, SubTotals subTotals) {
+        Cost cost = new Cost();
+        boolean tiers = !lookup.isEmpty();
+        int lo = mDayStart[day];
+        int hi = mDayStart[day + 1];
+        int doy = mDayDoy[day];
+        int dow = mDayDow[day];
+        RateLookup.Segments segments = lookup.getSegments(doy, dow);
+        int from = lo;
+        for (int s = 0; s < segments.begins.length && from < hi; s++) {
+            int to = (s + 1 < segments.begins.length) ? lowerBound(from, hi, segments.begins[s + 1]) : hi;
+            if (to == from) continue;
+            double price = segments.prices[s];
+            if (tiers && lookup.isRestricted(price)) {
+                for (int r = from; r < to; r++) {
+                    double rowPrice = lookup.getRate(doy, mMinute[r], dow, mBuy[r]);
+                    cost.buy += rowPrice * mBuy[r];
+                    subTotals.addToPrice(rowPrice, mBuy[r]);
+                }
+            } else {
+                double kWh = mCumBuy[to] - mCumBuy[from];
+                cost.buy += price * kWh;
+                subTotals.addToPrice(price, kWh);
+            }
+            from = to;
+        }
+        cost.sell = feedRate * (mCumFeed[hi] - mCumFeed[lo]);
+        return cost;
+    }
+
+    /**
+     * Price the series against a dynamic plan's unit rates. Each row is priced at the
+     * time-weighted mean of the slots over {@code [millis, millis + span)}; whatever part of a
+     * row the series does not cover is priced by {@code fallback}, the plan's day rates.
+     * Rows must have been added with their wall-clock millis.
+     * <p>
+     * Sub-totals are kept per whole price unit; per-slot prices would give hundreds of bands.
+     *
+     * @param span the interval each row stands for, e.g. 5 minutes for simulation output
+     */
+    public Cost cost(PriceSeries series, long span, RateLookup fallback, double feedRate,
+                     SubTotals subTotals, DaySink sink) {
+        Cost cost = new Cost();
+        PriceSeries.Cursor cursor = series.cursor();
+        for (int day = 0; day < mDays; day++) {
+            Cost dayCost = costDay(day, cursor, span, fallback, feedRate, subTotals);
+            cost.buy += dayCost.buy;
+            cost.sell += dayCost.sell;
+            if (sink != null) sink.onDay(day, dayCost.buy, dayCost.sell);
+        }
+        return cost;
+    }
+
+    /**
+     * Price one day against a dynamic plan. The cursor only moves forward, so days must be
+     * priced in order with the same {@link PriceSeries#cursor()}.
+     */
+    public Cost costDay(int day, PriceSeries.Cursor cursor, long span, RateLookup fallback,
+                        double feedRate, SubTotals subTotals) {
+        Cost cost = new Cost();
+        int lo = mDayStart[day];
+        int hi = mDayStart[day + 1];
+        for (int r = lo; r < hi; r++) {
+            double price = cursor.mean(mMillis[r], span);
+            double coverage = cursor.getCoverage();
+            if (coverage < 1D) {
+                double other = fallback.getRate(mDayDoy[day], mMinute[r], mDayDow[day], mBuy[r]);
+                price = (coverage > 0D) ? price * coverage + other * (1D - coverage) : other;
+            }
+            cost.buy += price * mBuy[r];
+            subTotals.addToPrice((double) Math.round(price), mBuy[r]);
+        }
+        cost.sell = feedRate * (mCumFeed[hi] - mCumFeed[lo]);
+        return cost;
+    }
+
+    /** First row in [from, to) whose minute is at or after {@code minute}; rows are minute-ordered within a day. */
+    private int lowerBound(int from, int to, int minute) {
+        int lo = from, hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (mMinute[mid] < minute) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Collects rows in time order. A new day starts whenever the day-of-year or day-of-week
+     * changes, or the minute of day goes backwards.
+     */
+    public static final class Builder {
+        private int mRows;
+        private int mDays;
+        private int[] mDayStart = new int[64];
+        private int[] mDayDoy = new int[64];
+        private int[] mDayDow = new int[64];
+        private int[] mMinute;
+        private double[] mBuy;
+        private double[] mFeed;
+        private long[] mMillis;
+        private int mLastMinute = Integer.MAX_VALUE;
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            mMinute = new int[capacity];
+            mBuy = new double[capacity];
+            mFeed = new double[capacity];
+            mMillis = new long[capacity];
+        }
+
+        /**
+         * @param do2001      day of year used for the seasonal rate (1-365)
+         * @param dayOfWeek   day of week as the caller passes it to {@link RateLookup#getRate}
+         * @param minuteOfDay minute within the day
+         */
+        public Builder add(int do2001, int dayOfWeek, int minuteOfDay, double buy, double feed) {
+            return add(do2001, dayOfWeek, minuteOfDay, buy, feed, 0L);
+        }
+
+        /**
+         * As {@link #add(int, int, int, double, double)}, also recording the row's wall-clock
+         * start (see {@link PriceSeries}) for costing against a dynamic plan.
+         */
+        public Builder add(int do2001, int dayOfWeek, int minuteOfDay, double buy, double feed, long wallMillis) {
+            if (mDays == 0 || do2001 != mDayDoy[mDays - 1] || dayOfWeek != mDayDow[mDays - 1]
+                    || minuteOfDay < mLastMinute) {
+                if (mDays == mDayStart.length) {
+                    mDayStart = Arrays.copyOf(mDayStart, mDays * 2);
+                    mDayDoy = Arrays.copyOf(mDayDoy, mDays * 2);
+                    mDayDow = Arrays.copyOf(mDayDow, mDays * 2);
+                }
+                mDayStart[mDays] = mRows;
+                mDayDoy[mDays] = do2001;
+                mDayDow[mDays] = dayOfWeek;
+                mDays++;
+            }
+            if (mRows == mMinute.length) {
+                mMinute = Arrays.copyOf(mMinute, mRows * 2);
+                mBuy = Arrays.copyOf(mBuy, mRows * 2);
+                mFeed = Arrays.copyOf(mFeed, mRows * 2);
+                mMillis = Arrays.copyOf(mMillis, mRows * 2);
+            }
+            mMinute[mRows] = minuteOfDay;
+            mBuy[mRows] = buy;
+            mFeed[mRows] = feed;
+            mMillis[mRows] = wallMillis;
+            mRows++;
+            mLastMinute = minuteOfDay;
+            return this;
+        }
+
+        public UsageIndex build() {
+            return new UsageIndex(this);
+        }
+    }
+}
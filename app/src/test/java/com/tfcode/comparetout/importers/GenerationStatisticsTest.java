@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers;
+
+import static org.junit.Assert.assertEquals;
+
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class GenerationStatisticsTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static List<AlphaESSTransformedData> rows(LocalDate from, int days, int stepMinutes, long seed) {
+        Random random = new Random(seed);
+        List<AlphaESSTransformedData> rows = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            String date = from.plusDays(d).toString();
+            for (int m = 0; m < 1440; m += stepMinutes) {
+                if (random.nextInt(30) == 0) continue;
+                AlphaESSTransformedData row = new AlphaESSTransformedData();
+                row.setSysSn("SN");
+                row.setDate(date);
+                row.setMinute(String.format("%02d:%02d", m / 60, m % 60));
+                row.setLoad(random.nextInt(10) == 0 ? 0D : random.nextDouble());
+                row.setPv(random.nextDouble());
+                row.setEvActual(random.nextInt(5) == 0 ? random.nextDouble() * 0.5 : 0D);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static double net(AlphaESSTransformedData row) {
+        return Math.max(0, row.getLoad() - row.getEvActual());
+    }
+
+    @Test
+    public void matchesTheJavaTimeAggregation() {
+        // Leap year included so day-of-year keys beyond Feb 28 are exercised.
+        List<AlphaESSTransformedData> rows = rows(LocalDate.of(2023, 11, 20), 200, 5, 1L);
+        GenerationStatistics stats = GenerationStatistics.collect(rows, GenerationStatisticsTest::net);
+
+        double[] hourly = new double[24], dow = new double[7], month = new double[12];
+        List<Double> positive = new ArrayList<>();
+        Map<Integer, Map<String, AlphaESSTransformedData>> lookup = new HashMap<>();
+        for (AlphaESSTransformedData row : rows) {
+            LocalDate date = LocalDate.parse(row.getDate());
+            double load = net(row);
+            hourly[Integer.parseInt(row.getMinute().substring(0, 2))] += load;
+            dow[date.getDayOfWeek().getValue() % 7] += load;
+            month[date.getMonthValue() - 1] += load;
+            if (load > 0) positive.add(load);
+            lookup.computeIfAbsent(date.getDayOfYear(), k -> new HashMap<>()).put(row.getMinute(), row);
+        }
+        Collections.sort(positive);
+        int baseCount = (int) (positive.size() * 0.3);
+        double baseSum = 0D;
+        for (int i = 0; i < baseCount; i++) baseSum += positive.get(i);
+
+        for (int i = 0; i < 24; i++) assertEquals(hourly[i], stats.hourlySums[i], DELTA);
+        for (int i = 0; i < 7; i++) assertEquals(dow[i], stats.dowSums[i], DELTA);
+        for (int i = 0; i < 12; i++) assertEquals(month[i], stats.monthlySums[i], DELTA);
+        assertEquals((baseSum / baseCount) * 12D, stats.baseLoad, DELTA);
+        assertEquals(rows.size(), stats.rowCount);
+
+        for (int doy = 1; doy <= 366; doy++) {
+            Map<String, AlphaESSTransformedData> day = lookup.get(doy);
+            for (int slot = 0; slot < GenerationStatistics.SLOTS_PER_DAY; slot++) {
+                String hhmm = String.format("%02d:%02d", slot * 5 / 60, slot * 5 % 60);
+                AlphaESSTransformedData row = (day == null) ? null : day.get(hhmm);
+                assertEquals(row == null ? 0D : net(row), stats.loadAt(doy, slot), 0D);
+                assertEquals(row == null ? 0D : row.getPv(), stats.pvAt(doy, slot), 0D);
+            }
+        }
+    }
+
+    @Test
+    public void halfHourRowsOnlyFillTheirOwnSlots() {
+        List<AlphaESSTransformedData> rows = rows(LocalDate.of(2024, 1, 1), 2, 30, 2L);
+        GenerationStatistics stats = GenerationStatistics.collect(rows, AlphaESSTransformedData::getLoad);
+        assertEquals(0D, stats.loadAt(1, 1), 0D);
+        assertEquals(0D, stats.pvAt(2, 7), 0D);
+        double total = 0D;
+        for (AlphaESSTransformedData row : rows) total += row.getLoad();
+        assertEquals(total, stats.totalLoad(), DELTA);
+    }
+
+    @Test
+    public void emptyInputGivesZeroBaseLoad() {
+        GenerationStatistics stats = GenerationStatistics.collect(new ArrayList<>(), AlphaESSTransformedData::getLoad);
+        assertEquals(0D, stats.baseLoad, 0D);
+        assertEquals(0D, stats.totalLoad(), 0D);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GridIntervalIngestTest {
+
+    private static final ZoneId DUBLIN = ZoneId.of("Europe/Dublin");
+    private static final double DELTA = 1e-9;
+
+    /** Collects every written row by "date minute", keeping the last write per channel like the DAO merge. */
+    private static final class Sink implements GridIntervalIngest.BatchWriter {
+        final Map<String, double[]> rows = new HashMap<>();
+        final Map<String, Long> millis = new HashMap<>();
+        int batches = 0;
+        int maxBatch = 0;
+
+        @Override
+        public void write(List<AlphaESSTransformedData> buyRows, List<AlphaESSTransformedData> feedRows) {
+            batches++;
+            maxBatch = Math.max(maxBatch, Math.max(buyRows.size(), feedRows.size()));
+            for (AlphaESSTransformedData r : buyRows) slot(r)[0] = r.getBuy();
+            for (AlphaESSTransformedData r : feedRows) slot(r)[1] = r.getFeed();
+        }
+
+        private double[] slot(AlphaESSTransformedData r) {
+            String key = r.getDate() + " " + r.getMinute();
+            millis.put(key, r.getMillisSinceEpoch());
+            return rows.computeIfAbsent(key, k -> new double[2]);
+        }
+    }
+
+    private static long wall(LocalDateTime t) {
+        return GridIntervalIngest.wallClockMinute(t.getYear(), t.getMonthValue(), t.getDayOfMonth(),
+                t.getHour(), t.getMinute());
+    }
+
+    @Test
+    public void epochDayArithmeticMatchesJavaTime() {
+        for (long d = -200_000; d < 200_000; d += 13) {
+            LocalDate ld = LocalDate.ofEpochDay(d);
+            assertEquals(d, GridIntervalIngest.epochDay(ld.getYear(), ld.getMonthValue(), ld.getDayOfMonth()));
+            if (ld.getYear() > 0 && ld.getYear() < 10000)
+                assertEquals(ld.toString(), GridIntervalIngest.formatEpochDay(d));
+        }
+    }
+
+    @Test
+    public void parsesHdfAndIsoTimestampsWithoutJavaTime() {
+        assertEquals(wall(LocalDateTime.of(2023, 3, 26, 1, 30)),
+                GridIntervalIngest.parseDayFirstWallClock("26-03-2023 01:30"));
+        assertEquals(wall(LocalDateTime.of(2023, 10, 29, 23, 0)),
+                GridIntervalIngest.parseDayFirstWallClock("29-10-2023 23:00+01:00"));
+        String[] iso = {"2023-03-26T01:30:00+01:00", "2023-01-01T00:00:00Z", "2023-10-29T01:30:00+00:00",
+                "2024-06-01T12:00-05:30"};
+        for (String s : iso) {
+            assertEquals(s, OffsetDateTime.parse(s).toInstant().toEpochMilli(),
+                    GridIntervalIngest.parseIsoOffsetMillis(s));
+        }
+    }
+
+    @Test
+    public void wallClockRowsCarryZoneResolvedMillisAcrossDst() {
+        Sink sink = new Sink();
+        GridIntervalIngest ingest = new GridIntervalIngest("MPRN", DUBLIN, 30, 16, false, sink);
+        LocalDateTime start = LocalDateTime.of(2023, 10, 28, 0, 0);
+        for (int i = 0; i < 48 * 2; i++) {
+            LocalDateTime t = start.plusMinutes(30L * i);
+            ingest.acceptWallClock(wall(t), GridIntervalIngest.Channel.BUY, 1D);
+        }
+        ingest.finish(0);
+        assertEquals(96, sink.rows.size());
+        for (Map.Entry<String, Long> e : sink.millis.entrySet()) {
+            LocalDateTime ldt = LocalDateTime.parse(e.getKey().replace(' ', 'T'));
+            assertEquals(e.getKey(), ldt.atZone(DUBLIN).toInstant().toEpochMilli(), (long) e.getValue());
+        }
+        assertTrue("batches are bounded", sink.maxBatch <= 48);
+    }
+
+    @Test
+    public void importAndExportMergeAcrossBatchesAndIncompleteLastDayIsDropped() {
+        Sink sink = new Sink();
+        GridIntervalIngest ingest = new GridIntervalIngest("MPRN", ZoneOffset.UTC, 30, 16, false, sink);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        // All imports first, then all exports, as HDF files list them; plus 10 slots of a third day.
+        for (int i = 0; i < 48 * 2 + 10; i++)
+            ingest.acceptWallClock(wall(start.plusMinutes(30L * i)), GridIntervalIngest.Channel.BUY, 0.5);
+        for (int i = 0; i < 48 * 2 + 10; i++)
+            ingest.acceptWallClock(wall(start.plusMinutes(30L * i)), GridIntervalIngest.Channel.FEED, 0.25);
+        ingest.finish(31);
+
+        assertEquals(96, sink.rows.size());
+        double[] first = sink.rows.get("2024-01-01 00:00");
+        assertEquals(0.5, first[0], DELTA);
+        assertEquals(0.25, first[1], DELTA);
+        assertTrue(!sink.rows.containsKey("2024-01-03 00:00"));
+        assertTrue(sink.batches > 2);
+    }
+
+    @Test
+    public void sumModeAddsDuplicatesAndAlignsToTheGrid() {
+        Sink sink = new Sink();
+        GridIntervalIngest ingest = new GridIntervalIngest("CSV", ZoneOffset.UTC, 30, 64, true, sink);
+        long base = OffsetDateTime.parse("2024-02-01T10:00:00Z").toInstant().toEpochMilli();
+        ingest.acceptUtc(base, GridIntervalIngest.Channel.BUY, 0.1);
+        ingest.acceptUtc(base + 10 * 60_000L, GridIntervalIngest.Channel.BUY, 0.2);
+        ingest.acceptUtc(base + 35 * 60_000L, GridIntervalIngest.Channel.BUY, 0.3);
+        ingest.finish(0);
+
+        List<String> keys = new ArrayList<>(sink.rows.keySet());
+        assertEquals(2, keys.size());
+        assertEquals(0.3, sink.rows.get("2024-02-01 10:00")[0], DELTA);
+        assertEquals(0.3, sink.rows.get("2024-02-01 10:30")[0], DELTA);
+        assertEquals(base + 30 * 60_000L, (long) sink.millis.get("2024-02-01 10:30"));
+        assertEquals(3, ingest.getAcceptedCount());
+    }
+
+    @Test
+    public void sumModeAddsDuplicatesThatArriveAfterTheirSlotWasWritten() {
+        Sink sink = new Sink();
+        GridIntervalIngest ingest = new GridIntervalIngest("CSV", ZoneOffset.UTC, 30, 16, true, sink);
+        long base = OffsetDateTime.parse("2024-02-01T00:00:00Z").toInstant().toEpochMilli();
+        // Two days, so the first day's slots go through the bounded main buffer and are written
+        for (int i = 0; i < 96; i++)
+            ingest.acceptUtc(base + i * 30 * 60_000L, GridIntervalIngest.Channel.BUY, 0.1);
+        int written = sink.batches;
+        ingest.acceptUtc(base, GridIntervalIngest.Channel.BUY, 0.2);
+        ingest.acceptUtc(base, GridIntervalIngest.Channel.FEED, 0.05);
+        ingest.acceptUtc(base + 5 * 60_000L, GridIntervalIngest.Channel.BUY, 0.3);
+        ingest.finish(0);
+
+        assertTrue("the slot was written before its repeats arrived", written > 0);
+        assertEquals(0.6, sink.rows.get("2024-02-01 00:00")[0], DELTA);
+        assertEquals(0.05, sink.rows.get("2024-02-01 00:00")[1], DELTA);
+        assertEquals(0.1, sink.rows.get("2024-02-01 00:30")[0], DELTA);
+        assertEquals(0.1, sink.rows.get("2024-02-02 23:30")[0], DELTA);
+    }
+
+    @Test
+    public void sumModeOnlyKeepsWrittenTotalsWithinTheOutOfOrderWindow() {
+        Sink sink = new Sink();
+        GridIntervalIngest ingest = new GridIntervalIngest("CSV", ZoneOffset.UTC, 30, 16, true, sink);
+        long base = OffsetDateTime.parse("2024-02-01T00:00:00Z").toInstant().toEpochMilli();
+        long slot = 30 * 60_000L;
+        // Thirty days: far more written slots than the window holds
+        for (int i = 0; i < 30 * 48; i++)
+            ingest.acceptUtc(base + i * slot, GridIntervalIngest.Channel.BUY, 0.1);
+        // A repeat inside the window is still added; one beyond it replaces the written value
+        ingest.acceptUtc(base + (30 * 48 - 48) * slot, GridIntervalIngest.Channel.BUY, 0.2);
+        ingest.acceptUtc(base, GridIntervalIngest.Channel.BUY, 0.2);
+        ingest.finish(0);
+
+        assertEquals(0.3, sink.rows.get("2024-03-01 00:00")[0], DELTA);
+        assertEquals(0.2, sink.rows.get("2024-02-01 00:00")[0], DELTA);
+        assertEquals(0.1, sink.rows.get("2024-02-15 12:00")[0], DELTA);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.importers.alphaess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawEnergy;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSRawPower;
+import com.tfcode.comparetout.model.importers.alphaess.AlphaESSTransformedData;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The scratch-array day transform must be row-for-row identical to the map-based chain
+ * the importers use, including DST days, gaps, duplicate samples and EV scaling.
+ */
+public class AlphaESSDayTransformerTest {
+
+    private static final ZoneId DUBLIN = ZoneId.of("Europe/Dublin");
+    private static final DateTimeFormatter UPLOAD = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SYS_SN = "AL2002321010043";
+
+    private static List<AlphaESSRawPower> syntheticDay(LocalDate day, long seed, boolean withEv) {
+        Random random = new Random(seed);
+        List<AlphaESSRawPower> rows = new ArrayList<>();
+        ZonedDateTime t = day.atStartOfDay(DUBLIN).plusSeconds(random.nextInt(240));
+        ZonedDateTime end = day.plusDays(1).atStartOfDay(DUBLIN);
+        while (t.isBefore(end)) {
+            int hour = t.getHour();
+            boolean dropped = random.nextInt(20) == 0;
+            if (!dropped) {
+                AlphaESSRawPower p = new AlphaESSRawPower();
+                p.setSysSn(SYS_SN);
+                p.setUploadTime(t.format(UPLOAD));
+                p.setPpv((hour > 6 && hour < 20) ? random.nextInt(4000) : 0);
+                p.setLoad(200 + random.nextInt(3000));
+                p.setFeedIn(random.nextInt(3) == 0 ? random.nextInt(2000) : 0);
+                p.setGridCharge(random.nextInt(3) == 0 ? random.nextInt(2500) : 0);
+                p.setPchargingPile(withEv && hour < 5 ? random.nextInt(7000) : 0);
+                rows.add(p);
+                if (random.nextInt(40) == 0) rows.add(p);
+            }
+            t = t.plusSeconds(240 + random.nextInt(120));
+            if (random.nextInt(150) == 0) t = t.plusMinutes(25);
+        }
+        return rows;
+    }
+
+    private static AlphaESSRawEnergy energy(LocalDate day, double ev) {
+        AlphaESSRawEnergy e = new AlphaESSRawEnergy();
+        e.setSysSn(SYS_SN);
+        e.setTheDate(day.toString());
+        e.setEnergypv(21.4);
+        e.setEnergyOutput(6.2);
+        e.setEnergyInput(9.7);
+        e.setEnergyCharge(5.1);
+        e.setEnergyDischarge(4.3);
+        e.setEnergyGridCharge(0.4);
+        e.setEnergyChargingPile(ev);
+        return e;
+    }
+
+    private static void assertSameRows(List<AlphaESSTransformedData> expected, List<AlphaESSTransformedData> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            AlphaESSTransformedData e = expected.get(i);
+            AlphaESSTransformedData a = actual.get(i);
+            String at = e.getDate() + " " + e.getMinute();
+            assertEquals(at, e.getDate(), a.getDate());
+            assertEquals(at, e.getMinute(), a.getMinute());
+            assertEquals(at, e.getMillisSinceEpoch(), a.getMillisSinceEpoch());
+            assertEquals(at, e.getPv(), a.getPv(), 0D);
+            assertEquals(at, e.getLoad(), a.getLoad(), 0D);
+            assertEquals(at, e.getFeed(), a.getFeed(), 0D);
+            assertEquals(at, e.getBuy(), a.getBuy(), 0D);
+            assertEquals(at, e.getCharge(), a.getCharge(), 0D);
+            assertEquals(at, e.getPv2bat(), a.getPv2bat(), 0D);
+            assertEquals(at, e.getBat2load(), a.getBat2load(), 0D);
+            assertEquals(at, e.getGrid2bat(), a.getGrid2bat(), 0D);
+            assertEquals(at, e.getEvActual(), a.getEvActual(), 0D);
+        }
+    }
+
+    private static void checkDay(LocalDate day, long seed, boolean withEv) {
+        List<AlphaESSRawPower> power = syntheticDay(day, seed, withEv);
+        AlphaESSRawEnergy energy = energy(day, withEv ? 11.5 : 0D);
+        List<AlphaESSTransformedData> expected =
+                AlphaESSDayTransformer.transformWithMaps(SYS_SN, energy, power, DUBLIN);
+        List<AlphaESSTransformedData> actual =
+                new AlphaESSDayTransformer(DUBLIN).transform(SYS_SN, energy, power);
+        assertSameRows(expected, actual);
+    }
+
+    @Test
+    public void matchesMapChainOnOrdinaryDays() {
+        for (int seed = 0; seed < 10; seed++) checkDay(LocalDate.of(2024, 1, 10 + seed), seed, seed % 2 == 0);
+    }
+
+    @Test
+    public void matchesMapChainAcrossDstTransitions() {
+        checkDay(LocalDate.of(2024, 3, 31), 42L, true);
+        checkDay(LocalDate.of(2024, 10, 27), 43L, true);
+        checkDay(LocalDate.of(2023, 10, 29), 44L, false);
+    }
+
+    @Test
+    public void scratchIsReusedAcrossDays() {
+        AlphaESSDayTransformer transformer = new AlphaESSDayTransformer(DUBLIN);
+        for (int i = 0; i < 5; i++) {
+            LocalDate day = LocalDate.of(2024, 6, 1).plusDays(i);
+            List<AlphaESSRawPower> power = syntheticDay(day, 100 + i, i % 2 == 1);
+            AlphaESSRawEnergy energy = energy(day, i % 2 == 1 ? 7D : 0D);
+            assertSameRows(AlphaESSDayTransformer.transformWithMaps(SYS_SN, energy, power, DUBLIN),
+                    transformer.transform(SYS_SN, energy, power));
+        }
+    }
+
+    @Test
+    public void unparseableUploadTimeFallsBackToMapChain() {
+        LocalDate day = LocalDate.of(2024, 2, 2);
+        List<AlphaESSRawPower> power = syntheticDay(day, 7L, false);
+        power.get(3).setUploadTime("garbage");
+        AlphaESSRawEnergy energy = energy(day, 0D);
+        assertSameRows(AlphaESSDayTransformer.transformWithMaps(SYS_SN, energy, power, DUBLIN),
+                new AlphaESSDayTransformer(DUBLIN).transform(SYS_SN, energy, power));
+    }
+
+    @Test
+    public void emptyDayProducesNoRows() {
+        assertTrue(new AlphaESSDayTransformer(DUBLIN)
+                .transform(SYS_SN, energy(LocalDate.of(2024, 2, 2), 0D), new ArrayList<>()).isEmpty());
+    }
+}
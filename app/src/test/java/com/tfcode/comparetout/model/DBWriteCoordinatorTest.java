@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queued jobs share a transaction, run foreground first, and a failing job only fails itself.
+ * The transactor here stands in for Room: a job's writes are kept only if its transaction
+ * commits.
+ */
+public class DBWriteCoordinatorTest {
+
+    private final List<String> mCommitted = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> mPending = new ArrayList<>();
+    private int mTransactions;
+
+    private DBWriteCoordinator newCoordinator() {
+        return new DBWriteCoordinator(work -> {
+            mTransactions++;
+            mPending.clear();
+            work.run(); // a throw rolls back: the pending writes are dropped
+            mCommitted.addAll(mPending);
+        }, priority -> {});
+    }
+
+    private Runnable write(String row) {
+        return () -> mPending.add(row);
+    }
+
+    /** A job that holds the writer until released, so the jobs behind it queue up. */
+    private CompletableFuture<Void> holdWriter(DBWriteCoordinator writer, CountDownLatch release)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> gate = writer.submit(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            mPending.add("gate");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private static void await(CompletableFuture<?>... jobs) throws Exception {
+        CompletableFuture.allOf(jobs).exceptionally(failure -> null).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void queuedJobsOfOnePriorityShareATransaction() throws Exception {
+        DBWriteCoordinator writer = newCoordinator();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> gate = holdWriter(writer, release);
+        List<CompletableFuture<Void>> jobs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) jobs.add(writer.submit(DBWriteCoordinator.Priority.BACKGROUND, write("row" + i)));
+        long versionBefore = writer.getDataVersion();
+        release.countDown();
+        jobs.add(gate);
+        await(jobs.toArray(new CompletableFuture[0]));
+
+        assertEquals(1, mTransactions);
+        assertEquals(Arrays.asList("gate", "row0", "row1", "row2", "row3", "row4"), mCommitted);
+        assertTrue(writer.getDataVersion() > versionBefore);
+    }
+
+    @Test
+    public void foregroundJobsRunBeforeQueuedBackgroundJobs() throws Exception {
+        DBWriteCoordinator writer = newCoordinator();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> gate = holdWriter(writer, release);
+        CompletableFuture<Void> b1 = writer.submit(DBWriteCoordinator.Priority.BACKGROUND, write("b1"));
+        CompletableFuture<Void> b2 = writer.submit(DBWriteCoordinator.Priority.BACKGROUND, write("b2"));
+        CompletableFuture<Void> f1 = writer.submit(DBWriteCoordinator.Priority.FOREGROUND, write("f1"));
+        release.countDown();
+        await(gate, b1, b2, f1);
+
+        // The gate's transaction ends as soon as a foreground job is waiting
+        assertEquals(Arrays.asList("gate", "f1", "b1", "b2"), mCommitted);
+        assertEquals(3, mTransactions);
+    }
+
+    @Test
+    public void aFailingJobIsRetriedAloneAndFailsOnlyItsCaller() throws Exception {
+        DBWriteCoordinator writer = newCoordinator();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> gate = holdWriter(writer, release);
+        CompletableFuture<Void> a = writer.submit(DBWriteCoordinator.Priority.BACKGROUND, write("a"));
+        CompletableFuture<Void> b = writer.submit(DBWriteCoordinator.Priority.BACKGROUND, () -> {
+            mPending.add("b");
+            throw new IllegalStateException("constraint");
+        });
+        CompletableFuture<Void> c = writer.submit(DBWriteCoordinator.Priority.BACKGROUND, write("c"));
+        release.countDown();
+        await(gate, a, b, c);
+
+        assertEquals(null, gate.get());
+        assertEquals(null, a.get());
+        assertEquals(null, c.get());
+        try {
+            b.get();
+            throw new AssertionError("b should have failed");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        // The shared transaction rolled back; the good jobs were each committed exactly once
+        assertEquals(Arrays.asList("gate", "a", "c"), mCommitted);
+    }
+
+    @Test
+    public void callReturnsTheCommittedValue() {
+        DBWriteCoordinator writer = newCoordinator();
+        long id = writer.call(DBWriteCoordinator.Priority.FOREGROUND, () -> {
+            mPending.add("scenario");
+            return 42L;
+        });
+        assertEquals(42L, id);
+        assertEquals(Collections.singletonList("scenario"), mCommitted);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results are served from memory until the data version moves, and the cache stays within
+ * its row budget.
+ */
+public class QueryResultCacheTest {
+
+    private static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    @Test
+    public void repeatsHitUntilTheDataChanges() {
+        AtomicLong version = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        QueryResultCache cache = new QueryResultCache(version::get, 100);
+
+        for (int i = 0; i < 3; i++)
+            assertEquals("rows", cache.get(key("sumDOY", "SN1", "2024-01-01", "2024-01-31"), () -> {
+                loads.incrementAndGet();
+                return "rows";
+            }));
+        assertEquals(1, loads.get());
+
+        version.incrementAndGet();
+        cache.get(key("sumDOY", "SN1", "2024-01-01", "2024-01-31"), () -> {
+            loads.incrementAndGet();
+            return "rows";
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void resultsLoadedDuringAWriteAreNotKept() {
+        AtomicLong version = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        QueryResultCache cache = new QueryResultCache(version::get, 100);
+
+        cache.get(key("kpis"), () -> {
+            loads.incrementAndGet();
+            version.incrementAndGet(); // an import commits while the query runs
+            return "stale";
+        });
+        assertEquals(0, cache.size());
+        cache.get(key("kpis"), () -> {
+            loads.incrementAndGet();
+            return "fresh";
+        });
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByRows() {
+        QueryResultCache cache = new QueryResultCache(() -> 0L, 10);
+        cache.get(key("a"), () -> Collections.nCopies(4, 0));
+        cache.get(key("b"), () -> Collections.nCopies(4, 0));
+        cache.get(key("a"), () -> Collections.nCopies(4, 0)); // touch a
+        cache.get(key("c"), () -> Collections.nCopies(4, 0)); // 12 rows: b goes
+        assertEquals(2, cache.size());
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(key("a"), () -> {
+            loads.incrementAndGet();
+            return Collections.nCopies(4, 0);
+        });
+        assertEquals(0, loads.get());
+        cache.get(key("b"), () -> {
+            loads.incrementAndGet();
+            return Collections.nCopies(4, 0);
+        });
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void getAllLoadsOnlyTheMissingKeysTogether() {
+        QueryResultCache cache = new QueryResultCache(() -> 0L, 100);
+        cache.get(key("cost", "SN1", 2L), () -> "plan 2");
+        List<List<Object>> keys = Arrays.asList(key("cost", "SN1", 1L), key("cost", "SN1", 2L), key("cost", "SN1", 3L));
+
+        AtomicInteger loads = new AtomicInteger();
+        List<String> values = cache.getAll(keys, missing -> {
+            loads.incrementAndGet();
+            assertEquals(Arrays.asList(0, 2), missing);
+            return Arrays.asList("plan 1", "plan 3");
+        });
+        assertEquals(Arrays.asList("plan 1", "plan 2", "plan 3"), values);
+        assertEquals(1, loads.get());
+
+        assertEquals(values, cache.getAll(keys, missing -> {
+            loads.incrementAndGet();
+            return Collections.emptyList();
+        }));
+        assertEquals(1, loads.get());
+    }
+}
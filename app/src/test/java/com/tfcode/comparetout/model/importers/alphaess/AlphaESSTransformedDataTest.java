@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.importers.alphaess;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AlphaESSTransformedDataTest {
+
+    @Test
+    public void bucketsFollowTheWallClock() {
+        AlphaESSTransformedData row = new AlphaESSTransformedData();
+        row.setDate("2024-02-29");
+        row.setMinute("23:55");
+        assertEquals(23, row.getHour());
+        assertEquals(20240229, row.getDayKey());
+        assertEquals(60, row.getDoy());
+        assertEquals(4, row.getDow()); // Thursday, strftime('%w')
+        assertEquals(202402, row.getMonthKey());
+        assertEquals(2024, row.getYear());
+
+        row.setDate("2023-10-29"); // a Sunday
+        row.setMinute("07:05");
+        assertEquals(7, row.getHour());
+        assertEquals(0, row.getDow());
+        assertEquals(302, row.getDoy());
+    }
+
+    @Test
+    public void malformedDateLeavesBucketsUnset() {
+        AlphaESSTransformedData row = new AlphaESSTransformedData();
+        row.setDate("29/02/2024");
+        assertEquals(0, row.getDayKey());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.priceplan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.tfcode.comparetout.model.IntHolder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PricePlanTest {
+
+    private static PricePlan plan() {
+        PricePlan plan = new PricePlan();
+        plan.setSupplier("Supplier");
+        plan.setPlanName("Night Saver");
+        plan.setFeed(21.0);
+        plan.setStandingCharges(290.5);
+        plan.setLastUpdate("2026-01-01");
+        return plan;
+    }
+
+    private static DayRate dayRate(double night, double day, Integer... days) {
+        DayRate dr = new DayRate();
+        IntHolder holder = new IntHolder();
+        holder.ints = new ArrayList<>(Arrays.asList(days));
+        dr.setDays(holder);
+        MinuteRateRange mrr = new MinuteRateRange();
+        mrr.add(0, 480, night);
+        mrr.add(480, 1440, day);
+        dr.setMinuteRateRange(mrr);
+        return dr;
+    }
+
+    @Test
+    public void contentHashIgnoresStorageOrderIdentityAndActiveFlag() {
+        List<DayRate> drs = Arrays.asList(dayRate(12.0, 30.0, 1, 2, 3, 4, 5), dayRate(15.0, 15.0, 0, 6));
+        List<DayRate> reordered = Arrays.asList(dayRate(15.0, 15.0, 6, 0), dayRate(12.0, 30.0, 5, 4, 3, 2, 1));
+        PricePlan stored = plan();
+        stored.setPricePlanIndex(42L);
+        stored.setContentHash(1234L);
+        stored.setActive(!plan().isActive());
+        reordered.get(0).setDayRateIndex(7L);
+        reordered.get(0).setPricePlanId(42L);
+        assertEquals(plan().computeContentHash(drs), stored.computeContentHash(reordered));
+    }
+
+    @Test
+    public void contentHashChangesWithAnyPricedField() {
+        List<DayRate> drs = Arrays.asList(dayRate(12.0, 30.0, 1, 2, 3, 4, 5), dayRate(15.0, 15.0, 0, 6));
+        long hash = plan().computeContentHash(drs);
+
+        PricePlan standing = plan();
+        standing.setStandingCharges(291.0);
+        assertNotEquals(hash, standing.computeContentHash(drs));
+
+        assertNotEquals(hash, plan().computeContentHash(
+                Arrays.asList(dayRate(12.0, 30.5, 1, 2, 3, 4, 5), dayRate(15.0, 15.0, 0, 6))));
+
+        PricePlan restricted = plan();
+        Restriction restriction = new Restriction();
+        restriction.addEntry(Restriction.RestrictionType.monthly, "30.0", 300, 35.0);
+        Restrictions restrictions = new Restrictions();
+        restrictions.setRestrictions(new ArrayList<>(Arrays.asList(restriction)));
+        restricted.setRestrictions(restrictions);
+        assertNotEquals(hash, restricted.computeContentHash(drs));
+    }
+}
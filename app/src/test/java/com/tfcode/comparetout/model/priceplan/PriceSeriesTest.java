@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.priceplan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class PriceSeriesTest {
+
+    private static final long HALF_HOUR = 30 * 60_000L;
+
+    /** Half-hourly prices from {@code start}, price i = base + i. */
+    private static PriceSeries halfHours(LocalDateTime start, int slots, double base) {
+        PriceSeries.Builder builder = new PriceSeries.Builder(slots);
+        long t = PriceSeries.wallMillis(start);
+        for (int i = 0; i < slots; i++, t += HALF_HOUR) builder.add(t, t + HALF_HOUR, base + i);
+        return builder.build();
+    }
+
+    @Test
+    public void chunksRoundTripByMonth() {
+        // 2024-01-31 22:00 to 2024-02-01 03:00 straddles a month boundary
+        PriceSeries series = halfHours(LocalDateTime.of(2024, 1, 31, 22, 0), 10, 5.0);
+        List<DynamicRateChunk> chunks = series.toChunks(7L);
+        assertEquals(2, chunks.size());
+        assertEquals("2024-01", chunks.get(0).getMonth());
+        assertEquals(4, chunks.get(0).getSlots());
+        assertEquals(7L, chunks.get(1).getPricePlanID());
+        PriceSeries back = PriceSeries.fromChunks(chunks);
+        assertEquals(series.size(), back.size());
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(series.getStart(i), back.getStart(i));
+            assertEquals(series.getEnd(i), back.getEnd(i));
+            assertEquals(series.getPrice(i), back.getPrice(i), 0D);
+        }
+    }
+
+    @Test
+    public void cursorAveragesAnHourAndReportsGaps() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        PriceSeries series = halfHours(start, 4, 10.0); // 00:00-02:00 at 10, 11, 12, 13
+        PriceSeries.Cursor cursor = series.cursor();
+        assertEquals(10.5, cursor.mean(PriceSeries.wallMillis(start), 2 * HALF_HOUR), 1e-9);
+        assertEquals(1D, cursor.getCoverage(), 0D);
+        assertEquals(12.5, cursor.mean(PriceSeries.wallMillis(start.plusHours(1)), 2 * HALF_HOUR), 1e-9);
+        // 01:30-02:30 is half covered
+        assertEquals(13.0, cursor.mean(PriceSeries.wallMillis(start.plusMinutes(90)), 2 * HALF_HOUR), 1e-9);
+        assertEquals(0.5, cursor.getCoverage(), 1e-9);
+        assertTrue(Double.isNaN(cursor.mean(PriceSeries.wallMillis(start.plusHours(3)), 2 * HALF_HOUR)));
+        assertEquals(0D, cursor.getCoverage(), 0D);
+        // Going back restarts the walk
+        assertEquals(10.0, cursor.mean(PriceSeries.wallMillis(start), HALF_HOUR), 1e-9);
+    }
+
+    @Test
+    public void appendReplacesFromTheNewerStart() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        PriceSeries older = halfHours(start, 6, 10.0);
+        PriceSeries newer = halfHours(start.plusHours(2), 4, 50.0);
+        PriceSeries merged = older.append(newer);
+        assertEquals(8, merged.size());
+        assertEquals(13.0, merged.getPrice(3), 0D);
+        assertEquals(50.0, merged.getPrice(4), 0D);
+        assertEquals(newer.getLastEnd(), merged.getLastEnd());
+    }
+
+    @Test
+    public void projectionFoldsOntoTheSimulationYear() {
+        // 2024 is a leap year: Feb 29 is dropped, Mar 1 lands on 2001's day 60
+        PriceSeries series = halfHours(LocalDateTime.of(2024, 2, 29, 23, 0), 4, 20.0);
+        PriceSeries projected = series.projectTo2001();
+        assertEquals(2, projected.size());
+        assertEquals(PriceSeries.wallMillis2001(60, 0), projected.getStart(0));
+        assertEquals(22.0, projected.getPrice(0), 0D);
+        assertEquals(PriceSeries.wallMillis2001(60, 30), projected.getStart(1));
+        assertEquals(PriceSeries.wallMillis2001(60, 60), projected.getEnd(1));
+
+        // A later year wins over an earlier one for the same wall-clock slot
+        PriceSeries.Builder twoYears = new PriceSeries.Builder(2);
+        long t2023 = PriceSeries.wallMillis(LocalDateTime.of(2023, 6, 1, 12, 0));
+        long t2024 = PriceSeries.wallMillis(LocalDateTime.of(2024, 6, 1, 12, 0));
+        twoYears.add(t2023, t2023 + HALF_HOUR, 1.0).add(t2024, t2024 + HALF_HOUR, 2.0);
+        PriceSeries folded = twoYears.build().projectTo2001();
+        assertEquals(1, folded.size());
+        assertEquals(2.0, folded.getPrice(0), 0D);
+    }
+}
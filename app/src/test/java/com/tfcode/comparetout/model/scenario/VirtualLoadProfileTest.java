@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.model.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class VirtualLoadProfileTest {
+
+    private static LoadProfile randomProfile() {
+        Random random = new Random(3L);
+        LoadProfile profile = new LoadProfile();
+        profile.setAnnualUsage(3000 + random.nextInt(5000));
+        List<Double> months = new ArrayList<>();
+        for (int i = 0; i < 12; i++) months.add(random.nextDouble() * 15);
+        profile.getMonthlyDist().monthlyDist = months;
+        List<Double> days = new ArrayList<>();
+        for (int i = 0; i < 7; i++) days.add(random.nextDouble() * 25);
+        profile.getDowDist().dowDist = days;
+        List<Double> hours = new ArrayList<>();
+        for (int i = 0; i < 24; i++) hours.add(random.nextDouble() * 8);
+        profile.getHourlyDist().dist = hours;
+        return profile;
+    }
+
+    /** Weekday occurrences in the month, counted as the old Java generator did. */
+    private static int countDayOccurrenceInMonth(DayOfWeek dow, YearMonth month) {
+        LocalDate start = month.atDay(1).with(TemporalAdjusters.nextOrSame(dow));
+        return (int) ChronoUnit.WEEKS.between(start, month.atEndOfMonth()) + 1;
+    }
+
+    /** The stored-row formula, as the old generator evaluated it slot by slot over 2001. */
+    @Test
+    public void matchesTheStoredRowFormulaExactly() {
+        LoadProfile profile = randomProfile();
+        double[] load = VirtualLoadProfile.loadSeries(profile);
+        assertEquals(VirtualLoadProfile.SLOTS, load.length);
+        LocalDateTime active = LocalDateTime.of(2001, 1, 1, 0, 0);
+        for (int slot = 0; slot < VirtualLoadProfile.SLOTS; slot++) {
+            int occurrences = countDayOccurrenceInMonth(active.getDayOfWeek(), YearMonth.from(active));
+            double m = profile.getMonthlyDist().monthlyDist.get(active.getMonthValue() - 1);
+            double d = profile.getDowDist().dowDist.get(active.getDayOfWeek().getValue() % 7);
+            double h = profile.getHourlyDist().dist.get(active.getHour());
+            double expected = ((((profile.getAnnualUsage() * (m / 100.0)) / occurrences) * (d / 100.0)) * (h / 100.0)) / 12.0;
+            assertEquals(expected, load[slot], 0D);
+            active = active.plusMinutes(5);
+        }
+    }
+
+    @Test
+    public void rowsCarryTheCalendarFields() {
+        double[] load = VirtualLoadProfile.loadSeries(randomProfile());
+        List<SimulationInputData> rows = VirtualLoadProfile.simulationInput(load);
+        DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        DateTimeFormatter minFormat = DateTimeFormatter.ofPattern("HH:mm");
+        LocalDateTime active = LocalDateTime.of(2001, 1, 1, 0, 0);
+        for (int slot = 0; slot < VirtualLoadProfile.SLOTS; slot++) {
+            SimulationInputData row = rows.get(slot);
+            assertEquals(active.format(dateFormat), row.getDate());
+            assertEquals(active.format(minFormat), row.getMinute());
+            assertEquals(active.getHour() * 60 + active.getMinute(), row.getMod());
+            assertEquals(active.getDayOfWeek().getValue(), row.getDow());
+            assertEquals(active.getDayOfYear(), row.getDo2001());
+            assertEquals(active.toInstant(ZoneOffset.UTC).toEpochMilli(), (long) row.getMillisSinceEpoch());
+            assertEquals(load[slot], row.getLoad(), 0D);
+            assertEquals(0D, row.getTpv(), 0D);
+            active = active.plusMinutes(5);
+        }
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        List<SimulationInputData> rows = VirtualLoadProfile.simulationInput(VirtualLoadProfile.loadSeries(randomProfile()));
+        List<SimulationInputData> copy = VirtualLoadProfile.copyOf(rows);
+        copy.get(100).setTpv(1.5);
+        assertNotSame(rows.get(100), copy.get(100));
+        assertEquals(0D, rows.get(100).getTpv(), 0D);
+        assertEquals(rows.get(100).getLoad(), copy.get(100).getLoad(), 0D);
+    }
+}
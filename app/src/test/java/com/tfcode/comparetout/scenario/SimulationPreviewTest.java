@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.scenario;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.tfcode.comparetout.model.IntHolder;
+import com.tfcode.comparetout.model.costings.Costings;
+import com.tfcode.comparetout.model.costings.ScenarioDayCost;
+import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.MinuteRateRange;
+import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.scenario.Battery;
+import com.tfcode.comparetout.model.scenario.HeatPump;
+import com.tfcode.comparetout.model.scenario.Inverter;
+import com.tfcode.comparetout.model.scenario.LoadProfile;
+import com.tfcode.comparetout.model.scenario.Panel;
+import com.tfcode.comparetout.model.scenario.Scenario;
+import com.tfcode.comparetout.model.scenario.ScenarioComponents;
+import com.tfcode.comparetout.model.scenario.ScenarioSimulationData;
+import com.tfcode.comparetout.model.scenario.SimulationInputData;
+import com.tfcode.comparetout.scenario.sim.CsvWeatherProvider;
+import com.tfcode.comparetout.scenario.sim.HeatPumpComponent;
+import com.tfcode.comparetout.scenario.sim.HeatPumpDemandModel;
+import com.tfcode.comparetout.util.RateLookup;
+import com.tfcode.comparetout.util.ScenarioCosting;
+import com.tfcode.comparetout.util.UsageIndex;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A preview of unsaved components gives the numbers the workers would save for the same
+ * components: SimulationWorker's rows, priced as CostingWorker prices them.
+ */
+public class SimulationPreviewTest {
+
+    private static final double TOL = 1e-6;
+    // Two weeks across the end of June, so the monthly split is exercised
+    private static final LocalDateTime START = LocalDateTime.of(2001, 6, 24, 0, 0);
+    private static final int ROWS = 14 * 288;
+
+    private static List<DayRate> rates(double night, double day) {
+        DayRate dr = new DayRate();
+        IntHolder holder = new IntHolder();
+        holder.ints = new ArrayList<>(Arrays.asList(0, 1, 2, 3, 4, 5, 6));
+        dr.setDays(holder);
+        MinuteRateRange mrr = new MinuteRateRange();
+        mrr.add(0, 480, night);
+        mrr.add(480, 1440, day);
+        dr.setMinuteRateRange(mrr);
+        return Collections.singletonList(dr);
+    }
+
+    private static PricePlan plan(long id, String name, double feed, double standing, double bonus, boolean deemed) {
+        PricePlan plan = new PricePlan();
+        plan.setPricePlanIndex(id);
+        plan.setSupplier("Test");
+        plan.setPlanName(name);
+        plan.setFeed(feed);
+        plan.setStandingCharges(standing);
+        plan.setSignUpBonus(bonus);
+        plan.setDeemedExport(deemed);
+        return plan;
+    }
+
+    private static final List<PricePlan> PLANS = Arrays.asList(
+            plan(1, "DayNight", 20.0, 250.0, 50.0, false),
+            plan(2, "Deemed", 21.0, 200.0, 0.0, true),
+            plan(3, "NoExport", 0.0, 150.0, 0.0, false));
+
+    private static final List<List<DayRate>> RATES = Arrays.asList(
+            rates(10.0, 30.0), rates(25.0, 25.0), rates(8.0, 28.0));
+
+    /** An inverter with a battery and one panel, as the user would enter it (no has* flags). */
+    private static ScenarioComponents components() {
+        Scenario scenario = new Scenario();
+        scenario.setScenarioName("Preview");
+        Inverter inverter = InverterBuilder.anInverter().index(1).name("AlphaESS").lossless().build();
+        Battery battery = BatteryBuilder.aBattery().index(1).size(5.7).inverter("AlphaESS").build();
+        Panel panel = new Panel();
+        panel.setInverter("AlphaESS");
+        panel.setMppt(1);
+        LoadProfile loadProfile = new LoadProfile();
+        loadProfile.setGridExportMax(6.0);
+        return new ScenarioComponents(scenario, Collections.singletonList(inverter),
+                Collections.singletonList(battery), Collections.singletonList(panel), null, loadProfile,
+                null, null, null, null, null, null);
+    }
+
+    /** The same components once saved: the DAO has set the has* flags and an ID. */
+    private static ScenarioComponents saved() {
+        ScenarioComponents components = components();
+        components.scenario.setScenarioIndex(7L);
+        components.scenario.setHasInverters(true);
+        components.scenario.setHasBatteries(true);
+        components.scenario.setHasPanels(true);
+        components.scenario.setHasLoadProfiles(true);
+        return components;
+    }
+
+    private static List<SimulationInputData> loadGrid() {
+        double[] load = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) load[i] = ((i % 288) >= 204 && (i % 288) < 264) ? 0.12 : 0.03;
+        return SimSeries.of(START, load, new double[ROWS]);
+    }
+
+    private static List<SimulationInputData> panelRows() {
+        double[] pv = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            double hour = (i % 288) / 12.0;
+            pv[i] = Math.max(0, Math.sin((hour - 5) / 16 * Math.PI)) * 0.3;
+        }
+        return SimSeries.of(START, new double[ROWS], pv);
+    }
+
+    private static int month(int dayOf2001) {
+        return LocalDate.ofYearDay(2001, dayOf2001).getMonthValue() - 1;
+    }
+
+    @Test
+    public void previewMatchesTheSimulatedAndCostedScenario() {
+        Function<Panel, List<SimulationInputData>> panelRows = panel -> panelRows();
+
+        // What SimulationWorker saves, priced plan by plan as CostingWorker does
+        ScenarioComponents saved = saved();
+        List<ScenarioSimulationData> rows = SimulationWorker.simulate(saved.scenario.getScenarioIndex(),
+                SimulationWorker.assembleInputs(saved, loadGrid(), null, panelRows));
+        UsageIndex usage = ScenarioCosting.index(rows);
+        List<ScenarioCosting> costed = new ArrayList<>();
+        for (int i = 0; i < PLANS.size(); i++)
+            costed.add(ScenarioCosting.cost(saved.scenario, usage, PLANS.get(i),
+                    new RateLookup(PLANS.get(i), RATES.get(i)), null, saved.loadProfile.getGridExportMax()));
+        costed.sort(Comparator.comparingDouble(c -> c.costing.getNet()));
+
+        List<SimulationPreview.Plan> plans = new ArrayList<>();
+        for (int i = 0; i < PLANS.size(); i++)
+            plans.add(new SimulationPreview.Plan(PLANS.get(i), new RateLookup(PLANS.get(i), RATES.get(i)), null));
+        SimulationPreview.Result preview = SimulationPreview.run(components(), loadGrid(), panelRows, null, plans);
+
+        double[] load = new double[12];
+        double[] pv = new double[12];
+        double[] buy = new double[12];
+        double[] feed = new double[12];
+        for (ScenarioSimulationData row : rows) {
+            int m = month(row.getDayOf2001());
+            load[m] += row.getLoad();
+            pv[m] += row.getPv();
+            buy[m] += row.getBuy();
+            feed[m] += row.getFeed();
+        }
+        assertTrue("the panel generated", preview.getPV() > 0);
+        assertTrue("the scenario exported", preview.getFeed() > 0);
+        for (int m = 0; m < 12; m++) {
+            assertEquals(load[m], preview.monthlyLoad[m], TOL);
+            assertEquals(pv[m], preview.monthlyPV[m], TOL);
+            assertEquals(buy[m], preview.monthlyBuy[m], TOL);
+            assertEquals(feed[m], preview.monthlyFeed[m], TOL);
+        }
+
+        assertEquals(costed.size(), preview.plans.size());
+        for (int i = 0; i < costed.size(); i++) {
+            Costings expected = costed.get(i).costing;
+            SimulationPreview.PlanCost actual = preview.plans.get(i);
+            assertEquals(expected.getPricePlanID(), actual.pricePlanID);
+            assertEquals(expected.getFullPlanName(), actual.fullPlanName);
+            assertEquals(expected.getBuy(), actual.buy, TOL);
+            assertEquals(expected.getSell(), actual.sell, TOL);
+            assertEquals(expected.getNet(), actual.net, TOL);
+            double[] monthlyBuy = new double[12];
+            double[] monthlySell = new double[12];
+            for (ScenarioDayCost day : costed.get(i).days) {
+                monthlyBuy[month(day.getDayOf2001())] += day.getBuy();
+                monthlySell[month(day.getDayOf2001())] += day.getSell();
+            }
+            for (int m = 0; m < 12; m++) {
+                assertEquals(monthlyBuy[m], actual.monthlyBuy[m], TOL);
+                assertEquals(monthlySell[m], actual.monthlySell[m], TOL);
+            }
+        }
+        assertEquals(preview.plans.get(0), preview.getBest());
+    }
+
+    @Test
+    public void deemedExportPaysTheLimitWhateverWasFed() {
+        PricePlan deemed = PLANS.get(1);
+        SimulationPreview.Result preview = SimulationPreview.run(components(), loadGrid(), panel -> panelRows(), null,
+                Collections.singletonList(new SimulationPreview.Plan(deemed, new RateLookup(deemed, RATES.get(1)), null)));
+
+        SimulationPreview.PlanCost cost = preview.getBest();
+        assertEquals(6.0 * 0.8148 * 21.0 * ScenarioCosting.DAYS, cost.sell, TOL);
+        assertEquals(ScenarioCosting.net(deemed, cost.buy, cost.sell), cost.net, TOL);
+        // Each previewed day is credited a day's deemed export
+        assertEquals(14 * 6.0 * 0.8148 * 21.0, cost.monthlySell[5] + cost.monthlySell[6], TOL);
+    }
+
+    @Test
+    public void heatPumpDemandIsPreviewedWhenSupplied() throws Exception {
+        HeatPumpDemandModel.Config cfg = new HeatPumpDemandModel.Config();
+        cfg.intervalHours = 1d / 12d;
+        HeatPumpComponent heatPump = HeatPumpComponent.build(cfg, new CsvWeatherProvider(new FileReader(
+                new File("src/test/resources/hp-weather/era5-timeseries-2001-synthetic.csv"))),
+                HeatPumpWeatherCache.gridMillis(loadGrid()));
+
+        ScenarioComponents saved = saved();
+        saved.scenario.setHasHeatPump(true);
+        List<ScenarioSimulationData> rows = SimulationWorker.simulate(saved.scenario.getScenarioIndex(),
+                SimulationWorker.assembleInputs(saved, loadGrid(), heatPump, panel -> panelRows()));
+        double buy = 0D;
+        for (ScenarioSimulationData row : rows) buy += row.getBuy();
+
+        ScenarioComponents components = components();
+        components.heatPumps = Collections.singletonList(new HeatPump());
+        SimulationPreview.Result without = SimulationPreview.run(components, loadGrid(), panel -> panelRows(),
+                null, Collections.emptyList());
+        assertTrue("a heat pump without demand is reported", without.heatPumpLeftOut);
+
+        SimulationPreview.Result with = SimulationPreview.run(components, loadGrid(), panel -> panelRows(),
+                heatPump, Collections.emptyList());
+        assertFalse(with.heatPumpLeftOut);
+        assertEquals(buy, with.getBuy(), TOL);
+        assertTrue("the heat pump bought more", with.getBuy() > without.getBuy());
+    }
+}
@@ -22,12 +22,15 @@ import com.tfcode.comparetout.model.IntHolder;
 import com.tfcode.comparetout.model.priceplan.DayRate;
 import com.tfcode.comparetout.model.priceplan.MinuteRateRange;
 import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.Restriction;
+import com.tfcode.comparetout.model.priceplan.Restrictions;
 
 import org.junit.Test;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -120,4 +123,22 @@ public class RateLookupTest {
         assertEquals(100.0, lookup.getRate(100, 600, WEDNESDAY, 0.1), DELTA);
         assertEquals(365.0, lookup.getRate(365, 600, WEDNESDAY, 0.1), DELTA);
     }
+
+    @Test
+    public void copiesShareRatesButNotTierUsage() {
+        PricePlan plan = new PricePlan();
+        Restriction restriction = new Restriction();
+        restriction.addEntry(Restriction.RestrictionType.monthly, "10.0", 60, 25.0);
+        Restrictions restrictions = new Restrictions();
+        restrictions.setRestrictions(new ArrayList<>(Collections.singletonList(restriction)));
+        plan.setRestrictions(restrictions);
+        RateLookup compiled = new RateLookup(plan,
+                Collections.singletonList(flatRate("01/01", "12/31", 10.0, 0, 1, 2, 3, 4, 5, 6)));
+
+        RateLookup first = compiled.copy();
+        double fresh = first.getRate(10, 600, WEDNESDAY, 70);
+        assertEquals(25.0, first.getRate(10, 660, WEDNESDAY, 70), DELTA);
+        // A second copy starts with no usage of its own
+        assertEquals(fresh, compiled.copy().getRate(10, 600, WEDNESDAY, 70), DELTA);
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Downsampled selections must stay bounded by the pixel width while keeping every bucket's
+ * extremes, so peaks and troughs drawn at any zoom are the series' own.
+ */
+public class SeriesPyramidTest {
+
+    private static SeriesPyramid random(int rows, long seed) {
+        Random random = new Random(seed);
+        float[] x = new float[rows];
+        float[] y = new float[rows];
+        for (int i = 0; i < rows; i++) {
+            x[i] = i;
+            y[i] = random.nextFloat() * 10F;
+        }
+        return new SeriesPyramid(x, y);
+    }
+
+    @Test
+    public void shortRangesComeBackWhole() {
+        SeriesPyramid pyramid = random(50, 1L);
+        int[] rows = pyramid.select(10F, 20F, 400);
+        int[] expected = new int[13];
+        for (int i = 0; i < expected.length; i++) expected[i] = 9 + i; // one row either side
+        assertArrayEquals(expected, rows);
+    }
+
+    @Test
+    public void longRangesAreBoundedAndKeepExtremes() {
+        int count = 100_000;
+        SeriesPyramid pyramid = random(count, 2L);
+        int pixels = 300;
+        int[] rows = pyramid.select(0F, count - 1, pixels);
+        assertTrue(rows.length <= 4 * pixels + 2);
+        assertEquals(0, rows[0]);
+        assertEquals(count - 1, rows[rows.length - 1]);
+        for (int i = 1; i < rows.length; i++) assertTrue(rows[i] > rows[i - 1]);
+
+        float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+        float selectedMin = Float.MAX_VALUE, selectedMax = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, pyramid.getY(i));
+            max = Math.max(max, pyramid.getY(i));
+        }
+        for (int row : rows) {
+            selectedMin = Math.min(selectedMin, pyramid.getY(row));
+            selectedMax = Math.max(selectedMax, pyramid.getY(row));
+        }
+        assertEquals(min, selectedMin, 0F);
+        assertEquals(max, selectedMax, 0F);
+    }
+
+    @Test
+    public void zoomingInRefinesTheWindow() {
+        int count = 100_000;
+        SeriesPyramid pyramid = random(count, 3L);
+        int pixels = 300;
+        int[] wide = pyramid.select(0F, count - 1, pixels);
+        int[] narrow = pyramid.select(50_000F, 50_400F, pixels);
+        // The narrow window fits at full detail; the wide one could not
+        assertEquals(401 + 2, narrow.length);
+        assertEquals(49_999, narrow[0]);
+        assertTrue(wide.length < count / 50);
+
+        // A spike inside the window survives any zoom
+        float[] x = new float[count];
+        float[] y = new float[count];
+        for (int i = 0; i < count; i++) x[i] = i;
+        y[77_777] = 42F;
+        SeriesPyramid spiky = new SeriesPyramid(x, y);
+        boolean found = false;
+        for (int row : spiky.select(0F, count - 1, 100)) found |= (row == 77_777);
+        assertTrue(found);
+    }
+}
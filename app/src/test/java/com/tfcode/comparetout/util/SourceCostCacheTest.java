@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tfcode.comparetout.model.IntHolder;
+import com.tfcode.comparetout.model.costings.SubTotals;
+import com.tfcode.comparetout.model.importers.CostInputRow;
+import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.DoubleHolder;
+import com.tfcode.comparetout.model.priceplan.MinuteRateRange;
+import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.Restriction;
+import com.tfcode.comparetout.model.priceplan.Restrictions;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** Cached source-day costs are only trusted while the plan's hash is unchanged. */
+public class SourceCostCacheTest {
+
+    private static List<DayRate> plan(double day, Integer... days) {
+        DayRate dr = new DayRate();
+        IntHolder holder = new IntHolder();
+        holder.ints = new ArrayList<>(Arrays.asList(days));
+        dr.setDays(holder);
+        MinuteRateRange mrr = new MinuteRateRange();
+        mrr.add(0, 480, 10.0);
+        mrr.add(480, 1440, day);
+        dr.setMinuteRateRange(mrr);
+        return Collections.singletonList(dr);
+    }
+
+    private static PricePlan feed(double feed) {
+        PricePlan plan = new PricePlan();
+        plan.setFeed(feed);
+        return plan;
+    }
+
+    @Test
+    public void hashIsStableForTheSameRates() {
+        assertEquals(SourceCostCache.planHash(feed(20.0), plan(30.0, 0, 1, 2, 3, 4, 5, 6)),
+                SourceCostCache.planHash(feed(20.0), plan(30.0, 0, 1, 2, 3, 4, 5, 6)));
+    }
+
+    @Test
+    public void hashChangesWithAnythingThatPricesADay() {
+        long base = SourceCostCache.planHash(feed(20.0), plan(30.0, 0, 1, 2, 3, 4, 5, 6));
+        assertNotEquals(base, SourceCostCache.planHash(feed(21.0), plan(30.0, 0, 1, 2, 3, 4, 5, 6)));
+        assertNotEquals(base, SourceCostCache.planHash(feed(20.0), plan(30.5, 0, 1, 2, 3, 4, 5, 6)));
+        assertNotEquals(base, SourceCostCache.planHash(feed(20.0), plan(30.0, 1, 2, 3, 4, 5)));
+        List<DayRate> later = plan(30.0, 0, 1, 2, 3, 4, 5, 6);
+        later.get(0).setStartDate("02/01");
+        assertNotEquals(base, SourceCostCache.planHash(feed(20.0), later));
+    }
+
+    @Test
+    public void legacyHourRatesHashLikeTheirMinuteRange() {
+        List<DayRate> hours = plan(30.0, 0, 1, 2, 3, 4, 5, 6);
+        DoubleHolder holder = new DoubleHolder();
+        holder.update(8, 24, 30.0);
+        hours.get(0).setHours(holder);
+        hours.get(0).setMinuteRateRange(new MinuteRateRange());
+        assertEquals(SourceCostCache.planHash(feed(20.0), plan(30.0, 0, 1, 2, 3, 4, 5, 6)),
+                SourceCostCache.planHash(feed(20.0), hours));
+    }
+
+    @Test
+    public void onlyPlansWithTierEntriesAreRestricted() {
+        PricePlan plan = feed(20.0);
+        assertFalse(SourceCostCache.isRestricted(plan));
+        Restrictions restrictions = new Restrictions();
+        restrictions.setRestrictions(new ArrayList<>(Collections.singletonList(new Restriction())));
+        plan.setRestrictions(restrictions);
+        assertFalse(SourceCostCache.isRestricted(plan));
+        restrictions.getRestrictions().get(0).addEntry(Restriction.RestrictionType.monthly, "10.0", 60, 25.0);
+        assertTrue(SourceCostCache.isRestricted(plan));
+    }
+
+    private static CostInputRow row(String dateTime, double buy) {
+        CostInputRow row = new CostInputRow();
+        row.dateTime = dateTime;
+        row.buy = buy;
+        return row;
+    }
+
+    @Test
+    public void decodeSplitsDaysAndReadsTheClock() {
+        SourceCostCache.SourceUsage source = SourceCostCache.decode(Arrays.asList(
+                row("2024-03-02 07:00:00", 1.0),
+                row("2024-03-02 08:00:00", 2.0),
+                row("2024-03-03 07:00:00", 4.0)));
+        assertEquals(2, source.usage.getDayCount());
+        assertEquals("2024-03-02", source.dayDates[0]);
+        assertEquals("2024-03-03", source.dayDates[1]);
+        // 10c before 08:00, 30c after, every day of the week
+        UsageIndex.Cost cost = source.usage.cost(new RateLookup(feed(0.0), plan(30.0, 0, 1, 2, 3, 4, 5, 6)),
+                0.0, new SubTotals(), null);
+        assertEquals(1.0 * 10 + 2.0 * 30 + 4.0 * 10, cost.buy, 1e-9);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2026. Tony Finnerty
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.tfcode.comparetout.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tfcode.comparetout.model.IntHolder;
+import com.tfcode.comparetout.model.costings.SubTotals;
+import com.tfcode.comparetout.model.priceplan.DayRate;
+import com.tfcode.comparetout.model.priceplan.MinuteRateRange;
+import com.tfcode.comparetout.model.priceplan.PricePlan;
+import com.tfcode.comparetout.model.priceplan.PriceSeries;
+import com.tfcode.comparetout.model.priceplan.Restriction;
+import com.tfcode.comparetout.model.priceplan.Restrictions;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Segment costing over the usage index must match the per-interval RateLookup loop it
+ * replaces, including tiered (restricted) rates whose price depends on running usage.
+ */
+public class UsageIndexTest {
+
+    private static final double DELTA = 1e-6;
+
+    private static DayRate dayRate(String start, String end, MinuteRateRange mrr, Integer... days) {
+        DayRate dr = new DayRate();
+        dr.setStartDate(start);
+        dr.setEndDate(end);
+        IntHolder holder = new IntHolder();
+        holder.ints = new ArrayList<>(Arrays.asList(days));
+        dr.setDays(holder);
+        dr.setMinuteRateRange(mrr);
+        return dr;
+    }
+
+    private static MinuteRateRange nightDayPeak(double night, double day, double peak) {
+        MinuteRateRange mrr = new MinuteRateRange();
+        mrr.add(0, 480, night);
+        mrr.add(480, 1020, day);
+        mrr.add(1020, 1140, peak);
+        mrr.add(1140, 1440, day);
+        return mrr;
+    }
+
+    private static List<DayRate> seasonalPlan() {
+        MinuteRateRange weekend = new MinuteRateRange();
+        weekend.add(0, 1440, 15.0);
+        return Arrays.asList(
+                dayRate("01/01", "03/31", nightDayPeak(10.0, 30.0, 45.0), 1, 2, 3, 4, 5),
+                dayRate("01/01", "03/31", weekend, 0, 6),
+                dayRate("04/01", "12/31", nightDayPeak(12.0, 28.0, 40.0), 0, 1, 2, 3, 4, 5, 6));
+    }
+
+    /** 5-minute rows from 2001-01-01, as CostingWorker sees simulation output. */
+    private static double[][] rows(int days, long seed) {
+        Random random = new Random(seed);
+        double[][] rows = new double[days * 288][];
+        LocalDate date = LocalDate.of(2001, 1, 1);
+        int i = 0;
+        for (int d = 0; d < days; d++) {
+            int dow = date.getDayOfWeek().getValue() % 7;
+            for (int mod = 0; mod < 1440; mod += 5) {
+                double buy = random.nextInt(8) == 0 ? 0D : random.nextDouble() * 0.4;
+                double feed = random.nextInt(3) == 0 ? random.nextDouble() * 0.3 : 0D;
+                rows[i++] = new double[]{date.getDayOfYear(), dow, mod, buy, feed};
+            }
+            date = date.plusDays(1);
+        }
+        return rows;
+    }
+
+    private static UsageIndex index(double[][] rows) {
+        UsageIndex.Builder builder = new UsageIndex.Builder(rows.length);
+        for (double[] r : rows) builder.add((int) r[0], (int) r[1], (int) r[2], r[3], r[4]);
+        return builder.build();
+    }
+
+    private static void assertMatchesPerInterval(PricePlan plan, List<DayRate> drs, double[][] rows) {
+        RateLookup perInterval = new RateLookup(plan, drs);
+        SubTotals expectedSubTotals = new SubTotals();
+        double buy = 0D, sell = 0D;
+        for (double[] r : rows) {
+            double price = perInterval.getRate((int) r[0], (int) r[2], (int) r[1], r[3]);
+            buy += price * r[3];
+            sell += plan.getFeed() * r[4];
+            expectedSubTotals.addToPrice(price, r[3]);
+        }
+
+        SubTotals subTotals = new SubTotals();
+        double[] sinkBuy = new double[1];
+        UsageIndex.Cost cost = index(rows).cost(new RateLookup(plan, drs), plan.getFeed(), subTotals,
+                (day, dayBuy, daySell) -> sinkBuy[0] += dayBuy);
+        assertEquals(buy, cost.buy, DELTA);
+        assertEquals(sell, cost.sell, DELTA);
+        assertEquals(cost.buy, sinkBuy[0], DELTA);
+
+        List<Double> expectedPrices = expectedSubTotals.getPrices();
+        List<Double> prices = subTotals.getPrices();
+        Collections.sort(expectedPrices);
+        Collections.sort(prices);
+        assertEquals(expectedPrices, prices);
+        for (Double p : prices)
+            assertEquals(expectedSubTotals.getSubTotalForPrice(p), subTotals.getSubTotalForPrice(p), DELTA);
+    }
+
+    @Test
+    public void seasonalTimeOfUseMatchesPerIntervalCosting() {
+        PricePlan plan = new PricePlan();
+        plan.setFeed(18.5);
+        assertMatchesPerInterval(plan, seasonalPlan(), rows(365, 1L));
+    }
+
+    @Test
+    public void restrictedRateMatchesPerIntervalCosting() {
+        PricePlan plan = new PricePlan();
+        plan.setFeed(20.0);
+        Restriction restriction = new Restriction();
+        restriction.addEntry(Restriction.RestrictionType.monthly, "10.0", 60, 25.0);
+        Restrictions restrictions = new Restrictions();
+        restrictions.setRestrictions(new ArrayList<>(Collections.singletonList(restriction)));
+        plan.setRestrictions(restrictions);
+        assertMatchesPerInterval(plan, seasonalPlan(), rows(200, 2L));
+    }
+
+    @Test
+    public void hourlyRowsAndUndefinedDaysPriceAtZeroLikeTheLookup() {
+        // Only weekdays defined: weekend rows resolve to the floor day-of-week entry (or none) as before.
+        List<DayRate> weekdaysOnly = Collections.singletonList(
+                dayRate("01/01", "12/31", nightDayPeak(9.0, 21.0, 33.0), 1, 2, 3, 4, 5));
+        double[][] fiveMinute = rows(30, 3L);
+        List<double[]> hourly = new ArrayList<>();
+        for (double[] r : fiveMinute) if (((int) r[2]) % 60 == 0) hourly.add(r);
+        assertMatchesPerInterval(new PricePlan(), weekdaysOnly, hourly.toArray(new double[0][]));
+    }
+
+    @Test
+    public void lowestRateBoundsTheCostOfEveryPlan() {
+        PricePlan plan = new PricePlan();
+        Restriction restriction = new Restriction();
+        restriction.addEntry(Restriction.RestrictionType.monthly, "10.0", 60, 8.0);
+        Restrictions restrictions = new Restrictions();
+        restrictions.setRestrictions(new ArrayList<>(Collections.singletonList(restriction)));
+        plan.setRestrictions(restrictions);
+        double[][] rows = rows(120, 6L);
+        UsageIndex usage = index(rows);
+        RateLookup lookup = new RateLookup(plan, seasonalPlan());
+        // Jan-Mar weeknights at 10 are the cheapest base rate; the tier drops them to 8
+        assertEquals(10.0, usage.lowestRate(lookup), DELTA);
+        assertEquals(8.0, lookup.getLowestTierRate(), DELTA);
+        double buy = 0D, feed = 0D;
+        for (double[] r : rows) {
+            buy += r[3];
+            feed += r[4];
+        }
+        assertEquals(buy, usage.getTotalBuy(), DELTA);
+        assertEquals(feed, usage.getTotalFeed(), DELTA);
+        double cost = usage.cost(lookup, 0D, new SubTotals(), null).buy;
+        assertTrue(8.0 * usage.getTotalBuy() <= cost);
+    }
+
+    @Test
+    public void unrestrictedDaysPriceTheSameOnTheirOwn() {
+        PricePlan plan = new PricePlan();
+        plan.setFeed(18.5);
+        UsageIndex usage = index(rows(60, 5L));
+        UsageIndex.Cost whole = usage.cost(new RateLookup(plan, seasonalPlan()), plan.getFeed(), new SubTotals(), null);
+        double buy = 0D, sell = 0D;
+        // Newest day first, each with a fresh lookup, as the source cost cache re-prices changed days
+        for (int day = usage.getDayCount() - 1; day >= 0; day--) {
+            UsageIndex.Cost cost = usage.costDay(day, new RateLookup(plan, seasonalPlan()), plan.getFeed(), new SubTotals());
+            buy += cost.buy;
+            sell += cost.sell;
+        }
+        assertEquals(whole.buy, buy, DELTA);
+        assertEquals(whole.sell, sell, DELTA);
+    }
+
+    @Test
+    public void dynamicPlanMergeJoinsTheSeriesAndFallsBackOutsideIt() {
+        PricePlan plan = new PricePlan();
+        plan.setFeed(15.0);
+        List<DayRate> fallbackRates = Collections.singletonList(
+                dayRate("01/01", "12/31", nightDayPeak(9.0, 21.0, 33.0), 0, 1, 2, 3, 4, 5, 6));
+        // Half-hourly prices for days 3-20 of the grid only
+        Random random = new Random(6L);
+        PriceSeries.Builder seriesBuilder = new PriceSeries.Builder(18 * 48);
+        for (long t = PriceSeries.wallMillis2001(3, 0); t < PriceSeries.wallMillis2001(21, 0); t += 30 * 60_000L)
+            seriesBuilder.add(t, t + 30 * 60_000L, random.nextDouble() * 40);
+        PriceSeries series = seriesBuilder.build();
+
+        double[][] rows = rows(30, 7L);
+        UsageIndex.Builder builder = new UsageIndex.Builder(rows.length);
+        for (double[] r : rows)
+            builder.add((int) r[0], (int) r[1], (int) r[2], r[3], r[4], PriceSeries.wallMillis2001((int) r[0], (int) r[2]));
+
+        RateLookup fallback = new RateLookup(plan, fallbackRates);
+        double buy = 0D, sell = 0D;
+        int slot = 0;
+        for (double[] r : rows) {
+            long t = PriceSeries.wallMillis2001((int) r[0], (int) r[2]);
+            while (slot < series.size() && series.getEnd(slot) <= t) slot++;
+            double price = (slot < series.size() && series.getStart(slot) <= t)
+                    ? series.getPrice(slot) : fallback.getRate((int) r[0], (int) r[2], (int) r[1], r[3]);
+            buy += price * r[3];
+            sell += plan.getFeed() * r[4];
+        }
+
+        UsageIndex usage = builder.build();
+        UsageIndex.Cost cost = usage.cost(series, PriceSeries.SLOT_MILLIS_5,
+                new RateLookup(plan, fallbackRates), plan.getFeed(), new SubTotals(), null);
+        assertEquals(buy, cost.buy, DELTA);
+        assertEquals(sell, cost.sell, DELTA);
+
+        // Day by day on one cursor, as CostingWorker keeps per-day costs
+        PriceSeries.Cursor cursor = series.cursor();
+        RateLookup dayFallback = new RateLookup(plan, fallbackRates);
+        double dayBuy = 0D, daySell = 0D;
+        for (int day = 0; day < usage.getDayCount(); day++) {
+            UsageIndex.Cost dayCost = usage.costDay(day, cursor, PriceSeries.SLOT_MILLIS_5,
+                    dayFallback, plan.getFeed(), new SubTotals());
+            dayBuy += dayCost.buy;
+            daySell += dayCost.sell;
+        }
+        assertEquals(buy, dayBuy, DELTA);
+        assertEquals(sell, daySell, DELTA);
+    }
+
+    @Test
+    public void emptyPlanCostsNothing() {
+        assertMatchesPerInterval(new PricePlan(), new ArrayList<>(), rows(3, 4L));
+    }
+}